@@ -26,6 +26,7 @@ import com.azure.android.communication.chat.implementation.notifications.signali
 import com.azure.android.communication.common.CommunicationTokenCredential;
 import com.azure.android.core.logging.ClientLogger;
 import com.azure.android.core.rest.Response;
+import com.azure.android.core.rest.RestProxy;
 import com.azure.android.core.rest.SimpleResponse;
 import com.azure.android.core.rest.annotation.ReturnType;
 import com.azure.android.core.rest.annotation.ServiceClient;
@@ -50,14 +51,24 @@ public final class ChatAsyncClient {
     private final SignalingClient signalingClient;
     private final PushNotificationClient pushNotificationClient;
     private final ChatImpl chatClient;
+    // true if this client backs a synchronous ChatClient.
+    private final boolean sendOnCallingThread;
 
     ChatAsyncClient(
         AzureCommunicationChatServiceImpl chatServiceClient,
         CommunicationTokenCredential communicationTokenCredential) {
+        this(chatServiceClient, communicationTokenCredential, false);
+    }
+
+    ChatAsyncClient(
+        AzureCommunicationChatServiceImpl chatServiceClient,
+        CommunicationTokenCredential communicationTokenCredential,
+        boolean sendOnCallingThread) {
         this.chatServiceClient = chatServiceClient;
         this.signalingClient = new CommunicationSignalingClient(communicationTokenCredential);
         this.chatClient = chatServiceClient.getChatClient();
         this.pushNotificationClient = new PushNotificationClient(communicationTokenCredential);
+        this.sendOnCallingThread = sendOnCallingThread;
     }
 
     /**
@@ -71,7 +82,7 @@ public final class ChatAsyncClient {
         if (chatThreadId == null) {
             throw logger.logExceptionAsError(new NullPointerException("'chatThreadId' cannot be null."));
         }
-        return new ChatThreadAsyncClient(this.chatServiceClient, chatThreadId);
+        return new ChatThreadAsyncClient(this.chatServiceClient, chatThreadId, this.sendOnCallingThread);
     }
 
     /**
@@ -122,7 +133,7 @@ public final class ChatAsyncClient {
      */
     CompletableFuture<Response<CreateChatThreadResult>> createChatThread(CreateChatThreadOptions options,
                                                                          RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatClient.createChatThreadWithResponseAsync(
             CreateChatThreadOptionsConverter.convert(options, this.logger),
             options.getIdempotencyToken(),
@@ -184,7 +195,7 @@ public final class ChatAsyncClient {
      */
     CompletableFuture<PagedResponse<ChatThreadItem>> getChatThreadsFirstPage(ListChatThreadsOptions listThreadsOptions,
                                                                              RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatClient.listChatThreadsSinglePageAsync(listThreadsOptions.getMaxPageSize(),
             listThreadsOptions.getStartTime(), requestContext)
             .exceptionally(throwable -> {
@@ -202,7 +213,7 @@ public final class ChatAsyncClient {
      */
     CompletableFuture<PagedResponse<ChatThreadItem>> getChatThreadsNextPage(String nextLink,
                                                                             RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatClient.listChatThreadsNextSinglePageAsync(nextLink, requestContext)
             .exceptionally(throwable -> {
                 throw logger.logExceptionAsError(CommunicationErrorResponseExceptionConverter.convert(throwable));
@@ -255,7 +266,7 @@ public final class ChatAsyncClient {
      * @return the {@link CompletableFuture} that emits response of the delete request.
      */
     CompletableFuture<Response<Void>> deleteChatThread(String chatThreadId, RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatClient.deleteChatThreadWithResponseAsync(chatThreadId, requestContext)
             .exceptionally(throwable -> {
                 throw logger.logExceptionAsError(CommunicationErrorResponseExceptionConverter.convert(throwable));
@@ -415,4 +426,18 @@ public final class ChatAsyncClient {
     public void removeEventHandler(ChatEventType chatEventType, RealTimeNotificationCallback listener) {
         this.signalingClient.off(chatEventType, listener);
     }
+
+    /**
+     * Gets the context to send a request with; when this client backs the synchronous {@link ChatClient},
+     * the context asks the {@link RestProxy} to send the request on the calling thread.
+     *
+     * @param requestContext The context given by the caller, may be null.
+     * @return The context to send the request with.
+     */
+    private RequestContext prepareRequestContext(RequestContext requestContext) {
+        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        return this.sendOnCallingThread
+            ? requestContext.addData(RestProxy.SEND_ON_CALLING_THREAD_KEY, true)
+            : requestContext;
+    }
 }
@@ -41,6 +41,11 @@ public final class ChatClient {
     /**
      * Creates a ChatClient that sends requests to the chat service.
      *
+     * <p>
+     * The {@code client} is expected to send its requests on the calling thread, so that the futures it returns
+     * are completed by the time they are blocked on.
+     * </p>
+     *
      * @param client The {@link ChatAsyncClient} that the client routes its request through.
      */
     ChatClient(ChatAsyncClient client) {
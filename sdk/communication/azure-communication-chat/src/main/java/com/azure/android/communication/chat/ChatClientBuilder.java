@@ -175,7 +175,7 @@ public final class ChatClientBuilder {
      * @return A {@link ChatClient} instance.
      */
     public ChatClient buildClient() {
-        ChatAsyncClient asyncClient = buildAsyncClient();
+        ChatAsyncClient asyncClient = buildAsyncClient(true);
         return new ChatClient(asyncClient);
     }
 
@@ -188,6 +188,10 @@ public final class ChatClientBuilder {
      * @return A {@link ChatAsyncClient} instance.
      */
     public ChatAsyncClient buildAsyncClient() {
+        return buildAsyncClient(false);
+    }
+
+    private ChatAsyncClient buildAsyncClient(boolean sendOnCallingThread) {
         if (this.endpoint == null) {
             throw logger.logExceptionAsError(new NullPointerException("Endpoint is required."));
         }
@@ -233,7 +237,7 @@ public final class ChatClientBuilder {
             .endpoint(this.endpoint)
             .pipeline(pipeline);
 
-        return new ChatAsyncClient(clientBuilder.buildClient(), this.communicationTokenCredential);
+        return new ChatAsyncClient(clientBuilder.buildClient(), this.communicationTokenCredential, sendOnCallingThread);
     }
 
     private HttpPipeline createHttpPipeline(HttpClient httpClient,
@@ -34,6 +34,7 @@ import com.azure.android.communication.chat.models.UpdateChatThreadOptions;
 import com.azure.android.communication.common.CommunicationIdentifier;
 import com.azure.android.core.logging.ClientLogger;
 import com.azure.android.core.rest.Response;
+import com.azure.android.core.rest.RestProxy;
 import com.azure.android.core.rest.SimpleResponse;
 import com.azure.android.core.rest.annotation.ReturnType;
 import com.azure.android.core.rest.annotation.ServiceClient;
@@ -60,10 +61,19 @@ public final class ChatThreadAsyncClient {
 
     private final ChatThreadImpl chatThreadClient;
     private final String chatThreadId;
+    // true if this client backs a synchronous ChatThreadClient.
+    private final boolean sendOnCallingThread;
 
     ChatThreadAsyncClient(AzureCommunicationChatServiceImpl chatServiceClient, String chatThreadId) {
+        this(chatServiceClient, chatThreadId, false);
+    }
+
+    ChatThreadAsyncClient(AzureCommunicationChatServiceImpl chatServiceClient,
+                          String chatThreadId,
+                          boolean sendOnCallingThread) {
         this.chatThreadClient = chatServiceClient.getChatThreadClient();
         this.chatThreadId = chatThreadId;
+        this.sendOnCallingThread = sendOnCallingThread;
     }
 
     /**
@@ -147,7 +157,7 @@ public final class ChatThreadAsyncClient {
      * @return the {@link CompletableFuture} that emits the response containing the thread properties.
      */
     CompletableFuture<Response<ChatThreadProperties>> getProperties(RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.getChatThreadPropertiesWithResponseAsync(this.chatThreadId, requestContext)
             .exceptionally(throwable -> {
                 throw logger.logExceptionAsError(CommunicationErrorResponseExceptionConverter.convert(throwable));
@@ -166,7 +176,7 @@ public final class ChatThreadAsyncClient {
      * @return the {@link CompletableFuture} that emits response of the update request.
      */
     CompletableFuture<Response<Void>> updateTopic(String topic, RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.updateChatThreadPropertiesWithResponseAsync(
             chatThreadId,
             new UpdateChatThreadOptions().setTopic(topic),
@@ -256,7 +266,7 @@ public final class ChatThreadAsyncClient {
      * @return the {@link CompletableFuture} that emits response containing the operation result.
      */
     CompletableFuture<Response<Void>> addParticipant(ChatParticipant participant, RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.addParticipants(
             Collections.singletonList(participant),
             requestContext)
@@ -283,7 +293,7 @@ public final class ChatThreadAsyncClient {
      */
     CompletableFuture<Response<AddChatParticipantsResult>> addParticipants(Iterable<ChatParticipant> participants,
                                                                            RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.addChatParticipantsWithResponseAsync(
             this.chatThreadId, AddChatParticipantsOptionsConverter.convert(participants, this.logger), requestContext)
             .exceptionally(throwable -> {
@@ -340,7 +350,7 @@ public final class ChatThreadAsyncClient {
      */
     CompletableFuture<Response<Void>> removeParticipant(CommunicationIdentifier identifier,
                                                         RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.removeChatParticipantWithResponseAsync(
             chatThreadId, CommunicationIdentifierConverter.convert(identifier, this.logger), requestContext)
             .exceptionally(throwable -> {
@@ -400,7 +410,7 @@ public final class ChatThreadAsyncClient {
     CompletableFuture<PagedResponse<ChatParticipant>> getParticipantsFirstPage(
         ListParticipantsOptions listParticipantsOptions,
         RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.listChatParticipantsSinglePageAsync(this.chatThreadId,
             listParticipantsOptions.getMaxPageSize(),
             listParticipantsOptions.getSkip(), requestContext)
@@ -433,7 +443,7 @@ public final class ChatThreadAsyncClient {
      */
     CompletableFuture<PagedResponse<ChatParticipant>> getParticipantsNextPage(String nextLink,
                                                                               RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.listChatParticipantsNextSinglePageAsync(nextLink, requestContext)
             .exceptionally(throwable -> {
                 throw logger.logExceptionAsError(CommunicationErrorResponseExceptionConverter.convert(throwable));
@@ -501,7 +511,7 @@ public final class ChatThreadAsyncClient {
      */
     CompletableFuture<Response<SendChatMessageResult>> sendMessage(SendChatMessageOptions options,
                                                                    RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.sendChatMessageWithResponseAsync(this.chatThreadId, options, requestContext)
             .exceptionally(throwable -> {
                 throw logger.logExceptionAsError(CommunicationErrorResponseExceptionConverter.convert(throwable));
@@ -555,7 +565,7 @@ public final class ChatThreadAsyncClient {
      */
     CompletableFuture<Response<ChatMessage>> getMessage(String chatMessageId,
                                                         RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.getChatMessageWithResponseAsync(chatThreadId, chatMessageId, requestContext)
             .exceptionally(throwable -> {
                 throw logger.logExceptionAsError(CommunicationErrorResponseExceptionConverter.convert(throwable));
@@ -615,7 +625,7 @@ public final class ChatThreadAsyncClient {
     CompletableFuture<PagedResponse<ChatMessage>> getMessagesFirstPage(
         ListChatMessagesOptions listChatMessagesOptions,
         RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.listChatMessagesSinglePageAsync(this.chatThreadId,
             listChatMessagesOptions.getMaxPageSize(),
             listChatMessagesOptions.getStartTime(), requestContext)
@@ -648,7 +658,7 @@ public final class ChatThreadAsyncClient {
      */
     CompletableFuture<PagedResponse<ChatMessage>> getMessagesNextPage(String nextLink,
                                                                       RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.listChatMessagesNextSinglePageAsync(nextLink, requestContext)
             .exceptionally(throwable -> {
                 throw logger.logExceptionAsError(CommunicationErrorResponseExceptionConverter.convert(throwable));
@@ -724,7 +734,7 @@ public final class ChatThreadAsyncClient {
     CompletableFuture<Response<Void>> updateMessage(String chatMessageId,
                                                     UpdateChatMessageOptions options,
                                                     RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.updateChatMessageWithResponseAsync(chatThreadId, chatMessageId, options,
             requestContext)
             .exceptionally(throwable -> {
@@ -779,7 +789,7 @@ public final class ChatThreadAsyncClient {
      */
     CompletableFuture<Response<Void>> deleteMessage(String chatMessageId,
                                                     RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.deleteChatMessageWithResponseAsync(chatThreadId, chatMessageId, requestContext)
             .exceptionally(throwable -> {
                 throw logger.logExceptionAsError(CommunicationErrorResponseExceptionConverter.convert(throwable));
@@ -840,7 +850,7 @@ public final class ChatThreadAsyncClient {
         TypingNotificationOptions typingNotificationOptions, RequestContext requestContext) {
         typingNotificationOptions = typingNotificationOptions == null
             ? new TypingNotificationOptions() : typingNotificationOptions;
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.sendTypingNotificationWithResponseAsync(
             chatThreadId, typingNotificationOptions, requestContext)
                 .exceptionally(throwable -> {
@@ -894,7 +904,7 @@ public final class ChatThreadAsyncClient {
      * @return the {@link CompletableFuture} that emits response of the operation.
      */
     CompletableFuture<Response<Void>> sendReadReceipt(String chatMessageId, RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         SendReadReceiptRequest request = new SendReadReceiptRequest()
             .setChatMessageId(chatMessageId);
         return this.chatThreadClient.sendChatReadReceiptWithResponseAsync(chatThreadId, request, requestContext)
@@ -957,7 +967,7 @@ public final class ChatThreadAsyncClient {
     CompletableFuture<PagedResponse<ChatMessageReadReceipt>> getReadReceiptsFirstPage(
         ListReadReceiptOptions listReadReceiptOptions,
         RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.listChatReadReceiptsSinglePageAsync(this.chatThreadId,
             listReadReceiptOptions.getMaxPageSize(),
             listReadReceiptOptions.getSkip(), requestContext)
@@ -991,7 +1001,7 @@ public final class ChatThreadAsyncClient {
      */
     CompletableFuture<PagedResponse<ChatMessageReadReceipt>> getReadReceiptsNextPage(String nextLink,
                                                                                      RequestContext requestContext) {
-        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        requestContext = this.prepareRequestContext(requestContext);
         return this.chatThreadClient.listChatReadReceiptsNextSinglePageAsync(nextLink, requestContext)
             .exceptionally(throwable -> {
                 throw logger.logExceptionAsError(CommunicationErrorResponseExceptionConverter.convert(throwable));
@@ -1011,4 +1021,18 @@ public final class ChatThreadAsyncClient {
                     null);
             });
     }
+
+    /**
+     * Gets the context to send a request with; when this client backs the synchronous {@link ChatThreadClient},
+     * the context asks the {@link RestProxy} to send the request on the calling thread.
+     *
+     * @param requestContext The context given by the caller, may be null.
+     * @return The context to send the request with.
+     */
+    private RequestContext prepareRequestContext(RequestContext requestContext) {
+        requestContext = requestContext == null ? RequestContext.NONE : requestContext;
+        return this.sendOnCallingThread
+            ? requestContext.addData(RestProxy.SEND_ON_CALLING_THREAD_KEY, true)
+            : requestContext;
+    }
 }
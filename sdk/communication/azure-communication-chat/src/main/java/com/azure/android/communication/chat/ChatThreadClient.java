@@ -46,6 +46,11 @@ public final class ChatThreadClient {
      * Creates a ChatClient that sends requests to the chat service at {@code serviceEndpoint}. Each
      * service call goes through the {@code pipeline}.
      *
+     * <p>
+     * The {@code client} is expected to send its requests on the calling thread, so that the futures it returns
+     * are completed by the time they are blocked on.
+     * </p>
+     *
      * @param client The {@link ChatAsyncClient} that the client routes its request through.
      */
     ChatThreadClient(ChatThreadAsyncClient client) {
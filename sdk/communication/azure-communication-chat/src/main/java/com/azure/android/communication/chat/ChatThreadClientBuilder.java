@@ -188,7 +188,7 @@ public final class ChatThreadClientBuilder {
      * @return A {@link ChatThreadClient} instance.
      */
     public ChatThreadClient buildClient() {
-        return new ChatThreadClient(buildAsyncClient());
+        return new ChatThreadClient(buildAsyncClient(true));
     }
 
     /**
@@ -200,11 +200,15 @@ public final class ChatThreadClientBuilder {
      * @return A {@link ChatThreadAsyncClient} instance.
      */
     public ChatThreadAsyncClient buildAsyncClient() {
+        return buildAsyncClient(false);
+    }
+
+    private ChatThreadAsyncClient buildAsyncClient(boolean sendOnCallingThread) {
         if (chatThreadId == null) {
             throw logger.logExceptionAsError(new NullPointerException("'chatThreadId' is required."));
         }
 
-        return new ChatThreadAsyncClient(createInternalClient(), chatThreadId);
+        return new ChatThreadAsyncClient(createInternalClient(), chatThreadId, sendOnCallingThread);
     }
 
     private AzureCommunicationChatServiceImpl createInternalClient() {
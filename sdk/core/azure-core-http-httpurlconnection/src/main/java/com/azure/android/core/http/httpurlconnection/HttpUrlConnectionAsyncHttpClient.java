@@ -8,14 +8,17 @@ import com.azure.android.core.http.HttpCallback;
 import com.azure.android.core.http.HttpClient;
 import com.azure.android.core.http.HttpHeaders;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
 import com.azure.android.core.http.HttpHeader;
 import com.azure.android.core.http.HttpMethod;
 import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.implementation.BufferPool;
+import com.azure.android.core.http.implementation.LazyHttpHeaders;
+import com.azure.android.core.http.implementation.PooledByteArrayOutputStream;
 import com.azure.android.core.util.CancellationToken;
 import com.azure.android.core.logging.ClientLogger;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -24,9 +27,9 @@ import java.net.HttpURLConnection;
 import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -49,7 +52,7 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
 
     @Override
     public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
-        if (httpRequest.getTags().containsKey("prefer-running-http-in-calling-thread")) {
+        if (httpRequest.isCallingThreadPreferred()) {
             this.sendIntern(httpRequest, cancellationToken, httpCallback);
         } else {
             this.httpCallDispatcher.enqueue(new HttpCallDispatcher.HttpCallFunction() {
@@ -78,6 +81,12 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
 
         connection.setDoInput(true);
 
+        final String onCancelId = (cancellationToken == CancellationToken.NONE) ? null : UUID.randomUUID().toString();
+        if (onCancelId != null) {
+            // Disconnecting closes the socket, aborting a connect or a read blocked on an unresponsive host.
+            cancellationToken.registerOnCancel(onCancelId, () -> connection.disconnect());
+        }
+
         Throwable error = null;
         HttpResponse httpResponse = null;
         boolean hasResponseContent = false;
@@ -100,12 +109,21 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
                 case PATCH:
                 case DELETE:
                     connection.setRequestMethod(httpRequest.getHttpMethod().toString());
-                    final byte[] requestContent = httpRequest.getBody();
+                    final HttpRequestBody requestContent = httpRequest.getRequestBody();
                     if (requestContent != null) {
                         connection.setDoOutput(true);
+                        if (!requestContent.isInMemory()) {
+                            // Stream the content, rather than letting the connection buffer all of it.
+                            final long contentLength = requestContent.getContentLength();
+                            if (contentLength >= 0 && contentLength <= Integer.MAX_VALUE) {
+                                connection.setFixedLengthStreamingMode((int) contentLength);
+                            } else {
+                                connection.setChunkedStreamingMode(0);
+                            }
+                        }
                         final OutputStream requestContentStream = connection.getOutputStream();
                         try {
-                            requestContentStream.write(requestContent);
+                            requestContent.writeTo(requestContentStream);
                         } finally {
                             requestContentStream.close();
                         }
@@ -125,22 +143,7 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
             }
 
             // Response: headers
-            final Map<String, List<String>> connHeaderMap = connection.getHeaderFields();
-            final HttpHeaders headers = new HttpHeaders();
-            for (Map.Entry<String, List<String>> entry : connHeaderMap.entrySet()) {
-                if (entry.getKey() == null) {
-                    continue;
-                }
-                final String headerName = entry.getKey();
-                final String headerValue;
-                Iterator<String> hdrValueItr = entry.getValue().iterator();
-                if (hdrValueItr.hasNext()) {
-                    headerValue = hdrValueItr.next();
-                } else {
-                    headerValue = null;
-                }
-                headers.put(headerName, headerValue);
-            }
+            final HttpHeaders headers = new UrlConnectionHeaders(connection);
 
             // Response: Content
             hasResponseContent = statusCode != HttpURLConnection.HTTP_NO_CONTENT
@@ -160,12 +163,18 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
         } catch (Throwable e) {
             error = e;
         } finally {
+            if (onCancelId != null) {
+                cancellationToken.unregisterOnCancel(onCancelId);
+            }
             if (error != null || !hasResponseContent) {
                 connection.disconnect();
             }
         }
 
         if (error != null) {
+            if (cancellationToken.isCancellationRequested()) {
+                error = new IOException("Canceled.", error);
+            }
             httpCallback.onError(error);
             return;
         } else {
@@ -198,6 +207,71 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
         }
     }
 
+    /**
+     * A read-through view over the header fields of a connection, keeping all the values of a header that occurs
+     * more than once in the order they were received.
+     *
+     * <p>
+     * The fields are read by index rather than with {@link HttpURLConnection#getHeaderFields()}, whose lists hold
+     * the values in reverse order on some platforms; only the references to the names and values are copied, since
+     * the connection may be disconnected before the headers are read.
+     * </p>
+     */
+    private static final class UrlConnectionHeaders extends LazyHttpHeaders {
+        private String[] namesAndValues = new String[32];
+        private int length;
+
+        UrlConnectionHeaders(HttpURLConnection connection) {
+            String value;
+            for (int i = 0; (value = connection.getHeaderField(i)) != null; i++) {
+                final String name = connection.getHeaderFieldKey(i);
+                // The status line has no name.
+                if (name == null) {
+                    continue;
+                }
+                if (this.length == this.namesAndValues.length) {
+                    final String[] newNamesAndValues = new String[this.length << 1];
+                    System.arraycopy(this.namesAndValues, 0, newNamesAndValues, 0, this.length);
+                    this.namesAndValues = newNamesAndValues;
+                }
+                this.namesAndValues[this.length++] = name;
+                this.namesAndValues[this.length++] = value;
+            }
+        }
+
+        @Override
+        protected String readValue(String name) {
+            String values = null;
+            for (int i = 0; i < this.length; i += 2) {
+                if (this.namesAndValues[i].equalsIgnoreCase(name)) {
+                    values = joinValue(values, this.namesAndValues[i + 1]);
+                }
+            }
+            return values;
+        }
+
+        @Override
+        protected String[] readValues(String name) {
+            List<String> values = null;
+            for (int i = 0; i < this.length; i += 2) {
+                if (this.namesAndValues[i].equalsIgnoreCase(name)) {
+                    if (values == null) {
+                        values = new ArrayList<>(1);
+                    }
+                    values.add(this.namesAndValues[i + 1]);
+                }
+            }
+            return values == null ? null : values.toArray(new String[0]);
+        }
+
+        @Override
+        protected void readHeaders() {
+            for (int i = 0; i < this.length; i += 2) {
+                this.addHeader(this.namesAndValues[i], this.namesAndValues[i + 1]);
+            }
+        }
+    }
+
     private static class UrlConnectionResponse extends HttpResponse {
         private final ClientLogger logger;
         private final int statusCode;
@@ -238,25 +312,21 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
 
         @Override
         public byte[] getBodyAsByteArray() {
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            int nRead;
-            byte[] data = new byte[1024];
+            // Read into an array of the pool, released once the content is copied to an array of its length.
+            final PooledByteArrayOutputStream buffer = new PooledByteArrayOutputStream(BufferPool.getSharedPool());
             InputStream is = this.getBody();
             try {
-                while ((nRead = is.read(data, 0, data.length)) != -1) {
-                    buffer.write(data, 0, nRead);
-                }
-                buffer.flush();
+                return buffer.readFrom(is).toByteArray();
             } catch (IOException ioe) {
                 throw logger.logExceptionAsError(new RuntimeException(ioe));
             } finally {
+                buffer.close();
                 try {
                     is.close();
                 } catch (IOException ioe) {
                     throw logger.logExceptionAsError(new RuntimeException(ioe));
                 }
             }
-            return buffer.toByteArray();
         }
 
         @Override
@@ -0,0 +1,200 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.jdk;
+
+import com.azure.android.core.http.HttpCallDispatcher;
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpHeader;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
+import com.azure.android.core.util.CancellationToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link HttpClient} sending the requests with {@link java.net.http.HttpClient#sendAsync}, which multiplexes the
+ * concurrent calls to a host on a single HTTP/2 connection when the server supports it.
+ *
+ * <p>
+ * The dispatcher thread running a call only builds the request and writes its body if it is streamed; it is then
+ * free while the server responds. The callbacks are delivered on the executor of the {@code java.net.http} client if
+ * it has one, or else on a bounded pool of threads of this client, where the response body can be read as it is
+ * received.
+ * </p>
+ */
+class JdkAsyncHttpClient implements HttpClient {
+    private static final AtomicInteger CALLBACK_THREAD_COUNT = new AtomicInteger();
+    // The headers the java.net.http client sets itself, from the url and the body of the request.
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        RESTRICTED_HEADERS.add("Connection");
+        RESTRICTED_HEADERS.add("Content-Length");
+        RESTRICTED_HEADERS.add("Expect");
+        RESTRICTED_HEADERS.add("Host");
+        RESTRICTED_HEADERS.add("Upgrade");
+    }
+
+    private final HttpCallDispatcher httpCallDispatcher;
+    private final java.net.http.HttpClient jdkHttpClient;
+    private final Executor callbackExecutor;
+
+    JdkAsyncHttpClient(HttpCallDispatcher httpCallDispatcher, java.net.http.HttpClient jdkHttpClient,
+                       int maxCallbackThreads) {
+        this.httpCallDispatcher = httpCallDispatcher;
+        this.jdkHttpClient = jdkHttpClient;
+        this.callbackExecutor = jdkHttpClient.executor().orElseGet(() -> newCallbackExecutor(maxCallbackThreads));
+    }
+
+    /**
+     * Creates a pool of at most {@code maxThreads} daemon threads, queuing the callbacks while all are busy. The
+     * threads exit once idle for a while, so that an idle client does not hold them.
+     */
+    private static Executor newCallbackExecutor(int maxThreads) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                final Thread thread = new Thread(runnable,
+                    "azure-core-http-jdk-callback-" + CALLBACK_THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public HttpCallDispatcher getHttpCallDispatcher() {
+        return this.httpCallDispatcher;
+    }
+
+    @Override
+    public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+        if (httpRequest.isCallingThreadPreferred()) {
+            this.sendIntern(httpRequest, cancellationToken, httpCallback);
+        } else {
+            this.httpCallDispatcher.enqueue(new HttpCallDispatcher.HttpCallFunction() {
+                @Override
+                public void apply(HttpRequest request, HttpCallback httpCallback) {
+                    sendIntern(request, cancellationToken, httpCallback);
+                }
+            }, httpRequest, cancellationToken, httpCallback);
+        }
+    }
+
+    private void sendIntern(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+        if (cancellationToken.isCancellationRequested()) {
+            httpCallback.onError(new IOException("Canceled."));
+            return;
+        }
+
+        final HttpRequestBody requestBody = httpRequest.getRequestBody();
+        // The body written by the calling thread, null if there is none or it is in memory.
+        final RequestBodyPublisher streamedBody;
+        final java.net.http.HttpRequest jdkRequest;
+        try {
+            final BodyPublisher bodyPublisher;
+            if (requestBody == null || requestBody.getContentLength() == 0) {
+                streamedBody = null;
+                bodyPublisher = BodyPublishers.noBody();
+            } else if (requestBody.isInMemory()) {
+                streamedBody = null;
+                bodyPublisher = inMemoryBodyPublisher(requestBody);
+            } else {
+                streamedBody = new RequestBodyPublisher(requestBody.getContentLength());
+                bodyPublisher = streamedBody;
+            }
+            jdkRequest = toJdkRequest(httpRequest, bodyPublisher);
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            httpCallback.onError(e);
+            return;
+        }
+
+        final CompletableFuture<java.net.http.HttpResponse<InputStream>> responseFuture;
+        try {
+            responseFuture = this.jdkHttpClient.sendAsync(jdkRequest, BodyHandlers.ofInputStream());
+        } catch (RuntimeException e) {
+            httpCallback.onError(e);
+            return;
+        }
+
+        final String onCancelId = (cancellationToken == CancellationToken.NONE) ? null : UUID.randomUUID().toString();
+        if (onCancelId != null) {
+            // Completes the future with a CancellationException; since JDK 16, it also aborts the exchange.
+            cancellationToken.registerOnCancel(onCancelId, () -> responseFuture.cancel(true));
+        }
+
+        // Not completed on the thread cancelling the call or, for a future already completed, on this thread.
+        responseFuture.whenCompleteAsync((jdkResponse, error) -> {
+            if (onCancelId != null) {
+                cancellationToken.unregisterOnCancel(onCancelId);
+            }
+            if (streamedBody != null) {
+                // Releases the calling thread if it is still writing the body, e.g. if the server responded early.
+                streamedBody.abort();
+            }
+            if (error == null) {
+                httpCallback.onSuccess(new JdkHttpResponse(httpRequest, jdkResponse));
+            } else {
+                httpCallback.onError(unwrap(error, cancellationToken));
+            }
+        }, this.callbackExecutor);
+
+        if (streamedBody != null) {
+            streamedBody.writeFrom(requestBody);
+        }
+    }
+
+    private static BodyPublisher inMemoryBodyPublisher(HttpRequestBody requestBody) throws IOException {
+        final ByteBuffer content = requestBody.asByteBuffer();
+        if (content != null && content.hasArray()) {
+            // Published from the body's own array, not copied.
+            return BodyPublishers.ofByteArray(content.array(), content.arrayOffset() + content.position(),
+                content.remaining());
+        }
+        return BodyPublishers.ofByteArray(requestBody.toBytes());
+    }
+
+    private static java.net.http.HttpRequest toJdkRequest(HttpRequest httpRequest, BodyPublisher bodyPublisher)
+        throws URISyntaxException {
+        final java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest
+            .newBuilder(httpRequest.getUrl().toURI())
+            .method(httpRequest.getHttpMethod().name(), bodyPublisher);
+        for (HttpHeader header : httpRequest.getHeaders()) {
+            final String value = header.getValue();
+            if (value != null && !RESTRICTED_HEADERS.contains(header.getName())) {
+                builder.header(header.getName(), value);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Throwable unwrap(Throwable error, CancellationToken cancellationToken) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof CancellationException || cancellationToken.isCancellationRequested()) {
+            return new IOException("Canceled.", cause);
+        }
+        return cause;
+    }
+}
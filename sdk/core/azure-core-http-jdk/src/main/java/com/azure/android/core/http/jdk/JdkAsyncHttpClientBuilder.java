@@ -0,0 +1,90 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.jdk;
+
+import com.azure.android.core.http.HttpCallDispatcher;
+import com.azure.android.core.http.HttpClient;
+
+/**
+ * Builder class responsible for creating instances of {@link com.azure.android.core.http.HttpClient} backed by the
+ * {@code java.net.http} client of the JDK.
+ */
+public class JdkAsyncHttpClientBuilder {
+    private static final int DEFAULT_MAX_CALLBACK_THREADS = 64;
+
+    private final java.net.http.HttpClient jdkHttpClient;
+    private HttpCallDispatcher httpCallDispatcher;
+    private int maxCallbackThreads = DEFAULT_MAX_CALLBACK_THREADS;
+
+    /**
+     * Creates JdkAsyncHttpClientBuilder.
+     */
+    public JdkAsyncHttpClientBuilder() {
+        this.jdkHttpClient = null;
+    }
+
+    /**
+     * Creates JdkAsyncHttpClientBuilder sending the requests with an existing {@code java.net.http} client, for
+     * instance one configured with a connect timeout, a proxy, an executor or an {@link javax.net.ssl.SSLContext}.
+     *
+     * @param jdkHttpClient The {@code java.net.http} client.
+     * @throws NullPointerException if the jdkHttpClient parameter is null.
+     */
+    public JdkAsyncHttpClientBuilder(java.net.http.HttpClient jdkHttpClient) {
+        if (jdkHttpClient == null) {
+            throw new NullPointerException("'jdkHttpClient' is required.");
+        }
+        this.jdkHttpClient = jdkHttpClient;
+    }
+
+    /**
+     * Sets the {@link HttpCallDispatcher} to execute the enqueued HTTP calls.
+     *
+     * @param httpCallDispatcher The HTTP call dispatcher
+     * @return The updated JdkAsyncHttpClientBuilder object.
+     * @throws NullPointerException if the httpCallDispatcher parameter is null.
+     */
+    public JdkAsyncHttpClientBuilder setHttpCallDispatcher(HttpCallDispatcher httpCallDispatcher) {
+        if (httpCallDispatcher == null) {
+            throw new NullPointerException("'httpCallDispatcher' is required.");
+        }
+        this.httpCallDispatcher = httpCallDispatcher;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of threads delivering the responses and failures to the callbacks, on which the
+     * response bodies are read, when the {@code java.net.http} client has no executor of its own. The default is 64,
+     * the default maximum number of calls an {@link HttpCallDispatcher} runs concurrently; the callbacks beyond it
+     * wait for a thread.
+     *
+     * @param maxCallbackThreads The maximum number of callback threads.
+     * @return The updated JdkAsyncHttpClientBuilder object.
+     * @throws IllegalArgumentException if maxCallbackThreads is not positive.
+     */
+    public JdkAsyncHttpClientBuilder setMaxCallbackThreads(int maxCallbackThreads) {
+        if (maxCallbackThreads <= 0) {
+            throw new IllegalArgumentException("'maxCallbackThreads' must be positive.");
+        }
+        this.maxCallbackThreads = maxCallbackThreads;
+        return this;
+    }
+
+    /**
+     * Creates a new JDK-backed {@link com.azure.android.core.http.HttpClient} instance on every call, using the
+     * configuration set in the builder at the time of the build method call.
+     *
+     * @return A new JDK-backed {@link com.azure.android.core.http.HttpClient} instance.
+     */
+    public HttpClient build() {
+        final HttpCallDispatcher httpCallDispatcher = this.httpCallDispatcher == null
+            ? new HttpCallDispatcher()
+            : this.httpCallDispatcher;
+        // The default client negotiates HTTP/2 and does not follow redirects, which are handled by the pipeline.
+        final java.net.http.HttpClient jdkHttpClient = this.jdkHttpClient == null
+            ? java.net.http.HttpClient.newHttpClient()
+            : this.jdkHttpClient;
+        return new JdkAsyncHttpClient(httpCallDispatcher, jdkHttpClient, this.maxCallbackThreads);
+    }
+}
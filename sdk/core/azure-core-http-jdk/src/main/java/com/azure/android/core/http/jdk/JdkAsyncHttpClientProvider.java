@@ -0,0 +1,18 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.jdk;
+
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpClientProvider;
+
+/**
+ * An {@link HttpClientProvider} that provides an implementation of HttpClient based on the {@code java.net.http}
+ * client of the JDK.
+ */
+public class JdkAsyncHttpClientProvider implements HttpClientProvider {
+    @Override
+    public HttpClient createInstance() {
+        return new JdkAsyncHttpClientBuilder().build();
+    }
+}
@@ -0,0 +1,197 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.jdk;
+
+import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.implementation.BufferPool;
+import com.azure.android.core.http.implementation.LazyHttpHeaders;
+import com.azure.android.core.http.implementation.PooledByteArrayOutputStream;
+import com.azure.android.core.logging.ClientLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A response of the {@link JdkAsyncHttpClient}, whose body is read as the {@code java.net.http} client receives it.
+ */
+final class JdkHttpResponse extends HttpResponse {
+    private static final ClientLogger LOGGER = new ClientLogger(JdkHttpResponse.class);
+    private static final Pattern CHARSET_PATTERN
+        = Pattern.compile("charset=([\\S]+)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final InputStream body;
+
+    JdkHttpResponse(HttpRequest request, java.net.http.HttpResponse<InputStream> jdkResponse) {
+        super(request);
+        this.statusCode = jdkResponse.statusCode();
+        this.headers = new ResponseHeaders(jdkResponse.headers());
+        this.body = jdkResponse.body();
+    }
+
+    @Override
+    public int getStatusCode() {
+        return this.statusCode;
+    }
+
+    @Override
+    public String getHeaderValue(String name) {
+        return this.headers.getValue(name);
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return this.headers;
+    }
+
+    @Override
+    public InputStream getBody() {
+        return this.body;
+    }
+
+    @Override
+    public byte[] getBodyAsByteArray() {
+        // Read into an array of the pool, released once the content is copied to an array of its length.
+        final PooledByteArrayOutputStream buffer = new PooledByteArrayOutputStream(BufferPool.getSharedPool());
+        try {
+            return buffer.readFrom(this.body).toByteArray();
+        } catch (IOException ioe) {
+            throw LOGGER.logExceptionAsError(new RuntimeException(ioe));
+        } finally {
+            buffer.close();
+            this.close();
+        }
+    }
+
+    @Override
+    public String getBodyAsString() {
+        return bomAwareToString(this.getBodyAsByteArray(), this.headers.getValue(HttpHeaders.CONTENT_TYPE));
+    }
+
+    @Override
+    public String getBodyAsString(Charset charset) {
+        return new String(this.getBodyAsByteArray(), charset);
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.body.close();
+        } catch (IOException ioe) {
+            throw LOGGER.logExceptionAsError(new RuntimeException(ioe));
+        }
+    }
+
+    /**
+     * Attempts to convert a byte stream into the properly encoded String.
+     * <p>
+     * The method will attempt to find the encoding for the String in this order.
+     * <ol>
+     *     <li>Find the byte order mark in the byte array.</li>
+     *     <li>Find the {@code charset} in the {@code Content-Type} header.</li>
+     *     <li>Default to {@code UTF-8}.</li>
+     * </ol>
+     *
+     * @param bytes Byte array.
+     * @param contentType {@code Content-Type} header value.
+     * @return A string representation of the byte array encoded to the found encoding.
+     */
+    private static String bomAwareToString(byte[] bytes, String contentType) {
+        if (bytes == null) {
+            return null;
+        }
+
+        if (bytes.length >= 3
+            && bytes[0] == (byte) 0xEF
+            && bytes[1] == (byte) 0xBB
+            && bytes[2] == (byte) 0xBF) {
+            return new String(bytes, 3, bytes.length - 3, Charset.forName("UTF-8"));
+        } else if (bytes.length >= 4
+            && bytes[0] == (byte) 0x00
+            && bytes[1] == (byte) 0x00
+            && bytes[2] == (byte) 0xFE
+            && bytes[3] == (byte) 0xFF) {
+            return new String(bytes, 4, bytes.length - 4, Charset.forName("UTF-32BE"));
+        } else if (bytes.length >= 4
+            && bytes[0] == (byte) 0xFF
+            && bytes[1] == (byte) 0xFE
+            && bytes[2] == (byte) 0x00
+            && bytes[3] == (byte) 0x00) {
+            return new String(bytes, 4, bytes.length - 4, Charset.forName("UTF-32LE"));
+        } else if (bytes.length >= 2
+            && bytes[0] == (byte) 0xFE
+            && bytes[1] == (byte) 0xFF) {
+            return new String(bytes, 2, bytes.length - 2, Charset.forName("UTF-16BE"));
+        } else if (bytes.length >= 2
+            && bytes[0] == (byte) 0xFF
+            && bytes[1] == (byte) 0xFE) {
+            return new String(bytes, 2, bytes.length - 2, Charset.forName("UTF-16LE"));
+        } else {
+            /*
+             * Attempt to retrieve the default charset from the 'Content-Encoding' header,
+             * if the value isn't present or invalid fallback to 'UTF-8' for the default charset.
+             */
+            if (contentType != null && contentType.length() != 0) {
+                try {
+                    Matcher charsetMatcher = CHARSET_PATTERN.matcher(contentType);
+                    if (charsetMatcher.find()) {
+                        return new String(bytes, Charset.forName(charsetMatcher.group(1)));
+                    } else {
+                        return new String(bytes, Charset.forName("UTF-8"));
+                    }
+                } catch (IllegalCharsetNameException | UnsupportedCharsetException ex) {
+                    return new String(bytes, Charset.forName("UTF-8"));
+                }
+            } else {
+                return new String(bytes, Charset.forName("UTF-8"));
+            }
+        }
+    }
+
+    /**
+     * A read-through view over the headers of the {@code java.net.http} response, keeping all the values of a header
+     * that occurs more than once in the order they were received.
+     */
+    private static final class ResponseHeaders extends LazyHttpHeaders {
+        private final java.net.http.HttpHeaders jdkHeaders;
+
+        ResponseHeaders(java.net.http.HttpHeaders jdkHeaders) {
+            this.jdkHeaders = jdkHeaders;
+        }
+
+        @Override
+        protected String readValue(String name) {
+            String values = null;
+            for (String value : this.jdkHeaders.allValues(name)) {
+                values = joinValue(values, value);
+            }
+            return values;
+        }
+
+        @Override
+        protected String[] readValues(String name) {
+            final List<String> values = this.jdkHeaders.allValues(name);
+            return values.isEmpty() ? null : values.toArray(new String[0]);
+        }
+
+        @Override
+        protected void readHeaders() {
+            for (Map.Entry<String, List<String>> header : this.jdkHeaders.map().entrySet()) {
+                for (String value : header.getValue()) {
+                    this.addHeader(header.getKey(), value);
+                }
+            }
+        }
+    }
+}
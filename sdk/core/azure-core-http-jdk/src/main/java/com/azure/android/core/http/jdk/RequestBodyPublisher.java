@@ -0,0 +1,190 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.jdk;
+
+import com.azure.android.core.http.HttpRequestBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link BodyPublisher} of a request body streamed by {@link HttpRequestBody#writeTo(OutputStream)} on the thread
+ * sending the request, which waits while the {@code java.net.http} client has not requested more of the body.
+ *
+ * <p>
+ * The body is written once; a second subscription, e.g. the client retrying the request, is failed, as the body
+ * cannot be replayed.
+ * </p>
+ */
+final class RequestBodyPublisher implements BodyPublisher {
+    private static final int CHUNK_LENGTH = 8 * 1024;
+    private static final Flow.Subscription NO_OP_SUBSCRIPTION = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final long contentLength;
+
+    // Guarded by 'this'.
+    private boolean subscribed;
+    // Set once the subscriber received its subscription, so that it is signalled nothing before.
+    private Flow.Subscriber<? super ByteBuffer> subscriber;
+    private long demand;
+    // Set if the subscription was cancelled or the response was received, to stop writing the body.
+    private boolean aborted;
+
+    RequestBodyPublisher(long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    @Override
+    public long contentLength() {
+        return this.contentLength;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        final boolean alreadySubscribed;
+        synchronized (this) {
+            alreadySubscribed = this.subscribed;
+            this.subscribed = true;
+        }
+        if (alreadySubscribed) {
+            subscriber.onSubscribe(NO_OP_SUBSCRIPTION);
+            subscriber.onError(new IllegalStateException("The streamed request body can only be sent once."));
+            return;
+        }
+
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                synchronized (RequestBodyPublisher.this) {
+                    // Saturates at Long.MAX_VALUE, meaning an unbounded demand.
+                    final long newDemand = demand + Math.max(n, 0);
+                    demand = newDemand < 0 ? Long.MAX_VALUE : newDemand;
+                    RequestBodyPublisher.this.notifyAll();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                abort();
+            }
+        });
+        synchronized (this) {
+            this.subscriber = subscriber;
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * Writes the body on the calling thread, until it is fully written or the publisher is aborted. A failure
+     * writing the body fails the request.
+     *
+     * @param requestBody The body.
+     */
+    void writeFrom(HttpRequestBody requestBody) {
+        final ChunkStream stream = new ChunkStream();
+        Throwable error = null;
+        try {
+            requestBody.writeTo(stream);
+            stream.flushChunk();
+        } catch (IOException | RuntimeException e) {
+            error = e;
+        }
+
+        final Flow.Subscriber<? super ByteBuffer> subscriber;
+        try {
+            subscriber = this.awaitSubscriber(false);
+        } catch (IOException e) {
+            // Aborted, the request already completed.
+            return;
+        }
+        if (error == null) {
+            subscriber.onComplete();
+        } else {
+            subscriber.onError(error);
+        }
+        this.abort();
+    }
+
+    /**
+     * Stops writing the body, failing the pending and next writes of the calling thread.
+     */
+    synchronized void abort() {
+        this.aborted = true;
+        this.notifyAll();
+    }
+
+    private void emit(ByteBuffer chunk) throws IOException {
+        this.awaitSubscriber(true).onNext(chunk);
+    }
+
+    private synchronized Flow.Subscriber<? super ByteBuffer> awaitSubscriber(boolean forNext) throws IOException {
+        while (!this.aborted && (this.subscriber == null || (forNext && this.demand == 0))) {
+            try {
+                this.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing the request body.");
+            }
+        }
+        if (this.aborted) {
+            throw new IOException("The request completed or was canceled before its body was written.");
+        }
+        if (forNext && this.demand != Long.MAX_VALUE) {
+            this.demand--;
+        }
+        return this.subscriber;
+    }
+
+    /**
+     * The stream the body is written to, handed to the subscriber in chunks as it requests them.
+     */
+    private final class ChunkStream extends OutputStream {
+        private byte[] chunk = new byte[CHUNK_LENGTH];
+        private int length;
+
+        @Override
+        public void write(int b) throws IOException {
+            this.chunk[this.length++] = (byte) b;
+            if (this.length == this.chunk.length) {
+                this.flushChunk();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                final int count = Math.min(len, this.chunk.length - this.length);
+                System.arraycopy(b, off, this.chunk, this.length, count);
+                this.length += count;
+                off += count;
+                len -= count;
+                if (this.length == this.chunk.length) {
+                    this.flushChunk();
+                }
+            }
+        }
+
+        void flushChunk() throws IOException {
+            if (this.length > 0) {
+                // The subscriber owns the chunk once it is emitted.
+                final ByteBuffer buffer = ByteBuffer.wrap(this.chunk, 0, this.length);
+                this.chunk = new byte[CHUNK_LENGTH];
+                this.length = 0;
+                emit(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The idle keep-alive connections of a {@link NioAsyncHttpClient}, by address.
+ *
+ * <p>
+ * The most recently released connection of an address is reused first, so that the connections in excess of the
+ * load stay idle and expire. An idle connection stays registered with the event loop, which closes it if the server
+ * closes it.
+ * </p>
+ */
+final class ConnectionPool {
+    private final int maxIdleConnectionsPerAddress;
+    private final long keepAliveNanos;
+    private final Map<String, ArrayDeque<NioConnection>> idleConnections = new HashMap<>();
+
+    ConnectionPool(int maxIdleConnectionsPerAddress, long keepAliveNanos) {
+        this.maxIdleConnectionsPerAddress = maxIdleConnectionsPerAddress;
+        this.keepAliveNanos = keepAliveNanos;
+    }
+
+    /**
+     * Takes an idle connection to an address out of the pool.
+     *
+     * @param address The address, as {@code scheme://host:port}.
+     * @return The idle connection, null if there is none.
+     */
+    synchronized NioConnection acquire(String address) {
+        final ArrayDeque<NioConnection> connections = this.idleConnections.get(address);
+        if (connections == null) {
+            return null;
+        }
+        final NioConnection connection = connections.pollLast();
+        if (connections.isEmpty()) {
+            this.idleConnections.remove(address);
+        }
+        return connection;
+    }
+
+    /**
+     * Puts a connection whose exchange completed into the pool.
+     *
+     * @param connection The connection.
+     * @param nowNanos The current {@link System#nanoTime()}.
+     * @return false if the pool has as many idle connections to the address as allowed, the caller then closes
+     * the connection.
+     */
+    synchronized boolean release(NioConnection connection, long nowNanos) {
+        ArrayDeque<NioConnection> connections = this.idleConnections.get(connection.getAddress());
+        if (connections == null) {
+            if (this.maxIdleConnectionsPerAddress == 0) {
+                return false;
+            }
+            connections = new ArrayDeque<>();
+            this.idleConnections.put(connection.getAddress(), connections);
+        } else if (connections.size() >= this.maxIdleConnectionsPerAddress) {
+            return false;
+        }
+        connection.setIdleSinceNanos(nowNanos);
+        connections.addLast(connection);
+        return true;
+    }
+
+    /**
+     * Removes a connection from the pool, if it is idle.
+     *
+     * @param connection The connection.
+     * @return true if the connection was idle in the pool.
+     */
+    synchronized boolean remove(NioConnection connection) {
+        final ArrayDeque<NioConnection> connections = this.idleConnections.get(connection.getAddress());
+        if (connections == null || !connections.remove(connection)) {
+            return false;
+        }
+        if (connections.isEmpty()) {
+            this.idleConnections.remove(connection.getAddress());
+        }
+        return true;
+    }
+
+    /**
+     * Removes the connections idle for longer than the keep-alive duration from the pool.
+     *
+     * @param nowNanos The current {@link System#nanoTime()}.
+     * @return The removed connections, for the caller to close.
+     */
+    synchronized List<NioConnection> removeExpired(long nowNanos) {
+        List<NioConnection> expiredConnections = Collections.emptyList();
+        final Iterator<ArrayDeque<NioConnection>> iterator = this.idleConnections.values().iterator();
+        while (iterator.hasNext()) {
+            final ArrayDeque<NioConnection> connections = iterator.next();
+            // The least recently released connections are first.
+            while (!connections.isEmpty()
+                && nowNanos - connections.peekFirst().getIdleSinceNanos() >= this.keepAliveNanos) {
+                if (expiredConnections.isEmpty()) {
+                    expiredConnections = new ArrayList<>();
+                }
+                expiredConnections.add(connections.pollFirst());
+            }
+            if (connections.isEmpty()) {
+                iterator.remove();
+            }
+        }
+        return expiredConnections;
+    }
+
+    /**
+     * Gets the number of idle connections in the pool.
+     *
+     * @return The number of idle connections.
+     */
+    synchronized int getIdleConnectionCount() {
+        int count = 0;
+        for (ArrayDeque<NioConnection> connections : this.idleConnections.values()) {
+            count += connections.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,390 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * An incremental parser of an HTTP/1.1 response, fed with the bytes as they are read from the connection.
+ *
+ * <p>
+ * The interim 1xx responses are skipped. The body is delimited by the {@code Transfer-Encoding: chunked} framing,
+ * the {@code Content-Length} header or the end of the stream, and the response to a {@code HEAD} request and the
+ * 204 and 304 responses have none.
+ * </p>
+ */
+final class Http1ResponseParser {
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int MAX_HEADER_COUNT = 256;
+
+    private static final int STATUS_LINE = 0;
+    private static final int HEADERS = 1;
+    private static final int FIXED_LENGTH_BODY = 2;
+    private static final int CHUNK_SIZE = 3;
+    private static final int CHUNK_DATA = 4;
+    private static final int CHUNK_DATA_END = 5;
+    private static final int TRAILERS = 6;
+    private static final int UNTIL_CLOSE_BODY = 7;
+    private static final int DONE = 8;
+
+    private final Listener listener;
+    private final boolean headRequest;
+
+    private int state = STATUS_LINE;
+    private boolean receivedBytes;
+    private byte[] line = new byte[128];
+    private int lineLength;
+    // Whether the line buffer holds a whole line, the next line is read from the start of the buffer.
+    private boolean lineComplete;
+
+    private int statusCode;
+    private boolean http11;
+    private String[] headerNamesAndValues = new String[32];
+    private int headerLength;
+    private long contentLength;
+    private boolean chunked;
+    private boolean connectionClose;
+    private boolean connectionKeepAlive;
+    // The bytes left of the fixed length body or of the current chunk.
+    private long remaining;
+
+    /**
+     * The receiver of the parts of the response.
+     */
+    interface Listener {
+        /**
+         * Called when the status line and the headers of the final response are parsed.
+         *
+         * @param statusCode The status code.
+         * @param headerNamesAndValues The names and values of the headers, in the order they were received, as
+         * name and value pairs in the first {@code headerLength} slots.
+         * @param headerLength The number of names and values.
+         */
+        void onResponseHead(int statusCode, String[] headerNamesAndValues, int headerLength);
+
+        /**
+         * Called with the bytes of the body. The listener consumes all the remaining bytes of the buffer.
+         *
+         * @param data The bytes.
+         */
+        void onBodyData(ByteBuffer data);
+
+        /**
+         * Called when the response is complete.
+         */
+        void onResponseComplete();
+    }
+
+    Http1ResponseParser(Listener listener, boolean headRequest) {
+        this.listener = listener;
+        this.headRequest = headRequest;
+    }
+
+    /**
+     * Parses the bytes read from the connection.
+     *
+     * @param buffer The bytes, consumed up to the end of the response.
+     * @return true if the response is complete, any bytes remaining in the buffer follow it.
+     * @throws IOException If the response is malformed.
+     */
+    boolean parse(ByteBuffer buffer) throws IOException {
+        if (buffer.hasRemaining()) {
+            this.receivedBytes = true;
+        }
+        while (this.state != DONE && buffer.hasRemaining()) {
+            switch (this.state) {
+                case STATUS_LINE:
+                    if (this.readLine(buffer)) {
+                        this.parseStatusLine();
+                    }
+                    break;
+                case HEADERS:
+                    if (this.readLine(buffer)) {
+                        if (this.lineLength == 0) {
+                            this.onHeadersEnd();
+                        } else {
+                            this.parseHeaderLine();
+                        }
+                    }
+                    break;
+                case FIXED_LENGTH_BODY:
+                    this.readBody(buffer);
+                    if (this.remaining == 0) {
+                        this.complete();
+                    }
+                    break;
+                case CHUNK_SIZE:
+                    if (this.readLine(buffer)) {
+                        this.parseChunkSize();
+                    }
+                    break;
+                case CHUNK_DATA:
+                    this.readBody(buffer);
+                    if (this.remaining == 0) {
+                        this.state = CHUNK_DATA_END;
+                    }
+                    break;
+                case CHUNK_DATA_END:
+                    if (this.readLine(buffer)) {
+                        if (this.lineLength != 0) {
+                            throw new ProtocolException("Expected CRLF after the chunk data.");
+                        }
+                        this.state = CHUNK_SIZE;
+                    }
+                    break;
+                case TRAILERS:
+                    // The trailers are read and ignored.
+                    if (this.readLine(buffer) && this.lineLength == 0) {
+                        this.complete();
+                    }
+                    break;
+                case UNTIL_CLOSE_BODY:
+                    this.listener.onBodyData(buffer);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected state " + this.state);
+            }
+        }
+        return this.state == DONE;
+    }
+
+    /**
+     * Handles the end of the stream of the connection.
+     *
+     * @throws IOException If the end of the stream is not the end of the response.
+     */
+    void endOfInput() throws IOException {
+        if (this.state == UNTIL_CLOSE_BODY) {
+            this.complete();
+        } else if (this.state != DONE) {
+            throw new EOFException(this.receivedBytes
+                ? "The connection was closed before the end of the response."
+                : "The connection was closed before a response was received.");
+        }
+    }
+
+    /**
+     * Gets whether any byte of the response was received.
+     *
+     * @return true if a byte was received.
+     */
+    boolean hasReceivedBytes() {
+        return this.receivedBytes;
+    }
+
+    /**
+     * Gets whether the connection can be reused for another exchange once the response is complete.
+     *
+     * @return true if the connection can be reused.
+     */
+    boolean isKeepAlive() {
+        return this.state == DONE
+            && (this.http11 ? !this.connectionClose : this.connectionKeepAlive)
+            && this.statusCode != 101;
+    }
+
+    private void parseStatusLine() throws IOException {
+        // HTTP/1.1 200 OK
+        if (this.lineLength < 12
+            || !this.lineStartsWith("HTTP/1.")
+            || this.line[8] != ' '
+            || (this.lineLength > 12 && this.line[12] != ' ')) {
+            throw new ProtocolException("Unexpected status line: " + this.lineToString(0));
+        }
+        this.http11 = this.line[7] != '0';
+        int statusCode = 0;
+        for (int i = 9; i < 12; i++) {
+            final int digit = this.line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new ProtocolException("Unexpected status line: " + this.lineToString(0));
+            }
+            statusCode = statusCode * 10 + digit;
+        }
+        this.statusCode = statusCode;
+        this.headerLength = 0;
+        this.contentLength = -1;
+        this.chunked = false;
+        this.connectionClose = false;
+        this.connectionKeepAlive = false;
+        this.state = HEADERS;
+    }
+
+    private void parseHeaderLine() throws IOException {
+        final byte first = this.line[0];
+        if ((first == ' ' || first == '\t') && this.headerLength > 0) {
+            // An obsolete folded line continues the value of the previous header.
+            this.headerNamesAndValues[this.headerLength - 1] += " " + this.lineToString(0).trim();
+            return;
+        }
+        int colon = -1;
+        for (int i = 0; i < this.lineLength; i++) {
+            if (this.line[i] == ':') {
+                colon = i;
+                break;
+            }
+        }
+        if (colon <= 0) {
+            throw new ProtocolException("Unexpected header line: " + this.lineToString(0));
+        }
+        if (this.headerLength == MAX_HEADER_COUNT * 2) {
+            throw new ProtocolException("The response has more than " + MAX_HEADER_COUNT + " headers.");
+        }
+        final String name = new String(this.line, 0, colon, ISO_8859_1).trim();
+        final String value = this.lineToString(colon + 1).trim();
+        if (this.headerLength == this.headerNamesAndValues.length) {
+            final String[] newNamesAndValues = new String[this.headerLength << 1];
+            System.arraycopy(this.headerNamesAndValues, 0, newNamesAndValues, 0, this.headerLength);
+            this.headerNamesAndValues = newNamesAndValues;
+        }
+        this.headerNamesAndValues[this.headerLength++] = name;
+        this.headerNamesAndValues[this.headerLength++] = value;
+
+        if (name.equalsIgnoreCase("Content-Length")) {
+            try {
+                this.contentLength = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new ProtocolException("Unexpected Content-Length: " + value);
+            }
+            if (this.contentLength < 0) {
+                throw new ProtocolException("Unexpected Content-Length: " + value);
+            }
+        } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+            this.chunked = hasToken(value, "chunked");
+        } else if (name.equalsIgnoreCase("Connection")) {
+            this.connectionClose |= hasToken(value, "close");
+            this.connectionKeepAlive |= hasToken(value, "keep-alive");
+        }
+    }
+
+    private void onHeadersEnd() {
+        if (this.statusCode >= 100 && this.statusCode < 200 && this.statusCode != 101) {
+            // An interim response, the final response follows.
+            this.state = STATUS_LINE;
+            return;
+        }
+        this.listener.onResponseHead(this.statusCode, this.headerNamesAndValues, this.headerLength);
+        if (this.headRequest || this.statusCode == 204 || this.statusCode == 304 || this.statusCode == 101) {
+            this.complete();
+        } else if (this.chunked) {
+            this.state = CHUNK_SIZE;
+        } else if (this.contentLength >= 0) {
+            this.remaining = this.contentLength;
+            if (this.remaining == 0) {
+                this.complete();
+            } else {
+                this.state = FIXED_LENGTH_BODY;
+            }
+        } else {
+            this.state = UNTIL_CLOSE_BODY;
+        }
+    }
+
+    private void parseChunkSize() throws IOException {
+        long size = 0;
+        int digits = 0;
+        for (int i = 0; i < this.lineLength; i++) {
+            final byte b = this.line[i];
+            final int digit;
+            if (b >= '0' && b <= '9') {
+                digit = b - '0';
+            } else if (b >= 'a' && b <= 'f') {
+                digit = b - 'a' + 10;
+            } else if (b >= 'A' && b <= 'F') {
+                digit = b - 'A' + 10;
+            } else if (b == ';' || b == ' ' || b == '\t') {
+                // The chunk extensions are ignored.
+                break;
+            } else {
+                throw new ProtocolException("Unexpected chunk size: " + this.lineToString(0));
+            }
+            if (++digits > 15) {
+                throw new ProtocolException("Unexpected chunk size: " + this.lineToString(0));
+            }
+            size = (size << 4) + digit;
+        }
+        if (digits == 0) {
+            throw new ProtocolException("Unexpected chunk size: " + this.lineToString(0));
+        }
+        if (size == 0) {
+            this.state = TRAILERS;
+        } else {
+            this.remaining = size;
+            this.state = CHUNK_DATA;
+        }
+    }
+
+    private void readBody(ByteBuffer buffer) {
+        final int length = (int) Math.min(this.remaining, buffer.remaining());
+        final int limit = buffer.limit();
+        buffer.limit(buffer.position() + length);
+        this.listener.onBodyData(buffer);
+        buffer.limit(limit);
+        this.remaining -= length;
+    }
+
+    private void complete() {
+        this.state = DONE;
+        this.listener.onResponseComplete();
+    }
+
+    /**
+     * Reads bytes up to the end of a line into the line buffer, dropping the line terminator.
+     *
+     * @return true if a whole line was read.
+     */
+    private boolean readLine(ByteBuffer buffer) throws IOException {
+        if (this.lineComplete) {
+            this.lineComplete = false;
+            this.lineLength = 0;
+        }
+        while (buffer.hasRemaining()) {
+            final byte b = buffer.get();
+            if (b == '\n') {
+                if (this.lineLength > 0 && this.line[this.lineLength - 1] == '\r') {
+                    this.lineLength--;
+                }
+                this.lineComplete = true;
+                return true;
+            }
+            if (this.lineLength == this.line.length) {
+                if (this.lineLength == MAX_LINE_LENGTH) {
+                    throw new ProtocolException("A line of the response is longer than " + MAX_LINE_LENGTH
+                        + " bytes.");
+                }
+                final byte[] newLine = new byte[Math.min(this.lineLength << 1, MAX_LINE_LENGTH)];
+                System.arraycopy(this.line, 0, newLine, 0, this.lineLength);
+                this.line = newLine;
+            }
+            this.line[this.lineLength++] = b;
+        }
+        return false;
+    }
+
+    private boolean lineStartsWith(String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (this.line[i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String lineToString(int offset) {
+        return new String(this.line, offset, this.lineLength - offset, ISO_8859_1);
+    }
+
+    private static boolean hasToken(String value, String token) {
+        for (String part : value.split(",")) {
+            if (part.trim().equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,528 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpHeader;
+import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
+import com.azure.android.core.util.CancellationToken;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * An HTTP/1.1 request and its response, run on a {@link NioConnection}.
+ *
+ * <p>
+ * The bytes of the request are queued for the connection: the head and an in-memory body when the exchange is
+ * created, a streamed body as the calling thread writes it, at most {@link #MAX_QUEUED_LENGTH} bytes ahead of the
+ * connection. Everything else is confined to the event loop thread: the exchange is failed, completed or retried
+ * there, and its callback is delivered on the callback executor of the client.
+ * </p>
+ *
+ * <p>
+ * A request failing on a reused connection before any byte of the response is received is retried once on a new
+ * connection, as the server may have closed the idle connection while the request was sent; except if the body
+ * of the request is streamed, as it cannot be replayed.
+ * </p>
+ */
+final class HttpExchange implements Http1ResponseParser.Listener {
+    static final int MAX_QUEUED_LENGTH = 64 * 1024;
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private final NioAsyncHttpClient client;
+    private final HttpRequest request;
+    private final CancellationToken cancellationToken;
+    private final HttpCallback httpCallback;
+    private final String address;
+    private final String host;
+    private final int port;
+    private final boolean secure;
+    private final byte[] head;
+    // The body held in memory, null if there is none or it is streamed.
+    private final ByteBuffer inMemoryBody;
+    // The body written by the calling thread, null if there is none or it is in memory.
+    private final HttpRequestBody streamedBody;
+    private final boolean chunked;
+    private final String onCancelId;
+    private final Runnable outboundAvailableTask = new Runnable() {
+        @Override
+        public void run() {
+            if (connection != null) {
+                connection.onOutboundAvailable();
+            }
+        }
+    };
+    private final Runnable resumeReadingTask = new Runnable() {
+        @Override
+        public void run() {
+            if (connection != null) {
+                connection.resumeReading();
+            }
+        }
+    };
+
+    // Guarded by 'outbound'.
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+    private int queuedLength;
+    private boolean outboundClosed;
+    private IOException outboundError;
+
+    // Confined to the event loop thread.
+    private NioConnection connection;
+    private boolean reusedConnection;
+    private boolean retried;
+    private Http1ResponseParser parser;
+    private NioResponseBody body;
+    private boolean done;
+
+    private HttpExchange(NioAsyncHttpClient client, HttpRequest request, CancellationToken cancellationToken,
+                         HttpCallback httpCallback, URL url) throws IOException {
+        this.client = client;
+        this.request = request;
+        this.cancellationToken = cancellationToken;
+        this.httpCallback = httpCallback;
+        this.secure = "https".equalsIgnoreCase(url.getProtocol());
+        if (!this.secure && !"http".equalsIgnoreCase(url.getProtocol())) {
+            throw new IOException("The protocol '" + url.getProtocol() + "' is not supported.");
+        }
+        this.host = url.getHost();
+        final int defaultPort = this.secure ? 443 : 80;
+        this.port = url.getPort() == -1 ? defaultPort : url.getPort();
+        this.address = (this.secure ? "https://" : "http://") + this.host + ":" + this.port;
+
+        final HttpRequestBody requestBody = request.getRequestBody();
+        final long contentLength;
+        if (requestBody == null) {
+            this.inMemoryBody = null;
+            this.streamedBody = null;
+            contentLength = -1;
+        } else if (requestBody.isInMemory()) {
+            // A view of the body's own storage, not copied.
+            final ByteBuffer content = requestBody.asByteBuffer();
+            this.inMemoryBody = content != null ? content : ByteBuffer.wrap(requestBody.toBytes());
+            this.streamedBody = null;
+            contentLength = this.inMemoryBody.remaining();
+        } else {
+            this.inMemoryBody = null;
+            this.streamedBody = requestBody;
+            contentLength = requestBody.getContentLength();
+        }
+        this.chunked = this.streamedBody != null && contentLength < 0;
+        this.head = createHead(request, url, this.port == defaultPort ? this.host : this.host + ":" + this.port,
+            contentLength, this.chunked);
+        this.onCancelId = cancellationToken == CancellationToken.NONE ? null : UUID.randomUUID().toString();
+        this.queueRequest();
+    }
+
+    /**
+     * Creates the exchange of a request, reading an in-memory body.
+     *
+     * @param client The client running the exchange.
+     * @param request The request.
+     * @param cancellationToken The token to cancel the exchange.
+     * @param httpCallback The callback to notify of the response or the failure.
+     * @return The exchange.
+     * @throws IOException If the url of the request is not supported or its body cannot be read.
+     * @throws IllegalArgumentException If the request line or a header would break the framing of the request,
+     * e.g. a header value containing a line break.
+     */
+    static HttpExchange create(NioAsyncHttpClient client, HttpRequest request, CancellationToken cancellationToken,
+                               HttpCallback httpCallback) throws IOException {
+        return new HttpExchange(client, request, cancellationToken, httpCallback, request.getUrl());
+    }
+
+    String getAddress() {
+        return this.address;
+    }
+
+    String getHost() {
+        return this.host;
+    }
+
+    int getPort() {
+        return this.port;
+    }
+
+    boolean isSecure() {
+        return this.secure;
+    }
+
+    /**
+     * Registers the exchange with the cancellation token, so that cancelling it fails the exchange.
+     */
+    void registerOnCancel() {
+        if (this.onCancelId != null) {
+            this.cancellationToken.registerOnCancel(this.onCancelId, new Runnable() {
+                @Override
+                public void run() {
+                    failLater(new IOException("Canceled."));
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes the streamed body of the request, if any, on the calling thread.
+     */
+    void writeStreamedBody() {
+        if (this.streamedBody == null) {
+            return;
+        }
+        final RequestBodyStream stream = new RequestBodyStream(this, this.streamedBody.getContentLength(),
+            this.chunked);
+        try {
+            this.streamedBody.writeTo(stream);
+            stream.close();
+        } catch (IOException | RuntimeException e) {
+            this.failLater(e);
+        }
+    }
+
+    /**
+     * Fails the exchange on the loop thread.
+     *
+     * @param error The error.
+     */
+    void failLater(final Throwable error) {
+        this.client.getEventLoop().execute(new Runnable() {
+            @Override
+            public void run() {
+                fail(error);
+            }
+        });
+    }
+
+    /**
+     * Resumes reading the response, on the thread reading the body.
+     */
+    void resumeReading() {
+        this.client.getEventLoop().execute(this.resumeReadingTask);
+    }
+
+    /**
+     * Aborts the exchange, on the thread closing the body before its end.
+     */
+    void abort() {
+        this.failLater(new IOException("The response body was closed before its end."));
+    }
+
+    /**
+     * Queues bytes of the streamed body, on the calling thread, waiting while the connection is behind.
+     *
+     * @param buffer The bytes.
+     * @throws IOException If the exchange failed.
+     */
+    void enqueueOutbound(ByteBuffer buffer) throws IOException {
+        final boolean wasEmpty;
+        synchronized (this.outbound) {
+            while (this.outboundError == null && this.queuedLength >= MAX_QUEUED_LENGTH) {
+                try {
+                    this.outbound.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while writing the request body.");
+                }
+            }
+            if (this.outboundError != null) {
+                throw new IOException(this.outboundError.getMessage(), this.outboundError);
+            }
+            wasEmpty = this.outbound.isEmpty();
+            this.outbound.addLast(buffer);
+            this.queuedLength += buffer.remaining();
+        }
+        if (wasEmpty) {
+            this.client.getEventLoop().execute(this.outboundAvailableTask);
+        }
+    }
+
+    /**
+     * Marks the end of the streamed body, on the calling thread.
+     */
+    void closeOutbound() {
+        synchronized (this.outbound) {
+            this.outboundClosed = true;
+        }
+        this.client.getEventLoop().execute(this.outboundAvailableTask);
+    }
+
+    ByteBuffer peekOutbound() {
+        synchronized (this.outbound) {
+            return this.outbound.peekFirst();
+        }
+    }
+
+    void pollOutbound() {
+        synchronized (this.outbound) {
+            // The queued buffers are written from their start.
+            this.queuedLength -= this.outbound.pollFirst().limit();
+            this.outbound.notifyAll();
+        }
+    }
+
+    /**
+     * Attaches the exchange to the connection running it.
+     *
+     * @param connection The connection.
+     * @param reusedConnection Whether the connection ran other exchanges before.
+     */
+    void attach(NioConnection connection, boolean reusedConnection) {
+        this.connection = connection;
+        this.reusedConnection = reusedConnection;
+        this.parser = new Http1ResponseParser(this, this.request.getHttpMethod() == HttpMethod.HEAD);
+    }
+
+    boolean isDone() {
+        return this.done;
+    }
+
+    /**
+     * Parses bytes of the response read by the connection.
+     *
+     * @param data The bytes.
+     * @return true if the response is complete.
+     * @throws IOException If the response is malformed.
+     */
+    boolean onData(ByteBuffer data) throws IOException {
+        return this.parser.parse(data);
+    }
+
+    /**
+     * Completes the exchange whose response is complete, detaching the connection.
+     *
+     * @param cleanEnd Whether no byte follows the response.
+     * @return true if the connection can run another exchange.
+     */
+    boolean completeOnConnection(boolean cleanEnd) {
+        this.connection = null;
+        final boolean outboundComplete;
+        synchronized (this.outbound) {
+            outboundComplete = this.outboundClosed && this.outbound.isEmpty();
+        }
+        if (!outboundComplete) {
+            // The server responded before the end of the request body, the rest of which is not sent.
+            this.failOutbound(new IOException("The response was received before the request body was sent."));
+        }
+        return cleanEnd && outboundComplete && this.parser.isKeepAlive();
+    }
+
+    /**
+     * Handles the end of the stream of the connection.
+     */
+    void onEndOfInput() {
+        this.connection = null;
+        try {
+            this.parser.endOfInput();
+        } catch (IOException e) {
+            this.fail(e);
+            return;
+        }
+        this.endBody();
+    }
+
+    /**
+     * Ends the body of the complete response, once the connection is released, so that the next request of the
+     * reader of the body can reuse the connection.
+     */
+    void endBody() {
+        this.body.end();
+    }
+
+    @Override
+    public void onResponseHead(int statusCode, String[] headerNamesAndValues, int headerLength) {
+        this.body = new NioResponseBody(this);
+        final NioHttpResponse response = new NioHttpResponse(this.request, statusCode,
+            Arrays.copyOf(headerNamesAndValues, headerLength), this.body);
+        this.client.deliverSuccess(this.httpCallback, response);
+    }
+
+    @Override
+    public void onBodyData(ByteBuffer data) {
+        final byte[] chunk = new byte[data.remaining()];
+        data.get(chunk);
+        if (this.body.offer(chunk) && this.connection != null) {
+            this.connection.pauseReading();
+        }
+    }
+
+    @Override
+    public void onResponseComplete() {
+        this.done = true;
+        this.unregisterOnCancel();
+    }
+
+    /**
+     * Fails the exchange, or retries it on a new connection, closing its connection. Idempotent.
+     *
+     * @param error The error.
+     */
+    void fail(Throwable error) {
+        if (this.done) {
+            return;
+        }
+        final NioConnection connection = this.connection;
+        this.connection = null;
+        if (connection != null) {
+            connection.detachExchange();
+            connection.close();
+        }
+
+        if (this.canRetry(error)) {
+            this.retried = true;
+            this.queueRequest();
+            this.client.retry(this);
+            return;
+        }
+
+        this.done = true;
+        this.unregisterOnCancel();
+        final IOException ioError = error instanceof IOException
+            ? (IOException) error
+            : new IOException(error.getMessage(), error);
+        this.failOutbound(ioError);
+        if (this.body != null) {
+            this.body.fail(ioError);
+        } else {
+            this.client.deliverError(this.httpCallback, error);
+        }
+    }
+
+    private boolean canRetry(Throwable error) {
+        return this.reusedConnection
+            && !this.retried
+            && this.streamedBody == null
+            && error instanceof IOException
+            && (this.parser == null || !this.parser.hasReceivedBytes())
+            && !this.cancellationToken.isCancellationRequested();
+    }
+
+    private void queueRequest() {
+        synchronized (this.outbound) {
+            this.outbound.clear();
+            this.outbound.addLast(ByteBuffer.wrap(this.head));
+            this.queuedLength = this.head.length;
+            if (this.inMemoryBody != null) {
+                // A view per queuing, as writing the request consumes it and a retry queues the body again.
+                this.outbound.addLast(this.inMemoryBody.duplicate());
+                this.queuedLength += this.inMemoryBody.remaining();
+            }
+            this.outboundClosed = this.streamedBody == null;
+        }
+    }
+
+    private void failOutbound(IOException error) {
+        synchronized (this.outbound) {
+            if (this.outboundError == null) {
+                this.outboundError = error;
+            }
+            this.outbound.clear();
+            this.queuedLength = 0;
+            this.outbound.notifyAll();
+        }
+    }
+
+    private void unregisterOnCancel() {
+        if (this.onCancelId != null) {
+            this.cancellationToken.unregisterOnCancel(this.onCancelId);
+        }
+    }
+
+    private static byte[] createHead(HttpRequest request, URL url, String hostHeader, long contentLength,
+                                     boolean chunked) {
+        final StringBuilder builder = new StringBuilder(256);
+        final String file = url.getFile();
+        checkTarget(file);
+        builder.append(request.getHttpMethod().name())
+            .append(' ')
+            .append(file.isEmpty() ? "/" : file)
+            .append(" HTTP/1.1\r\n");
+        final HttpHeaders headers = request.getHeaders();
+        if (headers.getValue("Host") == null) {
+            builder.append("Host: ").append(hostHeader).append("\r\n");
+        }
+        for (HttpHeader header : headers) {
+            final String name = header.getName();
+            final String value = header.getValue();
+            // The framing of the body is set from the body.
+            if (value == null
+                || name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)
+                || name.equalsIgnoreCase("Transfer-Encoding")) {
+                continue;
+            }
+            checkHeader(name, value);
+            builder.append(name).append(": ").append(value).append("\r\n");
+        }
+        if (chunked) {
+            builder.append("Transfer-Encoding: chunked\r\n");
+        } else if (contentLength >= 0) {
+            builder.append("Content-Length: ").append(contentLength).append("\r\n");
+        } else {
+            switch (request.getHttpMethod()) {
+                case PUT:
+                case POST:
+                case PATCH:
+                    builder.append("Content-Length: 0\r\n");
+                    break;
+                default:
+                    break;
+            }
+        }
+        builder.append("\r\n");
+        return builder.toString().getBytes(ISO_8859_1);
+    }
+
+    /**
+     * Checks that the request target has no character ending the request line, so that it cannot inject headers.
+     */
+    private static void checkTarget(String target) {
+        for (int i = 0; i < target.length(); i++) {
+            final char c = target.charAt(i);
+            if (c == '\r' || c == '\n' || c == '\0') {
+                throw new IllegalArgumentException("The request target contains an invalid character at index "
+                    + i + ".");
+            }
+        }
+    }
+
+    /**
+     * Checks that the name of a header is a token and its value has no line break or NUL character, so that
+     * the header cannot end the head early or inject other headers.
+     */
+    private static void checkHeader(String name, String value) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("A header name is empty.");
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (!isTokenChar(name.charAt(i))) {
+                throw new IllegalArgumentException("The header name '" + name
+                    + "' contains an invalid character at index " + i + ".");
+            }
+        }
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\r' || c == '\n' || c == '\0') {
+                throw new IllegalArgumentException("The value of the header '" + name
+                    + "' contains a CR, LF or NUL character at index " + i + ".");
+            }
+        }
+    }
+
+    // The 'tchar' of RFC 7230, section 3.2.6.
+    private static boolean isTokenChar(char c) {
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+            return true;
+        }
+        return "!#$%&'*+-.^_`|~".indexOf(c) >= 0;
+    }
+}
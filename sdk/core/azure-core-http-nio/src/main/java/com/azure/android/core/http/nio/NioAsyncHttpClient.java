@@ -0,0 +1,190 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import com.azure.android.core.http.HttpCallDispatcher;
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.logging.ClientLogger;
+import com.azure.android.core.util.CancellationToken;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * An {@link HttpClient} running the HTTP/1.1 exchanges of all its calls on the non-blocking connections of a single
+ * {@link NioEventLoop} thread.
+ *
+ * <p>
+ * The dispatcher thread running a call only resolves the host and opens the connection, or takes one from the
+ * keep-alive pool, and writes the request body if it is streamed; it is then free while the server responds. The
+ * callbacks are delivered on a bounded pool of threads of the client, where the response body can be read without
+ * blocking the loop. The delegated tasks of the TLS handshakes, which can be long, run on another bounded pool.
+ * </p>
+ */
+class NioAsyncHttpClient implements HttpClient {
+    private static final AtomicInteger CALLBACK_THREAD_COUNT = new AtomicInteger();
+    private static final AtomicInteger TLS_TASK_THREAD_COUNT = new AtomicInteger();
+
+    private final ClientLogger logger = new ClientLogger(NioAsyncHttpClient.class);
+    private final HttpCallDispatcher httpCallDispatcher;
+    private final ConnectionPool connectionPool;
+    private final NioEventLoop eventLoop;
+    private final ExecutorService callbackExecutor;
+    private final ExecutorService tlsTaskExecutor;
+    private volatile SSLContext sslContext;
+
+    NioAsyncHttpClient(HttpCallDispatcher httpCallDispatcher, SSLContext sslContext,
+                       int maxIdleConnectionsPerAddress, long keepAliveNanos, int maxCallbackThreads) {
+        this.httpCallDispatcher = httpCallDispatcher;
+        this.sslContext = sslContext;
+        this.connectionPool = new ConnectionPool(maxIdleConnectionsPerAddress, keepAliveNanos);
+        this.eventLoop = new NioEventLoop(this.connectionPool);
+        this.callbackExecutor = newExecutor(maxCallbackThreads, "azure-core-http-nio-callback-",
+            CALLBACK_THREAD_COUNT);
+        this.tlsTaskExecutor = newExecutor(Math.max(2, Runtime.getRuntime().availableProcessors()),
+            "azure-core-http-nio-tls-", TLS_TASK_THREAD_COUNT);
+    }
+
+    /**
+     * Creates a pool of at most {@code maxThreads} daemon threads, queuing the tasks while all are busy. The threads
+     * exit once idle for a while, so that an idle client does not hold them.
+     */
+    private static ExecutorService newExecutor(int maxThreads, final String namePrefix,
+                                               final AtomicInteger threadCount) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public HttpCallDispatcher getHttpCallDispatcher() {
+        return this.httpCallDispatcher;
+    }
+
+    @Override
+    public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+        if (httpRequest.isCallingThreadPreferred()) {
+            this.sendIntern(httpRequest, cancellationToken, httpCallback);
+        } else {
+            this.httpCallDispatcher.enqueue(new HttpCallDispatcher.HttpCallFunction() {
+                @Override
+                public void apply(HttpRequest request, HttpCallback httpCallback) {
+                    sendIntern(request, cancellationToken, httpCallback);
+                }
+            }, httpRequest, cancellationToken, httpCallback);
+        }
+    }
+
+    NioEventLoop getEventLoop() {
+        return this.eventLoop;
+    }
+
+    ConnectionPool getConnectionPool() {
+        return this.connectionPool;
+    }
+
+    private void sendIntern(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+        if (cancellationToken.isCancellationRequested()) {
+            httpCallback.onError(new IOException("Canceled."));
+            return;
+        }
+
+        final HttpExchange exchange;
+        try {
+            exchange = HttpExchange.create(this, httpRequest, cancellationToken, httpCallback);
+        } catch (IOException | RuntimeException e) {
+            httpCallback.onError(e);
+            return;
+        }
+        exchange.registerOnCancel();
+        this.connect(exchange);
+        exchange.writeStreamedBody();
+    }
+
+    /**
+     * Runs an exchange failed on a reused connection again, on a new connection.
+     *
+     * @param exchange The exchange.
+     */
+    void retry(final HttpExchange exchange) {
+        // Not on the loop thread, as opening a connection resolves the host.
+        this.callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                connect(exchange);
+            }
+        });
+    }
+
+    void deliverSuccess(final HttpCallback httpCallback, final HttpResponse response) {
+        this.callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                httpCallback.onSuccess(response);
+            }
+        });
+    }
+
+    void deliverError(final HttpCallback httpCallback, final Throwable error) {
+        this.callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                httpCallback.onError(error);
+            }
+        });
+    }
+
+    private void connect(final HttpExchange exchange) {
+        NioConnection connection = this.connectionPool.acquire(exchange.getAddress());
+        if (connection == null) {
+            try {
+                connection = NioConnection.open(exchange.getAddress(), exchange.getHost(), exchange.getPort(),
+                    exchange.isSecure() ? this.getSslContext() : null, this.eventLoop, this.connectionPool,
+                    this.tlsTaskExecutor);
+            } catch (IOException | RuntimeException e) {
+                exchange.failLater(e);
+                return;
+            }
+        }
+        final NioConnection startingConnection = connection;
+        this.eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                startingConnection.start(exchange);
+            }
+        });
+    }
+
+    private SSLContext getSslContext() throws IOException {
+        SSLContext sslContext = this.sslContext;
+        if (sslContext == null) {
+            try {
+                sslContext = SSLContext.getDefault();
+            } catch (NoSuchAlgorithmException e) {
+                throw logger.logThrowableAsError(new IOException("Unable to get the default SSLContext.", e));
+            }
+            this.sslContext = sslContext;
+        }
+        return sslContext;
+    }
+}
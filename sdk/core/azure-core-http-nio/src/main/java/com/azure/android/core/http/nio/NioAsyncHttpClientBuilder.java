@@ -0,0 +1,131 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import com.azure.android.core.http.HttpCallDispatcher;
+import com.azure.android.core.http.HttpClient;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * Builder class responsible for creating instances of {@link com.azure.android.core.http.HttpClient}
+ * backed by non-blocking NIO channels.
+ */
+public class NioAsyncHttpClientBuilder {
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS_PER_HOST = 5;
+    private static final long DEFAULT_KEEP_ALIVE_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int DEFAULT_MAX_CALLBACK_THREADS = 64;
+
+    private HttpCallDispatcher httpCallDispatcher;
+    private SSLContext sslContext;
+    private int maxIdleConnectionsPerHost = DEFAULT_MAX_IDLE_CONNECTIONS_PER_HOST;
+    private long keepAliveNanos = DEFAULT_KEEP_ALIVE_NANOS;
+    private int maxCallbackThreads = DEFAULT_MAX_CALLBACK_THREADS;
+
+    /**
+     * Creates NioAsyncHttpClientBuilder.
+     */
+    public NioAsyncHttpClientBuilder() {
+    }
+
+    /**
+     * Sets the {@link HttpCallDispatcher} to execute the enqueued HTTP calls.
+     *
+     * @param httpCallDispatcher The HTTP call dispatcher
+     * @return The updated NioAsyncHttpClientBuilder object.
+     * @throws NullPointerException if the httpCallDispatcher parameter is null.
+     */
+    public NioAsyncHttpClientBuilder setHttpCallDispatcher(HttpCallDispatcher httpCallDispatcher) {
+        if (httpCallDispatcher == null) {
+            throw new NullPointerException("'httpCallDispatcher' is required.");
+        }
+        this.httpCallDispatcher = httpCallDispatcher;
+        return this;
+    }
+
+    /**
+     * Sets the {@link SSLContext} creating the TLS engines of the {@code https} connections. The default is
+     * {@link SSLContext#getDefault()}.
+     *
+     * @param sslContext The SSL context.
+     * @return The updated NioAsyncHttpClientBuilder object.
+     * @throws NullPointerException if the sslContext parameter is null.
+     */
+    public NioAsyncHttpClientBuilder setSslContext(SSLContext sslContext) {
+        if (sslContext == null) {
+            throw new NullPointerException("'sslContext' is required.");
+        }
+        this.sslContext = sslContext;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of idle connections kept alive per host and port. The default is 5; 0 disables the
+     * reuse of the connections.
+     *
+     * @param maxIdleConnectionsPerHost The maximum number of idle connections per host.
+     * @return The updated NioAsyncHttpClientBuilder object.
+     * @throws IllegalArgumentException if maxIdleConnectionsPerHost is negative.
+     */
+    public NioAsyncHttpClientBuilder setMaxIdleConnectionsPerHost(int maxIdleConnectionsPerHost) {
+        if (maxIdleConnectionsPerHost < 0) {
+            throw new IllegalArgumentException("'maxIdleConnectionsPerHost' cannot be negative.");
+        }
+        this.maxIdleConnectionsPerHost = maxIdleConnectionsPerHost;
+        return this;
+    }
+
+    /**
+     * Sets how long an idle connection is kept alive for reuse. The default is 5 minutes.
+     *
+     * @param keepAliveDuration The duration.
+     * @param timeUnit The unit of the duration.
+     * @return The updated NioAsyncHttpClientBuilder object.
+     * @throws IllegalArgumentException if keepAliveDuration is not positive.
+     * @throws NullPointerException if the timeUnit parameter is null.
+     */
+    public NioAsyncHttpClientBuilder setKeepAliveDuration(long keepAliveDuration, TimeUnit timeUnit) {
+        if (keepAliveDuration <= 0) {
+            throw new IllegalArgumentException("'keepAliveDuration' must be positive.");
+        }
+        if (timeUnit == null) {
+            throw new NullPointerException("'timeUnit' is required.");
+        }
+        this.keepAliveNanos = timeUnit.toNanos(keepAliveDuration);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of threads delivering the responses and failures to the callbacks, on which the
+     * response bodies are read. The default is 64, the default maximum number of calls an
+     * {@link HttpCallDispatcher} runs concurrently; the callbacks beyond it wait for a thread.
+     *
+     * @param maxCallbackThreads The maximum number of callback threads.
+     * @return The updated NioAsyncHttpClientBuilder object.
+     * @throws IllegalArgumentException if maxCallbackThreads is not positive.
+     */
+    public NioAsyncHttpClientBuilder setMaxCallbackThreads(int maxCallbackThreads) {
+        if (maxCallbackThreads <= 0) {
+            throw new IllegalArgumentException("'maxCallbackThreads' must be positive.");
+        }
+        this.maxCallbackThreads = maxCallbackThreads;
+        return this;
+    }
+
+    /**
+     * Creates a new NIO-backed {@link com.azure.android.core.http.HttpClient} instance on every call, using the
+     * configuration set in the builder at the time of the build method call.
+     *
+     * @return A new NIO-backed {@link com.azure.android.core.http.HttpClient} instance.
+     */
+    public HttpClient build() {
+        final HttpCallDispatcher httpCallDispatcher = this.httpCallDispatcher == null
+            ? new HttpCallDispatcher()
+            : this.httpCallDispatcher;
+        return new NioAsyncHttpClient(httpCallDispatcher, this.sslContext, this.maxIdleConnectionsPerHost,
+            this.keepAliveNanos, this.maxCallbackThreads);
+    }
+}
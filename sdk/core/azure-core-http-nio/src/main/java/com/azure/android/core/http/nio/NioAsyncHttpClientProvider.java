@@ -0,0 +1,17 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpClientProvider;
+
+/**
+ * An {@link HttpClientProvider} that provides an implementation of HttpClient based on non-blocking NIO channels.
+ */
+public class NioAsyncHttpClientProvider implements HttpClientProvider {
+    @Override
+    public HttpClient createInstance() {
+        return new NioAsyncHttpClientBuilder().build();
+    }
+}
@@ -0,0 +1,534 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import com.azure.android.core.logging.ClientLogger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+/**
+ * A non-blocking connection to a server, running one exchange at a time, over TLS for an {@code https} address.
+ *
+ * <p>
+ * The state of the connection is confined to the event loop thread, except for its creation. The TLS records are
+ * wrapped and unwrapped with an {@link SSLEngine}, whose delegated tasks, such as the validation of the certificates
+ * of the server, run on a task executor so that they do not hold up the other connections of the loop.
+ * </p>
+ */
+final class NioConnection implements NioEventLoop.SelectionHandler {
+    private static final ClientLogger LOGGER = new ClientLogger(NioConnection.class);
+    private static final int READ_BUFFER_SIZE = 32 * 1024;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final String address;
+    private final String host;
+    private final NioEventLoop eventLoop;
+    private final ConnectionPool connectionPool;
+    private final Executor taskExecutor;
+    private final SocketChannel channel;
+    // Null for an 'http' address.
+    private final SSLEngine sslEngine;
+    // Whether the host name is verified after the handshake, on the platforms where the engine cannot verify it.
+    private final boolean verifyHostNameAfterHandshake;
+
+    private SelectionKey key;
+    private boolean connected;
+    private boolean handshaking;
+    // Whether the delegated tasks of the engine are running on the task executor, the handshake waits for them.
+    private boolean runningTasks;
+    // The application bytes read, in write mode.
+    private ByteBuffer appIn;
+    // The TLS bytes read and not unwrapped yet, in write mode.
+    private ByteBuffer netIn;
+    // The TLS bytes wrapped and not written yet, in read mode.
+    private ByteBuffer netOut;
+    private boolean readPaused;
+    private boolean writeBlocked;
+    private boolean inputShutdown;
+    private boolean closed;
+
+    private HttpExchange exchange;
+    private int exchangeCount;
+    private long idleSinceNanos;
+
+    private NioConnection(String address, String host, int port, SSLContext sslContext, NioEventLoop eventLoop,
+                          ConnectionPool connectionPool, Executor taskExecutor, SocketChannel channel,
+                          boolean connected) {
+        this.address = address;
+        this.host = host;
+        this.eventLoop = eventLoop;
+        this.connectionPool = connectionPool;
+        this.taskExecutor = taskExecutor;
+        this.channel = channel;
+        this.connected = connected;
+        if (sslContext == null) {
+            this.sslEngine = null;
+            this.verifyHostNameAfterHandshake = false;
+            this.appIn = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        } else {
+            // The host and port enable the server name indication and the resumption of the TLS sessions.
+            this.sslEngine = sslContext.createSSLEngine(host, port);
+            this.sslEngine.setUseClientMode(true);
+            this.verifyHostNameAfterHandshake = !enableEndpointIdentification(this.sslEngine);
+            this.appIn = ByteBuffer.allocate(Math.max(READ_BUFFER_SIZE,
+                this.sslEngine.getSession().getApplicationBufferSize()));
+            this.netIn = ByteBuffer.allocate(this.sslEngine.getSession().getPacketBufferSize());
+            this.netOut = ByteBuffer.allocate(this.sslEngine.getSession().getPacketBufferSize());
+            this.netOut.flip();
+        }
+    }
+
+    /**
+     * Opens a connection, resolving the host and starting to connect on the calling thread.
+     *
+     * @param address The address, as {@code scheme://host:port}.
+     * @param host The host.
+     * @param port The port.
+     * @param sslContext The context creating the TLS engine, null for a plain connection.
+     * @param eventLoop The event loop to run the connection.
+     * @param connectionPool The pool to release the connection to once its exchange completes.
+     * @param taskExecutor The executor running the delegated tasks of the TLS engine.
+     * @return The connection.
+     * @throws IOException If the host cannot be resolved or the channel opened.
+     */
+    static NioConnection open(String address, String host, int port, SSLContext sslContext, NioEventLoop eventLoop,
+                              ConnectionPool connectionPool, Executor taskExecutor) throws IOException {
+        final InetSocketAddress socketAddress = new InetSocketAddress(host, port);
+        if (socketAddress.isUnresolved()) {
+            throw new UnknownHostException(host);
+        }
+        final SocketChannel channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            final boolean connected = channel.connect(socketAddress);
+            return new NioConnection(address, host, port, sslContext, eventLoop, connectionPool, taskExecutor,
+                channel, connected);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    String getAddress() {
+        return this.address;
+    }
+
+    long getIdleSinceNanos() {
+        return this.idleSinceNanos;
+    }
+
+    void setIdleSinceNanos(long idleSinceNanos) {
+        this.idleSinceNanos = idleSinceNanos;
+    }
+
+    /**
+     * Starts an exchange on the connection, on the loop thread.
+     *
+     * @param exchange The exchange.
+     */
+    void start(HttpExchange exchange) {
+        if (exchange.isDone()) {
+            // Canceled while the connection was acquired.
+            if (this.key == null || !this.connectionPool.release(this, System.nanoTime())) {
+                this.close();
+            }
+            return;
+        }
+        this.exchange = exchange;
+        exchange.attach(this, this.exchangeCount++ > 0);
+        if (this.closed) {
+            // Closed by the server while it was idle, after it was taken out of the pool.
+            exchange.fail(new IOException("The connection was closed."));
+            return;
+        }
+        try {
+            if (this.key == null) {
+                this.key = this.eventLoop.register(this.channel,
+                    this.connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+                if (this.connected) {
+                    this.onConnected();
+                }
+            }
+            this.pump(false);
+            this.updateInterestOps();
+        } catch (IOException | RuntimeException e) {
+            this.onFailure(e);
+        }
+    }
+
+    /**
+     * Detaches the exchange that is failed or complete.
+     */
+    void detachExchange() {
+        this.exchange = null;
+        this.readPaused = false;
+    }
+
+    /**
+     * Stops reading the connection while the reader of the response body falls behind.
+     */
+    void pauseReading() {
+        this.readPaused = true;
+    }
+
+    /**
+     * Resumes reading the connection, on the loop thread.
+     */
+    void resumeReading() {
+        this.readPaused = false;
+        this.pumpAndUpdate();
+    }
+
+    /**
+     * Writes the bytes of the request queued since the writes stopped, on the loop thread.
+     */
+    void onOutboundAvailable() {
+        this.pumpAndUpdate();
+    }
+
+    @Override
+    public void onSelected(SelectionKey key) {
+        try {
+            if (key.isConnectable()) {
+                if (!this.channel.finishConnect()) {
+                    return;
+                }
+                this.onConnected();
+            }
+            this.pump(key.isReadable());
+            this.updateInterestOps();
+        } catch (IOException | RuntimeException e) {
+            this.onFailure(e);
+        }
+    }
+
+    /**
+     * Closes the connection, failing its exchange if any. Idempotent.
+     */
+    void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.connectionPool.remove(this);
+        if (this.key != null) {
+            this.key.cancel();
+        }
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            LOGGER.verbose("Closing the channel failed.", e);
+        }
+        final HttpExchange exchange = this.exchange;
+        this.exchange = null;
+        if (exchange != null) {
+            exchange.fail(new IOException("The connection was closed."));
+        }
+    }
+
+    private void pumpAndUpdate() {
+        if (this.closed || this.key == null) {
+            return;
+        }
+        try {
+            this.pump(false);
+            this.updateInterestOps();
+        } catch (IOException | RuntimeException e) {
+            this.onFailure(e);
+        }
+    }
+
+    private void onConnected() throws SSLException {
+        this.connected = true;
+        if (this.sslEngine != null) {
+            this.sslEngine.beginHandshake();
+            this.handshaking = true;
+        }
+    }
+
+    private void onFailure(Throwable error) {
+        final HttpExchange exchange = this.exchange;
+        if (exchange != null) {
+            exchange.fail(error);
+        }
+        this.close();
+    }
+
+    private void updateInterestOps() {
+        if (this.closed || this.key == null) {
+            return;
+        }
+        int interestOps;
+        if (!this.connected) {
+            interestOps = SelectionKey.OP_CONNECT;
+        } else {
+            // Not read while the delegated tasks run, as the bytes read cannot be unwrapped until they complete.
+            interestOps = this.readPaused || this.runningTasks ? 0 : SelectionKey.OP_READ;
+            if (this.writeBlocked) {
+                interestOps |= SelectionKey.OP_WRITE;
+            }
+        }
+        if (this.key.interestOps() != interestOps) {
+            this.key.interestOps(interestOps);
+        }
+    }
+
+    /**
+     * Moves the bytes of the exchange between the channel and the exchange as far as the channel allows.
+     *
+     * @param readable Whether the channel has bytes to read.
+     */
+    private void pump(boolean readable) throws IOException {
+        if (!this.connected || this.closed) {
+            return;
+        }
+        if (this.sslEngine == null) {
+            this.writePlain();
+            if (readable && !this.readPaused) {
+                this.appIn.clear();
+                if (this.channel.read(this.appIn) < 0) {
+                    this.inputShutdown = true;
+                } else {
+                    this.deliverAppIn();
+                }
+            }
+        } else {
+            this.pumpTls(readable);
+        }
+        if (this.inputShutdown && !this.closed) {
+            this.onEndOfInput();
+        }
+    }
+
+    private void writePlain() throws IOException {
+        while (this.exchange != null) {
+            final ByteBuffer source = this.exchange.peekOutbound();
+            if (source == null) {
+                break;
+            }
+            this.channel.write(source);
+            if (source.hasRemaining()) {
+                this.writeBlocked = true;
+                return;
+            }
+            this.exchange.pollOutbound();
+        }
+        this.writeBlocked = false;
+    }
+
+    private void pumpTls(boolean readable) throws IOException {
+        if (readable && !this.readPaused && !this.runningTasks && this.channel.read(this.netIn) < 0) {
+            this.inputShutdown = true;
+        }
+        while (!this.closed && !this.runningTasks) {
+            if (this.netOut.hasRemaining()) {
+                this.channel.write(this.netOut);
+            }
+            // Nothing more is wrapped until the wrapped bytes are written.
+            final boolean canWrap = !this.netOut.hasRemaining();
+            boolean progress;
+            switch (this.sslEngine.getHandshakeStatus()) {
+                case NEED_TASK:
+                    this.runDelegatedTasks();
+                    progress = false;
+                    break;
+                case NEED_WRAP:
+                    progress = canWrap && this.wrap(EMPTY);
+                    break;
+                case NEED_UNWRAP:
+                    progress = this.unwrap();
+                    break;
+                default:
+                    if (this.handshaking) {
+                        this.onHandshakeFinished();
+                    }
+                    progress = !this.readPaused && this.unwrap();
+                    final ByteBuffer source = this.exchange == null ? null : this.exchange.peekOutbound();
+                    if (canWrap && source != null) {
+                        progress |= this.wrap(source);
+                    }
+                    break;
+            }
+            if (!progress) {
+                break;
+            }
+        }
+        this.writeBlocked = this.netOut.hasRemaining();
+    }
+
+    /**
+     * Runs the delegated tasks of the engine on the task executor, then resumes the connection on the loop thread.
+     */
+    private void runDelegatedTasks() {
+        this.runningTasks = true;
+        this.taskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                RuntimeException taskError = null;
+                try {
+                    Runnable task;
+                    while ((task = sslEngine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                } catch (RuntimeException e) {
+                    taskError = e;
+                }
+                final RuntimeException error = taskError;
+                eventLoop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        runningTasks = false;
+                        if (closed) {
+                            return;
+                        }
+                        if (error != null) {
+                            onFailure(error);
+                        } else {
+                            pumpAndUpdate();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private boolean wrap(ByteBuffer source) throws IOException {
+        this.netOut.clear();
+        final SSLEngineResult result = this.sslEngine.wrap(source, this.netOut);
+        this.netOut.flip();
+        switch (result.getStatus()) {
+            case BUFFER_OVERFLOW:
+                this.netOut = ByteBuffer.allocate(Math.max(this.netOut.capacity() << 1,
+                    this.sslEngine.getSession().getPacketBufferSize()));
+                this.netOut.flip();
+                return true;
+            case CLOSED:
+                throw new SSLException("The TLS session was closed.");
+            default:
+                break;
+        }
+        if (source != EMPTY && !source.hasRemaining()) {
+            this.exchange.pollOutbound();
+        }
+        return result.bytesConsumed() > 0 || result.bytesProduced() > 0;
+    }
+
+    private boolean unwrap() throws IOException {
+        if (this.netIn.position() == 0) {
+            return false;
+        }
+        this.netIn.flip();
+        final SSLEngineResult result;
+        try {
+            result = this.sslEngine.unwrap(this.netIn, this.appIn);
+        } finally {
+            this.netIn.compact();
+        }
+        switch (result.getStatus()) {
+            case BUFFER_UNDERFLOW:
+                // A partial record, the buffer grows if the record cannot fit in it.
+                final int packetBufferSize = this.sslEngine.getSession().getPacketBufferSize();
+                if (this.netIn.capacity() < packetBufferSize) {
+                    final ByteBuffer netIn = ByteBuffer.allocate(packetBufferSize);
+                    this.netIn.flip();
+                    netIn.put(this.netIn);
+                    this.netIn = netIn;
+                }
+                return false;
+            case BUFFER_OVERFLOW:
+                if (this.appIn.position() > 0) {
+                    this.deliverAppIn();
+                } else {
+                    this.appIn = ByteBuffer.allocate(this.sslEngine.getSession().getApplicationBufferSize());
+                }
+                return true;
+            case CLOSED:
+                this.inputShutdown = true;
+                this.deliverAppIn();
+                return false;
+            default:
+                this.deliverAppIn();
+                return result.bytesConsumed() > 0 || result.bytesProduced() > 0;
+        }
+    }
+
+    private void onHandshakeFinished() throws SSLPeerUnverifiedException {
+        this.handshaking = false;
+        if (this.verifyHostNameAfterHandshake
+            && !HttpsURLConnection.getDefaultHostnameVerifier().verify(this.host, this.sslEngine.getSession())) {
+            throw new SSLPeerUnverifiedException("The certificate of the server does not match the host name "
+                + this.host + ".");
+        }
+    }
+
+    /**
+     * Hands the application bytes read to the exchange, releasing the connection to the pool or closing it once
+     * the response is complete.
+     */
+    private void deliverAppIn() throws IOException {
+        if (this.appIn.position() == 0) {
+            return;
+        }
+        this.appIn.flip();
+        try {
+            final HttpExchange exchange = this.exchange;
+            if (exchange == null) {
+                throw new ProtocolException("Unexpected bytes received on an idle connection.");
+            }
+            if (exchange.onData(this.appIn)) {
+                this.detachExchange();
+                // Bytes following the response, not requested, leave the connection in an unknown state.
+                if (!exchange.completeOnConnection(!this.appIn.hasRemaining())
+                    || !this.connectionPool.release(this, System.nanoTime())) {
+                    this.close();
+                }
+                exchange.endBody();
+            }
+        } finally {
+            this.appIn.clear();
+        }
+    }
+
+    private void onEndOfInput() {
+        final HttpExchange exchange = this.exchange;
+        this.detachExchange();
+        if (exchange != null) {
+            exchange.onEndOfInput();
+        }
+        this.close();
+    }
+
+    /**
+     * Makes the engine verify that the certificate of the server matches its host name, as the platform
+     * {@link javax.net.ssl.HttpsURLConnection} does; the verification is not available before Android 7.0.
+     *
+     * @return false if the engine cannot verify the host name.
+     */
+    private static boolean enableEndpointIdentification(SSLEngine sslEngine) {
+        try {
+            final SSLParameters sslParameters = sslEngine.getSSLParameters();
+            sslParameters.setEndpointIdentificationAlgorithm("HTTPS");
+            sslEngine.setSSLParameters(sslParameters);
+            return true;
+        } catch (NoSuchMethodError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import com.azure.android.core.logging.ClientLogger;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The thread multiplexing all the connections of a {@link NioAsyncHttpClient} with a {@link Selector}.
+ *
+ * <p>
+ * The state of the connections and of their exchanges is confined to the loop thread; other threads hand work
+ * to it with {@link #execute(Runnable)}. The thread is started by the first task and exits once it has had no
+ * channel registered and no task to run for a while, so that an idle client does not hold a thread. The selector
+ * is opened with the thread and closed when it exits, so that an idle client does not hold its file descriptors
+ * either; a client that is no longer used holds no resource to release.
+ * </p>
+ */
+final class NioEventLoop {
+    private static final long SELECT_TIMEOUT_MILLIS = 1000;
+    private static final long IDLE_EXIT_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final ClientLogger logger = new ClientLogger(NioEventLoop.class);
+    // Opened when the loop thread starts, closed when it exits.
+    private volatile Selector selector;
+    private final ConnectionPool connectionPool;
+    private final long idleExitNanos;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Thread thread;
+
+    /**
+     * The handler of the events of a channel, attached to its selection key.
+     */
+    interface SelectionHandler {
+        /**
+         * Called on the loop thread when the channel is ready for some of the operations it is interested in.
+         *
+         * @param key The selection key of the channel.
+         */
+        void onSelected(SelectionKey key);
+    }
+
+    NioEventLoop(ConnectionPool connectionPool) {
+        this(connectionPool, IDLE_EXIT_NANOS);
+    }
+
+    NioEventLoop(ConnectionPool connectionPool, long idleExitNanos) {
+        this.connectionPool = connectionPool;
+        this.idleExitNanos = idleExitNanos;
+    }
+
+    /**
+     * Runs a task on the loop thread, starting the thread if it is not running.
+     *
+     * @param task The task.
+     */
+    void execute(Runnable task) {
+        this.tasks.offer(task);
+        if (this.running.compareAndSet(false, true)) {
+            try {
+                this.selector = Selector.open();
+            } catch (IOException e) {
+                this.running.set(false);
+                throw logger.logExceptionAsError(new IllegalStateException("Unable to open a selector.", e));
+            }
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    NioEventLoop.this.run();
+                }
+            }, "azure-core-http-nio-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            this.thread = thread;
+            thread.start();
+        } else if (Thread.currentThread() != this.thread) {
+            // The selector may be the one a loop thread exiting concurrently closes, a wakeup of which is a no-op;
+            // that thread keeps running to run the task if it sees the task, otherwise a new thread runs it.
+            this.selector.wakeup();
+        }
+    }
+
+    /**
+     * Registers a channel with the selector of the loop. Must be called on the loop thread.
+     *
+     * @param channel The non-blocking channel.
+     * @param interestOps The operations to select the channel for.
+     * @param handler The handler of the events of the channel.
+     * @return The selection key.
+     * @throws IOException If the channel is closed.
+     */
+    SelectionKey register(SelectableChannel channel, int interestOps, SelectionHandler handler) throws IOException {
+        return channel.register(this.selector, interestOps, handler);
+    }
+
+    private void run() {
+        // The selector of this thread; once the thread gives up running, the next thread opens its own.
+        final Selector selector = this.selector;
+        try {
+            this.runLoop(selector);
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                logger.warning("Closing the selector failed.", e);
+            }
+        }
+    }
+
+    private void runLoop(Selector selector) {
+        long idleSinceNanos = -1;
+        long lastSweepNanos = System.nanoTime();
+        while (true) {
+            try {
+                // A task offered before the thread started, or with a wakeup of the selector of a previous thread,
+                // does not wake this selector up.
+                if (this.tasks.isEmpty()) {
+                    selector.select(SELECT_TIMEOUT_MILLIS);
+                } else {
+                    selector.selectNow();
+                }
+            } catch (IOException e) {
+                logger.warning("Selecting the ready channels failed.", e);
+            }
+            this.runTasks();
+            this.processSelectedKeys(selector);
+
+            final long nowNanos = System.nanoTime();
+            if (nowNanos - lastSweepNanos >= TimeUnit.MILLISECONDS.toNanos(SELECT_TIMEOUT_MILLIS)) {
+                lastSweepNanos = nowNanos;
+                final List<NioConnection> expiredConnections = this.connectionPool.removeExpired(nowNanos);
+                for (NioConnection connection : expiredConnections) {
+                    connection.close();
+                }
+            }
+
+            if (!selector.keys().isEmpty() || !this.tasks.isEmpty()) {
+                idleSinceNanos = -1;
+            } else if (idleSinceNanos == -1) {
+                idleSinceNanos = nowNanos;
+            } else if (nowNanos - idleSinceNanos >= this.idleExitNanos) {
+                this.running.set(false);
+                // A task offered before the flag was cleared did not start a thread, this one keeps running it.
+                if (this.tasks.isEmpty() || !this.running.compareAndSet(false, true)) {
+                    return;
+                }
+                idleSinceNanos = -1;
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("A task of the event loop failed.", e);
+            }
+        }
+    }
+
+    private void processSelectedKeys(Selector selector) {
+        final Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            final SelectionKey key = iterator.next();
+            iterator.remove();
+            if (key.isValid()) {
+                try {
+                    ((SelectionHandler) key.attachment()).onSelected(key);
+                } catch (RuntimeException e) {
+                    logger.error("Handling the events of a channel failed.", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+
+/**
+ * The body of a response, as the chunks read by the event loop queued for the reader.
+ *
+ * <p>
+ * The loop stops reading the connection when the reader falls behind by {@link #HIGH_WATER_MARK} bytes, and resumes
+ * once the reader has caught up to {@link #LOW_WATER_MARK} bytes. Closing the stream before the end of the body
+ * aborts the exchange, closing the connection.
+ * </p>
+ */
+final class NioResponseBody extends InputStream {
+    static final int HIGH_WATER_MARK = 256 * 1024;
+    static final int LOW_WATER_MARK = 64 * 1024;
+
+    private final HttpExchange exchange;
+    private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+    // The offset of the next byte to read in the first chunk.
+    private int offset;
+    private int bufferedLength;
+    private boolean paused;
+    private boolean ended;
+    private IOException error;
+    private boolean closed;
+
+    NioResponseBody(HttpExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    /**
+     * Queues a chunk read by the event loop.
+     *
+     * @param chunk The chunk.
+     * @return true if the loop should stop reading the connection until {@link HttpExchange#resumeReading()}.
+     */
+    synchronized boolean offer(byte[] chunk) {
+        if (this.closed) {
+            return false;
+        }
+        this.chunks.addLast(chunk);
+        this.bufferedLength += chunk.length;
+        this.notifyAll();
+        if (this.bufferedLength >= HIGH_WATER_MARK) {
+            this.paused = true;
+        }
+        return this.paused;
+    }
+
+    /**
+     * Marks the end of the body, once all of it was queued.
+     */
+    synchronized void end() {
+        this.ended = true;
+        this.notifyAll();
+    }
+
+    /**
+     * Fails the reads past the queued chunks.
+     *
+     * @param error The error.
+     */
+    synchronized void fail(IOException error) {
+        if (!this.ended && this.error == null) {
+            this.error = error;
+            this.notifyAll();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int read = this.read(b, 0, 1);
+        return read == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int read = 0;
+        boolean resume = false;
+        synchronized (this) {
+            while (this.chunks.isEmpty()) {
+                if (this.closed) {
+                    throw new IOException("The response body is closed.");
+                }
+                if (this.ended) {
+                    return -1;
+                }
+                if (this.error != null) {
+                    throw new IOException(this.error.getMessage(), this.error);
+                }
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while reading the response body.");
+                }
+            }
+            while (read < len && !this.chunks.isEmpty()) {
+                final byte[] chunk = this.chunks.peekFirst();
+                final int length = Math.min(len - read, chunk.length - this.offset);
+                System.arraycopy(chunk, this.offset, b, off + read, length);
+                read += length;
+                this.offset += length;
+                if (this.offset == chunk.length) {
+                    this.chunks.pollFirst();
+                    this.offset = 0;
+                }
+            }
+            this.bufferedLength -= read;
+            if (this.paused && this.bufferedLength <= LOW_WATER_MARK) {
+                this.paused = false;
+                resume = true;
+            }
+        }
+        if (resume) {
+            this.exchange.resumeReading();
+        }
+        return read;
+    }
+
+    @Override
+    public synchronized int available() {
+        return this.bufferedLength;
+    }
+
+    @Override
+    public void close() {
+        final boolean abort;
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.chunks.clear();
+            this.bufferedLength = 0;
+            abort = !this.ended && this.error == null;
+            this.notifyAll();
+        }
+        if (abort) {
+            this.exchange.abort();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * The stream a streamed request body is written to, queuing the bytes for the connection of the exchange, framed as
+ * chunks if the length of the body is unknown.
+ *
+ * <p>
+ * The small writes are gathered in a buffer, so that a chunk or a queued buffer is not allocated per write.
+ * </p>
+ */
+final class RequestBodyStream extends OutputStream {
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(ISO_8859_1);
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final HttpExchange exchange;
+    private final long contentLength;
+    private final boolean chunked;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+    private long written;
+    private boolean closed;
+
+    RequestBodyStream(HttpExchange exchange, long contentLength, boolean chunked) {
+        this.exchange = exchange;
+        this.contentLength = contentLength;
+        this.chunked = chunked;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.ensureOpen();
+        if (this.count == this.buffer.length) {
+            this.flushBuffer();
+        }
+        this.buffer[this.count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.ensureOpen();
+        if (len >= this.buffer.length) {
+            this.flushBuffer();
+            this.enqueue(b, off, len);
+            return;
+        }
+        if (len > this.buffer.length - this.count) {
+            this.flushBuffer();
+        }
+        System.arraycopy(b, off, this.buffer, this.count, len);
+        this.count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.ensureOpen();
+        this.flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.flushBuffer();
+        this.closed = true;
+        if (this.chunked) {
+            this.exchange.enqueueOutbound(ByteBuffer.wrap(LAST_CHUNK));
+        } else if (this.written != this.contentLength) {
+            throw new ProtocolException("The request body has " + this.written + " bytes, its content length is "
+                + this.contentLength + ".");
+        }
+        this.exchange.closeOutbound();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (this.count > 0) {
+            final int count = this.count;
+            this.count = 0;
+            this.enqueue(this.buffer, 0, count);
+        }
+    }
+
+    private void enqueue(byte[] b, int off, int len) throws IOException {
+        this.written += len;
+        if (!this.chunked && this.written > this.contentLength) {
+            throw new ProtocolException("The request body has more bytes than its content length "
+                + this.contentLength + ".");
+        }
+        final ByteBuffer data;
+        if (this.chunked) {
+            final byte[] size = (Integer.toHexString(len) + "\r\n").getBytes(ISO_8859_1);
+            data = ByteBuffer.allocate(size.length + len + CRLF.length);
+            data.put(size).put(b, off, len).put(CRLF);
+            data.flip();
+        } else {
+            // Copied, as the caller may reuse the array once the write returns.
+            data = ByteBuffer.allocate(len);
+            data.put(b, off, len);
+            data.flip();
+        }
+        this.exchange.enqueueOutbound(data);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("The request body stream is closed.");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class Http1ResponseParserTests {
+    @Test
+    public void fixedLengthResponseParsedByteByByte() throws IOException {
+        final RecordingListener listener = new RecordingListener();
+        final Http1ResponseParser parser = new Http1ResponseParser(listener, false);
+        final byte[] response = bytes("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nSet-Cookie: a=1\r\n"
+            + "Set-Cookie: b=2\r\nContent-Length: 5\r\n\r\nhello");
+        for (int i = 0; i < response.length; i++) {
+            assertEquals(i == response.length - 1, parser.parse(ByteBuffer.wrap(response, i, 1)));
+        }
+
+        assertEquals(200, listener.statusCode);
+        assertArrayEquals(new String[] {"Content-Type", "text/plain", "Set-Cookie", "a=1", "Set-Cookie", "b=2",
+            "Content-Length", "5"}, listener.headers);
+        assertEquals("hello", listener.body());
+        assertTrue(listener.complete);
+        assertTrue(parser.isKeepAlive());
+    }
+
+    @Test
+    public void chunkedResponse() throws IOException {
+        final RecordingListener listener = new RecordingListener();
+        final Http1ResponseParser parser = new Http1ResponseParser(listener, false);
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+            + "5;name=value\r\nhello\r\nA\r\n, chunked!\r\n0\r\nTrailer: ignored\r\n\r\nHTTP/1.1"));
+
+        assertTrue(parser.parse(buffer));
+        assertEquals("hello, chunked!", listener.body());
+        assertTrue(parser.isKeepAlive());
+        // The bytes following the response are left in the buffer.
+        assertEquals(8, buffer.remaining());
+    }
+
+    @Test
+    public void interimResponseIsSkipped() throws IOException {
+        final RecordingListener listener = new RecordingListener();
+        final Http1ResponseParser parser = new Http1ResponseParser(listener, false);
+
+        assertTrue(parser.parse(ByteBuffer.wrap(bytes("HTTP/1.1 100 Continue\r\n\r\n"
+            + "HTTP/1.1 201 Created\r\nContent-Length: 0\r\n\r\n"))));
+        assertEquals(201, listener.statusCode);
+        assertEquals(1, listener.headCount);
+    }
+
+    @Test
+    public void responsesWithoutBody() throws IOException {
+        final RecordingListener headListener = new RecordingListener();
+        final Http1ResponseParser headParser = new Http1ResponseParser(headListener, true);
+        assertTrue(headParser.parse(ByteBuffer.wrap(bytes("HTTP/1.1 200 OK\r\nContent-Length: 100\r\n\r\n"))));
+        assertEquals("", headListener.body());
+
+        final RecordingListener listener = new RecordingListener();
+        final Http1ResponseParser parser = new Http1ResponseParser(listener, false);
+        assertTrue(parser.parse(ByteBuffer.wrap(bytes("HTTP/1.1 204 No Content\r\n\r\n"))));
+        assertTrue(parser.isKeepAlive());
+    }
+
+    @Test
+    public void bodyUntilEndOfStream() throws IOException {
+        final RecordingListener listener = new RecordingListener();
+        final Http1ResponseParser parser = new Http1ResponseParser(listener, false);
+
+        assertFalse(parser.parse(ByteBuffer.wrap(bytes("HTTP/1.0 200 OK\r\n\r\nuntil the end"))));
+        assertFalse(listener.complete);
+        parser.endOfInput();
+        assertTrue(listener.complete);
+        assertEquals("until the end", listener.body());
+        assertFalse(parser.isKeepAlive());
+    }
+
+    @Test
+    public void keepAliveFollowsTheConnectionHeader() throws IOException {
+        assertFalse(parseComplete("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 0\r\n\r\n")
+            .isKeepAlive());
+        assertFalse(parseComplete("HTTP/1.0 200 OK\r\nContent-Length: 0\r\n\r\n").isKeepAlive());
+        assertTrue(parseComplete("HTTP/1.0 200 OK\r\nConnection: Keep-Alive\r\nContent-Length: 0\r\n\r\n")
+            .isKeepAlive());
+    }
+
+    @Test
+    public void malformedResponsesAreRejected() throws IOException {
+        assertThrows(ProtocolException.class, () -> new Http1ResponseParser(new RecordingListener(), false)
+            .parse(ByteBuffer.wrap(bytes("SPDY/3 200 OK\r\n\r\n"))));
+        assertThrows(ProtocolException.class, () -> new Http1ResponseParser(new RecordingListener(), false)
+            .parse(ByteBuffer.wrap(bytes("HTTP/1.1 200 OK\r\nContent-Length: -1\r\n\r\n"))));
+        assertThrows(ProtocolException.class, () -> new Http1ResponseParser(new RecordingListener(), false)
+            .parse(ByteBuffer.wrap(bytes("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nxyz\r\n"))));
+
+        final Http1ResponseParser parser = new Http1ResponseParser(new RecordingListener(), false);
+        assertFalse(parser.parse(ByteBuffer.wrap(bytes("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nhello"))));
+        assertTrue(parser.hasReceivedBytes());
+        assertThrows(EOFException.class, parser::endOfInput);
+    }
+
+    private static Http1ResponseParser parseComplete(String response) throws IOException {
+        final Http1ResponseParser parser = new Http1ResponseParser(new RecordingListener(), false);
+        assertTrue(parser.parse(ByteBuffer.wrap(bytes(response))));
+        return parser;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static final class RecordingListener implements Http1ResponseParser.Listener {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private int statusCode;
+        private String[] headers;
+        private int headCount;
+        private boolean complete;
+
+        @Override
+        public void onResponseHead(int statusCode, String[] headerNamesAndValues, int headerLength) {
+            this.statusCode = statusCode;
+            this.headers = Arrays.copyOf(headerNamesAndValues, headerLength);
+            this.headCount++;
+        }
+
+        @Override
+        public void onBodyData(ByteBuffer data) {
+            while (data.hasRemaining()) {
+                this.body.write(data.get());
+            }
+        }
+
+        @Override
+        public void onResponseComplete() {
+            this.complete = true;
+        }
+
+        String body() {
+            return new String(this.body.toByteArray(), StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.util.CancellationToken;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpExchangeTests {
+    @Test
+    public void headersBreakingTheFramingAreRejectedBeforeConnecting() throws Exception {
+        final String[][] invalidHeaders = {
+            {"x-ms-value", "a\r\nInjected: 1"},
+            {"x-ms-value", "a\nb"},
+            {"x-ms-value", "a\0b"},
+            {"x-ms value", "a"},
+            {"x-ms-value:", "a"},
+            {"x-ms-välue", "a"}
+        };
+        final HttpClient httpClient = new NioAsyncHttpClientBuilder().build();
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            for (String[] header : invalidHeaders) {
+                final HttpRequest request = new HttpRequest(HttpMethod.GET,
+                    "http://localhost:" + serverSocket.getLocalPort() + "/");
+                request.setHeader(header[0], header[1]);
+                final Throwable error = send(httpClient, request).get(10, TimeUnit.SECONDS);
+                assertTrue(error instanceof IllegalArgumentException, header[0] + ": " + error);
+            }
+
+            // Nothing was written, no connection was even opened.
+            serverSocket.setSoTimeout(200);
+            assertThrows(SocketTimeoutException.class, serverSocket::accept);
+        }
+    }
+
+    private static CompletableFuture<Throwable> send(HttpClient httpClient, HttpRequest request) {
+        final CompletableFuture<Throwable> result = new CompletableFuture<>();
+        httpClient.send(request, CancellationToken.NONE, new HttpCallback() {
+            @Override
+            public void onSuccess(HttpResponse response) {
+                response.close();
+                result.complete(new IOException("Unexpected response " + response.getStatusCode()));
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                result.complete(error);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.nio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NioEventLoopTests {
+    @Test
+    public void selectorIsClosedWhenIdleThreadExitsAndReopenedOnNextTask() throws Exception {
+        final NioEventLoop eventLoop = new NioEventLoop(new ConnectionPool(1, TimeUnit.SECONDS.toNanos(1)),
+            TimeUnit.MILLISECONDS.toNanos(100));
+        final Pipe pipe = Pipe.open();
+        pipe.source().configureBlocking(false);
+
+        final CompletableFuture<SelectionKey> registered = new CompletableFuture<>();
+        final CompletableFuture<Thread> loopThread = new CompletableFuture<>();
+        eventLoop.execute(() -> {
+            loopThread.complete(Thread.currentThread());
+            try {
+                registered.complete(eventLoop.register(pipe.source(), SelectionKey.OP_READ, key -> { }));
+            } catch (IOException e) {
+                registered.completeExceptionally(e);
+            }
+        });
+        final SelectionKey key = registered.get(10, TimeUnit.SECONDS);
+        assertTrue(key.selector().isOpen());
+
+        // With no channel registered, the thread exits once idle and closes its selector.
+        pipe.source().close();
+        pipe.sink().close();
+        loopThread.get(10, TimeUnit.SECONDS).join(10_000);
+        assertFalse(loopThread.get().isAlive());
+        assertFalse(key.selector().isOpen());
+
+        // The next task starts a thread with a selector of its own.
+        final Pipe nextPipe = Pipe.open();
+        nextPipe.source().configureBlocking(false);
+        final CompletableFuture<SelectionKey> nextRegistered = new CompletableFuture<>();
+        eventLoop.execute(() -> {
+            try {
+                nextRegistered.complete(eventLoop.register(nextPipe.source(), SelectionKey.OP_READ, k -> { }));
+            } catch (IOException e) {
+                nextRegistered.completeExceptionally(e);
+            }
+        });
+        final SelectionKey nextKey = nextRegistered.get(10, TimeUnit.SECONDS);
+        assertTrue(nextKey.selector().isOpen());
+        assertNotSame(key.selector(), nextKey.selector());
+        nextPipe.source().close();
+        nextPipe.sink().close();
+    }
+}
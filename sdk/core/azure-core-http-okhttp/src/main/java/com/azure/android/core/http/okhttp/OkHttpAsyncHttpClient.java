@@ -8,9 +8,11 @@ import com.azure.android.core.http.HttpCallback;
 import com.azure.android.core.http.HttpClient;
 import com.azure.android.core.http.HttpHeaders;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
 import com.azure.android.core.http.HttpHeader;
 import com.azure.android.core.http.HttpMethod;
 import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.implementation.LazyHttpHeaders;
 import com.azure.android.core.util.CancellationToken;
 import com.azure.android.core.logging.ClientLogger;
 
@@ -22,6 +24,7 @@ import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.regex.Matcher;
@@ -33,6 +36,7 @@ import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.BufferedSink;
 
 class OkHttpAsyncHttpClient implements HttpClient {
     private final ClientLogger logger = new ClientLogger(OkHttpAsyncHttpClient.class);
@@ -57,7 +61,7 @@ class OkHttpAsyncHttpClient implements HttpClient {
     public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
         okhttp3.Request.Builder okhttpRequestBuilder = new okhttp3.Request.Builder();
 
-        okhttpRequestBuilder.url(httpRequest.getUrl());
+        okhttpRequestBuilder.url(httpRequest.getUrlString());
 
         if (httpRequest.getHeaders() != null) {
             Map<String, String> headers = new HashMap<>();
@@ -76,16 +80,15 @@ class OkHttpAsyncHttpClient implements HttpClient {
         } else if (httpRequest.getHttpMethod() == HttpMethod.HEAD) {
             okhttpRequestBuilder.head();
         } else {
-            byte[] content = httpRequest.getBody();
-            content = content == null ? new byte[0] : content;
-
             final String contentType = httpRequest.getHeaders().getValue("Content-Type");
-            if (contentType == null) {
+            final MediaType mediaType = contentType == null ? null : MediaType.parse(contentType);
+            final HttpRequestBody content = httpRequest.getRequestBody();
+            if (content == null) {
                 okhttpRequestBuilder.method(httpRequest.getHttpMethod().toString(),
-                    RequestBody.create(null, content));
+                    RequestBody.create(mediaType, new byte[0]));
             } else {
                 okhttpRequestBuilder.method(httpRequest.getHttpMethod().toString(),
-                    RequestBody.create(MediaType.parse(contentType), content));
+                    toOkHttpRequestBody(content, mediaType));
             }
         }
 
@@ -119,7 +122,7 @@ class OkHttpAsyncHttpClient implements HttpClient {
                     cancellationToken.unregisterOnCancel(onCancelId);
                 }
                 httpCallback.onSuccess(new HttpResponse(httpRequest) {
-                    private final HttpHeaders headers = fromOkHttpHeaders(response.headers());
+                    private final HttpHeaders headers = new OkHttpHeaders(response.headers());
                     private final ResponseBody responseBody = response.body();
 
                     @Override
@@ -176,19 +179,75 @@ class OkHttpAsyncHttpClient implements HttpClient {
                     public String getBodyAsString(Charset charset) {
                         return new String(this.getBodyAsByteArray(), charset);
                     }
-
-                    private HttpHeaders fromOkHttpHeaders(Headers headers) {
-                        HttpHeaders httpHeaders = new HttpHeaders();
-                        for (String headerName : headers.names()) {
-                            httpHeaders.put(headerName, headers.get(headerName));
-                        }
-                        return httpHeaders;
-                    }
                 });
             }
         });
     }
 
+    /**
+     * A read-through view over the headers of an OkHttp response, reading the headers by index so that looking
+     * a header up does not allocate, and keeping all the values of a header that occurs more than once.
+     */
+    private static final class OkHttpHeaders extends LazyHttpHeaders {
+        private final Headers headers;
+
+        OkHttpHeaders(Headers headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        protected String readValue(String name) {
+            String values = null;
+            for (int i = 0, size = this.headers.size(); i < size; i++) {
+                if (this.headers.name(i).equalsIgnoreCase(name)) {
+                    values = joinValue(values, this.headers.value(i));
+                }
+            }
+            return values;
+        }
+
+        @Override
+        protected String[] readValues(String name) {
+            final List<String> values = this.headers.values(name);
+            return values.isEmpty() ? null : values.toArray(new String[0]);
+        }
+
+        @Override
+        protected void readHeaders() {
+            for (int i = 0, size = this.headers.size(); i < size; i++) {
+                this.addHeader(this.headers.name(i), this.headers.value(i));
+            }
+        }
+    }
+
+    /**
+     * Creates the OkHttp request body writing the content to the connection, with a 'Content-Length' header if
+     * the length of the content is known, chunked otherwise. OkHttp may write the body more than once, e.g. on
+     * a redirect, which the replayable {@link HttpRequestBody} supports.
+     *
+     * @param content The content.
+     * @param mediaType The media type of the content, null if unknown.
+     * @return The OkHttp request body.
+     */
+    private static RequestBody toOkHttpRequestBody(HttpRequestBody content, MediaType mediaType) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return mediaType;
+            }
+
+            @Override
+            public long contentLength() {
+                return content.getContentLength();
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                content.writeTo(sink.outputStream());
+            }
+        };
+    }
+
     /**
      * Attempts to convert a byte stream into the properly encoded String.
      * <p>
@@ -0,0 +1,252 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.logging.ClientLogger;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An adaptive limit of the HTTP calls to run concurrently against each host, used by {@link HttpCallDispatcher}
+ * in addition to its fixed limits once set with {@link HttpCallDispatcher#setConcurrencyLimiter}.
+ *
+ * <p>
+ * The limit of a host follows an additive-increase/multiplicative-decrease (AIMD) algorithm:
+ * </p>
+ * <ul>
+ *     <li>it grows by about one call per round trip while the calls keep close to the lowest recent round-trip
+ *     time of the host and use at least half of the limit;</li>
+ *     <li>it shrinks by 10% when a round trip takes more than twice the lowest recent round-trip time,
+ *     which happens when the calls queue up at the host;</li>
+ *     <li>it halves when the host throttles a call with a 429 or 503 status code.</li>
+ * </ul>
+ * <p>
+ * The limit shrinks at most once per lowest recent round-trip time, so that the calls in flight when the host
+ * started throttling or queuing do not collapse the limit. The pipelines using the dispatcher report each
+ * response their HttpClient receives, once: the throttled responses, including those a
+ * {@link com.azure.android.core.http.policy.RetryPolicy} retries, as throttled, and the others as round trips.
+ * </p>
+ * <p>
+ * The limit of a host that received no response for 5 minutes returns to the initial limit, the round trips it was
+ * adapted to being stale, and the host is then forgotten if it stays idle, so that the limiter does not keep every
+ * host it ever saw.
+ * </p>
+ */
+public final class HttpCallConcurrencyLimiter {
+    // The number of round trips after which the lowest round-trip time is re-measured, so that the limiter
+    // follows a host whose latency rose durably. It rises by at most a quarter per window, so that the time
+    // the calls wait in the queue of the host is not mistaken for its latency.
+    private static final int MIN_RTT_WINDOW = 250;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double THROTTLE_BACKOFF = 0.5;
+    // The time with no response after which the limit of a host returns to the initial limit, or the host is
+    // discarded if its limit already has, also the period of the sweeps.
+    static final long IDLE_HOST_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final ClientLogger logger = new ClientLogger(HttpCallConcurrencyLimiter.class);
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final ConcurrentHashMap<String, HostLimit> hostLimits = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime() + IDLE_HOST_NANOS);
+
+    /**
+     * Creates an HttpCallConcurrencyLimiter that starts each host at 20 concurrent calls and adapts
+     * the limit between 1 and 200 calls.
+     */
+    public HttpCallConcurrencyLimiter() {
+        this(20, 1, 200);
+    }
+
+    /**
+     * Creates an HttpCallConcurrencyLimiter.
+     *
+     * @param initialLimit The limit of a host before any call to it completes.
+     * @param minLimit The lowest limit of a host.
+     * @param maxLimit The highest limit of a host.
+     * @throws IllegalArgumentException if {@code minLimit} is less than 1 or if {@code initialLimit} is not
+     *     between {@code minLimit} and {@code maxLimit}.
+     */
+    public HttpCallConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'minLimit' must be greater than 0 and "
+                + "not greater than 'maxLimit', provided:" + minLimit + ", " + maxLimit));
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'initialLimit' must be between "
+                + "'minLimit' and 'maxLimit', provided:" + initialLimit));
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Gets the current limit of the HTTP calls to run concurrently against the given host.
+     *
+     * @param host The host.
+     * @return The limit.
+     */
+    public int getLimit(String host) {
+        final HostLimit hostLimit = this.hostLimits.get(Util.requireNonNull(host, "'host' is required."));
+        return hostLimit == null ? this.initialLimit : hostLimit.getLimit();
+    }
+
+    /**
+     * Reports the round trip of a call against the given host.
+     *
+     * @param host The host.
+     * @param rttNanos The round-trip time of the call, in nanoseconds.
+     * @param runningCount The number of calls that were running against the host, including this one.
+     */
+    public void onRoundTrip(String host, long rttNanos, int runningCount) {
+        this.sweepIdleHosts();
+        if (rttNanos > 0) {
+            this.getHostLimit(Util.requireNonNull(host, "'host' is required.")).onRoundTrip(rttNanos, runningCount);
+        }
+    }
+
+    /**
+     * Reports a call throttled by the given host, with a 429 (Too Many Requests) or 503 (Service Unavailable)
+     * status code.
+     *
+     * @param host The host.
+     */
+    public void onThrottled(String host) {
+        this.sweepIdleHosts();
+        this.getHostLimit(Util.requireNonNull(host, "'host' is required.")).onThrottled();
+    }
+
+    /**
+     * package-private.
+     *
+     * @return The number of hosts the limiter keeps a limit for.
+     */
+    int getHostsCount() {
+        return this.hostLimits.size();
+    }
+
+    /**
+     * package-private.
+     *
+     * Return the limit of the hosts that received no response for a while to the initial limit, and discard
+     * those whose limit already had.
+     *
+     * @param nowNanos The current time, in nanoseconds.
+     */
+    void removeIdleHosts(long nowNanos) {
+        final Iterator<HostLimit> iterator = this.hostLimits.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().resetIfIdle(nowNanos)) {
+                // A call in flight for longer than the idle time reports to a discarded limit, unseen, and the
+                // host starts again at the initial limit.
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Sweep the hosts that received no response for a while, at most once per period.
+     */
+    private void sweepIdleHosts() {
+        final long nowNanos = System.nanoTime();
+        final long sweepNanos = this.nextSweepNanos.get();
+        if (nowNanos - sweepNanos < 0
+            || !this.nextSweepNanos.compareAndSet(sweepNanos, nowNanos + IDLE_HOST_NANOS)) {
+            return;
+        }
+        this.removeIdleHosts(nowNanos);
+    }
+
+    private HostLimit getHostLimit(String host) {
+        HostLimit hostLimit = this.hostLimits.get(host);
+        if (hostLimit == null) {
+            final HostLimit newHostLimit = new HostLimit();
+            hostLimit = this.hostLimits.putIfAbsent(host, newHostLimit);
+            if (hostLimit == null) {
+                hostLimit = newHostLimit;
+            }
+        }
+        return hostLimit;
+    }
+
+    /**
+     * The adaptive limit of a host.
+     */
+    private final class HostLimit {
+        // The fields are guarded by 'this'.
+        private double limit = initialLimit;
+        private long minRttNanos;
+        private long windowMinRttNanos = Long.MAX_VALUE;
+        private int windowCount;
+        private long lastDecreaseNanos;
+        private boolean decreased;
+        private long lastReportNanos = System.nanoTime();
+
+        synchronized int getLimit() {
+            return (int) this.limit;
+        }
+
+        /**
+         * Return the limit to the initial limit if the host received no response for a while.
+         *
+         * @param nowNanos The current time, in nanoseconds.
+         * @return true if the host is idle and its limit was already the initial limit, so it can be discarded.
+         */
+        synchronized boolean resetIfIdle(long nowNanos) {
+            if (nowNanos - this.lastReportNanos < IDLE_HOST_NANOS) {
+                return false;
+            }
+            if ((int) this.limit == initialLimit) {
+                return true;
+            }
+            this.limit = initialLimit;
+            this.minRttNanos = 0;
+            this.windowMinRttNanos = Long.MAX_VALUE;
+            this.windowCount = 0;
+            this.decreased = false;
+            return false;
+        }
+
+        synchronized void onRoundTrip(long rttNanos, int runningCount) {
+            this.lastReportNanos = System.nanoTime();
+            this.windowMinRttNanos = Math.min(this.windowMinRttNanos, rttNanos);
+            if (++this.windowCount >= MIN_RTT_WINDOW) {
+                this.minRttNanos = Math.min(this.windowMinRttNanos, this.minRttNanos + this.minRttNanos / 4);
+                this.windowMinRttNanos = Long.MAX_VALUE;
+                this.windowCount = 0;
+            }
+            if (this.minRttNanos == 0 || rttNanos < this.minRttNanos) {
+                this.minRttNanos = rttNanos;
+            }
+
+            if (rttNanos > LATENCY_TOLERANCE * this.minRttNanos) {
+                this.decrease(LATENCY_BACKOFF);
+            } else if (2 * runningCount >= this.limit) {
+                // Grow only if the limit is in use, a host that is called rarely keeps its limit.
+                this.limit = Math.min(maxLimit, this.limit + 1 / this.limit);
+            }
+        }
+
+        synchronized void onThrottled() {
+            this.lastReportNanos = System.nanoTime();
+            this.decrease(THROTTLE_BACKOFF);
+        }
+
+        private void decrease(double backoff) {
+            final long nowNanos = System.nanoTime();
+            if (this.decreased && nowNanos - this.lastDecreaseNanos < this.minRttNanos) {
+                return;
+            }
+            this.decreased = true;
+            this.lastDecreaseNanos = nowNanos;
+            this.limit = Math.max(minLimit, this.limit * backoff);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.Option;
+import com.azure.android.core.util.RequestContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time after which the result of an HTTP call is no longer needed.
+ *
+ * <p>
+ * The deadline is carried through the {@link RequestContext} given to
+ * {@link HttpPipeline#send(HttpRequest, RequestContext, CancellationToken, HttpCallback)}, keyed on
+ * {@code HttpCallDeadline.class}:
+ * </p>
+ *
+ * <pre>
+ * RequestContext requestContext = RequestContext.NONE
+ *     .addData(HttpCallDeadline.class, HttpCallDeadline.after(10, TimeUnit.SECONDS));
+ * </pre>
+ *
+ * <p>
+ * {@link HttpCallDispatcher} fails a call whose deadline expired while it was waiting to run with
+ * {@link com.azure.android.core.http.exception.DeadlineExceededException}, and
+ * {@link com.azure.android.core.http.policy.RetryPolicy} does not retry when the remaining time cannot
+ * cover the retry delay.
+ * </p>
+ */
+public final class HttpCallDeadline {
+    private final long deadlineNanos;
+
+    private HttpCallDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Creates a deadline that expires after the given timeout from now.
+     *
+     * @param timeout The time from now after which the deadline expires.
+     * @param timeUnit The time unit of the {@code timeout}.
+     * @return The deadline.
+     */
+    public static HttpCallDeadline after(long timeout, TimeUnit timeUnit) {
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        return new HttpCallDeadline(System.nanoTime() + timeUnit.toNanos(timeout));
+    }
+
+    /**
+     * Gets the time remaining until the deadline expires.
+     *
+     * @param timeUnit The time unit of the returned value.
+     * @return The remaining time, 0 if the deadline has expired.
+     */
+    public long getRemaining(TimeUnit timeUnit) {
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        final long remainingNanos = this.deadlineNanos - System.nanoTime();
+        return remainingNanos <= 0 ? 0 : timeUnit.convert(remainingNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets whether the deadline has expired.
+     *
+     * @return true if the deadline has expired, false otherwise.
+     */
+    public boolean isExpired() {
+        return this.deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Gets the deadline carried in the given context.
+     *
+     * @param requestContext The context.
+     * @return The deadline in the context, null if the context has no deadline.
+     */
+    public static HttpCallDeadline fromContext(RequestContext requestContext) {
+        if (requestContext == null) {
+            return null;
+        }
+        final Option<Object> deadline = requestContext.getData(HttpCallDeadline.class);
+        if (deadline.isInitialized() && deadline.getValue() instanceof HttpCallDeadline) {
+            return (HttpCallDeadline) deadline.getValue();
+        }
+        return null;
+    }
+}
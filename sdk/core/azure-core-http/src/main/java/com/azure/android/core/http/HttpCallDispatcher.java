@@ -3,23 +3,30 @@
 
 package com.azure.android.core.http;
 
+import com.azure.android.core.http.exception.CallNotDispatchedException;
+import com.azure.android.core.http.exception.DeadlineExceededException;
+import com.azure.android.core.http.exception.LoadSheddingException;
+import com.azure.android.core.http.implementation.HashedWheelTimer;
 import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.http.implementation.VirtualThreads;
 import com.azure.android.core.util.CancellationToken;
 import com.azure.android.core.util.RequestContext;
 import com.azure.android.core.logging.ClientLogger;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * The dispatcher to dispatch async HTTP calls send through the pipeline. Additionally, an HttpClient
@@ -28,12 +35,34 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public final class HttpCallDispatcher {
     private final ClientLogger logger = new ClientLogger(HttpCallDispatcher.class);
 
-    private int maxRunningCalls = 64;
+    private volatile int maxRunningCalls = 64;
+    private volatile int maxRunningCallsPerHost = Integer.MAX_VALUE;
+    private volatile long priorityAgingNanos = TimeUnit.SECONDS.toNanos(2);
+    private volatile int maxWaitingCalls = Integer.MAX_VALUE;
+    private volatile WaitingCallsOverflowPolicy waitingCallsOverflowPolicy = WaitingCallsOverflowPolicy.rejectNew();
+    private volatile HttpCallConcurrencyLimiter concurrencyLimiter;
+    // package-private, read by HttpPipelinePolicyChainImpl once per pipeline run.
+    volatile HttpCallMetrics metrics = HttpCallMetrics.NONE;
     private final ExecutorService executorService;
-    private ScheduledExecutorService scheduledExecutorService;
-    private final Deque<RootDispatchableCall> waitingRootDispatchableCalls = new ArrayDeque<>();
-    private final Deque<RootDispatchableCall> runningRootDispatchableCalls = new ArrayDeque<>();
-    private final Deque<NestedDispatchableCall> waitingNestedDispatchableCalls = new ArrayDeque<>();
+    // The user provided ScheduledExecutorService, if any; otherwise 'timer' is used.
+    private final ScheduledExecutorService scheduledExecutorService;
+    // The timer shared with the other dispatchers and the policies, used only to hand a scheduled call over
+    // to executorService when the time is up; its thread is created on demand and exits after a minute idle.
+    private final HashedWheelTimer timer;
+    // The admission structures are lock-free; a RootDispatchableCall is "running" while it holds one of
+    // the 'maxRunningCalls' permits tracked by 'runningCallsCount' and one of the 'maxRunningCallsPerHost'
+    // permits tracked by its HostCalls.
+    private final ConcurrentHashMap<String, HostCalls> hostCallsMap = new ConcurrentHashMap<>();
+    // The hosts that may have admissible waiting RootDispatchableCall calls, served round-robin.
+    private final Queue<HostCalls> readyHostCalls = new ConcurrentLinkedQueue<>();
+    private final Queue<NestedDispatchableCall> waitingNestedDispatchableCalls = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger runningCallsCount = new AtomicInteger(0);
+    // The number of RootDispatchableCall calls waiting across all hosts, bounded by 'maxWaitingCalls'.
+    private final AtomicInteger waitingCallsCount = new AtomicInteger(0);
+    // The monitor that threads blocked by WaitingCallsOverflowPolicy.blockCaller(..) wait on,
+    // it is not taken unless such threads exist.
+    private final Object waitingSlotMonitor = new Object();
+    private volatile int blockedCallersCount;
 
     /**
      * Creates an HttpCallDispatcher with an ExecutorService with default settings to execute HTTP calls.
@@ -44,6 +73,7 @@ public final class HttpCallDispatcher {
         this.executorService = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
             new SynchronousQueue<>());
         this.scheduledExecutorService = null;
+        this.timer = HashedWheelTimer.getSharedTimer();
     }
 
     /**
@@ -54,6 +84,7 @@ public final class HttpCallDispatcher {
     public HttpCallDispatcher(ExecutorService executorService) {
         this.executorService = Util.requireNonNull(executorService, "'executorService' is required.");
         this.scheduledExecutorService = null;
+        this.timer = HashedWheelTimer.getSharedTimer();
     }
 
     /**
@@ -69,6 +100,39 @@ public final class HttpCallDispatcher {
         this.executorService = Util.requireNonNull(executorService, "'executorService' is required.");
         this.scheduledExecutorService = Util.requireNonNull(scheduledExecutorService,
             "'scheduledExecutorService' is required.");
+        this.timer = null;
+    }
+
+    /**
+     * Creates an HttpCallDispatcher that runs each HTTP call on its own virtual thread when the runtime
+     * supports virtual threads (Java 21+), otherwise an HttpCallDispatcher with the default ExecutorService.
+     *
+     * <p>
+     * A virtual thread blocked on I/O does not hold an OS thread, so clients with blocking I/O such as
+     * HttpUrlConnection can run thousands of concurrent calls without thousands of OS threads. The maximum
+     * number of running calls is still enforced, raise it with {@link #setMaxRunningCalls(int)} to run
+     * more than the default number of concurrent calls.
+     * </p>
+     *
+     * @return The HttpCallDispatcher.
+     * @see #isVirtualThreadsSupported()
+     */
+    public static HttpCallDispatcher withVirtualThreads() {
+        final ExecutorService virtualThreadExecutor
+            = VirtualThreads.newThreadPerTaskExecutor("azure-http-call-dispatcher-");
+        return virtualThreadExecutor == null
+            ? new HttpCallDispatcher()
+            : new HttpCallDispatcher(virtualThreadExecutor);
+    }
+
+    /**
+     * Checks whether the runtime supports virtual threads, i.e. whether {@link #withVirtualThreads()}
+     * creates a dispatcher running HTTP calls on virtual threads.
+     *
+     * @return true if the runtime supports virtual threads, false otherwise.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return VirtualThreads.isSupported();
     }
 
     /**
@@ -87,9 +151,7 @@ public final class HttpCallDispatcher {
                 new IllegalArgumentException("The maximum number of HTTP calls to execute concurrently "
                 + "must be greater than 1, provided:" + maxCalls));
         }
-        synchronized (this) {
-            this.maxRunningCalls = maxCalls;
-        }
+        this.maxRunningCalls = maxCalls;
         this.dispatchCalls();
     }
 
@@ -99,27 +161,232 @@ public final class HttpCallDispatcher {
      * @return The maximum number of HTTP calls that can run concurrently.
      */
     public int getMaxRunningCalls() {
-        synchronized (this) {
-            return this.maxRunningCalls;
+        return this.maxRunningCalls;
+    }
+
+    /**
+     * Sets the maximum number of HTTP calls to run concurrently against a single host, the host
+     * is identified by {@code HttpRequest.getHost()} of the enqueued request.
+     *
+     * <p>
+     * Calls beyond this value will be stored in-memory queue waiting for running calls to the same
+     * host to complete, calls to other hosts are not held back by them. Waiting calls are admitted
+     * round-robin across hosts. By default, there is no per-host limit other than {@code maxRunningCalls}.
+     * </p>
+     *
+     * @param maxCallsPerHost The maximum number of HTTP calls to run concurrently against a single host.
+     * @throws IllegalArgumentException if value of {@code maxCallsPerHost} parameter is less than 1.
+     */
+    public void setMaxRunningCallsPerHost(int maxCallsPerHost) {
+        if (maxCallsPerHost < 1) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("The maximum number of HTTP calls to execute concurrently per host "
+                    + "must be greater than 1, provided:" + maxCallsPerHost));
+        }
+        this.maxRunningCallsPerHost = maxCallsPerHost;
+        // Hosts that were at the old limit may be admissible under the new one.
+        for (HostCalls hostCalls : this.hostCallsMap.values()) {
+            this.signalHostCalls(hostCalls);
+        }
+        this.dispatchCalls();
+    }
+
+    /**
+     * Gets the maximum number of HTTP calls that can run concurrently against a single host.
+     *
+     * @return The maximum number of HTTP calls that can run concurrently per host.
+     */
+    public int getMaxRunningCallsPerHost() {
+        return this.maxRunningCallsPerHost;
+    }
+
+    /**
+     * Sets the adaptive limit of the HTTP calls to run concurrently against each host.
+     *
+     * <p>
+     * The limit of a host is then the lower of {@code maxRunningCallsPerHost} and the limit of the host in
+     * {@code concurrencyLimiter}. The pipelines using the dispatcher report to the limiter each response the
+     * HttpClient receives: the round-trip time of the responses other than the 429 and 503 responses, which are
+     * reported as throttled. By default, there is no adaptive limit.
+     * </p>
+     *
+     * @param concurrencyLimiter The adaptive limit, null to remove it.
+     */
+    public void setConcurrencyLimiter(HttpCallConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        for (HostCalls hostCalls : this.hostCallsMap.values()) {
+            this.signalHostCalls(hostCalls);
+        }
+        this.dispatchCalls();
+    }
+
+    /**
+     * Gets the adaptive limit of the HTTP calls to run concurrently against each host.
+     *
+     * @return The adaptive limit, null if none.
+     */
+    public HttpCallConcurrencyLimiter getConcurrencyLimiter() {
+        return this.concurrencyLimiter;
+    }
+
+    /**
+     * Sets the aging time of waiting HTTP calls.
+     *
+     * <p>
+     * Waiting calls are admitted in the order of their {@link HttpCallPriority}. For each {@code agingTime}
+     * a call spends waiting, it is admitted as if it had the next higher priority, so that a steady stream
+     * of higher priority calls cannot starve the lower priority calls. The default aging time is 2 seconds.
+     * </p>
+     *
+     * @param agingTime The time a waiting call needs to wait to be promoted to the next higher priority.
+     * @param timeUnit The time unit of the {@code agingTime}.
+     * @throws IllegalArgumentException if value of {@code agingTime} parameter is less than 1.
+     */
+    public void setPriorityAgingTime(long agingTime, TimeUnit timeUnit) {
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        if (agingTime < 1) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("The priority aging time must be greater than 0, provided:" + agingTime));
+        }
+        this.priorityAgingNanos = timeUnit.toNanos(agingTime);
+    }
+
+    /**
+     * Sets the maximum number of HTTP calls that can wait to run, and the policy to apply when a call
+     * is enqueued while that many calls are waiting.
+     *
+     * <p>
+     * By default, the number of waiting calls is not bounded. Calls that are shed are notified to their
+     * {@link HttpCallback#onError(Throwable)} with {@link LoadSheddingException}.
+     * </p>
+     *
+     * @param maxCalls The maximum number of HTTP calls that can wait to run.
+     * @param overflowPolicy The policy to apply when the number of waiting calls is at {@code maxCalls}.
+     * @throws IllegalArgumentException if value of {@code maxCalls} parameter is less than 1.
+     */
+    public void setMaxWaitingCalls(int maxCalls, WaitingCallsOverflowPolicy overflowPolicy) {
+        Util.requireNonNull(overflowPolicy, "'overflowPolicy' is required.");
+        if (maxCalls < 1) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("The maximum number of HTTP calls waiting to execute "
+                    + "must be greater than 1, provided:" + maxCalls));
+        }
+        this.waitingCallsOverflowPolicy = overflowPolicy;
+        this.maxWaitingCalls = maxCalls;
+        // The new limit may leave room for more than one blocked caller.
+        synchronized (this.waitingSlotMonitor) {
+            this.waitingSlotMonitor.notifyAll();
         }
     }
 
+    /**
+     * Gets the maximum number of HTTP calls that can wait to run.
+     *
+     * @return The maximum number of HTTP calls that can wait to run.
+     */
+    public int getMaxWaitingCalls() {
+        return this.maxWaitingCalls;
+    }
+
+    /**
+     * Sets the metrics to notify of the calls dispatched by this dispatcher and of the pipeline runs
+     * of the {@link HttpPipeline}s using it.
+     *
+     * @param metrics The metrics, {@link HttpCallMetrics#NONE} to disable metrics.
+     */
+    public void setMetrics(HttpCallMetrics metrics) {
+        this.metrics = Util.requireNonNull(metrics, "'metrics' is required.");
+    }
+
+    /**
+     * Gets the metrics notified of the calls dispatched by this dispatcher.
+     *
+     * @return The metrics, {@link HttpCallMetrics#NONE} if metrics are disabled.
+     */
+    public HttpCallMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Gets the number of enqueued HTTP calls waiting to run.
+     *
+     * @return The number of waiting HTTP calls.
+     */
+    public int getWaitingCallsCount() {
+        return this.waitingCallsCount.get();
+    }
+
+    /**
+     * Gets the number of HTTP calls currently running in the dispatcher threads.
+     *
+     * @return The number of running HTTP calls.
+     */
+    public int getRunningCallsCount() {
+        return this.runningCallsCount.get();
+    }
+
+    /**
+     * Gets the number of HTTP calls currently running in the dispatcher threads against the given host.
+     *
+     * @param host The host.
+     * @return The number of running HTTP calls against the host.
+     */
+    public int getRunningCallsCount(String host) {
+        final HostCalls hostCalls = this.hostCallsMap.get(Util.requireNonNull(host, "'host' is required."));
+        return hostCalls == null ? 0 : hostCalls.runningCount.get();
+    }
+
+    /**
+     * Gets the number of enqueued HTTP calls waiting to run against the given host.
+     *
+     * @param host The host.
+     * @return The number of waiting HTTP calls against the host.
+     */
+    public int getWaitingCallsCount(String host) {
+        final HostCalls hostCalls = this.hostCallsMap.get(Util.requireNonNull(host, "'host' is required."));
+        return hostCalls == null ? 0 : hostCalls.waitingCount.get();
+    }
+
+    /**
+     * Enqueue a function to perform the HTTP call on the dispatcher thread.
+     *
+     * @param httpCallFunction The function that perform the HTTP call when invoked.
+     * @param httpRequest The HTTP request to be given to {@code httpCallFunction} when the function
+     *     is invoked.
+     * @param cancellationToken The cancellation token for dispatcher to check whether the function is cancelled.
+     * @param httpCallback The HTTP callback to be given to {@code httpCallFunction} to notify the
+     *     result of the HTTP call.
+     */
+    public void enqueue(HttpCallFunction httpCallFunction,
+                        HttpRequest httpRequest,
+                        CancellationToken cancellationToken,
+                        HttpCallback httpCallback) {
+        this.enqueue(httpCallFunction, httpRequest, RequestContext.NONE, cancellationToken, httpCallback);
+    }
+
     /**
      * Enqueue a function to perform the HTTP call on the dispatcher thread.
      *
      * @param httpCallFunction The function that perform the HTTP call when invoked.
      * @param httpRequest The HTTP request to be given to {@code httpCallFunction} when the function
      *     is invoked.
+     * @param requestContext The context carrying the dispatching settings of the call,
+     *     such as the {@link HttpCallPriority} and the {@link HttpCallDeadline}. A call whose deadline
+     *     has expired when enqueued, or expires while waiting to run, is failed with
+     *     {@link DeadlineExceededException} without taking a running permit or a dispatcher thread.
+     *     A call shed because too many calls are waiting is failed with {@link LoadSheddingException}.
      * @param cancellationToken The cancellation token for dispatcher to check whether the function is cancelled.
      * @param httpCallback The HTTP callback to be given to {@code httpCallFunction} to notify the
      *     result of the HTTP call.
      */
     public void enqueue(HttpCallFunction httpCallFunction,
                         HttpRequest httpRequest,
+                        RequestContext requestContext,
                         CancellationToken cancellationToken,
                         HttpCallback httpCallback) {
         Util.requireNonNull(httpCallFunction, "'httpCallFunction' is required.");
         Util.requireNonNull(httpRequest, "'httpRequest' is required.");
+        Util.requireNonNull(requestContext, "'requestContext' is required.");
         Util.requireNonNull(cancellationToken, "'cancellationToken' is required.");
         Util.requireNonNull(httpCallback, "'httpCallback' is required.");
 
@@ -135,18 +402,236 @@ public final class HttpCallDispatcher {
         //
 
         final RootDispatchableCall rootDispatchableCall = new RootDispatchableCall(this,
+            this.getHostCalls(httpRequest.getHost()),
+            HttpCallPriority.fromContext(requestContext),
+            HttpCallDeadline.fromContext(requestContext),
             httpCallFunction,
             httpRequest,
             cancellationToken,
             httpCallback);
+        this.enqueue(rootDispatchableCall);
+    }
 
-        // Enqueue the 'RootDispatchableCall' for this.executorService to execute.
-        synchronized (this) {
-            this.waitingRootDispatchableCalls.add(rootDispatchableCall);
+    /**
+     * Enqueue a RootDispatchableCall to wait for a running permit, unless its deadline has expired or
+     * it is shed since too many calls are waiting.
+     *
+     * @param rootDispatchableCall The call to enqueue.
+     */
+    private void enqueue(RootDispatchableCall rootDispatchableCall) {
+        if (rootDispatchableCall.isDeadlineExpired()) {
+            rootDispatchableCall.expire();
+            return;
+        }
+        if (!this.tryReserveWaitingSlot() && !this.handleWaitingCallsOverflow(rootDispatchableCall)) {
+            rootDispatchableCall.shed();
+            return;
         }
+
+        // Enqueue the 'RootDispatchableCall' for this.executorService to execute.
+        rootDispatchableCall.hostCalls.offer(rootDispatchableCall);
+        this.signalHostCalls(rootDispatchableCall.hostCalls);
+        this.reportCallCounts();
         this.dispatchCalls();
     }
 
+    /**
+     * package-private.
+     *
+     * Run a function performing the HTTP call on the calling thread instead of enqueuing it, if the call
+     * can be admitted right away.
+     *
+     * <p>
+     * The call runs on the calling thread only if no other call is waiting and it acquires the running permits
+     * an enqueued call would, so that it is held to the same limits and does not overtake waiting calls of
+     * a higher priority. Otherwise, the call is enqueued as by {@link #enqueue(HttpCallFunction, HttpRequest,
+     * RequestContext, CancellationToken, HttpCallback)} and runs on a dispatcher thread once admitted, while the
+     * caller waits for the callback. The continuations that the pipeline run schedules to run after a delay,
+     * e.g., retries, are run on the dispatcher threads as for an enqueued call.
+     * </p>
+     *
+     * @param httpCallFunction The function that perform the HTTP call.
+     * @param httpRequest The HTTP request to be given to {@code httpCallFunction}.
+     * @param requestContext The context carrying the dispatching settings of the call.
+     * @param cancellationToken The cancellation token for dispatcher to check whether the function is cancelled.
+     * @param httpCallback The HTTP callback to be given to {@code httpCallFunction} to notify the
+     *     result of the HTTP call.
+     */
+    void runOnCallingThread(HttpCallFunction httpCallFunction,
+                            HttpRequest httpRequest,
+                            RequestContext requestContext,
+                            CancellationToken cancellationToken,
+                            HttpCallback httpCallback) {
+        final RootDispatchableCall rootDispatchableCall = new RootDispatchableCall(this,
+            this.getHostCalls(httpRequest.getHost()),
+            HttpCallPriority.fromContext(requestContext),
+            HttpCallDeadline.fromContext(requestContext),
+            httpCallFunction,
+            httpRequest,
+            cancellationToken,
+            httpCallback);
+        if (rootDispatchableCall.isDeadlineExpired()) {
+            rootDispatchableCall.expire();
+            return;
+        }
+        final HostCalls hostCalls = rootDispatchableCall.hostCalls;
+        if (this.waitingCallsCount.get() == 0
+            && this.waitingNestedDispatchableCalls.isEmpty()
+            && this.tryAcquireRunningPermit()) {
+            if (hostCalls.tryAcquireRunningPermit(this.getMaxRunningCallsPerHost(hostCalls))) {
+                rootDispatchableCall.enqueuedAtNanos = System.nanoTime();
+                rootDispatchableCall.markRunning();
+                this.reportCallCounts();
+                rootDispatchableCall.run();
+                return;
+            }
+            this.runningCallsCount.decrementAndGet();
+            // A call enqueued while the permit was held may have found no permit, dispatch it.
+            this.dispatchCalls();
+        }
+        this.enqueue(rootDispatchableCall);
+    }
+
+    /**
+     * Notify the metrics, if enabled, of the current number of waiting and running calls.
+     */
+    private void reportCallCounts() {
+        final HttpCallMetrics metrics = this.metrics;
+        if (metrics != HttpCallMetrics.NONE) {
+            metrics.onCallCountsChanged(this.waitingCallsCount.get(), this.runningCallsCount.get());
+        }
+    }
+
+    /**
+     * Notify the metrics, if enabled, that a call is failed without running.
+     *
+     * @param httpRequest The request of the call.
+     * @param rejection The reason for the failure.
+     */
+    private void reportCallRejected(HttpRequest httpRequest, HttpCallMetrics.Rejection rejection) {
+        final HttpCallMetrics metrics = this.metrics;
+        if (metrics != HttpCallMetrics.NONE) {
+            metrics.onCallRejected(httpRequest, rejection);
+        }
+    }
+
+    /**
+     * Try to reserve room for a call in the queue of waiting calls.
+     *
+     * @return true if the room is reserved, false if {@code maxWaitingCalls} calls are already waiting.
+     */
+    private boolean tryReserveWaitingSlot() {
+        while (true) {
+            final int waiting = this.waitingCallsCount.get();
+            if (waiting >= this.maxWaitingCalls) {
+                return false;
+            }
+            if (this.waitingCallsCount.compareAndSet(waiting, waiting + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release the room a call held in the queue of waiting calls, the call either started running or was shed.
+     */
+    private void releaseWaitingSlot() {
+        this.waitingCallsCount.decrementAndGet();
+        this.notifyWaitingSlotReleased();
+    }
+
+    /**
+     * Wake up a thread blocked by {@link WaitingCallsOverflowPolicy#blockCaller(long, TimeUnit)}, if any.
+     */
+    private void notifyWaitingSlotReleased() {
+        if (this.blockedCallersCount > 0) {
+            synchronized (this.waitingSlotMonitor) {
+                this.waitingSlotMonitor.notify();
+            }
+        }
+    }
+
+    /**
+     * Apply the {@link WaitingCallsOverflowPolicy} to make room for the given call in the full queue of
+     * waiting calls.
+     *
+     * @param rootDispatchableCall The call being enqueued.
+     * @return true if room is reserved for the call, false if the call is to be shed.
+     */
+    private boolean handleWaitingCallsOverflow(RootDispatchableCall rootDispatchableCall) {
+        final WaitingCallsOverflowPolicy overflowPolicy = this.waitingCallsOverflowPolicy;
+        switch (overflowPolicy.kind) {
+            case DROP_OLDEST_BACKGROUND:
+                final RootDispatchableCall oldestBackgroundCall = this.removeOldestWaitingBackgroundCall();
+                if (oldestBackgroundCall == null) {
+                    return false;
+                }
+                // The room of the removed call is handed over to the new call.
+                oldestBackgroundCall.shed();
+                return true;
+            case BLOCK_CALLER:
+                return this.awaitWaitingSlot(overflowPolicy.blockTimeoutNanos);
+            case REJECT_NEW:
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Remove the longest waiting {@link HttpCallPriority#BACKGROUND} call across all hosts.
+     *
+     * @return The removed call, or null if there is no background call waiting.
+     */
+    private RootDispatchableCall removeOldestWaitingBackgroundCall() {
+        while (true) {
+            RootDispatchableCall oldest = null;
+            HostCalls oldestHostCalls = null;
+            for (HostCalls hostCalls : this.hostCallsMap.values()) {
+                final RootDispatchableCall head = hostCalls.peek(HttpCallPriority.BACKGROUND);
+                if (head != null && (oldest == null || head.enqueuedAtNanos - oldest.enqueuedAtNanos < 0)) {
+                    oldest = head;
+                    oldestHostCalls = hostCalls;
+                }
+            }
+            if (oldest == null) {
+                return null;
+            }
+            if (oldestHostCalls.remove(oldest)) {
+                return oldest;
+            }
+            // Raced with a dispatcher thread admitting the call, look again.
+        }
+    }
+
+    /**
+     * Block the calling thread until room is reserved in the queue of waiting calls or the timeout elapses.
+     *
+     * @param timeoutNanos The maximum time to block in nanoseconds.
+     * @return true if room is reserved, false if the timeout elapsed or the thread was interrupted.
+     */
+    private boolean awaitWaitingSlot(long timeoutNanos) {
+        final long deadlineNanos = System.nanoTime() + timeoutNanos;
+        synchronized (this.waitingSlotMonitor) {
+            // Registering as blocked before re-checking, so that a slot released after the check notifies us.
+            this.blockedCallersCount++;
+            try {
+                while (!this.tryReserveWaitingSlot()) {
+                    final long remainingNanos = deadlineNanos - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this.waitingSlotMonitor, remainingNanos);
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                this.blockedCallersCount--;
+            }
+        }
+    }
+
     /**
      * package-private.
      *
@@ -170,21 +655,30 @@ public final class HttpCallDispatcher {
      *
      * Since chain.processNextPolicy() call is scheduled from a running call, we refer such scheduled
      * call as Nested-call.
+     *
+     * A concurrent Nested-call, scheduled by chain.processNextPolicyConcurrently(), does not switch
+     * the pipeline to "pause-mode" since the policy that scheduled it has another execution of the next
+     * policy in progress; the concurrent Nested-call holds a running permit of its own from the time
+     * it runs until its callback is invoked.
      * </p>
      *
      * @param chain The chain to invoke {@code processNextPolicy} call on.
      * @param httpRequest The HTTP request parameter for the scheduled {@code processNextPolicy} call.
      * @param requestContext The context parameter for the scheduled {@code processNextPolicy} call.
+     * @param cancellationToken The cancellation token parameter for the scheduled {@code processNextPolicy} call.
      * @param callback The HTTP callback parameter for the scheduled {@code processNextPolicy} call.
      * @param delay The time from now to delay the execution of the {@code processNextPolicy} call.
      * @param timeUnit The time unit of the {@code delay}.
+     * @param concurrent true if the call runs concurrently with another execution of the next policy.
      */
     void scheduleProcessNextPolicy(HttpPipelinePolicyChainImpl chain,
                                    HttpRequest httpRequest,
                                    RequestContext requestContext,
+                                   CancellationToken cancellationToken,
                                    NextPolicyCallback callback,
                                    long delay,
-                                   TimeUnit timeUnit) {
+                                   TimeUnit timeUnit,
+                                   boolean concurrent) {
         Util.requireNonNull(chain, "'chain' is required.");
         Util.requireNonNull(httpRequest, "'httpRequest' is required.");
         Util.requireNonNull(requestContext, "'context' is required.");
@@ -195,100 +689,167 @@ public final class HttpCallDispatcher {
         final NestedDispatchableCall nestedDispatchableCall = new NestedDispatchableCall(rootDispatchableCall,
             chain,
             httpRequest,
-            callback);
+            cancellationToken,
+            callback,
+            null,
+            concurrent);
+        this.scheduleNestedCall(rootDispatchableCall, nestedDispatchableCall, httpRequest, delay, timeUnit, concurrent);
+    }
+
+    /**
+     * Schedules a continuation of the policy that uses the given chain, to run after the specified delay instead
+     * of its next policy; the pipeline is in "pause-mode" until the continuation runs, as with a non-concurrent
+     * Nested-call.
+     *
+     * @param chain The chain of the policy.
+     * @param continuation The continuation of the policy.
+     * @param delay The time from now to delay the execution of the continuation.
+     * @param timeUnit The time unit of the {@code delay}.
+     */
+    void scheduleContinuation(HttpPipelinePolicyChainImpl chain,
+                              Runnable continuation,
+                              long delay,
+                              TimeUnit timeUnit) {
+        Util.requireNonNull(chain, "'chain' is required.");
+        Util.requireNonNull(continuation, "'continuation' is required.");
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+
+        final RootDispatchableCall rootDispatchableCall = this.getRootDispatchableCall(chain);
+        final NestedDispatchableCall nestedDispatchableCall = new NestedDispatchableCall(rootDispatchableCall,
+            chain,
+            chain.getRequest(),
+            chain.getCancellationToken(),
+            null,
+            continuation,
+            false);
+        this.scheduleNestedCall(rootDispatchableCall, nestedDispatchableCall, chain.getRequest(), delay, timeUnit,
+            false);
+    }
+
+    private void scheduleNestedCall(RootDispatchableCall rootDispatchableCall,
+                                    NestedDispatchableCall nestedDispatchableCall,
+                                    HttpRequest httpRequest,
+                                    long delay,
+                                    TimeUnit timeUnit,
+                                    boolean concurrent) {
+        // The HttpCallDispatcher::executorService executes both 'RootDispatchableCall'
+        // and 'NestedDispatchableCall' calls.
+        // Using the timer (or the user provided scheduledExecutorService) to hand over
+        // the 'NestedDispatchableCall' to HttpCallDispatcher::executorService when the time is up.
+        final Runnable handOver = () -> {
+            HttpCallDispatcher.this.waitingNestedDispatchableCalls.offer(nestedDispatchableCall);
+            HttpCallDispatcher.this.dispatchCalls();
+        };
         boolean scheduled = false;
         try {
-            this.getScheduledExecutorService().schedule(() -> {
-                synchronized (HttpCallDispatcher.this) {
-                    // The HttpCallDispatcher::executorService executes both 'RootDispatchableCall'
-                    // and 'NestedDispatchableCall' calls.
-                    // Using HttpCallDispatcher::scheduledExecutorService to hand over
-                    // the 'NestedDispatchableCall' to HttpCallDispatcher::executorService.
-                    HttpCallDispatcher.this.waitingNestedDispatchableCalls.add(nestedDispatchableCall);
-                }
-                HttpCallDispatcher.this.dispatchCalls();
-            }, delay, timeUnit);
+            if (this.timer != null) {
+                this.timer.schedule(handOver, delay, timeUnit);
+            } else {
+                this.scheduledExecutorService.schedule(handOver, delay, timeUnit);
+            }
             scheduled = true;
         } catch (RejectedExecutionException e) {
+            this.reportCallRejected(httpRequest, HttpCallMetrics.Rejection.SCHEDULER_REJECTED);
             nestedDispatchableCall
                 .onError(new InterruptedIOException("scheduled executor rejected").initCause(e));
         } catch (Throwable t) {
             // The ScheduledExecutorService::execute() is not supposed to throw any exception
             // other than RejectedExecutionException, but if it ever throws other exceptions,
             // let's do the cleanup and then rethrow.
-            rootDispatchableCall.markNotRunning(1);
+            if (!concurrent) {
+                rootDispatchableCall.markNotRunning(1);
+            }
             throw logger.logExceptionAsError(new RuntimeException("ScheduledExecutorService::schedule failed.", t));
         }
 
         if (scheduled) {
-            // Once scheduled successfully, pipeline is in "pause-mode", yield the thread to other
-            // executable calls waiting to run.
-            rootDispatchableCall.markNotRunning(2);
-        }
-    }
-
-    /**
-     * Gets the ScheduledExecutorService to schedule HTTP calls to execute on {@code executorService}
-     * after a specific delay.
-     *
-     * @return The ScheduledExecutorService for HTTP calls with delay.
-     */
-    private ScheduledExecutorService getScheduledExecutorService() {
-        // DCL + volatile probably works on modern java's memory model but since we want to target
-        // very lower api levels (L14) we prefer 'synchronized' to avoid any race surprise.
-        //
-        synchronized (this) {
-            if (this.scheduledExecutorService == null) {
-                // If the user doesn't provide a ScheduledExecutorService, we create one with one thread.
-                // We use scheduledExecutorService only to handover a scheduled call for execution to
-                // executorService when the time is up. [https://stackoverflow.com/a/2336879/1473510].
-                //
-                // Thought: We could do some heuristic such as if the pipeline doesn't use
-                // the scheduledExecutorService for a certain period, we can shut down and
-                // release the one pooled thread, then recreate when needed and repeat the
-                // heuristic.
-                //
-                this.scheduledExecutorService = new ScheduledThreadPoolExecutor(1);
+            final HttpCallMetrics metrics = this.metrics;
+            if (metrics != HttpCallMetrics.NONE) {
+                metrics.onNestedCallScheduled(httpRequest);
+            }
+            if (!concurrent) {
+                // Once scheduled successfully, pipeline is in "pause-mode", yield the thread to other
+                // executable calls waiting to run.
+                rootDispatchableCall.markNotRunning(2);
             }
-            return this.scheduledExecutorService;
         }
     }
 
     /**
      * Attempt to dispatch calls on the dispatcher threads.
+     *
+     * <p>
+     * Admission is lock-free: a call is dispatched only after the caller acquires one of the
+     * {@code maxRunningCalls} permits by CAS-incrementing the running-calls counter, and for a
+     * RootDispatchableCall, one of the {@code maxRunningCallsPerHost} permits of its host. The permits
+     * are released when the call's RootDispatchableCall is marked as no-longer-running, and the releasing
+     * thread attempts to dispatch again. Since every producer offers to a waiting queue before calling
+     * this method and every consumer releases its permits before calling this method, no waiting call
+     * is left behind while permits are available.
+     * </p>
      */
     private void dispatchCalls() {
-        Deque<DispatchableCall> executableCalls = new ArrayDeque<>();
-        synchronized (this) {
-            // Collects the calls to dispatch.
-
-            // 1. Collects the executable NestedDispatchableCall calls.
-            //    Note: Collecting NestedDispatchableCall calls first to have them in front of executable queue.
-            while (this.runningRootDispatchableCalls.size() < this.maxRunningCalls
-                && !this.waitingNestedDispatchableCalls.isEmpty()) {
-                final NestedDispatchableCall nestedCall = this.waitingNestedDispatchableCalls.poll();
-                this.runningRootDispatchableCalls.add(nestedCall.rootDispatchableCall);
-                executableCalls.add(nestedCall);
-            }
-
-            // 2. Collects the executable RootDispatchableCall calls.
-            while (this.runningRootDispatchableCalls.size() < this.maxRunningCalls
-                && !this.waitingRootDispatchableCalls.isEmpty()) {
-                final RootDispatchableCall rootCall = this.waitingRootDispatchableCalls.poll();
-                this.runningRootDispatchableCalls.add(rootCall);
-                executableCalls.add(rootCall);
-            }
-        }
-
-        // Dispatch the collected calls on dispatcher threads.
-        // Dispatching must be done outside sync-block since calling into user-code while holding
-        // lock is prohibited.
-        while (!executableCalls.isEmpty()) {
-            final DispatchableCall call = executableCalls.poll();
-            assert call != null;
+        while (!this.waitingNestedDispatchableCalls.isEmpty() || !this.readyHostCalls.isEmpty()) {
+            if (!this.tryAcquireRunningPermit()) {
+                // The thread that releases the next permit will continue dispatching.
+                return;
+            }
+
+            // Polling NestedDispatchableCall calls first so that the pipeline runs that are already
+            // in progress get to complete before new pipeline runs begin. A nested call counts against
+            // the limit of its host but is not held back by it.
+            DispatchableCall call = this.waitingNestedDispatchableCalls.poll();
+            final boolean deadlineExpired;
+            if (call != null) {
+                final NestedDispatchableCall nestedCall = (NestedDispatchableCall) call;
+                final RootDispatchableCall rootCall = nestedCall.rootDispatchableCall;
+                deadlineExpired = rootCall.isDeadlineExpired();
+                if (deadlineExpired && nestedCall.concurrent) {
+                    // The expired concurrent execution is failed without a permit, the pipeline run
+                    // is not waiting on it.
+                    this.runningCallsCount.decrementAndGet();
+                    nestedCall.run();
+                    continue;
+                }
+                rootCall.hostCalls.runningCount.incrementAndGet();
+                rootCall.markRunning();
+                nestedCall.holdsRunningPermit.set(true);
+            } else {
+                final RootDispatchableCall rootCall = this.pollRootDispatchableCall();
+                if (rootCall == null) {
+                    // Raced with another thread that drained the queues, or the hosts with waiting calls
+                    // are at their limit; return the permit and re-check.
+                    this.runningCallsCount.decrementAndGet();
+                    continue;
+                }
+                if (rootCall.isDeadlineExpired()) {
+                    // Nobody needs the result of a call whose deadline expired while waiting, return the
+                    // permits and fail it without a dispatcher thread.
+                    rootCall.hostCalls.runningCount.decrementAndGet();
+                    this.signalHostCallsIfWaiting(rootCall.hostCalls);
+                    this.runningCallsCount.decrementAndGet();
+                    this.reportCallCounts();
+                    rootCall.expire();
+                    continue;
+                }
+                deadlineExpired = false;
+                rootCall.markRunning();
+                call = rootCall;
+            }
+            this.reportCallCounts();
+
+            if (deadlineExpired) {
+                // The paused pipeline run resumes only to complete with the error, which takes no thread.
+                call.run();
+                continue;
+            }
+
+            // Dispatch the call on a dispatcher thread. No lock is held here, calling into user-code
+            // while holding a lock is prohibited.
             try {
                 this.executorService.execute(call);
             } catch (RejectedExecutionException e) {
+                this.reportCallRejected(call.getRequest(), HttpCallMetrics.Rejection.EXECUTOR_REJECTED);
                 call.onError(new InterruptedIOException("executor rejected").initCause(e));
             } catch (Throwable t) {
                 // The ExecutorService::execute() is not supposed to throw any exception other than
@@ -300,6 +861,110 @@ public final class HttpCallDispatcher {
         }
     }
 
+    /**
+     * Poll the next admissible RootDispatchableCall, visiting the hosts with waiting calls round-robin.
+     *
+     * <p>
+     * On success, the per-host permit for the returned call is already acquired.
+     * </p>
+     *
+     * @return The RootDispatchableCall to run, or null if no host has an admissible waiting call.
+     */
+    private RootDispatchableCall pollRootDispatchableCall() {
+        HostCalls hostCalls;
+        while ((hostCalls = this.readyHostCalls.poll()) != null) {
+            // Clear the flag before touching the permit or the queue so that a concurrent producer
+            // or permit-releaser re-signals the host if it observes a state change after this point.
+            hostCalls.isReady.set(false);
+            if (!hostCalls.tryAcquireRunningPermit(this.getMaxRunningCallsPerHost(hostCalls))) {
+                // The host is at its limit; it is re-signalled when one of its running calls releases a permit.
+                continue;
+            }
+            final RootDispatchableCall rootCall = hostCalls.poll(this.priorityAgingNanos);
+            // Put the host at the tail so that the other hosts get their turn first.
+            this.signalHostCallsIfWaiting(hostCalls);
+            if (rootCall != null) {
+                this.releaseWaitingSlot();
+                return rootCall;
+            }
+            hostCalls.runningCount.decrementAndGet();
+            this.signalHostCallsIfWaiting(hostCalls);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the current limit of the calls to run concurrently against the given host.
+     *
+     * @param hostCalls The host.
+     * @return The lower of {@code maxRunningCallsPerHost} and the adaptive limit of the host, if any.
+     */
+    private int getMaxRunningCallsPerHost(HostCalls hostCalls) {
+        final HttpCallConcurrencyLimiter limiter = this.concurrencyLimiter;
+        return limiter == null
+            ? this.maxRunningCallsPerHost
+            : Math.min(this.maxRunningCallsPerHost, limiter.getLimit(hostCalls.host));
+    }
+
+    /**
+     * Gets the HostCalls tracking the waiting and running calls against the given host.
+     *
+     * @param host The host.
+     * @return The HostCalls for the host.
+     */
+    private HostCalls getHostCalls(String host) {
+        final String key = host == null ? "" : host;
+        HostCalls hostCalls = this.hostCallsMap.get(key);
+        if (hostCalls == null) {
+            final HostCalls newHostCalls = new HostCalls(key);
+            hostCalls = this.hostCallsMap.putIfAbsent(key, newHostCalls);
+            if (hostCalls == null) {
+                hostCalls = newHostCalls;
+            }
+        }
+        return hostCalls;
+    }
+
+    /**
+     * Add the given host to the round-robin of hosts that may have admissible waiting calls, if it is
+     * not already there.
+     *
+     * @param hostCalls The host.
+     */
+    private void signalHostCalls(HostCalls hostCalls) {
+        if (hostCalls.isReady.compareAndSet(false, true)) {
+            this.readyHostCalls.offer(hostCalls);
+        }
+    }
+
+    /**
+     * Add the given host to the round-robin of hosts if it has waiting calls.
+     *
+     * @param hostCalls The host.
+     */
+    private void signalHostCallsIfWaiting(HostCalls hostCalls) {
+        if (hostCalls.waitingCount.get() > 0) {
+            this.signalHostCalls(hostCalls);
+        }
+    }
+
+    /**
+     * Try to acquire a permit to run a call.
+     *
+     * @return true if the permit is acquired, false if {@code maxRunningCalls} calls are already running.
+     */
+    private boolean tryAcquireRunningPermit() {
+        while (true) {
+            final int running = this.runningCallsCount.get();
+            if (running >= this.maxRunningCalls) {
+                return false;
+            }
+            if (this.runningCallsCount.compareAndSet(running, running + 1)) {
+                return true;
+            }
+        }
+    }
+
     /**
      * Given a chain instance of a pipeline run, return the RootDispatchableCall for the same pipeline run.
      *
@@ -314,7 +979,7 @@ public final class HttpCallDispatcher {
      */
     private RootDispatchableCall getRootDispatchableCall(HttpPipelinePolicyChainImpl chain) {
         // The rootCallback is a callback decorated as RootDispatchableCall object.
-        final HttpCallback rootCallback = chain.rootHttpCallback;
+        final HttpCallback rootCallback = chain.getRootHttpCallback();
         assert rootCallback instanceof RootDispatchableCall;
         return (RootDispatchableCall) rootCallback;
     }
@@ -355,9 +1020,17 @@ public final class HttpCallDispatcher {
          *   <li>callerId:0 Caller is dispatcher's RootDispatchableCall</li>
          *   <li>callerId:1 Call was due to executor service rejecting work submission</li>
          *   <li>callerId:2 Caller is the schedule(..) after successful scheduling of NestedDispatchableCall</li>
+         *   <li>callerId:3 Caller is a concurrent NestedDispatchableCall that completed</li>
          * </ul>
          */
         void markNotRunning(int callerId);
+
+        /**
+         * Gets the HTTP request of the call.
+         *
+         * @return The HTTP request.
+         */
+        HttpRequest getRequest();
     }
 
     /**
@@ -371,19 +1044,38 @@ public final class HttpCallDispatcher {
         private static final String MULTI_DELIVERY_ERROR_STR
             = "The pipeline run attempted to deliver the result more than once. " + INCORRECT_POLICY_IMPL_ERROR_STR;
 
+        private static final AtomicIntegerFieldUpdater<RootDispatchableCall> RUNNING_UPDATER
+            = AtomicIntegerFieldUpdater.newUpdater(RootDispatchableCall.class, "running");
+
         private final HttpCallDispatcher httpCallDispatcher;
+        private final HostCalls hostCalls;
+        private final HttpCallPriority priority;
+        private final HttpCallDeadline deadline;
         private final HttpCallFunction httpCallFunction;
         private final HttpRequest httpRequest;
         private final CancellationToken cancellationToken;
         private final HttpCallback httpCallback;
-        private String callerIdTrace = "Code:";
+        // The ids of the markNotRunning callers, 2 bits per id with the latest in the lowest bits; kept as
+        // a number rather than a string so that the trace costs no allocation unless an error is reported.
+        private long callerIdTrace;
+        private int callerIdCount;
+        private long enqueuedAtNanos;
+        // The number of running permits the call holds from the dispatcher. Usually 0 or 1, but a scheduled
+        // nested call may acquire a permit before the pipeline run that scheduled it releases its own.
+        private volatile int running;
 
         RootDispatchableCall(HttpCallDispatcher httpCallDispatcher,
+                             HostCalls hostCalls,
+                             HttpCallPriority priority,
+                             HttpCallDeadline deadline,
                              HttpCallFunction httpCallFunction,
                              HttpRequest httpRequest,
                              CancellationToken cancellationToken,
                              HttpCallback httpCallback) {
             this.httpCallDispatcher = httpCallDispatcher;
+            this.hostCalls = hostCalls;
+            this.priority = priority;
+            this.deadline = deadline;
             this.httpCallFunction = httpCallFunction;
             this.httpRequest = httpRequest;
             this.cancellationToken = cancellationToken;
@@ -392,13 +1084,56 @@ public final class HttpCallDispatcher {
 
         @Override
         public void run() {
+            final HttpCallMetrics metrics = this.httpCallDispatcher.metrics;
+            if (metrics != HttpCallMetrics.NONE) {
+                metrics.onCallStarted(this.httpRequest, System.nanoTime() - this.enqueuedAtNanos);
+            }
             if (this.cancellationToken.isCancellationRequested()) {
                 this.onError(new IOException("Canceled."));
+            } else if (this.isDeadlineExpired()) {
+                this.httpCallDispatcher.reportCallRejected(this.httpRequest,
+                    HttpCallMetrics.Rejection.DEADLINE_EXCEEDED);
+                this.onError(newDeadlineExceededException(this.httpRequest));
             } else {
                 this.httpCallFunction.apply(this.httpRequest, this);
             }
         }
 
+        /**
+         * Fail the call with {@link LoadSheddingException}, the call never acquired a running permit.
+         */
+        void shed() {
+            if (this.compareAndSet(false, true)) {
+                this.httpCallDispatcher.reportCallRejected(this.httpRequest, HttpCallMetrics.Rejection.LOAD_SHED);
+                this.httpCallback.onError(new LoadSheddingException("The call was shed since the maximum number "
+                    + "of calls waiting to run was reached.", this.httpRequest));
+            }
+        }
+
+        /**
+         * Fail the call with {@link DeadlineExceededException}, the call never acquired a running permit.
+         */
+        void expire() {
+            if (this.compareAndSet(false, true)) {
+                this.httpCallDispatcher.reportCallRejected(this.httpRequest,
+                    HttpCallMetrics.Rejection.DEADLINE_EXCEEDED);
+                this.httpCallback.onError(newDeadlineExceededException(this.httpRequest));
+            }
+        }
+
+        private static DeadlineExceededException newDeadlineExceededException(HttpRequest httpRequest) {
+            return new DeadlineExceededException("The deadline expired before the call could run.", httpRequest);
+        }
+
+        /**
+         * Check whether the deadline of the call, if any, has expired.
+         *
+         * @return true if the deadline has expired, false otherwise.
+         */
+        boolean isDeadlineExpired() {
+            return this.deadline != null && this.deadline.isExpired();
+        }
+
         @Override
         public void onSuccess(HttpResponse response) {
             final boolean isFirstDelivery = this.compareAndSet(false, true);
@@ -433,23 +1168,175 @@ public final class HttpCallDispatcher {
             }
         }
 
+        @Override
+        public HttpRequest getRequest() {
+            return this.httpRequest;
+        }
+
+        /**
+         * Format the trace of the markNotRunning caller ids, in the order of calls.
+         *
+         * @param trace The caller ids, 2 bits per id with the latest in the lowest bits.
+         * @param traceCount The number of calls traced.
+         * @return The formatted trace.
+         */
+        private static String formatCallerIdTrace(long trace, int traceCount) {
+            final StringBuilder builder = new StringBuilder("Code:");
+            // A long holds the ids of the last 32 calls.
+            if (traceCount > 32) {
+                builder.append("..");
+            }
+            for (int i = Math.min(traceCount, 32) - 1; i >= 0; i--) {
+                builder.append((trace >>> (2 * i)) & 3);
+            }
+            return builder.toString();
+        }
+
+        /**
+         * Signal that this call (or a nested call belonging to it) acquired a running permit
+         * and is about to run.
+         */
+        void markRunning() {
+            RUNNING_UPDATER.incrementAndGet(this);
+        }
+
         @Override
         public void markNotRunning(int callerId) {
-            synchronized (this.httpCallDispatcher) {
-                callerIdTrace += callerId;
-                boolean wasRunning = this.httpCallDispatcher.runningRootDispatchableCalls.remove(this);
-                if (!wasRunning) {
-                    throw this.httpCallDispatcher
-                        .logger.logExceptionAsError(
-                            new IllegalStateException(INCORRECT_POLICY_IMPL_ERROR_STR + callerIdTrace));
+            final long trace;
+            final int traceCount;
+            synchronized (this) {
+                callerIdTrace = (callerIdTrace << 2) | (callerId & 3);
+                trace = callerIdTrace;
+                traceCount = ++callerIdCount;
+            }
+            boolean wasRunning = false;
+            int current;
+            while ((current = this.running) > 0) {
+                if (RUNNING_UPDATER.compareAndSet(this, current, current - 1)) {
+                    wasRunning = true;
+                    break;
                 }
             }
+            if (!wasRunning) {
+                throw this.httpCallDispatcher
+                    .logger.logExceptionAsError(
+                        new IllegalStateException(INCORRECT_POLICY_IMPL_ERROR_STR
+                            + formatCallerIdTrace(trace, traceCount)));
+            }
+            this.hostCalls.runningCount.decrementAndGet();
+            this.httpCallDispatcher.signalHostCallsIfWaiting(this.hostCalls);
+            this.httpCallDispatcher.runningCallsCount.decrementAndGet();
+            this.httpCallDispatcher.reportCallCounts();
             // Attempt to dispatch other waiting calls since this call is no-longer-running.
             // no-longer-running = executor-rejected-call-execution | call-paused | call-completed.
             this.httpCallDispatcher.dispatchCalls();
         }
     }
 
+    /**
+     * The waiting and running RootDispatchableCall calls against a host.
+     */
+    private static final class HostCalls {
+        private static final HttpCallPriority[] PRIORITIES = HttpCallPriority.values();
+        private final String host;
+        // A lane of waiting calls for each HttpCallPriority, indexed by the priority ordinal.
+        private final WaitingCallLane[] waitingCallLanes;
+        private final AtomicInteger waitingCount = new AtomicInteger(0);
+        private final AtomicInteger runningCount = new AtomicInteger(0);
+        // true if the host is in the dispatcher's round-robin of hosts with admissible waiting calls.
+        private final AtomicBoolean isReady = new AtomicBoolean(false);
+
+        HostCalls(String host) {
+            this.host = host;
+            this.waitingCallLanes = new WaitingCallLane[PRIORITIES.length];
+            for (int i = 0; i < PRIORITIES.length; i++) {
+                this.waitingCallLanes[i] = new WaitingCallLane();
+            }
+        }
+
+        void offer(RootDispatchableCall rootCall) {
+            rootCall.enqueuedAtNanos = System.nanoTime();
+            this.waitingCallLanes[rootCall.priority.ordinal()].calls.offer(rootCall);
+            this.waitingCount.incrementAndGet();
+        }
+
+        RootDispatchableCall peek(HttpCallPriority priority) {
+            return this.waitingCallLanes[priority.ordinal()].calls.peek();
+        }
+
+        boolean remove(RootDispatchableCall rootCall) {
+            if (this.waitingCallLanes[rootCall.priority.ordinal()].calls.remove(rootCall)) {
+                this.waitingCount.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Poll the waiting call with the highest effective priority; the effective priority of a call
+         * is its priority raised by one level for each {@code agingNanos} it has been waiting.
+         *
+         * @param agingNanos The time a call needs to wait to be promoted to the next higher priority.
+         * @return The waiting call, or null if there are no waiting calls.
+         */
+        RootDispatchableCall poll(long agingNanos) {
+            if (this.waitingCount.get() == 0) {
+                return null;
+            }
+            final long nowNanos = System.nanoTime();
+            int selectedLane = -1;
+            long selectedRank = Long.MAX_VALUE;
+            for (int lane = 0; lane < this.waitingCallLanes.length; lane++) {
+                final RootDispatchableCall head = this.waitingCallLanes[lane].calls.peek();
+                if (head != null) {
+                    final long rank = lane - (nowNanos - head.enqueuedAtNanos) / agingNanos;
+                    // Strict comparison so that the higher priority lane wins the ties.
+                    if (rank < selectedRank) {
+                        selectedRank = rank;
+                        selectedLane = lane;
+                    }
+                }
+            }
+            RootDispatchableCall rootCall = null;
+            if (selectedLane != -1) {
+                rootCall = this.waitingCallLanes[selectedLane].calls.poll();
+            }
+            if (rootCall == null) {
+                // Raced with another thread that polled the selected lane, fall back to priority order.
+                for (WaitingCallLane lane : this.waitingCallLanes) {
+                    rootCall = lane.calls.poll();
+                    if (rootCall != null) {
+                        break;
+                    }
+                }
+            }
+            if (rootCall != null) {
+                this.waitingCount.decrementAndGet();
+            }
+            return rootCall;
+        }
+
+        boolean tryAcquireRunningPermit(int maxRunningCallsPerHost) {
+            while (true) {
+                final int running = this.runningCount.get();
+                if (running >= maxRunningCallsPerHost) {
+                    return false;
+                }
+                if (this.runningCount.compareAndSet(running, running + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * The waiting calls of a priority of a host. A concrete type rather than a Queue, so that the lanes of a host are
+     * held in a typed array.
+     */
+    private static final class WaitingCallLane {
+        final Queue<RootDispatchableCall> calls = new ConcurrentLinkedQueue<>();
+    }
+
     /**
      * a DispatchableCall that when executes invokes a scheduled chain.processNextPolicy(..) call
      */
@@ -457,7 +1344,12 @@ public final class HttpCallDispatcher {
         private final RootDispatchableCall rootDispatchableCall;
         private final HttpPipelinePolicyChainImpl chain;
         private final HttpRequest httpRequest;
+        private final CancellationToken cancellationToken;
         private final NextPolicyCallback callback;
+        private final Runnable continuation;
+        private final boolean concurrent;
+        // true while a concurrent call holds the running permit it acquired to run.
+        final AtomicBoolean holdsRunningPermit = new AtomicBoolean(false);
 
         /**
          * Creates a NestedDispatchableCall, a DispatchableCall that when executes invokes
@@ -473,36 +1365,114 @@ public final class HttpCallDispatcher {
          *     nested call belongs to.
          * @param chain The chain to invoke {@code processNextPolicy} call on.
          * @param httpRequest The HTTP request parameter for the scheduled {@code processNextPolicy} call.
+         * @param cancellationToken The cancellation token parameter for the scheduled {@code processNextPolicy} call.
          * @param callback The callback parameter for the scheduled {@code processNextPolicy} call.
+         * @param continuation The continuation of the policy to run instead of the {@code processNextPolicy} call,
+         *     null to make the call.
+         * @param concurrent true if the call runs concurrently with another execution of the next policy,
+         *     hence the pipeline is not in "pause-mode".
          */
         NestedDispatchableCall(RootDispatchableCall rootDispatchableCall,
                                HttpPipelinePolicyChainImpl chain,
                                HttpRequest httpRequest,
-                               NextPolicyCallback callback) {
+                               CancellationToken cancellationToken,
+                               NextPolicyCallback callback,
+                               Runnable continuation,
+                               boolean concurrent) {
             this.rootDispatchableCall = rootDispatchableCall;
             this.chain = chain;
             this.httpRequest = httpRequest;
+            this.cancellationToken = cancellationToken;
             this.callback = callback;
+            this.continuation = continuation;
+            this.concurrent = concurrent;
         }
 
         @Override
         public void run() {
-            this.chain.processNextPolicy(this.httpRequest, this.callback);
+            if (this.rootDispatchableCall.isDeadlineExpired()) {
+                // Resuming the pipeline run is of no use once nobody needs the result.
+                this.rootDispatchableCall.httpCallDispatcher.reportCallRejected(this.httpRequest,
+                    HttpCallMetrics.Rejection.DEADLINE_EXCEEDED);
+                final DeadlineExceededException error = new DeadlineExceededException(
+                    "The deadline expired before the scheduled call could run.", this.httpRequest);
+                this.onError(this.concurrent
+                    ? new CallNotDispatchedException("The concurrent execution was not dispatched.",
+                        this.httpRequest, error)
+                    : error);
+            } else if (this.continuation != null) {
+                this.chain.runContinuation(this.continuation);
+            } else if (!this.concurrent) {
+                this.chain.processNextPolicy(this.httpRequest, this.cancellationToken, this.callback);
+            } else if (this.cancellationToken.isCancellationRequested()) {
+                // The policy no longer needs the concurrent execution, which is not dispatched.
+                this.onError(new CallNotDispatchedException("The concurrent execution was canceled before it ran.",
+                    this.httpRequest));
+            } else {
+                this.chain.processNextPolicy(this.httpRequest, this.cancellationToken, new NextPolicyCallback() {
+                    @Override
+                    public PolicyCompleter.CompletionState onSuccess(HttpResponse response,
+                                                                     PolicyCompleter completer) {
+                        try {
+                            return callback.onSuccess(response, completer);
+                        } finally {
+                            releaseRunningPermit();
+                        }
+                    }
+
+                    @Override
+                    public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                        try {
+                            return callback.onError(error, completer);
+                        } finally {
+                            releaseRunningPermit();
+                        }
+                    }
+                });
+            }
         }
 
         @Override
         public void onSuccess(HttpResponse response) {
-            this.callback.onSuccess(response, new PolicyCompleter(this.chain.prevChain));
+            try {
+                this.callback.onSuccess(response, this.chain.getPolicyCompleter());
+            } finally {
+                this.releaseRunningPermit();
+            }
         }
 
         @Override
         public void onError(Throwable error) {
-            this.callback.onError(error, new PolicyCompleter(this.chain.prevChain));
+            if (this.continuation != null) {
+                // The continuation did not run, the policy is completed with the error in its place.
+                this.chain.completedError(error);
+                return;
+            }
+            try {
+                this.callback.onError(error, this.chain.getPolicyCompleter());
+            } finally {
+                this.releaseRunningPermit();
+            }
         }
 
         @Override
         public void markNotRunning(int i) {
             // NOP
         }
+
+        @Override
+        public HttpRequest getRequest() {
+            return this.httpRequest;
+        }
+
+        /**
+         * Release the running permit of a concurrent call once its callback is invoked; a non-concurrent call
+         * runs on the permit of the pipeline run, which is released when the run completes or pauses.
+         */
+        private void releaseRunningPermit() {
+            if (this.concurrent && this.holdsRunningPermit.compareAndSet(true, false)) {
+                this.rootDispatchableCall.markNotRunning(3);
+            }
+        }
     }
 }
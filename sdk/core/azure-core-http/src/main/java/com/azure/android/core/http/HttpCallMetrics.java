@@ -0,0 +1,119 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+/**
+ * The listener that {@link HttpCallDispatcher} and the {@link HttpPipeline}s using it notify of the dispatching
+ * and execution of HTTP calls, to record metrics such as the time calls wait to run or the time spent in each
+ * pipeline policy.
+ *
+ * <p>
+ * The methods are no-op by default, subclasses override the ones for the metrics they record. The methods are
+ * called on the threads running the calls, hence must be thread-safe, fast and must not throw. When the
+ * dispatcher has the {@link #NONE} metrics, no time is measured and none of the methods is called.
+ * </p>
+ *
+ * @see HttpCallDispatcher#setMetrics(HttpCallMetrics)
+ */
+public abstract class HttpCallMetrics {
+    /**
+     * The metrics that records nothing, the default of an {@link HttpCallDispatcher}.
+     */
+    public static final HttpCallMetrics NONE = new HttpCallMetrics() {
+    };
+
+    /**
+     * The reasons for the dispatcher to fail a call without running it.
+     */
+    public enum Rejection {
+        /**
+         * The dispatcher's ExecutorService rejected the call.
+         */
+        EXECUTOR_REJECTED,
+
+        /**
+         * The dispatcher's timer or ScheduledExecutorService rejected the delayed continuation of the call.
+         */
+        SCHEDULER_REJECTED,
+
+        /**
+         * The call was shed since the maximum number of waiting calls was reached.
+         */
+        LOAD_SHED,
+
+        /**
+         * The {@link HttpCallDeadline} of the call expired before it could run.
+         */
+        DEADLINE_EXCEEDED
+    }
+
+    /**
+     * Creates an HttpCallMetrics.
+     */
+    protected HttpCallMetrics() {
+    }
+
+    /**
+     * Called when an enqueued call starts to run on a dispatcher thread.
+     *
+     * @param httpRequest The request of the call.
+     * @param queueTimeNanos The time in nanoseconds the call waited to run since it was enqueued.
+     */
+    public void onCallStarted(HttpRequest httpRequest, long queueTimeNanos) {
+    }
+
+    /**
+     * Called when the number of waiting or running calls in the dispatcher changes.
+     *
+     * @param waitingCalls The number of calls waiting to run.
+     * @param runningCalls The number of calls running.
+     */
+    public void onCallCountsChanged(int waitingCalls, int runningCalls) {
+    }
+
+    /**
+     * Called when a pipeline run schedules its continuation on the dispatcher to run after a delay,
+     * e.g., a retry.
+     *
+     * @param httpRequest The request of the pipeline run.
+     */
+    public void onNestedCallScheduled(HttpRequest httpRequest) {
+    }
+
+    /**
+     * Called when the dispatcher fails a call without running it.
+     *
+     * @param httpRequest The request of the call.
+     * @param rejection The reason for the failure.
+     */
+    public void onCallRejected(HttpRequest httpRequest, Rejection rejection) {
+    }
+
+    /**
+     * Called when a pipeline policy completes.
+     *
+     * <p>
+     * The duration spans from the policy being invoked to the policy completing, hence includes the time spent
+     * in the policies following it. The HttpClient sending the request is reported as a policy following
+     * the last policy of the pipeline, with a null {@code policy}.
+     * </p>
+     *
+     * @param policy The policy, null for the HttpClient sending the request.
+     * @param policyIndex The index of the policy in the pipeline.
+     * @param durationNanos The duration in nanoseconds.
+     */
+    public void onPolicyCompleted(HttpPipelinePolicy policy, int policyIndex, long durationNanos) {
+    }
+
+    /**
+     * Called when a pipeline run completes, i.e. when its result is about to be delivered to the
+     * callback given to {@link HttpPipeline#send}.
+     *
+     * @param httpRequest The request of the pipeline run.
+     * @param durationNanos The duration in nanoseconds since the pipeline run started on a dispatcher thread.
+     * @param succeeded true if the pipeline run produced a response, false if it failed with an error.
+     */
+    public void onPipelineCompleted(HttpRequest httpRequest, long durationNanos, boolean succeeded) {
+    }
+}
@@ -0,0 +1,60 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.Option;
+import com.azure.android.core.util.RequestContext;
+
+/**
+ * The priority with which {@link HttpCallDispatcher} admits an HTTP call waiting to run.
+ *
+ * <p>
+ * The priority is carried through the {@link RequestContext} given to
+ * {@link HttpPipeline#send(HttpRequest, RequestContext, CancellationToken, HttpCallback)}, keyed on
+ * {@code HttpCallPriority.class}:
+ * </p>
+ *
+ * <pre>
+ * RequestContext requestContext = RequestContext.NONE.addData(HttpCallPriority.class, HttpCallPriority.HIGH);
+ * </pre>
+ *
+ * <p>
+ * Calls without a priority in the context are {@link #NORMAL}. A call that waits longer than the dispatcher's
+ * aging time is admitted as if it had the next higher priority, so lower priority calls cannot starve.
+ * </p>
+ */
+public enum HttpCallPriority {
+    /**
+     * The priority for user-visible, latency sensitive calls.
+     */
+    HIGH,
+
+    /**
+     * The default priority.
+     */
+    NORMAL,
+
+    /**
+     * The priority for calls such as prefetching or syncing that nobody is waiting on.
+     */
+    BACKGROUND;
+
+    /**
+     * Gets the priority carried in the given context.
+     *
+     * @param requestContext The context.
+     * @return The priority in the context, {@link #NORMAL} if the context has no priority.
+     */
+    public static HttpCallPriority fromContext(RequestContext requestContext) {
+        if (requestContext == null) {
+            return NORMAL;
+        }
+        final Option<Object> priority = requestContext.getData(HttpCallPriority.class);
+        if (priority.isInitialized() && priority.getValue() instanceof HttpCallPriority) {
+            return (HttpCallPriority) priority.getValue();
+        }
+        return NORMAL;
+    }
+}
@@ -5,19 +5,55 @@ package com.azure.android.core.http;
 
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * A collection of headers on an HTTP request or response.
+ *
+ * <p>
+ * The header names are case-insensitive. The headers are kept in arrays, in the order they were first put, and
+ * indexed by a case-insensitive hash of their names, so that looking a header up or removing it does not allocate.
+ * </p>
  */
 public class HttpHeaders implements Iterable<HttpHeader> {
-    private final Map<String, HttpHeader> headers = new HashMap<>();
+    /**
+     * The name of the 'Content-Type' header.
+     */
+    public static final String CONTENT_TYPE = "Content-Type";
+
+    /**
+     * The name of the 'Content-Length' header.
+     */
+    public static final String CONTENT_LENGTH = "Content-Length";
+
+    /**
+     * The name of the 'Authorization' header.
+     */
+    public static final String AUTHORIZATION = "Authorization";
+
+    /**
+     * The name of the 'x-ms-client-request-id' header.
+     */
+    public static final String CLIENT_REQUEST_ID = "x-ms-client-request-id";
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int initialCapacity;
+    // The headers and the hashes of their names, in insertion order, in the first 'size' slots. The arrays are
+    // allocated by the first put.
+    private HttpHeader[] entries;
+    private int[] hashes;
+    private int size;
+    // An open addressing table of the indexes of the headers plus one, 0 marking a free slot; its length is a power
+    // of two, at least twice the length of 'entries'.
+    private int[] table;
 
     /**
      * Create an empty HttpHeaders instance.
      */
     public HttpHeaders() {
+        this(INITIAL_CAPACITY);
     }
 
     /**
@@ -26,6 +62,7 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      * @param headers the map of initial headers
      */
     public HttpHeaders(Map<String, String> headers) {
+        this(headers.size());
         for (final Map.Entry<String, String> header : headers.entrySet()) {
             this.put(header.getKey(), header.getValue());
         }
@@ -37,20 +74,28 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      * @param headers the collection of initial headers
      */
     public HttpHeaders(Iterable<HttpHeader> headers) {
-        this();
+        this(headers instanceof HttpHeaders ? ((HttpHeaders) headers).size : INITIAL_CAPACITY);
 
         for (final HttpHeader header : headers) {
             this.put(header.getName(), header.getValue());
         }
     }
 
+    private HttpHeaders(int capacity) {
+        int length = INITIAL_CAPACITY;
+        while (length < capacity) {
+            length <<= 1;
+        }
+        this.initialCapacity = length;
+    }
+
     /**
      * Gets the number of headers in the collection.
      *
      * @return the number of headers in this collection.
      */
     public int getSize() {
-        return headers.size();
+        return size;
     }
 
     /**
@@ -63,7 +108,29 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      * @return The updated HttpHeaders object
      */
     public HttpHeaders put(String name, String value) {
-        headers.put(formatKey(name), new HttpHeader(name, value));
+        final int hash = hash(name);
+        final HttpHeader header = new HttpHeader(name, value);
+        if (entries == null) {
+            entries = new HttpHeader[initialCapacity];
+            hashes = new int[initialCapacity];
+            table = new int[initialCapacity << 1];
+        }
+        final int slot = findSlot(name, hash);
+        final int index = table[slot] - 1;
+        if (index >= 0) {
+            // Replaced in place, the header keeps its position in the iteration order.
+            entries[index] = header;
+            return this;
+        }
+        if (size == entries.length) {
+            grow();
+            table[findSlot(name, hash)] = size + 1;
+        } else {
+            table[slot] = size + 1;
+        }
+        entries[size] = header;
+        hashes[size] = hash;
+        size++;
         return this;
     }
 
@@ -75,7 +142,11 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      * @return the header if found, null otherwise.
      */
     public HttpHeader get(String name) {
-        return headers.get(formatKey(name));
+        if (size == 0) {
+            return null;
+        }
+        final int index = table[findSlot(name, hash(name))] - 1;
+        return index < 0 ? null : entries[index];
     }
 
     /**
@@ -86,7 +157,16 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      * @return the header if removed, null otherwise.
      */
     public HttpHeader remove(String name) {
-        return headers.remove(formatKey(name));
+        if (size == 0) {
+            return null;
+        }
+        final int index = table[findSlot(name, hash(name))] - 1;
+        if (index < 0) {
+            return null;
+        }
+        final HttpHeader header = entries[index];
+        removeAt(index);
+        return header;
     }
 
     /**
@@ -113,19 +193,16 @@ public class HttpHeaders implements Iterable<HttpHeader> {
         return header == null ? null : header.getValues();
     }
 
-    private String formatKey(final String key) {
-        return key.toLowerCase(Locale.ROOT);
-    }
-
     /**
      * Gets a {@link Map} representation of the HttpHeaders collection.
      *
      * @return the headers as map
      */
     public Map<String, String> toMap() {
-        final Map<String, String> result = new HashMap<>();
-        for (final HttpHeader header : headers.values()) {
-            result.put(header.getName(), header.getValue());
+        // Sized so that the map is not rehashed while filled.
+        final Map<String, String> result = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            result.put(entries[i].getName(), entries[i].getValue());
         }
         return result;
     }
@@ -135,7 +212,34 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      */
     @Override
     public Iterator<HttpHeader> iterator() {
-        return headers.values().iterator();
+        return new Iterator<HttpHeader>() {
+            private int nextIndex;
+            private int lastIndex = -1;
+
+            @Override
+            public boolean hasNext() {
+                return nextIndex < size;
+            }
+
+            @Override
+            public HttpHeader next() {
+                if (nextIndex >= size) {
+                    throw new NoSuchElementException();
+                }
+                lastIndex = nextIndex++;
+                return entries[lastIndex];
+            }
+
+            @Override
+            public void remove() {
+                if (lastIndex < 0) {
+                    throw new IllegalStateException();
+                }
+                removeAt(lastIndex);
+                nextIndex = lastIndex;
+                lastIndex = -1;
+            }
+        };
     }
 
     @Override
@@ -151,4 +255,87 @@ public class HttpHeaders implements Iterable<HttpHeader> {
         }
         return stringBuilder.toString();
     }
+
+    /**
+     * Finds the slot of the table holding the header with the given name, or the free slot ending its probe
+     * sequence if there is no such header.
+     */
+    private int findSlot(String name, int hash) {
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        while (true) {
+            final int index = table[slot] - 1;
+            if (index < 0) {
+                return slot;
+            }
+            if (hashes[index] == hash) {
+                final String entryName = entries[index].getName();
+                if (entryName == name || entryName.equalsIgnoreCase(name)) {
+                    return slot;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void removeAt(int index) {
+        size--;
+        System.arraycopy(entries, index + 1, entries, index, size - index);
+        System.arraycopy(hashes, index + 1, hashes, index, size - index);
+        entries[size] = null;
+        // The indexes after the removed header shifted, the table is rebuilt.
+        rebuildTable(table.length);
+    }
+
+    private void grow() {
+        final int length = entries.length << 1;
+        final HttpHeader[] newEntries = new HttpHeader[length];
+        final int[] newHashes = new int[length];
+        System.arraycopy(entries, 0, newEntries, 0, size);
+        System.arraycopy(hashes, 0, newHashes, 0, size);
+        entries = newEntries;
+        hashes = newHashes;
+        rebuildTable(length << 1);
+    }
+
+    private void rebuildTable(int length) {
+        if (table.length != length) {
+            table = new int[length];
+        } else {
+            for (int i = 0; i < length; i++) {
+                table[i] = 0;
+            }
+        }
+        final int mask = length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hashes[i] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Computes a hash of the name that is the same for the names equal ignoring case, without allocating
+     * a lower case copy of the name.
+     */
+    private static int hash(String name) {
+        int hash = 0;
+        final int length = name.length();
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (c < 0x80) {
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+            } else {
+                // The folding of String.equalsIgnoreCase.
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+            hash = 31 * hash + c;
+        }
+        // Spreads the high bits to the low bits that index the table.
+        return hash ^ (hash >>> 16);
+    }
 }
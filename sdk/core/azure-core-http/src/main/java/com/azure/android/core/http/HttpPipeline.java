@@ -3,6 +3,7 @@
 
 package com.azure.android.core.http;
 
+import com.azure.android.core.http.exception.HttpRequestException;
 import com.azure.android.core.http.implementation.Util;
 import com.azure.android.core.util.CancellationToken;
 import com.azure.android.core.util.RequestContext;
@@ -44,20 +45,11 @@ public final class HttpPipeline {
             @Override
             public void process(HttpPipelinePolicyChain chain) {
                 // Indicate the HttpClient to prefer the calling thread for sending request.
-                chain.getRequest().getTags().put("prefer-running-http-in-calling-thread", null);
+                chain.getRequest().setCallingThreadPreferred(true);
 
+                // The chain of the network-policy completes itself with the result notified to it.
                 HttpPipeline.this.httpClient.send(chain.getRequest(), chain.getCancellationToken(),
-                    new HttpCallback() {
-                        @Override
-                        public void onSuccess(HttpResponse response) {
-                            chain.completed(response);
-                        }
-
-                        @Override
-                        public void onError(Throwable error) {
-                            chain.completedError(error);
-                        }
-                    });
+                    (HttpPipelinePolicyChainImpl) chain);
             }
         };
     }
@@ -86,6 +78,77 @@ public final class HttpPipeline {
             httpCallback);
     }
 
+    /**
+     * Execute an HTTP call by sending the {@code request} through the HTTP pipeline on the calling thread,
+     * and return once the {@code httpCallback} is notified of the result.
+     *
+     * <p>
+     * The policies and the HttpClient run on the calling thread, without the thread switch to
+     * a {@link HttpCallDispatcher} thread that {@link #send(HttpRequest, RequestContext, CancellationToken,
+     * HttpCallback)} makes. The call is admitted by the {@link HttpCallDispatcher} as an enqueued call is; if
+     * it has no running permit free or other calls are waiting, the call is enqueued and the calling thread waits
+     * for the result. The dispatcher threads are otherwise used only if a policy schedules the continuation
+     * of the pipeline to run after a delay, e.g., a retry, or if the HttpClient completes asynchronously,
+     * in which case the calling thread waits for the result. An interrupt of the calling thread while it waits
+     * does not abandon the call; the interrupt status is restored once the result is notified.
+     * </p>
+     *
+     * @param httpRequest The HTTP request to send.
+     * @param requestContext The context that is passed through the HTTP pipeline.
+     * @param cancellationToken The cancellation token for the HTTP call, on which the caller
+     *     may request cancellation of this HTTP call execution. Note that cancellation is best
+     *     effort hence not guaranteed.
+     * @param httpCallback The HTTP callback to notify the result of the HTTP call.
+     */
+    public void sendSync(HttpRequest httpRequest,
+                         RequestContext requestContext,
+                         CancellationToken cancellationToken,
+                         HttpCallback httpCallback) {
+        Util.requireNonNull(httpCallback, "'httpCallback' is required.");
+        final SyncHttpCallback syncCallback = new SyncHttpCallback(httpCallback);
+        HttpPipelinePolicyChainImpl.beginPipelineExecutionOnCallingThread(this,
+            httpRequest,
+            requestContext,
+            cancellationToken,
+            syncCallback);
+        syncCallback.awaitCompletion();
+    }
+
+    /**
+     * Execute an HTTP call by sending the {@code request} through the HTTP pipeline on the calling thread.
+     *
+     * @param httpRequest The HTTP request to send.
+     * @param requestContext The context that is passed through the HTTP pipeline.
+     * @param cancellationToken The cancellation token for the HTTP call, on which the caller
+     *     may request cancellation of this HTTP call execution. Note that cancellation is best
+     *     effort hence not guaranteed.
+     * @return The HTTP response.
+     * @throws HttpRequestException wrapping the error if the HTTP call fails with a checked exception,
+     *     such as an IOException; unchecked exceptions and errors are thrown as is.
+     * @see #sendSync(HttpRequest, RequestContext, CancellationToken, HttpCallback)
+     */
+    public HttpResponse sendSync(HttpRequest httpRequest,
+                                 RequestContext requestContext,
+                                 CancellationToken cancellationToken) {
+        final SyncHttpCallback syncCallback = new SyncHttpCallback(null);
+        HttpPipelinePolicyChainImpl.beginPipelineExecutionOnCallingThread(this,
+            httpRequest,
+            requestContext,
+            cancellationToken,
+            syncCallback);
+        syncCallback.awaitCompletion();
+        final Throwable error = syncCallback.error;
+        if (error == null) {
+            return syncCallback.response;
+        } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        } else {
+            throw new HttpRequestException(error.getMessage(), httpRequest, error);
+        }
+    }
+
     /**
      * Get the policy at the provided index in the pipeline.
      *
@@ -104,4 +167,77 @@ public final class HttpPipeline {
     public HttpClient getHttpClient() {
         return this.httpClient;
     }
+
+    /**
+     * The callback of a pipeline run on the calling thread, it records the result and wakes
+     * the calling thread if the result is notified from another thread.
+     */
+    private static final class SyncHttpCallback implements HttpCallback {
+        // The callback to forward the result to, null if the result is only recorded.
+        private final HttpCallback innerCallback;
+        private volatile boolean completed;
+        // Written before 'completed', read after it.
+        HttpResponse response;
+        Throwable error;
+
+        SyncHttpCallback(HttpCallback innerCallback) {
+            this.innerCallback = innerCallback;
+        }
+
+        @Override
+        public void onSuccess(HttpResponse response) {
+            try {
+                if (this.innerCallback != null) {
+                    this.innerCallback.onSuccess(response);
+                } else {
+                    this.response = response;
+                }
+            } finally {
+                this.complete();
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            try {
+                if (this.innerCallback != null) {
+                    this.innerCallback.onError(error);
+                } else {
+                    this.error = error;
+                }
+            } finally {
+                this.complete();
+            }
+        }
+
+        private void complete() {
+            synchronized (this) {
+                this.completed = true;
+                this.notifyAll();
+            }
+        }
+
+        /**
+         * Wait until the result is notified; returns immediately, without taking the monitor,
+         * if it was notified on the calling thread.
+         */
+        void awaitCompletion() {
+            if (this.completed) {
+                return;
+            }
+            boolean interrupted = false;
+            synchronized (this) {
+                while (!this.completed) {
+                    try {
+                        this.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 }
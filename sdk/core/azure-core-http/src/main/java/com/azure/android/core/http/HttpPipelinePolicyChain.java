@@ -29,7 +29,9 @@ public interface HttpPipelinePolicyChain {
     HttpRequest getRequest();
 
     /**
-     * Gets the {@link CancellationToken} associated with the pipeline run.
+     * Gets the {@link CancellationToken} associated with the execution of the policy: the token of the pipeline run,
+     * unless a previous policy provided a token of its own through
+     * {@link #processNextPolicy(HttpRequest, CancellationToken, NextPolicyCallback)}.
      *
      * <p>
      * In policy implementation, before starting any potentially time and resource-consuming work,
@@ -101,6 +103,75 @@ public interface HttpPipelinePolicyChain {
      */
     void processNextPolicy(HttpRequest request, NextPolicyCallback callback, long delay, TimeUnit timeUnit);
 
+    /**
+     * Signal that, after the specified delay, the pipeline should run the given continuation of the policy
+     * instead of the next policy, e.g. for the policy to check again whether the request can be sent.
+     *
+     * <p>
+     * As with {@link #processNextPolicy(HttpRequest, NextPolicyCallback, long, TimeUnit)}, the pipeline run does
+     * not hold a thread while waiting for the delay. The continuation runs on a thread of the
+     * {@link HttpCallDispatcher} and must then proceed with the next policy, call this method again or complete
+     * the chain. If the continuation cannot run, e.g. since the deadline of the call expired, the chain is
+     * completed with the error.
+     * </p>
+     *
+     * @param continuation The continuation of the policy.
+     * @param delay The time from now to delay the continuation.
+     * @param timeUnit The time unit of the {@code delay}.
+     */
+    void continueAfter(Runnable continuation, long delay, TimeUnit timeUnit);
+
+    /**
+     * Signal that the pipeline can proceed with the execution of the next policy, using the given
+     * {@link CancellationToken} for the next policies and the {@link HttpClient} instead of the token
+     * of this chain.
+     *
+     * <p>
+     * A policy uses a token of its own to cancel the execution of the next policies without cancelling
+     * the pipeline run, e.g. to abandon an attempt that takes too long. The policy is responsible for
+     * cancelling the given token when the token of this chain is cancelled.
+     * </p>
+     *
+     * @param request The HTTP Request.
+     * @param cancellationToken The cancellation token for the execution of the next policies.
+     * @param callback The callback to receive the {@link HttpResponse} or the error from
+     *     the next policy once its completes the execution.
+     */
+    void processNextPolicy(HttpRequest request, CancellationToken cancellationToken, NextPolicyCallback callback);
+
+    /**
+     * Signal that, after the specified delay, the pipeline can proceed with an additional execution of
+     * the next policy, concurrently with the execution the policy already started.
+     *
+     * <p>
+     * Unlike {@link #processNextPolicy(HttpRequest, NextPolicyCallback, long, TimeUnit)}, which is meant for
+     * a policy that has no execution of the next policy in progress, e.g. to retry once the previous attempt
+     * completed, the pipeline run is not paused while waiting for the delay; the additional execution counts
+     * as a running call of the {@link HttpCallDispatcher} until it completes.
+     * </p>
+     *
+     * <p>
+     * The policy receives the results of all its executions of the next policy and must complete its chain
+     * only once, e.g. with the first response, cancelling the other executions through their
+     * {@code cancellationToken}. An execution whose {@code cancellationToken} is cancelled, or whose deadline
+     * expires, before the delay elapses does not run, its callback receives a
+     * {@link com.azure.android.core.http.exception.CallNotDispatchedException}.
+     * </p>
+     *
+     * @param request The HTTP Request, which should not be shared with another execution in progress since
+     *     the next policies may modify it.
+     * @param cancellationToken The cancellation token for the additional execution of the next policies.
+     * @param callback The callback to receive the {@link HttpResponse} or the error from
+     *     the next policy once its completes the additional execution.
+     * @param delay The time from now to delay the additional execution of next policy.
+     * @param timeUnit The time unit of the {@code delay}.
+     */
+    void processNextPolicyConcurrently(HttpRequest request,
+                                       CancellationToken cancellationToken,
+                                       NextPolicyCallback callback,
+                                       long delay,
+                                       TimeUnit timeUnit);
+
     /**
      * Signal that the policy execution is successfully completed.
      *
@@ -3,8 +3,6 @@
 
 package com.azure.android.core.http;
 
-import android.util.Log;
-
 import com.azure.android.core.http.implementation.Util;
 import com.azure.android.core.util.CancellationToken;
 import com.azure.android.core.util.RequestContext;
@@ -14,20 +12,29 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Default implementation of {@link HttpPipelinePolicyChain}.
+ *
+ * <p>
+ * A chain is created for each policy invocation and holds only what is specific to that invocation; the state
+ * shared by all the chains of a pipeline run is held once in the {@link PipelineRun}. The chain of the last
+ * invocation is also the {@link HttpCallback} given to the HttpClient, and the {@link PolicyCompleter} of a chain
+ * is created once and reused across the completions of the policies following it, e.g., on retries.
+ * </p>
  */
-final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
-    private static final String TAG = HttpPipelinePolicyChainImpl.class.getName();
-    private final ClientLogger logger = new ClientLogger(HttpPipelinePolicyChainImpl.class);
+final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain, HttpCallback {
+    private static final ClientLogger LOGGER = new ClientLogger(HttpPipelinePolicyChainImpl.class);
 
+    private final PipelineRun pipelineRun;
     private final int index;
-    private final HttpPipeline httpPipeline;
     private final HttpRequest httpRequest;
     private final RequestContext context;
+    // The token of the pipeline run, or of a previous policy that executes the next policies with its own.
     private final CancellationToken cancellationToken;
     private final NextPolicyCallback prevPolicyCallback;
-    private volatile boolean reportedBypassedError;
-    // package private final var.
-    final HttpCallback rootHttpCallback;
+    // The time the policy of this chain was invoked, set only if metrics or the concurrency limiter are enabled.
+    private long startNanos;
+    // The completer given to the callbacks of this chain's policy, created on first use.
+    private PolicyCompleter policyCompleter;
+    // package private final var, null for the chain of the first policy.
     final HttpPipelinePolicyChainImpl prevChain;
 
     /**
@@ -52,36 +59,40 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
         Util.requireNonNull(cancellationToken, "'cancellationToken' is required.");
         Util.requireNonNull(pipelineSendCallback, "'pipelineSendCallback' is required.");
 
-        final HttpCallDispatcher.HttpCallFunction httpCallFunction = (request, rootHttpCallback) -> {
-            final HttpPipelinePolicyChainImpl rootChain = new HttpPipelinePolicyChainImpl(-1,
-                httpPipeline,
-                request,
-                rootHttpCallback,
-                requestContext,
-                cancellationToken,
-                null,
-                new NextPolicyCallback() {
-                    @Override
-                    public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
-                        rootHttpCallback.onSuccess(response);
-                        return PolicyCompleter.CompletionState.INSTANCE;
-
-                    }
-
-                    @Override
-                    public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
-                        rootHttpCallback.onError(error);
-                        return PolicyCompleter.CompletionState.INSTANCE;
-                    }
-                });
+        httpPipeline.httpCallDispatcher.enqueue(new PipelineRun(httpPipeline, requestContext, cancellationToken),
+            httpRequest,
+            requestContext,
+            cancellationToken,
+            pipelineSendCallback);
+    }
 
-            rootChain.processNextPolicyIntern(rootChain.httpRequest,
-                rootChain.context,
-                rootChain.prevPolicyCallback);
-        };
+    /**
+     * package-private.
+     *
+     * Begin the pipeline execution on the calling thread, the {@link HttpCallDispatcher} is used only
+     * to run the continuations that the policies schedule to run after a delay.
+     *
+     * @param httpPipeline The HTTP pipeline.
+     * @param httpRequest The HTTP request to flow through the pipeline.
+     * @param requestContext The context to flow through the pipeline.
+     * @param cancellationToken The cancellation token for the pipeline execution.
+     * @param pipelineSendCallback The callback to invoke once the execution of the pipeline completes.
+     */
+    static void beginPipelineExecutionOnCallingThread(HttpPipeline httpPipeline,
+                                                      HttpRequest httpRequest,
+                                                      RequestContext requestContext,
+                                                      CancellationToken cancellationToken,
+                                                      HttpCallback pipelineSendCallback) {
+        Util.requireNonNull(httpPipeline, "'httpPipeline' is required.");
+        Util.requireNonNull(httpRequest, "'httpRequest' is required.");
+        Util.requireNonNull(requestContext, "'requestContext' is required.");
+        Util.requireNonNull(cancellationToken, "'cancellationToken' is required.");
+        Util.requireNonNull(pipelineSendCallback, "'pipelineSendCallback' is required.");
 
-        httpPipeline.httpCallDispatcher.enqueue(httpCallFunction,
+        httpPipeline.httpCallDispatcher.runOnCallingThread(
+            new PipelineRun(httpPipeline, requestContext, cancellationToken),
             httpRequest,
+            requestContext,
             cancellationToken,
             pipelineSendCallback);
     }
@@ -93,43 +104,68 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
      * Once the policy at {@code index} completes its execution by calling chain.completed(..),
      * the result will be notified to {@code prevProceedCallback}. This callback can be absent
      * if the previous policy used {@code proceed(..)} with no callback param, in such case
-     * {@code complete(..)} method of previous chain {@code prevChain} will be called.
+     * {@code complete(..)} method of previous chain {@code prevChain} will be called. If both are
+     * absent, the policy is the first one and the result is notified to the root HttpCallback of the run.
      * </p>
      *
+     * @param pipelineRun The pipeline run this chain belongs to.
      * @param index The index of the policy that uses this chain.
-     * @param httpPipeline The HTTP Pipeline.
      * @param httpRequest The HTTP request to flow through the pipeline.
-     * @param rootHttpCallback The Root HttpCallback from the dispatcher.
      * @param requestContext The context to flow through the pipeline.
-     * @param cancellationToken cancellationToken for the pipeline run this chain belongs to.
+     * @param cancellationToken The cancellation token for the execution of the policy.
      * @param prevChain The reference to previous chain (chain for the policy at {@code index - 1}).
      * @param prevPolicyCallback The reference to the callback provided to the {@code proceed(..)} method
      *     of the previous policy.
      */
-    private HttpPipelinePolicyChainImpl(int index,
-                                        HttpPipeline httpPipeline,
+    private HttpPipelinePolicyChainImpl(PipelineRun pipelineRun,
+                                        int index,
                                         HttpRequest httpRequest,
-                                        HttpCallback rootHttpCallback,
                                         RequestContext requestContext,
                                         CancellationToken cancellationToken,
                                         HttpPipelinePolicyChainImpl prevChain,
                                         NextPolicyCallback prevPolicyCallback) {
         // Private Ctr, hence simple assertion.
-        assert (httpPipeline != null
+        assert (pipelineRun != null
             && httpRequest != null
-            && rootHttpCallback != null
             && requestContext != null
             && cancellationToken != null
-            && (prevChain != null || prevPolicyCallback != null));
+            && (prevChain != null || index == 0));
 
+        this.pipelineRun = pipelineRun;
         this.index = index;
-        this.httpPipeline = httpPipeline;
         this.httpRequest = httpRequest;
-        this.rootHttpCallback = rootHttpCallback;
         this.context = requestContext;
         this.cancellationToken = cancellationToken;
         this.prevChain = prevChain;
         this.prevPolicyCallback = prevPolicyCallback;
+        if (pipelineRun.metrics != HttpCallMetrics.NONE
+            || (pipelineRun.concurrencyLimiter != null && index == pipelineRun.httpPipeline.size)) {
+            this.startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * package-private.
+     *
+     * @return The root HttpCallback of the pipeline run this chain belongs to.
+     */
+    HttpCallback getRootHttpCallback() {
+        return this.pipelineRun.rootHttpCallback;
+    }
+
+    /**
+     * package-private.
+     *
+     * @return The completer to give to the callbacks of the policy that uses this chain.
+     */
+    PolicyCompleter getPolicyCompleter() {
+        // A racy lazy init is fine, PolicyCompleter is immutable and any instance completes this chain.
+        PolicyCompleter completer = this.policyCompleter;
+        if (completer == null) {
+            completer = new PolicyCompleter(this);
+            this.policyCompleter = completer;
+        }
+        return completer;
     }
 
     @Override
@@ -150,14 +186,29 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
     @Override
     public void processNextPolicy(HttpRequest httpRequest) {
         Util.requireNonNull(httpRequest, "'httpRequest' is required.");
-        this.processNextPolicyIntern(httpRequest, this.context, null);
+        this.pipelineRun.processPolicy(this.index + 1, httpRequest, this.context, this.cancellationToken, this, null);
     }
 
     @Override
     public void processNextPolicy(HttpRequest httpRequest, NextPolicyCallback callback) {
         Util.requireNonNull(httpRequest, "'httpRequest' is required.");
         Util.requireNonNull(callback, "'callback' is required.");
-        this.processNextPolicyIntern(httpRequest, this.context, callback);
+        this.pipelineRun.processPolicy(this.index + 1,
+            httpRequest,
+            this.context,
+            this.cancellationToken,
+            this,
+            callback);
+    }
+
+    @Override
+    public void processNextPolicy(HttpRequest httpRequest,
+                                  CancellationToken cancellationToken,
+                                  NextPolicyCallback callback) {
+        Util.requireNonNull(httpRequest, "'httpRequest' is required.");
+        Util.requireNonNull(cancellationToken, "'cancellationToken' is required.");
+        Util.requireNonNull(callback, "'callback' is required.");
+        this.pipelineRun.processPolicy(this.index + 1, httpRequest, this.context, cancellationToken, this, callback);
     }
 
     @Override
@@ -166,171 +217,321 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
         Util.requireNonNull(httpRequest, "'httpRequest' is required.");
         Util.requireNonNull(callback, "'callback' is required.");
         Util.requireNonNull(timeUnit, "'timeUnit' is required.");
-        this.httpPipeline.httpCallDispatcher.scheduleProcessNextPolicy(this,
+        this.pipelineRun.httpPipeline.httpCallDispatcher.scheduleProcessNextPolicy(this,
             httpRequest,
             this.context,
+            this.cancellationToken,
             callback,
             delay,
-            timeUnit);
+            timeUnit,
+            false);
+    }
+
+    @Override
+    public void continueAfter(Runnable continuation, long delay, TimeUnit timeUnit) {
+        Util.requireNonNull(continuation, "'continuation' is required.");
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        this.pipelineRun.httpPipeline.httpCallDispatcher.scheduleContinuation(this, continuation, delay, timeUnit);
+    }
+
+    /**
+     * package-private.
+     *
+     * Run a continuation of the policy that uses this chain, scheduled by {@link #continueAfter}.
+     *
+     * @param continuation The continuation.
+     */
+    void runContinuation(Runnable continuation) {
+        try {
+            continuation.run();
+        } catch (Throwable t) {
+            this.pipelineRun.reportBypassedError(t, false, this.index);
+        }
+    }
+
+    @Override
+    public void processNextPolicyConcurrently(HttpRequest httpRequest,
+                                              CancellationToken cancellationToken,
+                                              NextPolicyCallback callback,
+                                              long delay,
+                                              TimeUnit timeUnit) {
+        Util.requireNonNull(httpRequest, "'httpRequest' is required.");
+        Util.requireNonNull(cancellationToken, "'cancellationToken' is required.");
+        Util.requireNonNull(callback, "'callback' is required.");
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        this.pipelineRun.httpPipeline.httpCallDispatcher.scheduleProcessNextPolicy(this,
+            httpRequest,
+            this.context,
+            cancellationToken,
+            callback,
+            delay,
+            timeUnit,
+            true);
     }
 
     @Override
     public void completed(HttpResponse httpResponse) {
         Util.requireNonNull(httpResponse, "'httpResponse' is required.");
-        assert (this.prevChain != null);
+        if (this.pipelineRun.metrics != HttpCallMetrics.NONE) {
+            this.reportCompleted(true);
+        }
+        if (this.pipelineRun.concurrencyLimiter != null && this.index == this.pipelineRun.httpPipeline.size) {
+            this.reportRoundTrip(httpResponse);
+        }
         if (this.prevPolicyCallback != null) {
             try {
-                this.prevPolicyCallback.onSuccess(httpResponse,
-                    new PolicyCompleter(this.prevChain));
+                this.prevPolicyCallback.onSuccess(httpResponse, this.prevChain.getPolicyCompleter());
             } catch (Throwable t) {
-                this.reportBypassedError(t, true);
+                this.pipelineRun.reportBypassedError(t, true, this.index);
             }
-        } else {
+        } else if (this.prevChain != null) {
             // A callback to notify the previous policy could be null if that policy
             // implementation used 'processNextPolicy(HttpRequest httpRequest)'. A delegating
             // callback also works but avoiding an extra allocation by using previous
             // chain reference.
             this.prevChain.completed(httpResponse);
+        } else {
+            // The first policy completed, the pipeline run is complete.
+            try {
+                this.pipelineRun.rootHttpCallback.onSuccess(httpResponse);
+            } catch (Throwable t) {
+                this.pipelineRun.reportBypassedError(t, true, this.index);
+            }
         }
     }
 
     @Override
     public void completedError(Throwable error) {
         Util.requireNonNull(error, "'throwable' is required.");
+        if (this.pipelineRun.metrics != HttpCallMetrics.NONE) {
+            this.reportCompleted(false);
+        }
         if (this.prevPolicyCallback != null) {
             try {
-                this.prevPolicyCallback.onError(error,
-                    new PolicyCompleter(this.prevChain));
+                this.prevPolicyCallback.onError(error, this.prevChain.getPolicyCompleter());
             } catch (Throwable t) {
-                this.reportBypassedError(t, true);
+                this.pipelineRun.reportBypassedError(t, true, this.index);
             }
-        } else {
+        } else if (this.prevChain != null) {
             this.prevChain.completedError(error);
+        } else {
+            try {
+                this.pipelineRun.rootHttpCallback.onError(error);
+            } catch (Throwable t) {
+                this.pipelineRun.reportBypassedError(t, true, this.index);
+            }
         }
     }
 
     /**
-     * Proceed with execution of policy at {@code index + 1}.
-     * <p>
-     * If current policy (policy at {@code index}) is the last policy then the request will be
-     * given to the HTTP Client for execution.
-     * </p>
+     * The HttpClient notifies the result of the request sent by the network-policy to the chain
+     * of the network-policy, saving a callback allocation per send.
      *
-     * @param httpRequest The HTTP request for the next policy.
-     * @param requestContext The HTTP context for the next policy.
-     * @param proceedCallback The current policy's callback (policy at {@code index})
-     *     that next policy notify results to.
+     * @param response The response.
      */
-    private void processNextPolicyIntern(HttpRequest httpRequest, RequestContext requestContext,
-                                         NextPolicyCallback proceedCallback) {
-        final int nextIndex = this.index + 1;
-        assert nextIndex >= 0;
-
-        // Create a chain for next policy.
-        final HttpPipelinePolicyChainImpl nextChain = new HttpPipelinePolicyChainImpl(nextIndex,
-            this.httpPipeline,
-            httpRequest,
-            this.rootHttpCallback,
-            requestContext,
-            this.cancellationToken,
-            this,
-            proceedCallback);
+    @Override
+    public void onSuccess(HttpResponse response) {
+        this.completed(response);
+    }
 
-        if (nextIndex == this.httpPipeline.size) {
-            try {
-                // No more policies, invoke the network-policy to write the request to the wire.
-                this.httpPipeline.networkPolicy.process(nextChain);
-            } catch (Throwable t) {
-                this.reportBypassedError(t, false);
-            }
+    @Override
+    public void onError(Throwable error) {
+        this.completedError(error);
+    }
+
+    /**
+     * Notify the concurrency limiter of the response to the request sent by the network-policy. This is the only
+     * place the responses are reported, so that each attempt is reported once, whether a policy such as
+     * RetryPolicy retries it or not. The round-trip time of a throttled response does not reflect the time
+     * the host takes to serve a request, it is reported as throttled instead.
+     *
+     * @param httpResponse The response received by the network-policy.
+     */
+    private void reportRoundTrip(HttpResponse httpResponse) {
+        final int statusCode = httpResponse.getStatusCode();
+        final String host = this.httpRequest.getHost();
+        if (host == null) {
+            return;
+        }
+        if (statusCode == 429 || statusCode == 503) {
+            this.pipelineRun.concurrencyLimiter.onThrottled(host);
         } else {
-            try {
-                // Invoke the next pipeline policy at this.index + 1.
-                this.httpPipeline.getPolicy(nextIndex).process(nextChain);
-            } catch (Throwable t) {
-                this.reportBypassedError(t, false);
-            }
+            this.pipelineRun.concurrencyLimiter.onRoundTrip(host,
+                System.nanoTime() - this.startNanos,
+                this.pipelineRun.httpPipeline.httpCallDispatcher.getRunningCallsCount(host));
         }
     }
 
     /**
-     * Report the given bypassed error.
-     *
-     * Bypassed error is an error directly 'thrown' from following sources:
-     * <ul>
-     *     <li> policy.process(..)
-     *     <li> onSuccess(..) or onError(..) methods of the callback provided to chain.processNextPolicy(..) call.
-     * </ul>
-     *
-     * <p>
-     * Ideally, the user-code in these sources is supposed to propagate any error using chain.completed(Throwable)
-     * instead of throwing. Error bypassed via throw represents incorrect/missed error handling in user-code.
-     * This method notifies such error to "rootCallback".
-     *
-     * The "rootCallback" is the callback that receives result from the first policy when that policy call
-     * chain.complete(..). If a bypassed error appears in the pipeline, we "short circuit" the pipeline chain
-     * and report error to "rootCallback". The "rootCallback" is designed to delegates the received result
-     * (response|error) to the callback that was provided to
-     * {@link HttpPipeline#send(HttpRequest, RequestContext, CancellationToken, HttpCallback)} and
-     * to take care of dispatcher specific housekeeping.
-     *
-     * If an attempt to report a bypassed error e1 results in another bypassed error e2, we log e2 and re-throw e2.
-     * </p>
+     * Notify the metrics of the completion of the policy at {@code index}, and of the pipeline run if it is
+     * the first policy.
      *
-     * @param bypassedError The bypassed error.
-     * @param isErrorFromProceedCallback true if the error is bypassed from onSuccess(..) or onError(..) of
-     *     a proceedCallback, false if the error is bypassed from policy.process(..).
+     * @param succeeded true if the policy completed with a response, false if with an error.
      */
-    private void reportBypassedError(Throwable bypassedError, boolean isErrorFromProceedCallback) {
-        HttpPipelinePolicyChainImpl rootChain = this.getRootChain();
-        if (rootChain.reportedBypassedError) {
-            // We processed escaped error once; after that, any more escaped errors will be rethrown.
-            //
-            Log.e(TAG, "Error escaped.", bypassedError);
-            throw logger.logExceptionAsError(new RuntimeException(bypassedError.getMessage(), bypassedError));
-        } else {
-            rootChain.reportedBypassedError = true;
-            if (isErrorFromProceedCallback) {
-                if (this.index > 0) {
-                    try {
-                        this.rootHttpCallback.onError(bypassedError);
-                    } catch (Throwable t) {
-                        // :( an error bypassed from the rootCallback.onError(e)
-                        Log.e(TAG, "Error escaped from RootCallback::onError(e).", t);
-                        throw logger.logExceptionAsError(
-                            new RuntimeException("Error escaped from RootCallback::onError(e).", t));
-                    }
-                } else {
-                    assert this.index == 0;
-                    // :( an error bypassed from the rootCallback.onError(e)|onSuccess(r)
-                    Log.e(TAG, "Error escaped from RootCallback::onError(e)|onSuccess(r).",
-                        bypassedError);
-                    throw logger.logExceptionAsError(new RuntimeException(bypassedError.getMessage(), bypassedError));
+    private void reportCompleted(boolean succeeded) {
+        final long nowNanos = System.nanoTime();
+        final HttpPipeline httpPipeline = this.pipelineRun.httpPipeline;
+        final HttpPipelinePolicy policy = this.index == httpPipeline.size
+            ? null
+            : httpPipeline.getPolicy(this.index);
+        this.pipelineRun.metrics.onPolicyCompleted(policy, this.index, nowNanos - this.startNanos);
+        if (this.index == 0) {
+            // The completion of the first policy completes the pipeline run.
+            this.pipelineRun.metrics.onPipelineCompleted(this.httpRequest,
+                nowNanos - this.pipelineRun.startNanos,
+                succeeded);
+        }
+    }
+
+    /**
+     * The state shared by all the chains of a pipeline run. It is also the function the dispatcher invokes
+     * to begin the run.
+     */
+    private static final class PipelineRun implements HttpCallDispatcher.HttpCallFunction {
+        private final HttpPipeline httpPipeline;
+        private final RequestContext requestContext;
+        private final CancellationToken cancellationToken;
+        // The metrics of the pipeline run, read from the dispatcher once when the run is created.
+        private final HttpCallMetrics metrics;
+        // The concurrency limiter of the dispatcher, read once when the run is created, null if none.
+        private final HttpCallConcurrencyLimiter concurrencyLimiter;
+        // Set when the dispatcher begins the run, before any chain of the run is created.
+        private HttpCallback rootHttpCallback;
+        private long startNanos;
+        private volatile boolean reportedBypassedError;
+
+        PipelineRun(HttpPipeline httpPipeline, RequestContext requestContext, CancellationToken cancellationToken) {
+            this.httpPipeline = httpPipeline;
+            this.requestContext = requestContext;
+            this.cancellationToken = cancellationToken;
+            this.metrics = httpPipeline.httpCallDispatcher.metrics;
+            this.concurrencyLimiter = httpPipeline.httpCallDispatcher.getConcurrencyLimiter();
+        }
+
+        @Override
+        public void apply(HttpRequest httpRequest, HttpCallback rootHttpCallback) {
+            this.rootHttpCallback = rootHttpCallback;
+            if (this.metrics != HttpCallMetrics.NONE) {
+                this.startNanos = System.nanoTime();
+            }
+            this.processPolicy(0, httpRequest, this.requestContext, this.cancellationToken, null, null);
+        }
+
+        /**
+         * Proceed with execution of policy at {@code index}.
+         * <p>
+         * If {@code index} is past the last policy then the request will be given to the HTTP Client
+         * for execution.
+         * </p>
+         *
+         * @param index The index of the policy to execute.
+         * @param httpRequest The HTTP request for the policy.
+         * @param requestContext The HTTP context for the policy.
+         * @param cancellationToken The cancellation token for the policy.
+         * @param prevChain The chain of the policy at {@code index - 1}, null if {@code index} is 0.
+         * @param proceedCallback The callback of the policy at {@code index - 1} that the policy
+         *     at {@code index} notify results to.
+         */
+        void processPolicy(int index,
+                           HttpRequest httpRequest,
+                           RequestContext requestContext,
+                           CancellationToken cancellationToken,
+                           HttpPipelinePolicyChainImpl prevChain,
+                           NextPolicyCallback proceedCallback) {
+            assert index >= 0;
+
+            // Create a chain for the policy.
+            final HttpPipelinePolicyChainImpl chain = new HttpPipelinePolicyChainImpl(this,
+                index,
+                httpRequest,
+                requestContext,
+                cancellationToken,
+                prevChain,
+                proceedCallback);
+
+            if (index == this.httpPipeline.size) {
+                try {
+                    // No more policies, invoke the network-policy to write the request to the wire.
+                    this.httpPipeline.networkPolicy.process(chain);
+                } catch (Throwable t) {
+                    this.reportBypassedError(t, false, index);
                 }
             } else {
                 try {
-                    this.rootHttpCallback.onError(bypassedError);
+                    // Invoke the pipeline policy at index.
+                    this.httpPipeline.getPolicy(index).process(chain);
                 } catch (Throwable t) {
-                    Log.e(TAG, "Error escaped from RootCallback::onError(e).", t);
-                    throw logger.logExceptionAsError(
-                        new RuntimeException("Error escaped from RootCallback::onError(e).", t));
+                    this.reportBypassedError(t, false, index);
                 }
             }
         }
-    }
 
-    /**
-     * Retrieve the root chain with index -1.
-     *
-     * @return The root chain.
-     */
-    private HttpPipelinePolicyChainImpl getRootChain() {
-        HttpPipelinePolicyChainImpl chain = this;
-        while (chain.index != -1) {
-            chain = chain.prevChain;
-            assert chain != null;
+        /**
+         * Report the given bypassed error.
+         *
+         * Bypassed error is an error directly 'thrown' from following sources:
+         * <ul>
+         *     <li> policy.process(..)
+         *     <li> onSuccess(..) or onError(..) methods of the callback provided to chain.processNextPolicy(..)
+         *     call.
+         * </ul>
+         *
+         * <p>
+         * Ideally, the user-code in these sources is supposed to propagate any error using
+         * chain.completed(Throwable) instead of throwing. Error bypassed via throw represents incorrect/missed
+         * error handling in user-code. This method notifies such error to "rootCallback".
+         *
+         * The "rootCallback" is the callback that receives result from the first policy when that policy call
+         * chain.complete(..). If a bypassed error appears in the pipeline, we "short circuit" the pipeline chain
+         * and report error to "rootCallback". The "rootCallback" is designed to delegates the received result
+         * (response|error) to the callback that was provided to
+         * {@link HttpPipeline#send(HttpRequest, RequestContext, CancellationToken, HttpCallback)} and
+         * to take care of dispatcher specific housekeeping.
+         *
+         * If an attempt to report a bypassed error e1 results in another bypassed error e2, we log e2 and
+         * re-throw e2.
+         * </p>
+         *
+         * @param bypassedError The bypassed error.
+         * @param isErrorFromProceedCallback true if the error is bypassed from onSuccess(..) or onError(..) of
+         *     a proceedCallback, false if the error is bypassed from policy.process(..).
+         * @param index The index of the chain reporting the error.
+         */
+        void reportBypassedError(Throwable bypassedError, boolean isErrorFromProceedCallback, int index) {
+            if (this.reportedBypassedError) {
+                // We processed escaped error once; after that, any more escaped errors will be rethrown.
+                //
+                LOGGER.error("Error escaped.", bypassedError);
+                throw LOGGER.logExceptionAsError(new RuntimeException(bypassedError.getMessage(), bypassedError));
+            } else {
+                this.reportedBypassedError = true;
+                if (isErrorFromProceedCallback) {
+                    if (index > 0) {
+                        try {
+                            this.rootHttpCallback.onError(bypassedError);
+                        } catch (Throwable t) {
+                            // :( an error bypassed from the rootCallback.onError(e)
+                            LOGGER.error("Error escaped from RootCallback::onError(e).", t);
+                            throw LOGGER.logExceptionAsError(
+                                new RuntimeException("Error escaped from RootCallback::onError(e).", t));
+                        }
+                    } else {
+                        assert index == 0;
+                        // :( an error bypassed from the rootCallback.onError(e)|onSuccess(r)
+                        LOGGER.error("Error escaped from RootCallback::onError(e)|onSuccess(r).", bypassedError);
+                        throw LOGGER.logExceptionAsError(
+                            new RuntimeException(bypassedError.getMessage(), bypassedError));
+                    }
+                } else {
+                    try {
+                        this.rootHttpCallback.onError(bypassedError);
+                    } catch (Throwable t) {
+                        LOGGER.error("Error escaped from RootCallback::onError(e).", t);
+                        throw LOGGER.logExceptionAsError(
+                            new RuntimeException("Error escaped from RootCallback::onError(e).", t));
+                    }
+                }
+            }
         }
-        assert chain.index == -1;
-        return chain;
     }
 }
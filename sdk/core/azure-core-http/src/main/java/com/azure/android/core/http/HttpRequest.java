@@ -6,6 +6,7 @@ package com.azure.android.core.http;
 import com.azure.android.core.http.implementation.Util;
 import com.azure.android.core.logging.ClientLogger;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
@@ -17,17 +18,30 @@ import java.util.Map;
  * {@code url}, {@link HttpHeader} and request body.
  */
 public class HttpRequest {
-    private final ClientLogger logger = new ClientLogger(HttpRequest.class);
+    private static final ClientLogger LOGGER = new ClientLogger(HttpRequest.class);
 
     private HttpMethod httpMethod;
+    // The target address as set, parsed into 'url' by the first call to getUrl().
+    private String urlString;
     private URL url;
+    // The host read from 'urlString' by the first call to getHost(), if the url was not parsed yet.
+    private String host;
     private HttpHeaders headers;
-    private byte[] body;
+    private HttpRequestBody body;
+    // Created by the first call to getTags().
     private Map<Object, Object> tags;
+    // Set by the HttpPipeline; a field rather than a tag, so that sending the request does not create the tags map.
+    private boolean callingThreadPreferred;
 
     /**
      * Create a new HttpRequest instance.
      *
+     * <p>
+     * An 'http' or 'https' url is parsed by the first call to {@link HttpRequest#getUrl()}, which throws if the url
+     * is malformed; other urls are parsed by the constructor. A malformed 'http' or 'https' url hence fails
+     * the call with an {@link IllegalArgumentException} when the request is sent, rather than when it is created.
+     * </p>
+     *
      * @param httpMethod The HTTP request method.
      * @param url The target address to send the request to.
      * @throws IllegalArgumentException if the url is malformed.
@@ -35,14 +49,8 @@ public class HttpRequest {
     public HttpRequest(HttpMethod httpMethod,
                        String url) {
         this.httpMethod = Util.requireNonNull(httpMethod, "'httpMethod' is required.");
-        Util.requireNonNull(url, "'url' is required.");
-        try {
-            this.url = new URL(url);
-        } catch (MalformedURLException ex) {
-            throw logger.logExceptionAsWarning(new IllegalArgumentException("'url' must be a valid URL", ex));
-        }
+        this.setUrl(Util.requireNonNull(url, "'url' is required."));
         this.headers = new HttpHeaders();
-        this.tags = new HashMap<>(0);
     }
 
     /**
@@ -59,15 +67,9 @@ public class HttpRequest {
                        HttpHeaders headers,
                        byte[] body) {
         this.httpMethod = Util.requireNonNull(httpMethod, "'httpMethod' is required.");
-        Util.requireNonNull(url, "'url' is required.");
-        try {
-            this.url = new URL(url);
-        } catch (MalformedURLException ex) {
-            throw logger.logExceptionAsWarning(new IllegalArgumentException("'url' must be a valid URL", ex));
-        }
+        this.setUrl(Util.requireNonNull(url, "'url' is required."));
         this.headers = Util.requireNonNull(headers, "'headers' is required.");
-        this.body = Util.requireNonNull(body, "'body' is required.");
-        this.tags = new HashMap<>(0);
+        this.body = HttpRequestBody.fromBytes(Util.requireNonNull(body, "'body' is required."));
     }
 
     /**
@@ -94,24 +96,62 @@ public class HttpRequest {
      * Get the target address.
      *
      * @return the target address
+     * @throws IllegalArgumentException if the url is malformed.
      */
     public URL getUrl() {
-        return url;
+        if (this.url == null) {
+            this.url = parseUrl(this.urlString);
+        }
+        return this.url;
+    }
+
+    /**
+     * Get the host of the target address, without parsing the whole address if it was not parsed yet.
+     *
+     * <p>
+     * The host of an 'http' or 'https' url not parsed yet is read from the authority of the url; the url is
+     * validated only when parsed by {@link HttpRequest#getUrl()}.
+     * </p>
+     *
+     * @return the host, as {@link URL#getHost()} returns it
+     */
+    public String getHost() {
+        if (this.url != null) {
+            return this.url.getHost();
+        }
+        if (this.host == null) {
+            this.host = readHost(this.urlString);
+        }
+        return this.host;
+    }
+
+    /**
+     * Get the target address as it was set, without parsing it.
+     *
+     * @return the target address
+     */
+    public String getUrlString() {
+        return this.urlString;
     }
 
     /**
      * Set the target address to send the request to.
      *
+     * <p>
+     * An 'http' or 'https' url is parsed by the first call to {@link HttpRequest#getUrl()}, which throws if the url
+     * is malformed; other urls are parsed by this method. A malformed 'http' or 'https' url hence fails the call
+     * with an {@link IllegalArgumentException} when the request is sent, rather than when the url is set.
+     * </p>
+     *
      * @param url target address.
      * @return this HttpRequest
      * @throws IllegalArgumentException if the url is malformed.
      */
     public HttpRequest setUrl(String url) {
-        try {
-            this.url = new URL(url);
-        } catch (MalformedURLException ex) {
-            throw logger.logExceptionAsWarning(new IllegalArgumentException("'url' must be a valid URL", ex));
-        }
+        // A url without or with an unknown protocol is still rejected here.
+        this.url = url != null && isHttpUrl(url) ? null : parseUrl(url);
+        this.urlString = url;
+        this.host = null;
         return this;
     }
 
@@ -151,10 +191,31 @@ public class HttpRequest {
     /**
      * Get the request content.
      *
+     * A streamed content set as an {@link HttpRequestBody} is read into a new array on each call, and an in-memory
+     * content not covering a whole byte array is copied once; use {@link HttpRequestBody#asByteBuffer()} of
+     * {@link HttpRequest#getRequestBody()} to access an in-memory content without a copy.
+     *
      * @return the content to be send
+     * @throws RuntimeException if the content cannot be read.
      */
     public byte[] getBody() {
-        return body;
+        if (this.body == null) {
+            return null;
+        }
+        try {
+            return this.body.toBytes();
+        } catch (IOException e) {
+            throw LOGGER.logExceptionAsError(new RuntimeException(e));
+        }
+    }
+
+    /**
+     * Get the request content.
+     *
+     * @return the content to be send, null if the request has no content.
+     */
+    public HttpRequestBody getRequestBody() {
+        return this.body;
     }
 
     /**
@@ -176,7 +237,27 @@ public class HttpRequest {
      * @return this HttpRequest
      */
     public HttpRequest setBody(byte[] content) {
-        headers.put("Content-Length", String.valueOf(content.length));
+        headers.put(HttpHeaders.CONTENT_LENGTH, String.valueOf(content.length));
+        this.body = HttpRequestBody.fromBytes(content);
+        return this;
+    }
+
+    /**
+     * Set the request content.
+     * The Content-Length header will be set based on the given content's length, or removed if the length
+     * is unknown, in which case the content is sent chunked.
+     *
+     * @param content the request content
+     * @return this HttpRequest
+     */
+    public HttpRequest setBody(HttpRequestBody content) {
+        Util.requireNonNull(content, "'content' is required.");
+        final long contentLength = content.getContentLength();
+        if (contentLength < 0) {
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+        } else {
+            headers.put(HttpHeaders.CONTENT_LENGTH, String.valueOf(contentLength));
+        }
         this.body = content;
         return this;
     }
@@ -193,9 +274,34 @@ public class HttpRequest {
      * @return The tags.
      */
     public Map<Object, Object> getTags() {
+        if (this.tags == null) {
+            this.tags = new HashMap<>(0);
+        }
         return this.tags;
     }
 
+    /**
+     * Gets whether the {@link HttpClient} should prefer to send the request on the calling thread, which is
+     * the case for the requests sent through an {@link HttpPipeline}, whose calls already run on the threads
+     * of the {@link HttpCallDispatcher}.
+     *
+     * @return true if the calling thread is preferred, false otherwise.
+     */
+    public boolean isCallingThreadPreferred() {
+        return this.callingThreadPreferred;
+    }
+
+    /**
+     * package-private.
+     *
+     * Sets whether the {@link HttpClient} should prefer to send the request on the calling thread.
+     *
+     * @param callingThreadPreferred true if the calling thread is preferred, false otherwise.
+     */
+    void setCallingThreadPreferred(boolean callingThreadPreferred) {
+        this.callingThreadPreferred = callingThreadPreferred;
+    }
+
     /**
      * Creates a copy of the request.
      *
@@ -206,12 +312,59 @@ public class HttpRequest {
      * @return a new HTTP request instance with cloned instances of all mutable properties.
      */
     public HttpRequest copy() {
-        HttpRequest requestCopy = new HttpRequest(this.httpMethod,
-            this.url.toString(),
-            new HttpHeaders(this.headers),
-            this.body);
+        HttpRequest requestCopy = new HttpRequest(this.httpMethod, this.urlString);
+        // URL is immutable, the parsed url is shared.
+        requestCopy.url = this.url;
+        requestCopy.host = this.host;
+        requestCopy.headers = new HttpHeaders(this.headers);
+        // The body is null for a request without content, such as a GET request; it is replayable hence shared.
+        requestCopy.body = this.body;
         // shallow-copy the tags.
-        requestCopy.tags = new HashMap<>(this.tags);
+        if (this.tags != null) {
+            requestCopy.tags = new HashMap<>(this.tags);
+        }
+        requestCopy.callingThreadPreferred = this.callingThreadPreferred;
         return requestCopy;
     }
+
+    private static boolean isHttpUrl(String url) {
+        return url.regionMatches(true, 0, "http://", 0, 7) || url.regionMatches(true, 0, "https://", 0, 8);
+    }
+
+    /**
+     * Reads the host from the authority of an 'http' or 'https' url, i.e. between the userinfo and the port.
+     *
+     * @param url The url.
+     * @return The host, an IPv6 address kept in brackets.
+     */
+    private static String readHost(String url) {
+        final int authorityStart = url.indexOf("://") + 3;
+        int authorityEnd = url.length();
+        for (int i = authorityStart; i < authorityEnd; i++) {
+            final char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                authorityEnd = i;
+            }
+        }
+        final int hostStart = Math.max(authorityStart, url.lastIndexOf('@', authorityEnd - 1) + 1);
+        int hostEnd = authorityEnd;
+        if (hostStart < authorityEnd && url.charAt(hostStart) == '[') {
+            final int bracketEnd = url.indexOf(']', hostStart);
+            hostEnd = bracketEnd < 0 || bracketEnd > authorityEnd ? authorityEnd : bracketEnd + 1;
+        } else {
+            final int portStart = url.indexOf(':', hostStart);
+            if (portStart >= 0 && portStart < authorityEnd) {
+                hostEnd = portStart;
+            }
+        }
+        return url.substring(hostStart, hostEnd);
+    }
+
+    private static URL parseUrl(String url) {
+        try {
+            return new URL(url);
+        } catch (MalformedURLException ex) {
+            throw LOGGER.logExceptionAsWarning(new IllegalArgumentException("'url' must be a valid URL", ex));
+        }
+    }
 }
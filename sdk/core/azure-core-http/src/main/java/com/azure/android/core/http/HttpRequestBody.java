@@ -0,0 +1,323 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.implementation.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The content of an {@link HttpRequest}, written by the {@link HttpClient} to the connection.
+ *
+ * <p>
+ * Besides a byte array, the content can be a {@link ByteBuffer}, a file, the {@link InputStream}s of a supplier
+ * or a {@link ContentWriter} writing the content directly to the connection, such as a serializer; so that a large
+ * content does not need to be copied in memory before it is sent. A content with a known length is sent with
+ * a 'Content-Length' header, a content of unknown length is sent chunked.
+ * </p>
+ *
+ * <p>
+ * The content is replayable: each call to {@link HttpRequestBody#writeTo(OutputStream)} writes the whole content,
+ * so that the request can be retried, or sent again by the HTTP client on a redirect. The supplier of a stream
+ * must hence return a new stream positioned at the start of the content on each call.
+ * </p>
+ */
+public abstract class HttpRequestBody {
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Creates an HttpRequestBody.
+     */
+    protected HttpRequestBody() {
+    }
+
+    /**
+     * Gets the length of the content in bytes.
+     *
+     * @return The length, or -1 if the length is unknown.
+     */
+    public abstract long getContentLength();
+
+    /**
+     * Writes the whole content to the given stream.
+     *
+     * @param outputStream The stream to write the content to, the stream is not closed.
+     * @throws IOException If the content cannot be read or written.
+     */
+    public abstract void writeTo(OutputStream outputStream) throws IOException;
+
+    /**
+     * Gets whether the content is held in memory, as a byte array or a {@link ByteBuffer}, rather than read from
+     * a source as it is written.
+     *
+     * @return true if the content is in memory, false otherwise.
+     */
+    public boolean isInMemory() {
+        return false;
+    }
+
+    /**
+     * Gets the content held in memory, without copying it.
+     *
+     * <p>
+     * The returned buffer is a new view of the content positioned at its start, which can be read by the caller;
+     * it shares the array of the body when the body is backed by one, and must not be written to.
+     * </p>
+     *
+     * @return The content, or null if the content is not in memory.
+     */
+    public ByteBuffer asByteBuffer() {
+        return null;
+    }
+
+    /**
+     * Gets the content as a byte array, reading the content into a new array unless the body is backed by one.
+     *
+     * @return The content.
+     * @throws IOException If the content cannot be read.
+     */
+    public byte[] toBytes() throws IOException {
+        final long contentLength = this.getContentLength();
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream(contentLength >= 0
+            && contentLength <= Integer.MAX_VALUE ? (int) contentLength : 32);
+        this.writeTo(stream);
+        return stream.toByteArray();
+    }
+
+    /**
+     * Creates an HttpRequestBody backed by a byte array. The array is not copied, it must not be changed
+     * while the request is in use.
+     *
+     * @param content The content.
+     * @return The body.
+     */
+    public static HttpRequestBody fromBytes(byte[] content) {
+        return new ByteArrayBody(Util.requireNonNull(content, "'content' is required."));
+    }
+
+    /**
+     * Creates an HttpRequestBody backed by the remaining bytes of a {@link ByteBuffer}. The position of the buffer
+     * is not changed, and its content must not be changed while the request is in use.
+     *
+     * @param content The content.
+     * @return The body.
+     */
+    public static HttpRequestBody fromByteBuffer(ByteBuffer content) {
+        return new ByteBufferBody(Util.requireNonNull(content, "'content' is required.").slice());
+    }
+
+    /**
+     * Creates an HttpRequestBody streaming the content of a file.
+     *
+     * @param file The file.
+     * @return The body.
+     */
+    public static HttpRequestBody fromFile(File file) {
+        final File content = Util.requireNonNull(file, "'file' is required.");
+        return fromInputStream(new InputStreamSupplier() {
+            @Override
+            public InputStream get() throws IOException {
+                return new FileInputStream(content);
+            }
+        }, content.length());
+    }
+
+    /**
+     * Creates an HttpRequestBody streaming the content of the {@link InputStream}s of a supplier. A new stream
+     * is requested each time the content is written, and closed once the content is written.
+     *
+     * @param inputStreamSupplier The supplier of the streams.
+     * @param contentLength The length of the content, -1 if unknown.
+     * @return The body.
+     */
+    public static HttpRequestBody fromInputStream(InputStreamSupplier inputStreamSupplier, long contentLength) {
+        return new InputStreamBody(Util.requireNonNull(inputStreamSupplier, "'inputStreamSupplier' is required."),
+            contentLength);
+    }
+
+    /**
+     * Creates an HttpRequestBody whose content is written by a {@link ContentWriter}, such as a serializer,
+     * directly to the connection. The writer is invoked each time the content is written.
+     *
+     * @param contentWriter The writer of the content.
+     * @param contentLength The length of the content, -1 if unknown.
+     * @return The body.
+     */
+    public static HttpRequestBody fromContentWriter(ContentWriter contentWriter, long contentLength) {
+        return new ContentWriterBody(Util.requireNonNull(contentWriter, "'contentWriter' is required."),
+            contentLength);
+    }
+
+    /**
+     * The supplier of the streams of an {@link HttpRequestBody}.
+     */
+    public interface InputStreamSupplier {
+        /**
+         * Gets a new stream positioned at the start of the content.
+         *
+         * @return The stream.
+         * @throws IOException If the stream cannot be opened.
+         */
+        InputStream get() throws IOException;
+    }
+
+    /**
+     * The writer of the content of an {@link HttpRequestBody}.
+     */
+    public interface ContentWriter {
+        /**
+         * Writes the whole content to the given stream.
+         *
+         * @param outputStream The stream to write the content to.
+         * @throws IOException If the content cannot be written.
+         */
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    private static final class ByteArrayBody extends HttpRequestBody {
+        private final byte[] content;
+
+        ByteArrayBody(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.content.length;
+        }
+
+        @Override
+        public boolean isInMemory() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            outputStream.write(this.content);
+        }
+
+        @Override
+        public ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(this.content);
+        }
+
+        @Override
+        public byte[] toBytes() {
+            return this.content;
+        }
+    }
+
+    private static final class ByteBufferBody extends HttpRequestBody {
+        private final ByteBuffer content;
+        // The content copied by toBytes() when the buffer does not cover a whole array, so that it is copied once.
+        private volatile byte[] bytes;
+
+        ByteBufferBody(ByteBuffer content) {
+            this.content = content;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.content.remaining();
+        }
+
+        @Override
+        public boolean isInMemory() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            if (this.content.hasArray()) {
+                outputStream.write(this.content.array(), this.content.arrayOffset() + this.content.position(),
+                    this.content.remaining());
+                return;
+            }
+            // A view per write, so that concurrent writes of a copied request do not share a position.
+            final ByteBuffer view = this.content.duplicate();
+            final byte[] buffer = new byte[Math.min(COPY_BUFFER_SIZE, view.remaining())];
+            while (view.hasRemaining()) {
+                final int length = Math.min(buffer.length, view.remaining());
+                view.get(buffer, 0, length);
+                outputStream.write(buffer, 0, length);
+            }
+        }
+
+        @Override
+        public ByteBuffer asByteBuffer() {
+            return this.content.duplicate();
+        }
+
+        @Override
+        public byte[] toBytes() {
+            if (this.content.hasArray()
+                && this.content.arrayOffset() + this.content.position() == 0
+                && this.content.remaining() == this.content.array().length) {
+                return this.content.array();
+            }
+            byte[] copy = this.bytes;
+            if (copy == null) {
+                copy = new byte[this.content.remaining()];
+                this.content.duplicate().get(copy);
+                this.bytes = copy;
+            }
+            return copy;
+        }
+    }
+
+    private static final class InputStreamBody extends HttpRequestBody {
+        private final InputStreamSupplier inputStreamSupplier;
+        private final long contentLength;
+
+        InputStreamBody(InputStreamSupplier inputStreamSupplier, long contentLength) {
+            this.inputStreamSupplier = inputStreamSupplier;
+            this.contentLength = contentLength < 0 ? -1 : contentLength;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.contentLength;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            final InputStream inputStream = this.inputStreamSupplier.get();
+            try {
+                final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int length;
+                while ((length = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, length);
+                }
+            } finally {
+                inputStream.close();
+            }
+        }
+    }
+
+    private static final class ContentWriterBody extends HttpRequestBody {
+        private final ContentWriter contentWriter;
+        private final long contentLength;
+
+        ContentWriterBody(ContentWriter contentWriter, long contentLength) {
+            this.contentWriter = contentWriter;
+            this.contentLength = contentLength < 0 ? -1 : contentLength;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.contentLength;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            this.contentWriter.writeTo(outputStream);
+        }
+    }
+}
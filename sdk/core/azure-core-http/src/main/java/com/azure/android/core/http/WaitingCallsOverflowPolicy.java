@@ -0,0 +1,77 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.implementation.Util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The policy {@link HttpCallDispatcher} applies when a call is enqueued while the queue of calls waiting
+ * to run is full. A call shed by the policy is notified to its {@link HttpCallback#onError(Throwable)} with
+ * {@link com.azure.android.core.http.exception.LoadSheddingException}.
+ *
+ * @see HttpCallDispatcher#setMaxWaitingCalls(int, WaitingCallsOverflowPolicy)
+ */
+public final class WaitingCallsOverflowPolicy {
+    /**
+     * The kind of the overflow policy.
+     */
+    enum Kind {
+        REJECT_NEW,
+        DROP_OLDEST_BACKGROUND,
+        BLOCK_CALLER
+    }
+
+    private static final WaitingCallsOverflowPolicy REJECT_NEW
+        = new WaitingCallsOverflowPolicy(Kind.REJECT_NEW, 0);
+    private static final WaitingCallsOverflowPolicy DROP_OLDEST_BACKGROUND
+        = new WaitingCallsOverflowPolicy(Kind.DROP_OLDEST_BACKGROUND, 0);
+
+    // package-private final vars
+    final Kind kind;
+    final long blockTimeoutNanos;
+
+    private WaitingCallsOverflowPolicy(Kind kind, long blockTimeoutNanos) {
+        this.kind = kind;
+        this.blockTimeoutNanos = blockTimeoutNanos;
+    }
+
+    /**
+     * Gets the policy that sheds the newly enqueued call.
+     *
+     * @return The overflow policy.
+     */
+    public static WaitingCallsOverflowPolicy rejectNew() {
+        return REJECT_NEW;
+    }
+
+    /**
+     * Gets the policy that sheds the longest waiting {@link HttpCallPriority#BACKGROUND} call to make room
+     * for the newly enqueued call. If there is no background call waiting, the newly enqueued call is shed.
+     *
+     * @return The overflow policy.
+     */
+    public static WaitingCallsOverflowPolicy dropOldestBackground() {
+        return DROP_OLDEST_BACKGROUND;
+    }
+
+    /**
+     * Gets the policy that blocks the thread enqueuing the call until there is room for it in the queue. If there
+     * is still no room once the {@code timeout} elapses, the newly enqueued call is shed.
+     *
+     * <p>
+     * This policy must not be used when calls are enqueued from a thread that must not block,
+     * such as the Android main thread.
+     * </p>
+     *
+     * @param timeout The maximum time to block the enqueuing thread.
+     * @param timeUnit The time unit of the {@code timeout}.
+     * @return The overflow policy.
+     */
+    public static WaitingCallsOverflowPolicy blockCaller(long timeout, TimeUnit timeUnit) {
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        return new WaitingCallsOverflowPolicy(Kind.BLOCK_CALLER, timeUnit.toNanos(Math.max(timeout, 0)));
+    }
+}
@@ -0,0 +1,39 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.exception;
+
+import com.azure.android.core.http.HttpRequest;
+
+/**
+ * The exception when a concurrent execution of the next policies, scheduled with
+ * {@link com.azure.android.core.http.HttpPipelinePolicyChain#processNextPolicyConcurrently}, is not dispatched
+ * because its cancellation token was cancelled, or its deadline expired, before it could run.
+ *
+ * <p>
+ * The request of the execution was not sent; the cause, if any, tells why.
+ * </p>
+ */
+public class CallNotDispatchedException extends HttpRequestException {
+
+    /**
+     * Initializes a new instance of the CallNotDispatchedException class.
+     *
+     * @param message The exception message.
+     * @param request The {@link HttpRequest} that was not sent.
+     */
+    public CallNotDispatchedException(final String message, final HttpRequest request) {
+        super(message, request);
+    }
+
+    /**
+     * Initializes a new instance of the CallNotDispatchedException class.
+     *
+     * @param message The exception message.
+     * @param request The {@link HttpRequest} that was not sent.
+     * @param cause The reason the execution was not dispatched.
+     */
+    public CallNotDispatchedException(final String message, final HttpRequest request, final Throwable cause) {
+        super(message, request, cause);
+    }
+}
@@ -0,0 +1,25 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.exception;
+
+import com.azure.android.core.http.HttpRequest;
+
+/**
+ * The exception when an HTTP call is not sent because the circuit breaker of its host is open, as the recent calls
+ * to the host failed or were slow.
+ *
+ * @see com.azure.android.core.http.policy.CircuitBreakerPolicy
+ */
+public class CircuitBreakerOpenException extends HttpRequestException {
+
+    /**
+     * Initializes a new instance of the CircuitBreakerOpenException class.
+     *
+     * @param message The exception message.
+     * @param request The {@link HttpRequest} that was not sent.
+     */
+    public CircuitBreakerOpenException(final String message, final HttpRequest request) {
+        super(message, request);
+    }
+}
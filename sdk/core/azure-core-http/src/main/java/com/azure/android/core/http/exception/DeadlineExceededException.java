@@ -0,0 +1,24 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.exception;
+
+import com.azure.android.core.http.HttpRequest;
+
+/**
+ * The exception when an HTTP call is not sent because its deadline expired while it was waiting to run.
+ *
+ * @see com.azure.android.core.http.HttpCallDeadline
+ */
+public class DeadlineExceededException extends HttpRequestException {
+
+    /**
+     * Initializes a new instance of the DeadlineExceededException class.
+     *
+     * @param message The exception message.
+     * @param request The {@link HttpRequest} that was not sent.
+     */
+    public DeadlineExceededException(final String message, final HttpRequest request) {
+        super(message, request);
+    }
+}
@@ -0,0 +1,25 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.exception;
+
+import com.azure.android.core.http.HttpRequest;
+
+/**
+ * The exception when an HTTP call is not sent because the dispatcher shed it, as the queue of calls waiting
+ * to run was full.
+ *
+ * @see com.azure.android.core.http.WaitingCallsOverflowPolicy
+ */
+public class LoadSheddingException extends HttpRequestException {
+
+    /**
+     * Initializes a new instance of the LoadSheddingException class.
+     *
+     * @param message The exception message.
+     * @param request The {@link HttpRequest} that was not sent.
+     */
+    public LoadSheddingException(final String message, final HttpRequest request) {
+        super(message, request);
+    }
+}
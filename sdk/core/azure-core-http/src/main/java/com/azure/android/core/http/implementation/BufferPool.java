@@ -0,0 +1,133 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.implementation;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of byte arrays, so that reading the bodies of the responses does not allocate new arrays for each
+ * response.
+ *
+ * <p>
+ * The arrays are pooled by size class, the powers of two from 1 KB to 1 MB; a request for an array larger than
+ * the largest class is served with a new array that is not pooled. Each thread caches one array of each class
+ * up to 64 KB, so that a thread reading responses one after the other reuses its arrays without contention;
+ * the other released arrays go to a pool shared by the threads, bounded to 4 MB.
+ * </p>
+ *
+ * <p>
+ * An array must not be used after it is released, since it is handed to the next caller acquiring an array of
+ * its class, and must be released at most once.
+ * </p>
+ */
+public final class BufferPool {
+    private static final int MIN_SIZE_SHIFT = 10;
+    private static final int MAX_SIZE_SHIFT = 20;
+    private static final int MAX_THREAD_CACHED_SIZE_SHIFT = 16;
+    private static final int SIZE_CLASS_COUNT = MAX_SIZE_SHIFT - MIN_SIZE_SHIFT + 1;
+    private static final int THREAD_CACHED_SIZE_CLASS_COUNT = MAX_THREAD_CACHED_SIZE_SHIFT - MIN_SIZE_SHIFT + 1;
+    private static final long MAX_SHARED_BYTES = 4 * 1024 * 1024;
+
+    private static final BufferPool SHARED_POOL = new BufferPool();
+
+    private final ConcurrentLinkedQueue<byte[]>[] sharedArrays;
+    private final AtomicLong sharedBytes = new AtomicLong();
+    private final ThreadLocal<byte[][]> threadCachedArrays = new ThreadLocal<byte[][]>() {
+        @Override
+        protected byte[][] initialValue() {
+            return new byte[THREAD_CACHED_SIZE_CLASS_COUNT][];
+        }
+    };
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BufferPool() {
+        this.sharedArrays = new ConcurrentLinkedQueue[SIZE_CLASS_COUNT];
+        for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+            this.sharedArrays[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Gets the pool shared by the HTTP clients and the responses.
+     *
+     * @return The shared pool.
+     */
+    public static BufferPool getSharedPool() {
+        return SHARED_POOL;
+    }
+
+    /**
+     * Acquires an array of at least the given length. The content of the array is undefined.
+     *
+     * @param minLength The minimum length of the array.
+     * @return The array, its length is the size class of {@code minLength} if {@code minLength} is not larger than
+     *     the largest class, {@code minLength} otherwise.
+     */
+    public byte[] acquire(int minLength) {
+        final int sizeClass = getSizeClass(minLength);
+        if (sizeClass < 0) {
+            return new byte[minLength];
+        }
+        if (sizeClass < THREAD_CACHED_SIZE_CLASS_COUNT) {
+            final byte[][] cachedArrays = this.threadCachedArrays.get();
+            final byte[] array = cachedArrays[sizeClass];
+            if (array != null) {
+                cachedArrays[sizeClass] = null;
+                return array;
+            }
+        }
+        final byte[] array = this.sharedArrays[sizeClass].poll();
+        if (array != null) {
+            this.sharedBytes.addAndGet(-array.length);
+            return array;
+        }
+        return new byte[1 << (sizeClass + MIN_SIZE_SHIFT)];
+    }
+
+    /**
+     * Releases an array to the pool. An array whose length is not a size class is not pooled.
+     *
+     * @param array The array to release, it must not be used once released.
+     */
+    public void release(byte[] array) {
+        if (array == null) {
+            return;
+        }
+        final int sizeClass = getSizeClass(array.length);
+        if (sizeClass < 0 || array.length != 1 << (sizeClass + MIN_SIZE_SHIFT)) {
+            return;
+        }
+        if (sizeClass < THREAD_CACHED_SIZE_CLASS_COUNT) {
+            final byte[][] cachedArrays = this.threadCachedArrays.get();
+            if (cachedArrays[sizeClass] == null) {
+                cachedArrays[sizeClass] = array;
+                return;
+            }
+        }
+        if (this.sharedBytes.addAndGet(array.length) > MAX_SHARED_BYTES) {
+            this.sharedBytes.addAndGet(-array.length);
+            return;
+        }
+        this.sharedArrays[sizeClass].offer(array);
+    }
+
+    /**
+     * Gets the size class of the arrays of the given length.
+     *
+     * @param length The length.
+     * @return The index of the smallest class holding {@code length} bytes, -1 if larger than the largest class.
+     */
+    private static int getSizeClass(int length) {
+        if (length <= 1 << MIN_SIZE_SHIFT) {
+            return 0;
+        }
+        if (length > 1 << MAX_SIZE_SHIFT) {
+            return -1;
+        }
+        // The exponent of the smallest power of two not less than 'length'.
+        final int shift = 32 - Integer.numberOfLeadingZeros(length - 1);
+        return shift - MIN_SIZE_SHIFT;
+    }
+}
@@ -4,11 +4,11 @@
 package com.azure.android.core.http.implementation;
 
 import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.http.HttpRequest;
 import com.azure.android.core.http.HttpResponse;
 import com.azure.android.core.logging.ClientLogger;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
@@ -27,10 +27,17 @@ public final class BufferedHttpResponse extends HttpResponse {
         = Pattern.compile("charset=([\\S]+)\\b", Pattern.CASE_INSENSITIVE);
 
     private final HttpResponse innerHttpResponse;
+    // The copy of the headers for a response created for another request, null to use the inner response headers.
+    private final HttpHeaders headers;
+    // The content read from the inner response into an array of the buffer pool, released on close unless
+    // a stream over the array was handed out.
+    private PooledByteArrayOutputStream pooledContent;
+    // The content as an array of its exact length, created when the content is requested as an array.
     private byte[] bufferedContent;
+    // Whether a stream reading the pooled array was handed out, which keeps the array from the pool.
+    private boolean pooledContentShared;
     private volatile boolean closed;
 
-
     /**
      * Creates a buffered HTTP response.
      *
@@ -39,6 +46,26 @@ public final class BufferedHttpResponse extends HttpResponse {
     public BufferedHttpResponse(HttpResponse innerHttpResponse) {
         super(innerHttpResponse.getRequest());
         this.innerHttpResponse = innerHttpResponse;
+        this.headers = null;
+    }
+
+    /**
+     * Creates a buffered HTTP response for {@code request} with the status code, headers and body of
+     * {@code bufferedHttpResponse}, e.g., to answer a request with the response received for an identical one.
+     *
+     * <p>
+     * The headers and the body are copied, so that the caller of each response may modify them without affecting
+     * the others. Closing the created response does not close {@code bufferedHttpResponse}.
+     * </p>
+     *
+     * @param request The request the created response answers.
+     * @param bufferedHttpResponse The buffered response to take the status code, headers and body from.
+     */
+    public BufferedHttpResponse(HttpRequest request, BufferedHttpResponse bufferedHttpResponse) {
+        super(request);
+        this.innerHttpResponse = bufferedHttpResponse.innerHttpResponse;
+        this.headers = new HttpHeaders(bufferedHttpResponse.getHeaders());
+        this.bufferedContent = bufferedHttpResponse.getBodyAsByteArray().clone();
     }
 
     @Override
@@ -48,47 +75,76 @@ public final class BufferedHttpResponse extends HttpResponse {
 
     @Override
     public String getHeaderValue(String name) {
-        return this.innerHttpResponse.getHeaderValue(name);
+        return this.headers == null
+            ? this.innerHttpResponse.getHeaderValue(name)
+            : this.headers.getValue(name);
     }
 
     @Override
     public HttpHeaders getHeaders() {
-        return this.innerHttpResponse.getHeaders();
+        return this.headers == null
+            ? this.innerHttpResponse.getHeaders()
+            : this.headers;
     }
 
     @Override
-    public InputStream getBody() {
-        return new ByteArrayInputStream(this.getBodyAsByteArray());
+    public synchronized InputStream getBody() {
+        if (this.bufferedContent != null) {
+            return new ByteArrayInputStream(this.bufferedContent);
+        }
+        final PooledByteArrayOutputStream content = this.bufferContent();
+        this.pooledContentShared = true;
+        return new PooledContentStream(content.getBuffer(), content.size());
     }
 
     @Override
     public synchronized byte[] getBodyAsByteArray() {
         if (this.bufferedContent == null) {
-            InputStream innerStream = this.innerHttpResponse.getBody();
-            ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-            byte[] buffer = new byte[1024];
-            int len;
-            try {
-                while ((len = innerStream.read(buffer)) != -1) {
-                    outStream.write(buffer, 0, len);
-                }
-                this.bufferedContent = outStream.toByteArray();
-            } catch (IOException ioe) {
-                throw logger.logExceptionAsError(new RuntimeException(ioe));
-            }
+            this.bufferedContent = this.bufferContent().toByteArray();
         }
         return this.bufferedContent;
     }
 
     @Override
-    public String getBodyAsString() {
-        return bomAwareToString(this.getBodyAsByteArray(),
-            this.innerHttpResponse.getHeaderValue("Content-Type"));
+    public synchronized String getBodyAsString() {
+        if (this.bufferedContent != null) {
+            return bomAwareToString(this.bufferedContent, this.bufferedContent.length,
+                this.getHeaderValue("Content-Type"));
+        }
+        final PooledByteArrayOutputStream content = this.bufferContent();
+        return bomAwareToString(content.getBuffer(), content.size(), this.getHeaderValue("Content-Type"));
     }
 
     @Override
-    public String getBodyAsString(Charset charset) {
-        return new String(this.getBodyAsByteArray(), charset);
+    public synchronized String getBodyAsString(Charset charset) {
+        if (this.bufferedContent != null) {
+            return new String(this.bufferedContent, charset);
+        }
+        final PooledByteArrayOutputStream content = this.bufferContent();
+        return new String(content.getBuffer(), 0, content.size(), charset);
+    }
+
+    /**
+     * Read the content of the inner response into an array of the buffer pool, if not read yet.
+     *
+     * @return The stream holding the content.
+     */
+    private PooledByteArrayOutputStream bufferContent() {
+        if (this.pooledContent == null) {
+            if (this.closed) {
+                throw logger.logExceptionAsError(new IllegalStateException("The response is closed."));
+            }
+            final PooledByteArrayOutputStream content
+                = new PooledByteArrayOutputStream(BufferPool.getSharedPool());
+            try {
+                content.readFrom(this.innerHttpResponse.getBody());
+            } catch (IOException ioe) {
+                content.close();
+                throw logger.logExceptionAsError(new RuntimeException(ioe));
+            }
+            this.pooledContent = content;
+        }
+        return this.pooledContent;
     }
 
     @Override
@@ -99,12 +155,72 @@ public final class BufferedHttpResponse extends HttpResponse {
     @Override
     public void close() {
         if (!this.closed) {
-            this.innerHttpResponse.close();
-            this.closed = true;
+            if (this.headers == null) {
+                // A response created for another request does not own the inner response.
+                this.innerHttpResponse.close();
+            }
+            synchronized (this) {
+                this.closed = true;
+                if (this.pooledContent != null && !this.pooledContentShared) {
+                    // The array is released without copying the content; only the content requested as an array
+                    // or a stream stays readable after close.
+                    this.pooledContent.close();
+                    this.pooledContent = null;
+                }
+            }
             super.close();
         }
     }
 
+    /**
+     * The stream over the content in an array of the buffer pool. Once such a stream is handed out, the array is
+     * not released to the pool, so that the stream can be read after the response is closed.
+     */
+    private static final class PooledContentStream extends InputStream {
+        private final byte[] buffer;
+        private final int length;
+        private int position;
+
+        PooledContentStream(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            return this.position < this.length ? this.buffer[this.position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int count) {
+            if (offset < 0 || count < 0 || offset > bytes.length - count) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (count == 0) {
+                return 0;
+            }
+            if (this.position >= this.length) {
+                return -1;
+            }
+            final int readCount = Math.min(count, this.length - this.position);
+            System.arraycopy(this.buffer, this.position, bytes, offset, readCount);
+            this.position += readCount;
+            return readCount;
+        }
+
+        @Override
+        public long skip(long n) {
+            final int skipCount = (int) Math.max(0, Math.min(n, this.length - this.position));
+            this.position += skipCount;
+            return skipCount;
+        }
+
+        @Override
+        public int available() {
+            return this.length - this.position;
+        }
+    }
+
     /**
      * Attempts to convert a byte stream into the properly encoded String.
      * <p>
@@ -116,39 +232,40 @@ public final class BufferedHttpResponse extends HttpResponse {
      * </ol>
      *
      * @param bytes Byte array.
+     * @param length The number of bytes to convert, from the start of the array.
      * @param contentType {@code Content-Type} header value.
      * @return A string representation of the byte array encoded to the found encoding.
      */
-    private String bomAwareToString(byte[] bytes, String contentType) {
+    private String bomAwareToString(byte[] bytes, int length, String contentType) {
         if (bytes == null) {
             return null;
         }
 
-        if (bytes.length >= 3
+        if (length >= 3
             && bytes[0] == (byte) 0xEF
             && bytes[1] == (byte) 0xBB
             && bytes[2] == (byte) 0xBF) {
-            return new String(bytes, 3, bytes.length - 3, Charset.forName("UTF-8"));
-        } else if (bytes.length >= 4
+            return new String(bytes, 3, length - 3, Charset.forName("UTF-8"));
+        } else if (length >= 4
             && bytes[0] == (byte) 0x00
             && bytes[1] == (byte) 0x00
             && bytes[2] == (byte) 0xFE
             && bytes[3] == (byte) 0xFF) {
-            return new String(bytes, 4, bytes.length - 4, Charset.forName("UTF-32BE"));
-        } else if (bytes.length >= 4
+            return new String(bytes, 4, length - 4, Charset.forName("UTF-32BE"));
+        } else if (length >= 4
             && bytes[0] == (byte) 0xFF
             && bytes[1] == (byte) 0xFE
             && bytes[2] == (byte) 0x00
             && bytes[3] == (byte) 0x00) {
-            return new String(bytes, 4, bytes.length - 4, Charset.forName("UTF-32LE"));
-        } else if (bytes.length >= 2
+            return new String(bytes, 4, length - 4, Charset.forName("UTF-32LE"));
+        } else if (length >= 2
             && bytes[0] == (byte) 0xFE
             && bytes[1] == (byte) 0xFF) {
-            return new String(bytes, 2, bytes.length - 2, Charset.forName("UTF-16BE"));
-        } else if (bytes.length >= 2
+            return new String(bytes, 2, length - 2, Charset.forName("UTF-16BE"));
+        } else if (length >= 2
             && bytes[0] == (byte) 0xFF
             && bytes[1] == (byte) 0xFE) {
-            return new String(bytes, 2, bytes.length - 2, Charset.forName("UTF-16LE"));
+            return new String(bytes, 2, length - 2, Charset.forName("UTF-16LE"));
         } else {
             /*
              * Attempt to retrieve the default charset from the 'Content-Encoding' header,
@@ -158,15 +275,15 @@ public final class BufferedHttpResponse extends HttpResponse {
                 try {
                     Matcher charsetMatcher = CHARSET_PATTERN.matcher(contentType);
                     if (charsetMatcher.find()) {
-                        return new String(bytes, Charset.forName(charsetMatcher.group(1)));
+                        return new String(bytes, 0, length, Charset.forName(charsetMatcher.group(1)));
                     } else {
-                        return new String(bytes, Charset.forName("UTF-8"));
+                        return new String(bytes, 0, length, Charset.forName("UTF-8"));
                     }
                 } catch (IllegalCharsetNameException | UnsupportedCharsetException ex) {
-                    return new String(bytes, Charset.forName("UTF-8"));
+                    return new String(bytes, 0, length, Charset.forName("UTF-8"));
                 }
             } else {
-                return new String(bytes, Charset.forName("UTF-8"));
+                return new String(bytes, 0, length, Charset.forName("UTF-8"));
             }
         }
     }
@@ -0,0 +1,363 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.implementation;
+
+import com.azure.android.core.logging.ClientLogger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A timer to run tasks after a delay, optimized for a large number of pending tasks with coarse (tick
+ * granularity) precision, such as the delayed continuations of pipeline runs waiting to retry.
+ *
+ * <p>
+ * Scheduling is lock-free and O(1): the task is handed to the timer thread through a queue. On each tick,
+ * the timer thread moves the newly scheduled tasks into the wheel bucket of their expiration tick and runs
+ * every task in the current bucket that expired, so that all the tasks expiring in the same tick share one
+ * wakeup. The timer thread is created on demand and exits once no task is pending for the idle timeout; it
+ * does not wake up while idle.
+ * </p>
+ *
+ * <p>
+ * A scheduled task can be cancelled through the {@link Timeout} returned by {@code schedule}; the timer thread
+ * removes it from its bucket on the next tick, so that a task cancelled long before its deadline, such as the
+ * timeout of a call that completed, is not retained until then.
+ * </p>
+ *
+ * <p>
+ * The tasks run on the timer thread, hence must be short and non-blocking, such as handing work over
+ * to an executor.
+ * </p>
+ */
+public final class HashedWheelTimer {
+    private static final ClientLogger LOGGER = new ClientLogger(HashedWheelTimer.class);
+    // The retry delays and the timeouts of calls are in the order of hundreds of milliseconds to seconds, so
+    // a 10ms tick is precise enough.
+    private static final HashedWheelTimer SHARED_TIMER = new HashedWheelTimer("azure-http-timer",
+        10, 512, 60_000, TimeUnit.MILLISECONDS);
+
+    private final String threadName;
+    private final long tickNanos;
+    private final long idleTimeoutNanos;
+    private final TimerTask[] wheelHeads;
+    private final int wheelMask;
+    private final Queue<TimerTask> scheduledTasks = new ConcurrentLinkedQueue<>();
+    private final Queue<TimerTask> cancelledTasks = new ConcurrentLinkedQueue<>();
+    // The number of tasks scheduled but not yet run, including the ones not yet moved to the wheel.
+    private final AtomicInteger pendingTasksCount = new AtomicInteger(0);
+    // true while a timer thread owns the wheel.
+    private final AtomicBoolean isWorkerRunning = new AtomicBoolean(false);
+    private volatile Thread workerThread;
+    private volatile boolean isWorkerIdle;
+
+    /**
+     * Creates a HashedWheelTimer.
+     *
+     * @param threadName The name of the timer thread.
+     * @param tickDuration The duration of a tick, the precision of the timer.
+     * @param wheelSize The number of buckets in the wheel, rounded up to a power of two.
+     * @param idleTimeout The duration with no pending task after which the timer thread exits.
+     * @param timeUnit The time unit of the {@code tickDuration} and {@code idleTimeout}.
+     */
+    public HashedWheelTimer(String threadName,
+                            long tickDuration,
+                            int wheelSize,
+                            long idleTimeout,
+                            TimeUnit timeUnit) {
+        Util.requireNonNull(threadName, "'threadName' is required.");
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        if (tickDuration <= 0) {
+            throw LOGGER.logExceptionAsError(new IllegalArgumentException("'tickDuration' must be greater than 0."));
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw LOGGER.logExceptionAsError(
+                new IllegalArgumentException("'wheelSize' must be between 1 and 2^30, provided:" + wheelSize));
+        }
+        this.threadName = threadName;
+        this.tickNanos = timeUnit.toNanos(tickDuration);
+        this.idleTimeoutNanos = timeUnit.toNanos(idleTimeout);
+        int normalizedWheelSize = 1;
+        while (normalizedWheelSize < wheelSize) {
+            normalizedWheelSize <<= 1;
+        }
+        this.wheelHeads = new TimerTask[normalizedWheelSize];
+        this.wheelMask = normalizedWheelSize - 1;
+    }
+
+    /**
+     * Gets the timer shared by the HTTP call dispatchers and the policies, so that they use a single timer thread.
+     *
+     * @return The shared timer.
+     */
+    public static HashedWheelTimer getSharedTimer() {
+        return SHARED_TIMER;
+    }
+
+    /**
+     * Schedule the given task to run on the timer thread after the given delay.
+     *
+     * @param task The task to run.
+     * @param delay The time from now to delay the execution of the task.
+     * @param timeUnit The time unit of the {@code delay}.
+     * @return The handle to cancel the task.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit timeUnit) {
+        Util.requireNonNull(task, "'task' is required.");
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        final TimerTask timerTask
+            = new TimerTask(this, task, System.nanoTime() + timeUnit.toNanos(Math.max(delay, 0)));
+        // Count before offering, so that a timer thread seeing no pending task really has nothing to do.
+        this.pendingTasksCount.incrementAndGet();
+        this.scheduledTasks.offer(timerTask);
+        if (this.isWorkerRunning.compareAndSet(false, true)) {
+            this.startWorker();
+        } else if (this.isWorkerIdle) {
+            final Thread worker = this.workerThread;
+            if (worker != null) {
+                LockSupport.unpark(worker);
+            }
+        }
+        return timerTask;
+    }
+
+    /**
+     * Gets the number of tasks scheduled but not yet run.
+     *
+     * @return The number of pending tasks.
+     */
+    public int getPendingTasksCount() {
+        return this.pendingTasksCount.get();
+    }
+
+    /**
+     * Gets whether the timer thread is alive.
+     *
+     * @return true if the timer thread is running, false if it exited after being idle.
+     */
+    public boolean isWorkerRunning() {
+        return this.isWorkerRunning.get();
+    }
+
+    private void startWorker() {
+        final Thread worker = new Thread(this::runWorker, this.threadName);
+        worker.setDaemon(true);
+        this.workerThread = worker;
+        try {
+            worker.start();
+        } catch (Throwable t) {
+            this.isWorkerRunning.set(false);
+            throw LOGGER.logExceptionAsError(new RuntimeException("Unable to start the timer thread.", t));
+        }
+    }
+
+    /**
+     * The timer thread loop; only one timer thread owns the wheel at any time.
+     */
+    private void runWorker() {
+        long startNanos = System.nanoTime();
+        long tick = 0;
+        while (true) {
+            if (this.pendingTasksCount.get() == 0) {
+                // Nothing pending; once the cancelled tasks are removed, all buckets are empty. Park until a task
+                // is scheduled or idle timeout.
+                this.removeCancelledTasks();
+                if (!this.awaitTaskOrIdleTimeout()) {
+                    return;
+                }
+                // Rebase the wheel on the current time, the idle period did not advance it.
+                startNanos = System.nanoTime();
+                tick = 0;
+            }
+
+            final long tickDeadlineNanos = startNanos + (tick + 1) * this.tickNanos;
+            this.sleepUntil(tickDeadlineNanos);
+            this.transferScheduledTasks(startNanos, tick);
+            this.removeCancelledTasks();
+            this.expireBucket(tick, tickDeadlineNanos);
+            tick++;
+        }
+    }
+
+    /**
+     * Park the timer thread until a task is scheduled or the idle timeout elapses.
+     *
+     * @return true to continue running, false if the timer thread must exit.
+     */
+    private boolean awaitTaskOrIdleTimeout() {
+        final long idleDeadlineNanos = System.nanoTime() + this.idleTimeoutNanos;
+        this.isWorkerIdle = true;
+        try {
+            while (true) {
+                // Re-check after publishing 'isWorkerIdle', so that a task scheduled after the check unparks us.
+                if (this.pendingTasksCount.get() > 0) {
+                    return true;
+                }
+                final long remainingNanos = idleDeadlineNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    this.isWorkerRunning.set(false);
+                    // A task scheduled right before the flag was cleared may have seen the timer thread running,
+                    // take the ownership back to run it, unless that task's thread started a new timer thread.
+                    return this.pendingTasksCount.get() > 0 && this.isWorkerRunning.compareAndSet(false, true);
+                }
+                LockSupport.parkNanos(this, remainingNanos);
+            }
+        } finally {
+            this.isWorkerIdle = false;
+        }
+    }
+
+    private void sleepUntil(long deadlineNanos) {
+        long remainingNanos;
+        while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remainingNanos);
+        }
+    }
+
+    /**
+     * Move the newly scheduled tasks to the wheel bucket of their expiration tick.
+     *
+     * @param startNanos The time the wheel started.
+     * @param tick The current tick.
+     */
+    private void transferScheduledTasks(long startNanos, long tick) {
+        TimerTask timerTask;
+        while ((timerTask = this.scheduledTasks.poll()) != null) {
+            if (timerTask.state != TimerTask.PENDING) {
+                // Cancelled before it reached the wheel.
+                continue;
+            }
+            final long expirationTick = Math.max((timerTask.deadlineNanos - startNanos) / this.tickNanos, tick);
+            timerTask.remainingRounds = (expirationTick - tick) / this.wheelHeads.length;
+            final int bucketIndex = (int) (expirationTick & this.wheelMask);
+            final TimerTask head = this.wheelHeads[bucketIndex];
+            timerTask.bucketIndex = bucketIndex;
+            timerTask.next = head;
+            if (head != null) {
+                head.prev = timerTask;
+            }
+            this.wheelHeads[bucketIndex] = timerTask;
+        }
+    }
+
+    /**
+     * Remove the cancelled tasks from the wheel buckets, and from the head of the newly scheduled tasks.
+     */
+    private void removeCancelledTasks() {
+        TimerTask timerTask;
+        while ((timerTask = this.cancelledTasks.poll()) != null) {
+            this.remove(timerTask);
+        }
+        // Only the timer thread polls, the peeked task is the polled one.
+        while ((timerTask = this.scheduledTasks.peek()) != null && timerTask.state != TimerTask.PENDING) {
+            this.scheduledTasks.poll();
+        }
+    }
+
+    /**
+     * Unlink the given task from its wheel bucket, if it is in one.
+     *
+     * @param timerTask The task.
+     */
+    private void remove(TimerTask timerTask) {
+        if (timerTask.bucketIndex < 0) {
+            return;
+        }
+        if (timerTask.prev != null) {
+            timerTask.prev.next = timerTask.next;
+        } else {
+            this.wheelHeads[timerTask.bucketIndex] = timerTask.next;
+        }
+        if (timerTask.next != null) {
+            timerTask.next.prev = timerTask.prev;
+        }
+        timerTask.prev = null;
+        timerTask.next = null;
+        timerTask.bucketIndex = -1;
+    }
+
+    /**
+     * Run the expired tasks in the bucket of the given tick.
+     *
+     * @param tick The current tick.
+     * @param tickDeadlineNanos The time the current tick ends.
+     */
+    private void expireBucket(long tick, long tickDeadlineNanos) {
+        final int bucketIndex = (int) (tick & this.wheelMask);
+        TimerTask timerTask = this.wheelHeads[bucketIndex];
+        while (timerTask != null) {
+            final TimerTask next = timerTask.next;
+            if (timerTask.remainingRounds <= 0 && timerTask.deadlineNanos - tickDeadlineNanos <= 0) {
+                this.remove(timerTask);
+                // A task cancelled concurrently was already uncounted by the cancelling thread.
+                if (TimerTask.STATE_UPDATER.compareAndSet(timerTask, TimerTask.PENDING, TimerTask.EXPIRED)) {
+                    this.pendingTasksCount.decrementAndGet();
+                    try {
+                        timerTask.task.run();
+                    } catch (Throwable t) {
+                        LOGGER.warning("A task scheduled on the timer threw an error.", t);
+                    }
+                }
+            } else {
+                timerTask.remainingRounds--;
+            }
+            timerTask = next;
+        }
+    }
+
+    /**
+     * The handle of a task scheduled on the timer.
+     */
+    public interface Timeout {
+        /**
+         * Cancel the task, if it has not run yet.
+         *
+         * @return true if the task was cancelled, false if it already ran or was cancelled.
+         */
+        boolean cancel();
+    }
+
+    /**
+     * A task in a wheel bucket.
+     */
+    private static final class TimerTask implements Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<TimerTask> STATE_UPDATER
+            = AtomicIntegerFieldUpdater.newUpdater(TimerTask.class, "state");
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile int state;
+        // The wheel bucket links, owned by the timer thread; bucketIndex is -1 while the task is in no bucket.
+        private long remainingRounds;
+        private int bucketIndex = -1;
+        private TimerTask prev;
+        private TimerTask next;
+
+        TimerTask(HashedWheelTimer timer, Runnable task, long deadlineNanos) {
+            this.timer = timer;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            // Offer before uncounting, so that a timer thread seeing no pending task removes it before idling.
+            this.timer.cancelledTasks.offer(this);
+            this.timer.pendingTasksCount.decrementAndGet();
+            return true;
+        }
+    }
+}
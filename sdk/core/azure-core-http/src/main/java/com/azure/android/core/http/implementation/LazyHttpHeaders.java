@@ -0,0 +1,183 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.implementation;
+
+import com.azure.android.core.http.HttpHeader;
+import com.azure.android.core.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A read-through {@link HttpHeaders} view over the headers of the response of an HTTP client library, so that the
+ * headers are not copied for each response while most callers read only a few of them.
+ *
+ * <p>
+ * {@link #getValue(String)} and {@link #getValues(String)} read the value from the native headers. The headers are
+ * copied, once, into the view when they are mutated, iterated, counted or looked up with {@link #get(String)},
+ * since the returned {@link HttpHeader} can be mutated; from then on the view is a plain {@link HttpHeaders}.
+ * The headers are copied under a lock, so that a view shared by threads is copied once.
+ * </p>
+ *
+ * <p>
+ * The values of a header that occurs more than once are joined with commas, in the order they were received.
+ * {@link #getValues(String)} returns them as received rather than split at commas, so that values containing
+ * commas, such as the dates of 'Set-Cookie' headers, are kept whole.
+ * </p>
+ */
+public abstract class LazyHttpHeaders extends HttpHeaders {
+    // Written once the headers are copied, so that a reader seeing it true sees the copied headers.
+    private volatile boolean materialized;
+    // The values, as received, of the headers that occur more than once, null if there is none.
+    private Map<String, List<String>> repeatedValues;
+
+    /**
+     * Creates a LazyHttpHeaders.
+     */
+    protected LazyHttpHeaders() {
+    }
+
+    /**
+     * Reads the value of a header from the native headers.
+     *
+     * @param name The case-insensitive name of the header.
+     * @return The values of the header joined with commas, null if there is no such header.
+     */
+    protected abstract String readValue(String name);
+
+    /**
+     * Reads the values of a header from the native headers, each value as received. The default implementation
+     * splits the value read by {@link #readValue(String)} at commas; implementations whose native headers keep
+     * the values of a repeated header apart should override it.
+     *
+     * @param name The case-insensitive name of the header.
+     * @return The values of the header, null if there is no such header.
+     */
+    protected String[] readValues(String name) {
+        final String value = readValue(name);
+        return value == null ? null : value.split(",");
+    }
+
+    /**
+     * Reads all the native headers, calling {@link #addHeader(String, String)} for each value of each header.
+     */
+    protected abstract void readHeaders();
+
+    /**
+     * Adds a value of a header read by {@link #readHeaders()}.
+     *
+     * @param name The name of the header.
+     * @param value The value.
+     */
+    protected final void addHeader(String name, String value) {
+        final HttpHeader header = super.get(name);
+        if (header == null) {
+            super.put(name, value);
+        } else {
+            if (this.repeatedValues == null) {
+                this.repeatedValues = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            }
+            List<String> values = this.repeatedValues.get(name);
+            if (values == null) {
+                values = new ArrayList<>();
+                values.add(header.getValue());
+                this.repeatedValues.put(name, values);
+            }
+            values.add(value);
+            header.addValue(value);
+        }
+    }
+
+    /**
+     * Joins a value to the values of a header read so far, for the implementations of
+     * {@link #readValue(String)}.
+     *
+     * @param values The values read so far, null if none.
+     * @param value The value to join.
+     * @return The joined values.
+     */
+    protected static String joinValue(String values, String value) {
+        return values == null ? value : values + "," + value;
+    }
+
+    @Override
+    public int getSize() {
+        materialize();
+        return super.getSize();
+    }
+
+    @Override
+    public HttpHeaders put(String name, String value) {
+        materialize();
+        return super.put(name, value);
+    }
+
+    @Override
+    public HttpHeader get(String name) {
+        materialize();
+        return super.get(name);
+    }
+
+    @Override
+    public HttpHeader remove(String name) {
+        materialize();
+        return super.remove(name);
+    }
+
+    @Override
+    public String getValue(String name) {
+        if (materialized) {
+            return super.getValue(name);
+        }
+        return readValue(name);
+    }
+
+    @Override
+    public String[] getValues(String name) {
+        if (!materialized) {
+            return readValues(name);
+        }
+        final List<String> values = this.repeatedValues == null ? null : this.repeatedValues.get(name);
+        final HttpHeader header = super.get(name);
+        if (values != null && header != null && header.getValue().equals(join(values))) {
+            return values.toArray(new String[0]);
+        }
+        // The header occurs once, or was replaced or added to since it was read.
+        return header == null ? null : header.getValues();
+    }
+
+    @Override
+    public Map<String, String> toMap() {
+        materialize();
+        return super.toMap();
+    }
+
+    @Override
+    public Iterator<HttpHeader> iterator() {
+        materialize();
+        return super.iterator();
+    }
+
+    private void materialize() {
+        if (!materialized) {
+            synchronized (this) {
+                if (!materialized) {
+                    readHeaders();
+                    materialized = true;
+                }
+            }
+        }
+    }
+
+    private static String join(List<String> values) {
+        String joined = null;
+        for (String value : values) {
+            joined = joinValue(joined, value);
+        }
+        return joined;
+    }
+}
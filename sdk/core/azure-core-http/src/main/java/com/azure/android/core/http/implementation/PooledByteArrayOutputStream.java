@@ -0,0 +1,121 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.implementation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An {@link OutputStream} that writes to arrays of a {@link BufferPool}, growing by acquiring a larger array and
+ * releasing the smaller one. Closing the stream releases its array, the stream must not be used once closed.
+ */
+public final class PooledByteArrayOutputStream extends OutputStream {
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private final BufferPool bufferPool;
+    private byte[] buffer;
+    private int count;
+
+    /**
+     * Creates a PooledByteArrayOutputStream writing to the arrays of the given pool.
+     *
+     * @param bufferPool The pool.
+     */
+    public PooledByteArrayOutputStream(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        this.buffer = bufferPool.acquire(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Reads the given stream until its end into this stream, without an intermediate array.
+     *
+     * @param inputStream The stream to read, it is not closed.
+     * @return This stream.
+     * @throws IOException If the stream cannot be read.
+     */
+    public PooledByteArrayOutputStream readFrom(InputStream inputStream) throws IOException {
+        while (true) {
+            if (this.count == this.buffer.length) {
+                this.ensureCapacity(this.count + 1);
+            }
+            final int length = inputStream.read(this.buffer, this.count, this.buffer.length - this.count);
+            if (length == -1) {
+                return this;
+            }
+            this.count += length;
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        this.ensureCapacity(this.count + 1);
+        this.buffer[this.count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.ensureCapacity(this.count + length);
+        System.arraycopy(bytes, offset, this.buffer, this.count, length);
+        this.count += length;
+    }
+
+    /**
+     * Gets the number of bytes written.
+     *
+     * @return The number of bytes.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Gets the array the bytes are written to; the bytes are the first {@link #size()} bytes of the array.
+     * The array belongs to the stream, it must not be used once the stream is written to or closed.
+     *
+     * @return The array.
+     */
+    public byte[] getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Copies the bytes written to a new array.
+     *
+     * @return The bytes.
+     */
+    public byte[] toByteArray() {
+        final byte[] bytes = new byte[this.count];
+        System.arraycopy(this.buffer, 0, bytes, 0, this.count);
+        return bytes;
+    }
+
+    /**
+     * Releases the array of the stream to the pool.
+     */
+    @Override
+    public void close() {
+        if (this.buffer != null) {
+            this.bufferPool.release(this.buffer);
+            this.buffer = null;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new OutOfMemoryError("The content is too large.");
+        }
+        if (capacity <= this.buffer.length) {
+            return;
+        }
+        final int doubled = this.buffer.length << 1;
+        final byte[] newBuffer = this.bufferPool.acquire(doubled > capacity ? doubled : capacity);
+        System.arraycopy(this.buffer, 0, newBuffer, 0, this.count);
+        this.bufferPool.release(this.buffer);
+        this.buffer = newBuffer;
+    }
+}
@@ -0,0 +1,358 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.implementation;
+
+import com.azure.android.core.http.HttpHeader;
+import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.logging.ClientLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded store of HTTP responses in a directory, one file per response, evicting
+ * the least recently used files first.
+ *
+ * <p>
+ * The store is safe for use by multiple threads, its operations are serialized. The files of the directory
+ * are indexed on first use, so that the store survives the process.
+ * </p>
+ */
+public final class ResponseDiskCache {
+    private static final ClientLogger LOGGER = new ClientLogger(ResponseDiskCache.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_SUFFIX = ".response";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final File directory;
+    private final long maxBytes;
+    // The access-ordered file names and lengths, loaded on first use; guarded by 'this'.
+    private LinkedHashMap<String, Long> index;
+    private long totalBytes;
+
+    /**
+     * Creates a ResponseDiskCache.
+     *
+     * @param directory The directory to store the responses in, created if it does not exist.
+     * @param maxBytes The maximum number of bytes the stored responses can take.
+     */
+    public ResponseDiskCache(File directory, long maxBytes) {
+        this.directory = Util.requireNonNull(directory, "'directory' is required.");
+        if (maxBytes < 1) {
+            throw LOGGER.logExceptionAsError(
+                new IllegalArgumentException("'maxBytes' must be greater than 0, provided:" + maxBytes));
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets the response stored for the key.
+     *
+     * @param key The key.
+     * @return The stored response, null if there is none or it cannot be read.
+     */
+    public synchronized Record get(String key) {
+        final String fileName = fileName(key);
+        if (this.getIndex().get(fileName) == null) {
+            return null;
+        }
+        final File file = new File(this.directory, fileName);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            final Record record = Record.read(in);
+            if (!key.equals(record.key)) {
+                // A digest collision, the file belongs to another key.
+                return null;
+            }
+            return record;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warning("Unable to read the cached response " + file + ", removing it.", e);
+            this.removeFile(fileName);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a response, replacing the response stored for the same key.
+     *
+     * @param record The response to store.
+     */
+    public synchronized void put(Record record) {
+        final String fileName = fileName(record.key);
+        final Map<String, Long> index = this.getIndex();
+        final File tempFile = new File(this.directory, fileName + ".tmp");
+        try {
+            try (DataOutputStream out
+                     = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                record.write(out);
+            }
+            final File file = new File(this.directory, fileName);
+            if (file.exists() && !file.delete() || !tempFile.renameTo(file)) {
+                throw new IOException("Unable to replace " + file);
+            }
+            final Long previousLength = index.remove(fileName);
+            if (previousLength != null) {
+                this.totalBytes -= previousLength;
+            }
+            index.put(fileName, file.length());
+            this.totalBytes += file.length();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warning("Unable to write the cached response for " + record.key, e);
+            tempFile.delete();
+            this.removeFile(fileName);
+            return;
+        }
+        this.evict();
+    }
+
+    /**
+     * Removes the response stored for the key, if any.
+     *
+     * @param key The key.
+     */
+    public synchronized void remove(String key) {
+        this.removeFile(fileName(key));
+    }
+
+    /**
+     * Gets the number of bytes the stored responses take.
+     *
+     * @return The number of bytes.
+     */
+    public synchronized long getSize() {
+        this.getIndex();
+        return this.totalBytes;
+    }
+
+    private void evict() {
+        final Iterator<Map.Entry<String, Long>> iterator = this.index.entrySet().iterator();
+        while (this.totalBytes > this.maxBytes && iterator.hasNext()) {
+            final Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            this.totalBytes -= eldest.getValue();
+            new File(this.directory, eldest.getKey()).delete();
+        }
+    }
+
+    private void removeFile(String fileName) {
+        final Long length = this.getIndex().remove(fileName);
+        if (length != null) {
+            this.totalBytes -= length;
+        }
+        new File(this.directory, fileName).delete();
+    }
+
+    private Map<String, Long> getIndex() {
+        if (this.index == null) {
+            this.index = new LinkedHashMap<>(16, 0.75f, true);
+            this.totalBytes = 0;
+            if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+                LOGGER.warning("Unable to create the cache directory " + this.directory);
+            }
+            final File[] files = this.directory.listFiles();
+            if (files != null) {
+                // The least recently modified files are evicted first.
+                final Map<File, Long> lastModified = new HashMap<>();
+                for (File file : files) {
+                    lastModified.put(file, file.lastModified());
+                }
+                Arrays.sort(files, new Comparator<File>() {
+                    @Override
+                    public int compare(File file1, File file2) {
+                        return Long.compare(lastModified.get(file1), lastModified.get(file2));
+                    }
+                });
+                for (File file : files) {
+                    if (file.getName().endsWith(FILE_SUFFIX)) {
+                        this.index.put(file.getName(), file.length());
+                        this.totalBytes += file.length();
+                    } else if (file.getName().endsWith(FILE_SUFFIX + ".tmp")) {
+                        file.delete();
+                    }
+                }
+            }
+        }
+        return this.index;
+    }
+
+    private static String fileName(String key) {
+        final byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw LOGGER.logExceptionAsError(new IllegalStateException(e));
+        }
+        final StringBuilder builder = new StringBuilder(digest.length * 2 + FILE_SUFFIX.length());
+        for (byte b : digest) {
+            builder.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+        }
+        return builder.append(FILE_SUFFIX).toString();
+    }
+
+    /**
+     * A stored response along with the state to determine its freshness.
+     */
+    public static final class Record {
+        private final String key;
+        private final int statusCode;
+        private final HttpHeaders headers;
+        private final byte[] body;
+        private final long storedAtMillis;
+        private final long freshnessMillis;
+        private final boolean noCache;
+        private final HttpHeaders varyHeaders;
+
+        /**
+         * Creates a Record.
+         *
+         * @param key The key of the response.
+         * @param statusCode The status code of the response.
+         * @param headers The headers of the response.
+         * @param body The body of the response.
+         * @param storedAtMillis The time the response was received or last revalidated, in epoch milliseconds.
+         * @param freshnessMillis The time in milliseconds the response is fresh since {@code storedAtMillis}.
+         * @param noCache true if the response must be revalidated before each use.
+         * @param varyHeaders The request headers named by the {@code Vary} header of the response.
+         */
+        public Record(String key,
+                      int statusCode,
+                      HttpHeaders headers,
+                      byte[] body,
+                      long storedAtMillis,
+                      long freshnessMillis,
+                      boolean noCache,
+                      HttpHeaders varyHeaders) {
+            this.key = key;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+            this.storedAtMillis = storedAtMillis;
+            this.freshnessMillis = freshnessMillis;
+            this.noCache = noCache;
+            this.varyHeaders = varyHeaders;
+        }
+
+        /**
+         * @return The key of the response.
+         */
+        public String getKey() {
+            return this.key;
+        }
+
+        /**
+         * @return The status code of the response.
+         */
+        public int getStatusCode() {
+            return this.statusCode;
+        }
+
+        /**
+         * @return The headers of the response.
+         */
+        public HttpHeaders getHeaders() {
+            return this.headers;
+        }
+
+        /**
+         * @return The body of the response.
+         */
+        public byte[] getBody() {
+            return this.body;
+        }
+
+        /**
+         * @return The time the response was received or last revalidated, in epoch milliseconds.
+         */
+        public long getStoredAtMillis() {
+            return this.storedAtMillis;
+        }
+
+        /**
+         * @return The time in milliseconds the response is fresh since it was stored.
+         */
+        public long getFreshnessMillis() {
+            return this.freshnessMillis;
+        }
+
+        /**
+         * @return true if the response must be revalidated before each use.
+         */
+        public boolean isNoCache() {
+            return this.noCache;
+        }
+
+        /**
+         * @return The request headers named by the {@code Vary} header of the response.
+         */
+        public HttpHeaders getVaryHeaders() {
+            return this.varyHeaders;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(this.key);
+            out.writeInt(this.statusCode);
+            out.writeLong(this.storedAtMillis);
+            out.writeLong(this.freshnessMillis);
+            out.writeBoolean(this.noCache);
+            writeHeaders(out, this.headers);
+            writeHeaders(out, this.varyHeaders);
+            out.writeInt(this.body.length);
+            out.write(this.body);
+        }
+
+        private static Record read(DataInputStream in) throws IOException {
+            final int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported format version " + version);
+            }
+            final String key = in.readUTF();
+            final int statusCode = in.readInt();
+            final long storedAtMillis = in.readLong();
+            final long freshnessMillis = in.readLong();
+            final boolean noCache = in.readBoolean();
+            final HttpHeaders headers = readHeaders(in);
+            final HttpHeaders varyHeaders = readHeaders(in);
+            final byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new Record(key, statusCode, headers, body, storedAtMillis, freshnessMillis, noCache, varyHeaders);
+        }
+
+        private static void writeHeaders(DataOutputStream out, HttpHeaders headers) throws IOException {
+            out.writeInt(headers.getSize());
+            for (HttpHeader header : headers) {
+                out.writeUTF(header.getName());
+                out.writeBoolean(header.getValue() != null);
+                if (header.getValue() != null) {
+                    out.writeUTF(header.getValue());
+                }
+            }
+        }
+
+        private static HttpHeaders readHeaders(DataInputStream in) throws IOException {
+            final int count = in.readInt();
+            final HttpHeaders headers = new HttpHeaders();
+            for (int i = 0; i < count; i++) {
+                final String name = in.readUTF();
+                headers.put(name, in.readBoolean() ? in.readUTF() : null);
+            }
+            return headers;
+        }
+    }
+}
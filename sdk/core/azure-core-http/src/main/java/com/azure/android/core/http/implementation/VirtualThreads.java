@@ -0,0 +1,81 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.implementation;
+
+import com.azure.android.core.logging.ClientLogger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual threads of Java 21+ runtimes, looked up reflectively so that the library
+ * compiles against, and runs on, runtimes without virtual threads such as Android.
+ */
+public final class VirtualThreads {
+    private static final ClientLogger LOGGER = new ClientLogger(VirtualThreads.class);
+
+    // Thread.ofVirtual(), Thread.Builder::name(String, long), Thread.Builder::factory()
+    // and Executors.newThreadPerTaskExecutor(ThreadFactory), null if the runtime has no virtual threads.
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            // On Java 19 and 20 virtual threads are a preview feature, the lookup succeeds but
+            // the call throws UnsupportedOperationException unless preview is enabled.
+            ofVirtual.invoke(null);
+        } catch (Exception | LinkageError e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Checks whether the runtime supports virtual threads.
+     *
+     * @return true if the runtime supports virtual threads, false otherwise.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates an ExecutorService that runs each task on a new virtual thread.
+     *
+     * @param threadNamePrefix The prefix of the virtual thread names, a counter is appended to it.
+     * @return The ExecutorService, or null if the runtime does not support virtual threads.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+        if (OF_VIRTUAL == null) {
+            return null;
+        }
+        try {
+            final Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), threadNamePrefix, 0L);
+            final ThreadFactory threadFactory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+        } catch (Exception e) {
+            LOGGER.warning("Unable to create the virtual thread executor.", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.metrics;
+
+import com.azure.android.core.http.HttpCallMetrics;
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.implementation.Util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An {@link HttpCallMetrics} that keeps the metrics in memory, durations are kept in {@link LatencyHistogram}s.
+ *
+ * <pre>
+ * InMemoryHttpCallMetrics metrics = new InMemoryHttpCallMetrics();
+ * httpClient.getHttpCallDispatcher().setMetrics(metrics);
+ * ...
+ * long p99Millis = metrics.getQueueTime().getValueAtPercentile(99, TimeUnit.MILLISECONDS);
+ * </pre>
+ */
+public final class InMemoryHttpCallMetrics extends HttpCallMetrics {
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+    private final LatencyHistogram pipelineDuration = new LatencyHistogram();
+    private final LatencyHistogram httpClientDuration = new LatencyHistogram();
+    private final ConcurrentHashMap<Class<?>, LatencyHistogram> policyDurations = new ConcurrentHashMap<>();
+    private final AtomicInteger waitingCalls = new AtomicInteger(0);
+    private final AtomicInteger runningCalls = new AtomicInteger(0);
+    private final AtomicInteger maxWaitingCalls = new AtomicInteger(0);
+    private final AtomicInteger maxRunningCalls = new AtomicInteger(0);
+    private final AtomicLong nestedCallsCount = new AtomicLong(0);
+    private final AtomicLong failedPipelinesCount = new AtomicLong(0);
+    private final AtomicLongArray rejectionCounts = new AtomicLongArray(Rejection.values().length);
+
+    /**
+     * Creates an InMemoryHttpCallMetrics.
+     */
+    public InMemoryHttpCallMetrics() {
+    }
+
+    @Override
+    public void onCallStarted(HttpRequest httpRequest, long queueTimeNanos) {
+        this.queueTime.record(queueTimeNanos);
+    }
+
+    @Override
+    public void onCallCountsChanged(int waitingCalls, int runningCalls) {
+        this.waitingCalls.set(waitingCalls);
+        this.runningCalls.set(runningCalls);
+        updateMax(this.maxWaitingCalls, waitingCalls);
+        updateMax(this.maxRunningCalls, runningCalls);
+    }
+
+    @Override
+    public void onNestedCallScheduled(HttpRequest httpRequest) {
+        this.nestedCallsCount.incrementAndGet();
+    }
+
+    @Override
+    public void onCallRejected(HttpRequest httpRequest, Rejection rejection) {
+        this.rejectionCounts.incrementAndGet(rejection.ordinal());
+    }
+
+    @Override
+    public void onPolicyCompleted(HttpPipelinePolicy policy, int policyIndex, long durationNanos) {
+        if (policy == null) {
+            this.httpClientDuration.record(durationNanos);
+            return;
+        }
+        LatencyHistogram histogram = this.policyDurations.get(policy.getClass());
+        if (histogram == null) {
+            final LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = this.policyDurations.putIfAbsent(policy.getClass(), newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        histogram.record(durationNanos);
+    }
+
+    @Override
+    public void onPipelineCompleted(HttpRequest httpRequest, long durationNanos, boolean succeeded) {
+        this.pipelineDuration.record(durationNanos);
+        if (!succeeded) {
+            this.failedPipelinesCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the times the calls waited in the dispatcher, from being enqueued to starting to run.
+     *
+     * @return The histogram of the queue times.
+     */
+    public LatencyHistogram getQueueTime() {
+        return this.queueTime;
+    }
+
+    /**
+     * Gets the durations of the pipeline runs, from starting to run to completing.
+     *
+     * @return The histogram of the pipeline durations.
+     */
+    public LatencyHistogram getPipelineDuration() {
+        return this.pipelineDuration;
+    }
+
+    /**
+     * Gets the durations of the policies of the given type, including the policies following them.
+     *
+     * @param policyType The type of the policy.
+     * @return The histogram of the policy durations, null if no policy of the type completed.
+     */
+    public LatencyHistogram getPolicyDuration(Class<? extends HttpPipelinePolicy> policyType) {
+        return this.policyDurations.get(Util.requireNonNull(policyType, "'policyType' is required."));
+    }
+
+    /**
+     * Gets the durations of the HttpClient sending the requests and receiving the responses.
+     *
+     * @return The histogram of the HttpClient durations.
+     */
+    public LatencyHistogram getHttpClientDuration() {
+        return this.httpClientDuration;
+    }
+
+    /**
+     * Gets the last reported number of calls waiting to run.
+     *
+     * @return The number of waiting calls.
+     */
+    public int getWaitingCalls() {
+        return this.waitingCalls.get();
+    }
+
+    /**
+     * Gets the last reported number of running calls.
+     *
+     * @return The number of running calls.
+     */
+    public int getRunningCalls() {
+        return this.runningCalls.get();
+    }
+
+    /**
+     * Gets the largest reported number of calls waiting to run.
+     *
+     * @return The largest number of waiting calls.
+     */
+    public int getMaxWaitingCalls() {
+        return this.maxWaitingCalls.get();
+    }
+
+    /**
+     * Gets the largest reported number of running calls.
+     *
+     * @return The largest number of running calls.
+     */
+    public int getMaxRunningCalls() {
+        return this.maxRunningCalls.get();
+    }
+
+    /**
+     * Gets the number of delayed pipeline continuations, such as retries, scheduled on the dispatcher.
+     *
+     * @return The number of nested calls.
+     */
+    public long getNestedCallsCount() {
+        return this.nestedCallsCount.get();
+    }
+
+    /**
+     * Gets the number of pipeline runs that failed with an error.
+     *
+     * @return The number of failed pipeline runs.
+     */
+    public long getFailedPipelinesCount() {
+        return this.failedPipelinesCount.get();
+    }
+
+    /**
+     * Gets the number of calls the dispatcher failed without running for the given reason.
+     *
+     * @param rejection The reason.
+     * @return The number of rejected calls.
+     */
+    public long getRejectionsCount(Rejection rejection) {
+        return this.rejectionCounts.get(Util.requireNonNull(rejection, "'rejection' is required.").ordinal());
+    }
+
+    private static void updateMax(AtomicInteger max, int value) {
+        int currentMax;
+        while (value > (currentMax = max.get())) {
+            if (max.compareAndSet(currentMax, value)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.metrics;
+
+import com.azure.android.core.logging.ClientLogger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe histogram of durations, recorded in nanoseconds.
+ *
+ * <p>
+ * The values are counted in buckets of exponentially growing width, eight per power of two, so that a
+ * percentile is reported within 12.5% of the recorded value while the histogram has a fixed size.
+ * Recording is lock-free and allocation-free.
+ * </p>
+ */
+public final class LatencyHistogram {
+    // The number of linear sub-buckets per power of two, as a power of two.
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final ClientLogger logger = new ClientLogger(LatencyHistogram.class);
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * Creates a LatencyHistogram.
+     */
+    public LatencyHistogram() {
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param durationNanos The duration in nanoseconds, negative values are recorded as zero.
+     */
+    public void record(long durationNanos) {
+        final long value = Math.max(durationNanos, 0);
+        this.counts.incrementAndGet(bucketIndex(value));
+        this.totalCount.incrementAndGet();
+        long currentMax;
+        while (value > (currentMax = this.max.get())) {
+            if (this.max.compareAndSet(currentMax, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return The number of recorded durations.
+     */
+    public long getCount() {
+        return this.totalCount.get();
+    }
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * @param timeUnit The time unit of the returned duration.
+     * @return The longest recorded duration, 0 if no duration is recorded.
+     */
+    public long getMax(TimeUnit timeUnit) {
+        return timeUnit.convert(this.max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the duration below or at which the given percentage of the recorded durations are.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @param timeUnit The time unit of the returned duration.
+     * @return The duration at the percentile, 0 if no duration is recorded.
+     * @throws IllegalArgumentException if {@code percentile} is not between 0 and 100.
+     */
+    public long getValueAtPercentile(double percentile, TimeUnit timeUnit) {
+        if (percentile < 0 || percentile > 100) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'percentile' must be between 0 and 100, provided:" + percentile));
+        }
+        final long total = this.totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        final long targetCount = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulativeCount += this.counts.get(i);
+            if (cumulativeCount >= targetCount) {
+                return timeUnit.convert(Math.min(bucketHighestValue(i), this.max.get()), TimeUnit.NANOSECONDS);
+            }
+        }
+        return timeUnit.convert(this.max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long bucketHighestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        final int subBucket = index % SUB_BUCKET_COUNT;
+        final long width = 1L << (exponent - SUB_BUCKET_BITS);
+        final long lowest = (1L << exponent) + subBucket * width;
+        return lowest + width - 1;
+    }
+}
@@ -0,0 +1,7 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+/**
+ * Package containing {@link com.azure.android.core.http.HttpCallMetrics} implementations.
+ */
+package com.azure.android.core.http.metrics;
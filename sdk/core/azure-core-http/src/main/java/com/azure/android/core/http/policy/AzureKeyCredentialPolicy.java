@@ -43,7 +43,8 @@ public class AzureKeyCredentialPolicy implements HttpPipelinePolicy {
 
     @Override
     public void process(HttpPipelinePolicyChain chain) {
-        if ("http".equals(chain.getRequest().getUrl().getProtocol())) {
+        // The protocol is read from the url string, without parsing the url.
+        if (chain.getRequest().getUrlString().regionMatches(true, 0, "http:", 0, 5)) {
             chain.completedError(
                 new IllegalStateException("Key credentials require HTTPS to prevent leaking the key."));
         } else {
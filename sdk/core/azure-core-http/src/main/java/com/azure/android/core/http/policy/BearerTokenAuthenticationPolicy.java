@@ -6,6 +6,7 @@ package com.azure.android.core.http.policy;
 import com.azure.android.core.credential.AccessToken;
 import com.azure.android.core.credential.TokenCredential;
 import com.azure.android.core.credential.TokenRequestContext;
+import com.azure.android.core.http.HttpHeaders;
 import com.azure.android.core.http.HttpPipelinePolicyChain;
 import com.azure.android.core.http.HttpPipelinePolicy;
 import com.azure.android.core.http.implementation.Util;
@@ -15,7 +16,7 @@ import com.azure.android.core.http.implementation.Util;
  * with "Bearer" scheme.
  */
 public class BearerTokenAuthenticationPolicy implements HttpPipelinePolicy {
-    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String AUTHORIZATION_HEADER = HttpHeaders.AUTHORIZATION;
     private static final String BEARER = "Bearer";
 
     private final TokenCredential credential;
@@ -38,7 +39,8 @@ public class BearerTokenAuthenticationPolicy implements HttpPipelinePolicy {
 
     @Override
     public void process(HttpPipelinePolicyChain chain) {
-        if ("http".equals(chain.getRequest().getUrl().getProtocol())) {
+        // The protocol is read from the url string, without parsing the url.
+        if (chain.getRequest().getUrlString().regionMatches(true, 0, "http:", 0, 5)) {
             chain.completedError(
                 new IllegalStateException("Token credentials require HTTPS to prevent leaking the key."));
         } else {
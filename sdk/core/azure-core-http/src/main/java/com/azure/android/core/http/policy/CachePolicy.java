@@ -0,0 +1,658 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpHeader;
+import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.NextPolicyCallback;
+import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.implementation.BufferedHttpResponse;
+import com.azure.android.core.http.implementation.ResponseDiskCache;
+import com.azure.android.core.logging.ClientLogger;
+
+import org.threeten.bp.OffsetDateTime;
+import org.threeten.bp.format.DateTimeFormatter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The pipeline policy that caches the responses to GET requests, following the HTTP caching rules of a private
+ * client cache.
+ *
+ * <p>
+ * A response is cached when its status code is 200, it is not marked {@code no-store}, and it is either fresh for
+ * some time, per its {@code Cache-Control: max-age} or {@code Expires} header, or it has a validator, an
+ * {@code ETag} or {@code Last-Modified} header. A fresh cached response answers the request without sending it.
+ * Once stale, or if marked {@code no-cache}, the cached response is revalidated: the request is sent with
+ * an {@code If-None-Match} or {@code If-Modified-Since} header, and a {@code 304 Not Modified} response refreshes
+ * and answers with the cached response. Responses to other methods than GET and HEAD invalidate the cached response
+ * for their URL.
+ * </p>
+ *
+ * <p>
+ * The cached responses are kept in memory, up to a number of bytes beyond which the least recently used are
+ * evicted; and optionally on disk, in a directory bounded in size the same way, so that they survive the process.
+ * The bodies of the cached responses are buffered in memory when they are received and when they are served. A
+ * response whose body is larger than the maximum size of an entry, by default the size of the memory cache, is not cached:
+ * at most one byte more than that size is buffered before the rest of the body is handed on as it is received.
+ * </p>
+ *
+ * <p>
+ * The policy should be placed after the policies that set the headers of the request, and before
+ * the {@link RetryPolicy} so that a revalidation is retried like any other request.
+ * </p>
+ */
+public class CachePolicy implements HttpPipelinePolicy {
+    private static final String CACHE_CONTROL = "Cache-Control";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+    // The estimated memory taken by a cached response besides its body and headers.
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final int READ_CHUNK_LENGTH = 8 * 1024;
+
+    private final ClientLogger logger = new ClientLogger(CachePolicy.class);
+    private final long maxMemoryBytes;
+    private final long maxEntryBytes;
+    private final ResponseDiskCache diskCache;
+    // The access-ordered responses cached in memory, guarded by 'this'.
+    private final LinkedHashMap<String, ResponseDiskCache.Record> memoryCache
+        = new LinkedHashMap<>(16, 0.75f, true);
+    // Guarded by 'this'.
+    private long memoryBytes;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong revalidationCount = new AtomicLong();
+
+    /**
+     * Creates a CachePolicy that caches the responses in memory only.
+     *
+     * @param maxMemoryBytes The maximum number of bytes the responses cached in memory can take.
+     */
+    public CachePolicy(long maxMemoryBytes) {
+        this(maxMemoryBytes, maxMemoryBytes, null, 0);
+    }
+
+    /**
+     * Creates a CachePolicy that caches the responses in memory only.
+     *
+     * @param maxMemoryBytes The maximum number of bytes the responses cached in memory can take.
+     * @param maxEntryBytes The maximum size of the body of a cached response, not larger than
+     *     {@code maxMemoryBytes}.
+     */
+    public CachePolicy(long maxMemoryBytes, long maxEntryBytes) {
+        this(maxMemoryBytes, maxEntryBytes, null, 0);
+    }
+
+    /**
+     * Creates a CachePolicy that caches the responses in memory and on disk.
+     *
+     * @param maxMemoryBytes The maximum number of bytes the responses cached in memory can take.
+     * @param diskDirectory The directory to cache the responses in, e.g. a sub-directory of the application's
+     *     cache directory, it should not be used for anything else.
+     * @param maxDiskBytes The maximum number of bytes the responses cached on disk can take.
+     */
+    public CachePolicy(long maxMemoryBytes, File diskDirectory, long maxDiskBytes) {
+        this(maxMemoryBytes, maxMemoryBytes, diskDirectory, maxDiskBytes);
+        if (diskDirectory == null) {
+            throw logger.logExceptionAsError(new NullPointerException("'diskDirectory' is required."));
+        }
+    }
+
+    /**
+     * Creates a CachePolicy that caches the responses in memory and, if {@code diskDirectory} is not null, on disk.
+     *
+     * @param maxMemoryBytes The maximum number of bytes the responses cached in memory can take.
+     * @param maxEntryBytes The maximum size of the body of a cached response, not larger than
+     *     {@code maxMemoryBytes}.
+     * @param diskDirectory The directory to cache the responses in, e.g. a sub-directory of the application's
+     *     cache directory, it should not be used for anything else; null to cache the responses in memory only.
+     * @param maxDiskBytes The maximum number of bytes the responses cached on disk can take.
+     */
+    public CachePolicy(long maxMemoryBytes, long maxEntryBytes, File diskDirectory, long maxDiskBytes) {
+        if (maxMemoryBytes < 1) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'maxMemoryBytes' must be greater than 0, provided:" + maxMemoryBytes));
+        }
+        if (maxEntryBytes < 1 || maxEntryBytes > maxMemoryBytes) {
+            throw logger.logExceptionAsError(new IllegalArgumentException(
+                "'maxEntryBytes' must be greater than 0 and not greater than 'maxMemoryBytes', provided:"
+                    + maxEntryBytes));
+        }
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.diskCache = diskDirectory == null ? null : new ResponseDiskCache(diskDirectory, maxDiskBytes);
+    }
+
+    /**
+     * Gets the number of requests answered with a fresh cached response, without being sent.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * Gets the number of cacheable requests sent because there was no cached response for them, or because
+     * the revalidation of the cached response returned a new response.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Gets the number of requests answered with a cached response after its revalidation returned
+     * {@code 304 Not Modified}.
+     *
+     * @return The number of successful revalidations.
+     */
+    public long getRevalidationCount() {
+        return this.revalidationCount.get();
+    }
+
+    @Override
+    public void process(HttpPipelinePolicyChain chain) {
+        final HttpRequest httpRequest = chain.getRequest();
+        final HttpMethod httpMethod = httpRequest.getHttpMethod();
+        if (httpMethod == HttpMethod.HEAD) {
+            chain.processNextPolicy(httpRequest);
+            return;
+        }
+        final String key = httpRequest.getUrlString();
+        if (httpMethod != HttpMethod.GET) {
+            chain.processNextPolicy(httpRequest, new NextPolicyCallback() {
+                @Override
+                public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                    if (response.getStatusCode() < 400) {
+                        // The request likely changed the resource, the cached response is no longer valid.
+                        remove(key);
+                    }
+                    return completer.completed(response);
+                }
+
+                @Override
+                public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                    return completer.completedError(error);
+                }
+            });
+            return;
+        }
+
+        final HttpHeaders requestHeaders = httpRequest.getHeaders();
+        final String requestCacheControl = requestHeaders.getValue(CACHE_CONTROL);
+        if (hasDirective(requestCacheControl, "no-store")
+            || requestHeaders.get(IF_NONE_MATCH) != null
+            || requestHeaders.get(IF_MODIFIED_SINCE) != null
+            || requestHeaders.get("Range") != null) {
+            // The caller opted out of the cache or handles the conditional request itself.
+            chain.processNextPolicy(httpRequest);
+            return;
+        }
+
+        ResponseDiskCache.Record record = this.get(key);
+        if (record != null && !varyHeadersMatch(record, requestHeaders)) {
+            record = null;
+        }
+        if (record == null) {
+            this.missCount.incrementAndGet();
+            this.send(chain, key, null);
+            return;
+        }
+
+        final boolean mustRevalidate = record.isNoCache()
+            || hasDirective(requestCacheControl, "no-cache")
+            || hasDirective(requestHeaders.getValue("Pragma"), "no-cache");
+        final long ageMillis = System.currentTimeMillis() - record.getStoredAtMillis();
+        if (!mustRevalidate && ageMillis >= 0 && ageMillis < record.getFreshnessMillis()) {
+            this.hitCount.incrementAndGet();
+            chain.completed(new CachedHttpResponse(httpRequest, record));
+            return;
+        }
+
+        final String eTag = record.getHeaders().getValue("ETag");
+        final String lastModified = record.getHeaders().getValue("Last-Modified");
+        if (eTag == null && lastModified == null) {
+            this.missCount.incrementAndGet();
+            this.send(chain, key, null);
+            return;
+        }
+        if (eTag != null) {
+            requestHeaders.put(IF_NONE_MATCH, eTag);
+        }
+        if (lastModified != null) {
+            requestHeaders.put(IF_MODIFIED_SINCE, lastModified);
+        }
+        this.send(chain, key, record);
+    }
+
+    /**
+     * Send the request and cache the response.
+     *
+     * @param chain The chain of the request.
+     * @param key The key of the cached response.
+     * @param revalidatedRecord The cached response the request revalidates, null if the request is not conditional.
+     */
+    private void send(HttpPipelinePolicyChain chain, String key, ResponseDiskCache.Record revalidatedRecord) {
+        final HttpRequest httpRequest = chain.getRequest();
+        chain.processNextPolicy(httpRequest, new NextPolicyCallback() {
+            @Override
+            public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                if (revalidatedRecord == null) {
+                    return storeIfCacheable(key, httpRequest, response, completer);
+                }
+                httpRequest.getHeaders().remove(IF_NONE_MATCH);
+                httpRequest.getHeaders().remove(IF_MODIFIED_SINCE);
+                if (response.getStatusCode() == 304) {
+                    revalidationCount.incrementAndGet();
+                    return completer.completed(refresh(key, httpRequest, revalidatedRecord, response));
+                }
+                missCount.incrementAndGet();
+                return storeIfCacheable(key, httpRequest, response, completer);
+            }
+
+            @Override
+            public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                if (revalidatedRecord != null) {
+                    httpRequest.getHeaders().remove(IF_NONE_MATCH);
+                    httpRequest.getHeaders().remove(IF_MODIFIED_SINCE);
+                }
+                return completer.completedError(error);
+            }
+        });
+    }
+
+    /**
+     * Refresh a cached response with the headers of the {@code 304 Not Modified} response to its revalidation.
+     *
+     * @return The refreshed response.
+     */
+    private HttpResponse refresh(String key,
+                                 HttpRequest httpRequest,
+                                 ResponseDiskCache.Record record,
+                                 HttpResponse notModifiedResponse) {
+        final HttpHeaders headers = new HttpHeaders(record.getHeaders());
+        for (HttpHeader header : notModifiedResponse.getHeaders()) {
+            if (!"Content-Length".equalsIgnoreCase(header.getName())) {
+                headers.put(header.getName(), header.getValue());
+            }
+        }
+        notModifiedResponse.close();
+        final ResponseDiskCache.Record refreshedRecord = new ResponseDiskCache.Record(key,
+            record.getStatusCode(),
+            headers,
+            record.getBody(),
+            System.currentTimeMillis(),
+            getFreshnessMillis(headers),
+            hasDirective(headers.getValue(CACHE_CONTROL), "no-cache"),
+            record.getVaryHeaders());
+        this.put(refreshedRecord);
+        return new CachedHttpResponse(httpRequest, refreshedRecord);
+    }
+
+    private PolicyCompleter.CompletionState storeIfCacheable(String key,
+                                                             HttpRequest httpRequest,
+                                                             HttpResponse response,
+                                                             PolicyCompleter completer) {
+        if (response.getStatusCode() != 200) {
+            return completer.completed(response);
+        }
+        final String cacheControl = response.getHeaderValue(CACHE_CONTROL);
+        final HttpHeaders headers = new HttpHeaders(response.getHeaders());
+        final long freshnessMillis = getFreshnessMillis(headers);
+        final boolean hasValidator = headers.get("ETag") != null || headers.get("Last-Modified") != null;
+        if (hasDirective(cacheControl, "no-store") || (freshnessMillis <= 0 && !hasValidator)) {
+            return completer.completed(response);
+        }
+        final HttpHeaders varyHeaders = new HttpHeaders();
+        final String[] varyNames = headers.getValues("Vary");
+        if (varyNames != null) {
+            for (String varyName : varyNames) {
+                final String name = varyName.trim();
+                if (name.equals("*")) {
+                    return completer.completed(response);
+                }
+                if (!name.isEmpty()) {
+                    varyHeaders.put(name, httpRequest.getHeaders().getValue(name));
+                }
+            }
+        }
+
+        final String contentLength = headers.getValue("Content-Length");
+        if (contentLength != null && isLongerThan(contentLength, this.maxEntryBytes)) {
+            return completer.completed(response);
+        }
+
+        final byte[] body;
+        if (response instanceof BufferedHttpResponse) {
+            final byte[] bufferedBody;
+            try {
+                bufferedBody = response.getBodyAsByteArray();
+            } catch (RuntimeException e) {
+                response.close();
+                return completer.completedError(e);
+            }
+            if (bufferedBody.length > this.maxEntryBytes) {
+                return completer.completed(response);
+            }
+            // The cached body must not be shared with the response, which the caller may modify.
+            body = bufferedBody.clone();
+        } else {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            final InputStream bodyStream = response.getBody();
+            try {
+                readAtMost(bodyStream, this.maxEntryBytes + 1, content);
+            } catch (IOException e) {
+                response.close();
+                return completer.completedError(e);
+            }
+            if (content.size() > this.maxEntryBytes) {
+                return completer.completed(new PartiallyReadHttpResponse(response, content.toByteArray(),
+                    bodyStream));
+            }
+            body = content.toByteArray();
+            response.close();
+        }
+
+        final ResponseDiskCache.Record record = new ResponseDiskCache.Record(key,
+            response.getStatusCode(),
+            headers,
+            body,
+            System.currentTimeMillis(),
+            freshnessMillis,
+            hasDirective(cacheControl, "no-cache"),
+            varyHeaders);
+        this.put(record);
+        return completer.completed(new CachedHttpResponse(httpRequest, record));
+    }
+
+    private static boolean isLongerThan(String contentLength, long length) {
+        try {
+            return Long.parseLong(contentLength.trim()) > length;
+        } catch (NumberFormatException e) {
+            // Left to the bounded read.
+            return false;
+        }
+    }
+
+    private static void readAtMost(InputStream stream, long maxLength, ByteArrayOutputStream content)
+        throws IOException {
+        final byte[] chunk = new byte[READ_CHUNK_LENGTH];
+        long remaining = maxLength;
+        while (remaining > 0) {
+            final int readCount = stream.read(chunk, 0, (int) Math.min(chunk.length, remaining));
+            if (readCount == -1) {
+                break;
+            }
+            content.write(chunk, 0, readCount);
+            remaining -= readCount;
+        }
+    }
+
+    private ResponseDiskCache.Record get(String key) {
+        synchronized (this) {
+            final ResponseDiskCache.Record record = this.memoryCache.get(key);
+            if (record != null || this.diskCache == null) {
+                return record;
+            }
+        }
+        final ResponseDiskCache.Record record = this.diskCache.get(key);
+        if (record != null) {
+            this.putInMemory(record);
+        }
+        return record;
+    }
+
+    private void put(ResponseDiskCache.Record record) {
+        this.putInMemory(record);
+        if (this.diskCache != null) {
+            this.diskCache.put(record);
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (this) {
+            final ResponseDiskCache.Record record = this.memoryCache.remove(key);
+            if (record != null) {
+                this.memoryBytes -= estimateSize(record);
+            }
+        }
+        if (this.diskCache != null) {
+            this.diskCache.remove(key);
+        }
+    }
+
+    private synchronized void putInMemory(ResponseDiskCache.Record record) {
+        final long size = estimateSize(record);
+        final ResponseDiskCache.Record previousRecord = this.memoryCache.put(record.getKey(), record);
+        if (previousRecord != null) {
+            this.memoryBytes -= estimateSize(previousRecord);
+        }
+        this.memoryBytes += size;
+        final Iterator<Map.Entry<String, ResponseDiskCache.Record>> iterator
+            = this.memoryCache.entrySet().iterator();
+        while (this.memoryBytes > this.maxMemoryBytes && iterator.hasNext()) {
+            final ResponseDiskCache.Record eldestRecord = iterator.next().getValue();
+            iterator.remove();
+            this.memoryBytes -= estimateSize(eldestRecord);
+        }
+    }
+
+    private static long estimateSize(ResponseDiskCache.Record record) {
+        long size = ENTRY_OVERHEAD_BYTES + record.getBody().length + 2L * record.getKey().length();
+        for (HttpHeader header : record.getHeaders()) {
+            size += 2L * (header.getName().length() + (header.getValue() == null ? 0 : header.getValue().length()));
+        }
+        return size;
+    }
+
+    private static boolean varyHeadersMatch(ResponseDiskCache.Record record, HttpHeaders requestHeaders) {
+        for (HttpHeader varyHeader : record.getVaryHeaders()) {
+            final String value = requestHeaders.getValue(varyHeader.getName());
+            if (value == null ? varyHeader.getValue() != null : !value.equals(varyHeader.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the time a response is fresh for, from its {@code Cache-Control: max-age} directive,
+     * or else from its {@code Expires} and {@code Date} headers.
+     *
+     * @param headers The headers of the response.
+     * @return The freshness lifetime in milliseconds, 0 if the response is stale when received.
+     */
+    private static long getFreshnessMillis(HttpHeaders headers) {
+        final String cacheControl = headers.getValue(CACHE_CONTROL);
+        final String maxAge = getDirectiveValue(cacheControl, "max-age");
+        long ageMillis = 0;
+        try {
+            final String age = headers.getValue("Age");
+            if (age != null) {
+                ageMillis = Long.parseLong(age.trim()) * 1000;
+            }
+        } catch (NumberFormatException ignored) {
+            // An invalid Age header is ignored.
+        }
+        if (maxAge != null) {
+            try {
+                return Math.max(0, Long.parseLong(maxAge) * 1000 - ageMillis);
+            } catch (NumberFormatException ignored) {
+                // An invalid max-age makes the response stale.
+                return 0;
+            }
+        }
+        final String expires = headers.getValue("Expires");
+        if (expires == null) {
+            return 0;
+        }
+        try {
+            final OffsetDateTime expiresAt = OffsetDateTime.parse(expires, DateTimeFormatter.RFC_1123_DATE_TIME);
+            final String date = headers.getValue("Date");
+            final long dateMillis = date == null
+                ? System.currentTimeMillis()
+                : OffsetDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, expiresAt.toInstant().toEpochMilli() - dateMillis - ageMillis);
+        } catch (Exception ignored) {
+            // An invalid date, such as "Expires: 0", makes the response stale.
+            return 0;
+        }
+    }
+
+    private static boolean hasDirective(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return false;
+        }
+        for (String token : cacheControl.split(",")) {
+            final String name = token.trim();
+            final int equalsIndex = name.indexOf('=');
+            if ((equalsIndex == -1 ? name : name.substring(0, equalsIndex).trim()).equalsIgnoreCase(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getDirectiveValue(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return null;
+        }
+        for (String token : cacheControl.split(",")) {
+            final int equalsIndex = token.indexOf('=');
+            if (equalsIndex != -1
+                && token.substring(0, equalsIndex).trim().toLowerCase(Locale.ROOT).equals(directive)) {
+                String value = token.substring(equalsIndex + 1).trim();
+                if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A response served from the cache.
+     */
+    private static final class CachedHttpResponse extends HttpResponse {
+        private final ResponseDiskCache.Record record;
+        private final HttpHeaders headers;
+
+        CachedHttpResponse(HttpRequest request, ResponseDiskCache.Record record) {
+            super(request);
+            this.record = record;
+            this.headers = new HttpHeaders(record.getHeaders());
+        }
+
+        @Override
+        public int getStatusCode() {
+            return this.record.getStatusCode();
+        }
+
+        @Override
+        public String getHeaderValue(String name) {
+            return this.headers.getValue(name);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return this.headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(this.record.getBody());
+        }
+
+        @Override
+        public byte[] getBodyAsByteArray() {
+            // A copy, so that the caller modifying it does not modify the cached body.
+            return this.record.getBody().clone();
+        }
+
+        @Override
+        public String getBodyAsString() {
+            final HttpResponse bufferedResponse = new BufferedHttpResponse(this);
+            return bufferedResponse.getBodyAsString();
+        }
+
+        @Override
+        public String getBodyAsString(Charset charset) {
+            return new String(this.record.getBody(), charset);
+        }
+    }
+
+    /**
+     * A response too large to be cached, whose body is the part read while attempting to cache it followed by the
+     * rest of the body of the response.
+     */
+    private static final class PartiallyReadHttpResponse extends HttpResponse {
+        private final HttpResponse innerHttpResponse;
+        private final InputStream body;
+
+        PartiallyReadHttpResponse(HttpResponse innerHttpResponse, byte[] readContent, InputStream remainingBody) {
+            super(innerHttpResponse.getRequest());
+            this.innerHttpResponse = innerHttpResponse;
+            this.body = new SequenceInputStream(new ByteArrayInputStream(readContent), remainingBody);
+        }
+
+        @Override
+        public int getStatusCode() {
+            return this.innerHttpResponse.getStatusCode();
+        }
+
+        @Override
+        public String getHeaderValue(String name) {
+            return this.innerHttpResponse.getHeaderValue(name);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return this.innerHttpResponse.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return this.body;
+        }
+
+        @Override
+        public byte[] getBodyAsByteArray() {
+            return new BufferedHttpResponse(this).getBodyAsByteArray();
+        }
+
+        @Override
+        public String getBodyAsString() {
+            return new BufferedHttpResponse(this).getBodyAsString();
+        }
+
+        @Override
+        public String getBodyAsString(Charset charset) {
+            return new String(this.getBodyAsByteArray(), charset);
+        }
+
+        @Override
+        public void close() {
+            this.innerHttpResponse.close();
+        }
+    }
+}
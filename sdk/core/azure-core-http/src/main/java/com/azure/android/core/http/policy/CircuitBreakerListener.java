@@ -0,0 +1,22 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+/**
+ * The listener notified when the circuit breaker of a host changes state.
+ *
+ * @see CircuitBreakerOptions#setListener(CircuitBreakerListener)
+ */
+@FunctionalInterface
+public interface CircuitBreakerListener {
+    /**
+     * Called when the circuit breaker of a host changes state, on the thread that completed the call causing
+     * the change. The implementation should not block.
+     *
+     * @param host The host.
+     * @param previousState The state the circuit breaker left.
+     * @param state The state the circuit breaker entered.
+     */
+    void onStateChanged(String host, CircuitBreakerState previousState, CircuitBreakerState state);
+}
@@ -0,0 +1,247 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.logging.ClientLogger;
+
+import org.threeten.bp.Duration;
+
+/**
+ * The configurations of {@link CircuitBreakerPolicy}.
+ */
+public class CircuitBreakerOptions {
+    private final ClientLogger logger = new ClientLogger(CircuitBreakerOptions.class);
+
+    private double failureRateThreshold = 0.5;
+    private double slowCallRateThreshold = 1.0;
+    private Duration slowCallDuration = Duration.ofSeconds(60);
+    private int slidingWindowSize = 100;
+    private int minimumNumberOfCalls = 10;
+    private Duration openDuration = Duration.ofSeconds(30);
+    private int permittedCallsInHalfOpenState = 3;
+    private Duration maxProbeDuration = Duration.ofSeconds(60);
+    private CircuitBreakerListener listener;
+
+    /**
+     * Creates a new instance with the default configurations: the circuit breaker of a host opens for 30 seconds
+     * when at least half of the last 100 calls to the host failed, once 10 calls were made; it then lets
+     * 3 probe calls through, letting another through each minute a probe is still in progress.
+     */
+    public CircuitBreakerOptions() {
+    }
+
+    /**
+     * Gets the ratio of failed calls in the sliding window from which the circuit breaker opens.
+     *
+     * @return The failure rate threshold.
+     */
+    public double getFailureRateThreshold() {
+        return this.failureRateThreshold;
+    }
+
+    /**
+     * Sets the ratio of failed calls in the sliding window from which the circuit breaker opens. A call fails
+     * when it completes with an error, other than its cancellation, or with a 5xx status code.
+     *
+     * @param failureRateThreshold The failure rate threshold, greater than 0 and not greater than 1.
+     * @return The updated CircuitBreakerOptions object.
+     */
+    public CircuitBreakerOptions setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = this.checkRate(failureRateThreshold, "failureRateThreshold");
+        return this;
+    }
+
+    /**
+     * Gets the ratio of slow calls in the sliding window from which the circuit breaker opens.
+     *
+     * @return The slow call rate threshold.
+     */
+    public double getSlowCallRateThreshold() {
+        return this.slowCallRateThreshold;
+    }
+
+    /**
+     * Sets the ratio of slow calls in the sliding window from which the circuit breaker opens. The default is 1,
+     * the circuit breaker opens only if all the calls in the sliding window are slow.
+     *
+     * @param slowCallRateThreshold The slow call rate threshold, greater than 0 and not greater than 1.
+     * @return The updated CircuitBreakerOptions object.
+     */
+    public CircuitBreakerOptions setSlowCallRateThreshold(double slowCallRateThreshold) {
+        this.slowCallRateThreshold = this.checkRate(slowCallRateThreshold, "slowCallRateThreshold");
+        return this;
+    }
+
+    /**
+     * Gets the duration from which a call is slow.
+     *
+     * @return The slow call duration.
+     */
+    public Duration getSlowCallDuration() {
+        return this.slowCallDuration;
+    }
+
+    /**
+     * Sets the duration from which a call is slow.
+     *
+     * @param slowCallDuration The slow call duration.
+     * @return The updated CircuitBreakerOptions object.
+     */
+    public CircuitBreakerOptions setSlowCallDuration(Duration slowCallDuration) {
+        this.slowCallDuration = this.checkPositive(slowCallDuration, "slowCallDuration");
+        return this;
+    }
+
+    /**
+     * Gets the number of the last calls to a host the failure and slow call rates are computed over.
+     *
+     * @return The sliding window size.
+     */
+    public int getSlidingWindowSize() {
+        return this.slidingWindowSize;
+    }
+
+    /**
+     * Sets the number of the last calls to a host the failure and slow call rates are computed over.
+     *
+     * @param slidingWindowSize The sliding window size, greater than 0.
+     * @return The updated CircuitBreakerOptions object.
+     */
+    public CircuitBreakerOptions setSlidingWindowSize(int slidingWindowSize) {
+        this.slidingWindowSize = this.checkPositive(slidingWindowSize, "slidingWindowSize");
+        return this;
+    }
+
+    /**
+     * Gets the number of calls to a host to record before the circuit breaker can open.
+     *
+     * @return The minimum number of calls.
+     */
+    public int getMinimumNumberOfCalls() {
+        return this.minimumNumberOfCalls;
+    }
+
+    /**
+     * Sets the number of calls to a host to record before the circuit breaker can open. The circuit breaker
+     * uses the lower of this number and the sliding window size.
+     *
+     * @param minimumNumberOfCalls The minimum number of calls, greater than 0.
+     * @return The updated CircuitBreakerOptions object.
+     */
+    public CircuitBreakerOptions setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+        this.minimumNumberOfCalls = this.checkPositive(minimumNumberOfCalls, "minimumNumberOfCalls");
+        return this;
+    }
+
+    /**
+     * Gets the duration the circuit breaker stays open before letting probe calls through.
+     *
+     * @return The open duration.
+     */
+    public Duration getOpenDuration() {
+        return this.openDuration;
+    }
+
+    /**
+     * Sets the duration the circuit breaker stays open before letting probe calls through.
+     *
+     * @param openDuration The open duration.
+     * @return The updated CircuitBreakerOptions object.
+     */
+    public CircuitBreakerOptions setOpenDuration(Duration openDuration) {
+        this.openDuration = this.checkPositive(openDuration, "openDuration");
+        return this;
+    }
+
+    /**
+     * Gets the number of probe calls let through in the half-open state.
+     *
+     * @return The number of permitted calls in the half-open state.
+     */
+    public int getPermittedCallsInHalfOpenState() {
+        return this.permittedCallsInHalfOpenState;
+    }
+
+    /**
+     * Sets the number of probe calls let through in the half-open state. Once they complete, the circuit breaker
+     * closes if their failure and slow call rates are below the thresholds, or opens again otherwise.
+     *
+     * @param permittedCallsInHalfOpenState The number of permitted calls in the half-open state, greater than 0.
+     * @return The updated CircuitBreakerOptions object.
+     */
+    public CircuitBreakerOptions setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+        this.permittedCallsInHalfOpenState
+            = this.checkPositive(permittedCallsInHalfOpenState, "permittedCallsInHalfOpenState");
+        return this;
+    }
+
+    /**
+     * Gets the duration after which the circuit breaker in the half-open state lets another probe call through
+     * if the last one has not completed.
+     *
+     * @return The maximum probe duration.
+     */
+    public Duration getMaxProbeDuration() {
+        return this.maxProbeDuration;
+    }
+
+    /**
+     * Sets the duration after which the circuit breaker in the half-open state lets another probe call through
+     * if the last one has not completed, so that probes that never complete do not keep the circuit breaker
+     * half-open.
+     *
+     * @param maxProbeDuration The maximum probe duration.
+     * @return The updated CircuitBreakerOptions object.
+     */
+    public CircuitBreakerOptions setMaxProbeDuration(Duration maxProbeDuration) {
+        this.maxProbeDuration = this.checkPositive(maxProbeDuration, "maxProbeDuration");
+        return this;
+    }
+
+    /**
+     * Gets the listener notified when the circuit breaker of a host changes state.
+     *
+     * @return The listener, null if none.
+     */
+    public CircuitBreakerListener getListener() {
+        return this.listener;
+    }
+
+    /**
+     * Sets the listener notified when the circuit breaker of a host changes state, e.g. to raise an alert.
+     *
+     * @param listener The listener, null for none.
+     * @return The updated CircuitBreakerOptions object.
+     */
+    public CircuitBreakerOptions setListener(CircuitBreakerListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    private double checkRate(double rate, String name) {
+        if (!(rate > 0 && rate <= 1)) {
+            throw logger.logExceptionAsError(new IllegalArgumentException(
+                "'" + name + "' must be greater than 0 and not greater than 1, provided:" + rate));
+        }
+        return rate;
+    }
+
+    private int checkPositive(int value, String name) {
+        if (value < 1) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'" + name + "' must be greater than 0, provided:" + value));
+        }
+        return value;
+    }
+
+    private Duration checkPositive(Duration value, String name) {
+        Util.requireNonNull(value, "'" + name + "' is required.");
+        if (value.isNegative() || value.isZero()) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'" + name + "' must be greater than 0, provided:" + value));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,341 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.NextPolicyCallback;
+import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.exception.CircuitBreakerOpenException;
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.logging.ClientLogger;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The pipeline policy that stops sending calls to a host whose recent calls mostly failed or were slow, so that
+ * a degraded host is not loaded further by the callers and their retries.
+ *
+ * <p>
+ * The policy keeps a circuit breaker per host, in one of the {@link CircuitBreakerState} states:
+ * </p>
+ * <ul>
+ *     <li>{@link CircuitBreakerState#CLOSED}: the calls are sent and their outcomes are recorded in a sliding window
+ *     of the last calls. Once the failure rate or the slow call rate of the window reaches its threshold,
+ *     the circuit breaker opens.</li>
+ *     <li>{@link CircuitBreakerState#OPEN}: the calls fail immediately with {@link CircuitBreakerOpenException}.
+ *     Once the open duration elapses, the circuit breaker becomes half-open.</li>
+ *     <li>{@link CircuitBreakerState#HALF_OPEN}: a limited number of probe calls are sent, the other calls fail
+ *     immediately. Once the probes complete, the circuit breaker closes if their rates are below the thresholds,
+ *     or opens again otherwise. If the last probe does not complete within the maximum probe duration, another
+ *     call is let through.</li>
+ * </ul>
+ *
+ * <p>
+ * The circuit breaker of a host that is closed and received no call for a while is discarded, so that the hosts
+ * called once do not accumulate.
+ * </p>
+ *
+ * <p>
+ * The policy should be placed after the {@link RetryPolicy}, so that each attempt is recorded and so that
+ * the retries stop as soon as the circuit breaker opens, since {@link RetryPolicy} does not retry
+ * {@link CircuitBreakerOpenException}. The state changes are notified to the
+ * {@link CircuitBreakerOptions#setListener(CircuitBreakerListener) listener} of the options.
+ * </p>
+ */
+public class CircuitBreakerPolicy implements HttpPipelinePolicy {
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+    // The time with no call after which a closed circuit breaker is discarded, also the period of the sweeps.
+    private static final long IDLE_CIRCUIT_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final ClientLogger logger = new ClientLogger(CircuitBreakerPolicy.class);
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int slidingWindowSize;
+    private final int minimumNumberOfCalls;
+    private final long openNanos;
+    private final int permittedCallsInHalfOpenState;
+    private final long maxProbeNanos;
+    private final CircuitBreakerListener listener;
+    private final ConcurrentHashMap<String, HostCircuit> hostCircuits = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime() + IDLE_CIRCUIT_NANOS);
+
+    /**
+     * Creates a CircuitBreakerPolicy with the default {@link CircuitBreakerOptions}.
+     */
+    public CircuitBreakerPolicy() {
+        this(new CircuitBreakerOptions());
+    }
+
+    /**
+     * Creates a CircuitBreakerPolicy.
+     *
+     * @param options The configurations, read once when the policy is created.
+     */
+    public CircuitBreakerPolicy(CircuitBreakerOptions options) {
+        Util.requireNonNull(options, "'options' is required.");
+        this.failureRateThreshold = options.getFailureRateThreshold();
+        this.slowCallRateThreshold = options.getSlowCallRateThreshold();
+        this.slowCallNanos = options.getSlowCallDuration().toNanos();
+        this.slidingWindowSize = options.getSlidingWindowSize();
+        this.minimumNumberOfCalls = Math.min(options.getMinimumNumberOfCalls(), options.getSlidingWindowSize());
+        this.openNanos = options.getOpenDuration().toNanos();
+        this.permittedCallsInHalfOpenState = options.getPermittedCallsInHalfOpenState();
+        this.maxProbeNanos = options.getMaxProbeDuration().toNanos();
+        this.listener = options.getListener();
+    }
+
+    /**
+     * Gets the state of the circuit breaker of a host. An open circuit breaker whose open duration elapsed
+     * remains open until the next call to the host.
+     *
+     * @param host The host.
+     * @return The state, {@link CircuitBreakerState#CLOSED} if no call was made to the host.
+     */
+    public CircuitBreakerState getState(String host) {
+        final HostCircuit hostCircuit = this.hostCircuits.get(host);
+        return hostCircuit == null ? CircuitBreakerState.CLOSED : hostCircuit.getState();
+    }
+
+    @Override
+    public void process(HttpPipelinePolicyChain chain) {
+        final HttpRequest httpRequest = chain.getRequest();
+        if (chain.getCancellationToken().isCancellationRequested()) {
+            chain.completedError(new IOException("Canceled."));
+            return;
+        }
+        final String host = httpRequest.getHost();
+        this.sweepIdleCircuits();
+        HostCircuit hostCircuit = this.hostCircuits.get(host);
+        if (hostCircuit == null) {
+            final HostCircuit newHostCircuit = new HostCircuit(host);
+            hostCircuit = this.hostCircuits.putIfAbsent(host, newHostCircuit);
+            if (hostCircuit == null) {
+                hostCircuit = newHostCircuit;
+            }
+        }
+
+        final int generation = hostCircuit.tryAcquirePermission();
+        if (generation < 0) {
+            chain.completedError(new CircuitBreakerOpenException("The call was not sent since the circuit breaker "
+                + "of the host '" + host + "' is open.", httpRequest));
+            return;
+        }
+        final HostCircuit circuit = hostCircuit;
+        final long startNanos = System.nanoTime();
+        chain.processNextPolicy(httpRequest, new NextPolicyCallback() {
+            @Override
+            public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                circuit.onCallCompleted(generation, response.getStatusCode() >= 500,
+                    System.nanoTime() - startNanos, false);
+                return completer.completed(response);
+            }
+
+            @Override
+            public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                circuit.onCallCompleted(generation, true, System.nanoTime() - startNanos,
+                    chain.getCancellationToken().isCancellationRequested());
+                return completer.completedError(error);
+            }
+        });
+    }
+
+    /**
+     * Discard the closed circuit breakers that received no call for a while, at most once per period.
+     */
+    private void sweepIdleCircuits() {
+        final long nowNanos = System.nanoTime();
+        final long sweepNanos = this.nextSweepNanos.get();
+        if (nowNanos - sweepNanos < 0
+            || !this.nextSweepNanos.compareAndSet(sweepNanos, nowNanos + IDLE_CIRCUIT_NANOS)) {
+            return;
+        }
+        final Iterator<HostCircuit> iterator = this.hostCircuits.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isIdle(nowNanos)) {
+                // A call that got the circuit breaker before it was discarded records its outcome in it, unseen.
+                iterator.remove();
+            }
+        }
+    }
+
+    private void notifyListener(String host, CircuitBreakerState previousState, CircuitBreakerState state) {
+        if (previousState == state) {
+            return;
+        }
+        logger.info("The circuit breaker of the host '" + host + "' is " + state + ", it was " + previousState + ".");
+        if (this.listener != null) {
+            try {
+                this.listener.onStateChanged(host, previousState, state);
+            } catch (RuntimeException e) {
+                logger.warning("The circuit breaker listener threw an exception.", e);
+            }
+        }
+    }
+
+    /**
+     * The circuit breaker of a host.
+     */
+    private final class HostCircuit {
+        private final String host;
+        // The fields are guarded by 'this'.
+        private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+        // Incremented on each state change, so that the outcomes of the calls admitted in a previous state
+        // are not recorded.
+        private int generation;
+        private long openedAtNanos;
+        private long lastCallAtNanos = System.nanoTime();
+        // The sliding window, a ring of the outcomes of the last calls in the closed state.
+        private final byte[] outcomes = new byte[slidingWindowSize];
+        private int outcomeCount;
+        private int nextOutcomeIndex;
+        private int failureCount;
+        private int slowCount;
+        // The probe calls of the half-open state.
+        private long lastProbeAtNanos;
+        private int probeCount;
+        private int completedProbeCount;
+        private int failedProbeCount;
+        private int slowProbeCount;
+
+        HostCircuit(String host) {
+            this.host = host;
+        }
+
+        synchronized CircuitBreakerState getState() {
+            return this.state;
+        }
+
+        synchronized boolean isIdle(long nowNanos) {
+            return this.state == CircuitBreakerState.CLOSED && nowNanos - this.lastCallAtNanos >= IDLE_CIRCUIT_NANOS;
+        }
+
+        /**
+         * Try to acquire the permission to send a call.
+         *
+         * @return The generation of the state the call is admitted in, to give back once the call completes,
+         *     or -1 if the call is not permitted.
+         */
+        int tryAcquirePermission() {
+            final CircuitBreakerState previousState;
+            final CircuitBreakerState state;
+            final int generation;
+            synchronized (this) {
+                final long nowNanos = System.nanoTime();
+                this.lastCallAtNanos = nowNanos;
+                previousState = this.state;
+                if (this.state == CircuitBreakerState.OPEN) {
+                    if (nowNanos - this.openedAtNanos < openNanos) {
+                        return -1;
+                    }
+                    this.transitionTo(CircuitBreakerState.HALF_OPEN);
+                }
+                if (this.state == CircuitBreakerState.HALF_OPEN) {
+                    if (this.probeCount >= permittedCallsInHalfOpenState
+                        && nowNanos - this.lastProbeAtNanos < maxProbeNanos) {
+                        generation = -1;
+                    } else {
+                        // Past the permitted probes, the last probe is taking too long and another is let through.
+                        this.probeCount++;
+                        this.lastProbeAtNanos = nowNanos;
+                        generation = this.generation;
+                    }
+                } else {
+                    generation = this.generation;
+                }
+                state = this.state;
+            }
+            notifyListener(this.host, previousState, state);
+            return generation;
+        }
+
+        /**
+         * Record the outcome of a call.
+         *
+         * @param generation The generation the call was admitted in.
+         * @param failed true if the call failed.
+         * @param durationNanos The duration of the call.
+         * @param cancelled true if the call was cancelled by its caller, its outcome is then ignored.
+         */
+        void onCallCompleted(int generation, boolean failed, long durationNanos, boolean cancelled) {
+            final CircuitBreakerState previousState;
+            final CircuitBreakerState state;
+            synchronized (this) {
+                previousState = this.state;
+                if (generation != this.generation) {
+                    return;
+                }
+                final byte outcome = (byte) ((failed ? FAILED : 0) | (durationNanos >= slowCallNanos ? SLOW : 0));
+                if (this.state == CircuitBreakerState.CLOSED) {
+                    if (!cancelled) {
+                        this.recordOutcome(outcome);
+                        if (this.outcomeCount >= minimumNumberOfCalls
+                            && isAboveThresholds(this.failureCount, this.slowCount, this.outcomeCount)) {
+                            this.transitionTo(CircuitBreakerState.OPEN);
+                        }
+                    }
+                } else if (this.state == CircuitBreakerState.HALF_OPEN) {
+                    if (cancelled) {
+                        // Let another call probe the host.
+                        this.probeCount--;
+                    } else {
+                        this.completedProbeCount++;
+                        this.failedProbeCount += (outcome & FAILED) != 0 ? 1 : 0;
+                        this.slowProbeCount += (outcome & SLOW) != 0 ? 1 : 0;
+                        if (this.completedProbeCount >= permittedCallsInHalfOpenState) {
+                            this.transitionTo(isAboveThresholds(this.failedProbeCount, this.slowProbeCount,
+                                this.completedProbeCount) ? CircuitBreakerState.OPEN : CircuitBreakerState.CLOSED);
+                        }
+                    }
+                }
+                state = this.state;
+            }
+            notifyListener(this.host, previousState, state);
+        }
+
+        private boolean isAboveThresholds(int failures, int slowCalls, int calls) {
+            return failures >= failureRateThreshold * calls || slowCalls >= slowCallRateThreshold * calls;
+        }
+
+        private void recordOutcome(byte outcome) {
+            if (this.outcomeCount == this.outcomes.length) {
+                final byte evicted = this.outcomes[this.nextOutcomeIndex];
+                this.failureCount -= (evicted & FAILED) != 0 ? 1 : 0;
+                this.slowCount -= (evicted & SLOW) != 0 ? 1 : 0;
+            } else {
+                this.outcomeCount++;
+            }
+            this.outcomes[this.nextOutcomeIndex] = outcome;
+            this.nextOutcomeIndex = (this.nextOutcomeIndex + 1) % this.outcomes.length;
+            this.failureCount += (outcome & FAILED) != 0 ? 1 : 0;
+            this.slowCount += (outcome & SLOW) != 0 ? 1 : 0;
+        }
+
+        private void transitionTo(CircuitBreakerState state) {
+            this.state = state;
+            this.generation++;
+            if (state == CircuitBreakerState.OPEN) {
+                this.openedAtNanos = System.nanoTime();
+            } else if (state == CircuitBreakerState.HALF_OPEN) {
+                this.probeCount = 0;
+                this.completedProbeCount = 0;
+                this.failedProbeCount = 0;
+                this.slowProbeCount = 0;
+            } else {
+                this.outcomeCount = 0;
+                this.nextOutcomeIndex = 0;
+                this.failureCount = 0;
+                this.slowCount = 0;
+            }
+        }
+    }
+}
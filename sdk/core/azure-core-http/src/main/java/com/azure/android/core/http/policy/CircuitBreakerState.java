@@ -0,0 +1,27 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+/**
+ * The state of the circuit breaker of a host.
+ *
+ * @see CircuitBreakerPolicy
+ */
+public enum CircuitBreakerState {
+    /**
+     * The calls are sent, and their outcomes recorded in the sliding window.
+     */
+    CLOSED,
+
+    /**
+     * The calls fail immediately, until the open duration elapses.
+     */
+    OPEN,
+
+    /**
+     * A limited number of probe calls are sent to decide whether to close or re-open the circuit breaker,
+     * the other calls fail immediately.
+     */
+    HALF_OPEN
+}
@@ -3,8 +3,6 @@
 
 package com.azure.android.core.http.policy;
 
-import android.text.TextUtils;
-
 import com.azure.android.core.http.HttpHeader;
 import com.azure.android.core.http.HttpPipelinePolicy;
 import com.azure.android.core.http.HttpPipelinePolicyChain;
@@ -19,7 +17,6 @@ import java.net.CookieManager;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +25,8 @@ import java.util.Map;
  * The pipeline policy that which stores cookies based on the response "Set-Cookie" header and adds cookies to requests.
  */
 public class CookiePolicy implements HttpPipelinePolicy {
+    private static final String[] SET_COOKIE_HEADER_NAMES = {"Set-Cookie", "Set-Cookie2"};
+
     private final CookieHandler cookies = new CookieManager();
 
     @Override
@@ -36,7 +35,7 @@ public class CookiePolicy implements HttpPipelinePolicy {
 
         final URI uri;
         try {
-            uri = httpRequest.getUrl().toURI();
+            uri = new URI(httpRequest.getUrlString());
         } catch (URISyntaxException error) {
             chain.completedError(error);
             return;
@@ -57,15 +56,28 @@ public class CookiePolicy implements HttpPipelinePolicy {
         }
 
         for (Map.Entry<String, List<String>> entry : requestCookies.entrySet()) {
-            httpRequest.getHeaders().put(entry.getKey(), TextUtils.join(",", entry.getValue()));
+            final List<String> cookieValues = entry.getValue();
+            final StringBuilder value = new StringBuilder();
+            for (int i = 0; i < cookieValues.size(); i++) {
+                if (i > 0) {
+                    value.append(',');
+                }
+                value.append(cookieValues.get(i));
+            }
+            httpRequest.getHeaders().put(entry.getKey(), value.toString());
         }
 
         chain.processNextPolicy(httpRequest, new NextPolicyCallback() {
             @Override
             public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                // Only the cookie headers are read by the CookieManager. Each value is passed on its own, since
+                // a cookie's value can contain commas, e.g. in its expiry date.
                 Map<String, List<String>> responseHeaders = new HashMap<>();
-                for (HttpHeader header : response.getHeaders()) {
-                    responseHeaders.put(header.getName(), Collections.singletonList(header.getValue()));
+                for (String name : SET_COOKIE_HEADER_NAMES) {
+                    final String[] values = response.getHeaders().getValues(name);
+                    if (values != null) {
+                        responseHeaders.put(name, Arrays.asList(values));
+                    }
                 }
 
                 try {
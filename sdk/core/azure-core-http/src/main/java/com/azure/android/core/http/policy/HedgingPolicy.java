@@ -0,0 +1,384 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.NextPolicyCallback;
+import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.exception.CallNotDispatchedException;
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.logging.ClientLogger;
+import com.azure.android.core.util.CancellationToken;
+
+import org.threeten.bp.Duration;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The pipeline policy that hedges GET requests: when a GET request has not received its response within
+ * the hedge delay, a second copy of the request is sent; the first response received answers the request
+ * and the other copy is cancelled through its {@link CancellationToken}.
+ *
+ * <p>
+ * The hedge delay is, by default, a percentile of the latencies of the recent responses received through
+ * the policy, so that only the requests slower than most are hedged. The number of hedges is bounded by
+ * a budget, a ratio of the number of GET requests; a request is not hedged when the budget is exhausted.
+ * </p>
+ *
+ * <p>
+ * The policy should be placed after the {@link RetryPolicy}, so that each attempt is hedged, and after
+ * the policies that set the headers of the request. The second copy is sent with a copy of the request,
+ * since the policies after this one may modify the request concurrently with the first copy; the response to
+ * the second copy hence returns that copy from {@link HttpResponse#getRequest()}. If the first copy fails
+ * while the second is waiting or in progress, the request is answered with the result of the second copy.
+ * </p>
+ */
+public class HedgingPolicy implements HttpPipelinePolicy {
+    private static final double DEFAULT_DELAY_PERCENTILE = 0.95;
+    private static final Duration DEFAULT_INITIAL_DELAY = Duration.ofSeconds(1);
+    private static final double DEFAULT_MAX_HEDGE_RATIO = 0.05;
+    // The budget is counted in thousandths of a hedge.
+    private static final long BUDGET_UNITS_PER_HEDGE = 1000;
+    // The maximum number of hedges the budget can accumulate, bounding the hedges sent in a burst.
+    private static final long MAX_BUDGET_UNITS = 10 * BUDGET_UNITS_PER_HEDGE;
+    private static final int LATENCY_SAMPLE_CAPACITY = 128;
+    // The number of samples needed before the delay is derived from them.
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    // The number of new samples after which the delay is derived again.
+    private static final int LATENCY_SAMPLES_PER_UPDATE = 16;
+
+    private final ClientLogger logger = new ClientLogger(HedgingPolicy.class);
+    private final double delayPercentile;
+    private final boolean isDelayAdaptive;
+    private final long budgetUnitsPerRequest;
+    private final AtomicLong budgetUnits = new AtomicLong(0);
+    private final AtomicLong hedgeCount = new AtomicLong(0);
+    private final AtomicLong hedgeWinCount = new AtomicLong(0);
+    // The ring of the recent latency samples in nanoseconds, guarded by 'latencySamples'.
+    private final long[] latencySamples = new long[LATENCY_SAMPLE_CAPACITY];
+    private int latencySampleCount;
+    private int latencySamplesSinceUpdate;
+    private volatile long delayNanos;
+
+    /**
+     * Creates a HedgingPolicy that hedges the GET requests that did not receive a response within the 95th
+     * percentile of the recent latencies, or within 1 second until enough latencies are known; with a budget
+     * of 5% of the GET requests.
+     */
+    public HedgingPolicy() {
+        this(DEFAULT_DELAY_PERCENTILE, DEFAULT_INITIAL_DELAY, DEFAULT_MAX_HEDGE_RATIO);
+    }
+
+    /**
+     * Creates a HedgingPolicy.
+     *
+     * @param delayPercentile The percentile of the recent latencies to use as the hedge delay, between 0 and 1
+     *     exclusive, e.g. 0.95.
+     * @param initialDelay The hedge delay to use until enough latencies are known.
+     * @param maxHedgeRatio The maximum number of hedges as a ratio of the number of GET requests,
+     *     between 0 exclusive and 1 inclusive, e.g. 0.05.
+     */
+    public HedgingPolicy(double delayPercentile, Duration initialDelay, double maxHedgeRatio) {
+        this(delayPercentile, initialDelay, maxHedgeRatio, true);
+    }
+
+    private HedgingPolicy(double delayPercentile,
+                          Duration initialDelay,
+                          double maxHedgeRatio,
+                          boolean isDelayAdaptive) {
+        if (!(delayPercentile > 0 && delayPercentile < 1)) {
+            throw logger.logExceptionAsError(new IllegalArgumentException(
+                "'delayPercentile' must be between 0 and 1 exclusive, provided:" + delayPercentile));
+        }
+        Util.requireNonNull(initialDelay, "'initialDelay' is required.");
+        if (initialDelay.isNegative()) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'initialDelay' cannot be negative, provided:" + initialDelay));
+        }
+        if (!(maxHedgeRatio > 0 && maxHedgeRatio <= 1)) {
+            throw logger.logExceptionAsError(new IllegalArgumentException(
+                "'maxHedgeRatio' must be greater than 0 and not greater than 1, provided:" + maxHedgeRatio));
+        }
+        this.delayPercentile = delayPercentile;
+        this.isDelayAdaptive = isDelayAdaptive;
+        this.delayNanos = initialDelay.toNanos();
+        this.budgetUnitsPerRequest = Math.max(1, Math.round(maxHedgeRatio * BUDGET_UNITS_PER_HEDGE));
+    }
+
+    /**
+     * Get an instance of {@link HedgingPolicy} that hedges the GET requests that did not receive a response
+     * within a fixed delay.
+     *
+     * @param delay The hedge delay.
+     * @param maxHedgeRatio The maximum number of hedges as a ratio of the number of GET requests,
+     *     between 0 exclusive and 1 inclusive, e.g. 0.05.
+     * @return The hedging policy.
+     */
+    public static HedgingPolicy withFixedDelay(Duration delay, double maxHedgeRatio) {
+        return new HedgingPolicy(DEFAULT_DELAY_PERCENTILE, delay, maxHedgeRatio, false);
+    }
+
+    /**
+     * Gets the number of hedges sent, that is the number of requests that were sent a second time.
+     *
+     * @return The number of hedges.
+     */
+    public long getHedgeCount() {
+        return this.hedgeCount.get();
+    }
+
+    /**
+     * Gets the number of requests answered with the response to the hedge.
+     *
+     * @return The number of requests the hedge won.
+     */
+    public long getHedgeWinCount() {
+        return this.hedgeWinCount.get();
+    }
+
+    /**
+     * Gets the current hedge delay.
+     *
+     * @return The hedge delay.
+     */
+    public Duration getHedgeDelay() {
+        return Duration.ofNanos(this.delayNanos);
+    }
+
+    @Override
+    public void process(HttpPipelinePolicyChain chain) {
+        final HttpRequest httpRequest = chain.getRequest();
+        if (httpRequest.getHttpMethod() != HttpMethod.GET) {
+            chain.processNextPolicy(httpRequest);
+            return;
+        }
+        if (chain.getCancellationToken().isCancellationRequested()) {
+            chain.completedError(new IOException("Canceled."));
+            return;
+        }
+        this.depositBudget();
+        if (!this.tryWithdrawBudget()) {
+            chain.processNextPolicy(httpRequest, new NextPolicyCallback() {
+                private final long startNanos = System.nanoTime();
+
+                @Override
+                public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                    recordLatency(System.nanoTime() - startNanos);
+                    return completer.completed(response);
+                }
+
+                @Override
+                public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                    return completer.completedError(error);
+                }
+            });
+            return;
+        }
+        new HedgedCall(chain, this.delayNanos).send();
+    }
+
+    /**
+     * Record the latency of a response, to derive the hedge delay from.
+     *
+     * @param latencyNanos The latency in nanoseconds.
+     */
+    private void recordLatency(long latencyNanos) {
+        if (!this.isDelayAdaptive) {
+            return;
+        }
+        synchronized (this.latencySamples) {
+            this.latencySamples[this.latencySampleCount % LATENCY_SAMPLE_CAPACITY] = latencyNanos;
+            this.latencySampleCount++;
+            this.latencySamplesSinceUpdate++;
+            if (this.latencySampleCount < MIN_LATENCY_SAMPLES
+                || this.latencySamplesSinceUpdate < LATENCY_SAMPLES_PER_UPDATE) {
+                return;
+            }
+            this.latencySamplesSinceUpdate = 0;
+            final long[] samples = Arrays.copyOf(this.latencySamples,
+                Math.min(this.latencySampleCount, LATENCY_SAMPLE_CAPACITY));
+            Arrays.sort(samples);
+            final int index = (int) Math.ceil(this.delayPercentile * samples.length) - 1;
+            this.delayNanos = samples[Math.max(0, Math.min(samples.length - 1, index))];
+        }
+    }
+
+    private void depositBudget() {
+        while (true) {
+            final long units = this.budgetUnits.get();
+            final long newUnits = Math.min(MAX_BUDGET_UNITS, units + this.budgetUnitsPerRequest);
+            if (units >= MAX_BUDGET_UNITS || this.budgetUnits.compareAndSet(units, newUnits)) {
+                return;
+            }
+        }
+    }
+
+    private boolean tryWithdrawBudget() {
+        while (true) {
+            final long units = this.budgetUnits.get();
+            if (units < BUDGET_UNITS_PER_HEDGE) {
+                return false;
+            }
+            if (this.budgetUnits.compareAndSet(units, units - BUDGET_UNITS_PER_HEDGE)) {
+                return true;
+            }
+        }
+    }
+
+    private void refundBudget() {
+        while (true) {
+            final long units = this.budgetUnits.get();
+            if (this.budgetUnits.compareAndSet(units, Math.min(MAX_BUDGET_UNITS, units + BUDGET_UNITS_PER_HEDGE))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * A GET request sent up to two times, answered with the first response.
+     */
+    private final class HedgedCall implements Runnable {
+        private final HttpPipelinePolicyChain chain;
+        private final long hedgeDelayNanos;
+        private final CancellationToken primaryToken = new CancellationToken();
+        private final CancellationToken hedgeToken = new CancellationToken();
+        private final String onCancelId;
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+        // The number of copies whose result is not received yet.
+        private final AtomicInteger pendingCount = new AtomicInteger(2);
+        // Set once the result of the hedge tells whether it was dispatched, so that the hedge is accounted once.
+        private final AtomicBoolean hedgeAccounted = new AtomicBoolean(false);
+        private long startNanos;
+
+        HedgedCall(HttpPipelinePolicyChain chain, long hedgeDelayNanos) {
+            this.chain = chain;
+            this.hedgeDelayNanos = hedgeDelayNanos;
+            this.onCancelId = chain.getCancellationToken() == CancellationToken.NONE
+                ? null
+                : UUID.randomUUID().toString();
+        }
+
+        void send() {
+            this.startNanos = System.nanoTime();
+            if (this.onCancelId != null) {
+                this.chain.getCancellationToken().registerOnCancel(this.onCancelId, this);
+            }
+            final HttpRequest httpRequest = this.chain.getRequest();
+            final HttpRequest hedgeRequest = httpRequest.copy();
+            this.chain.processNextPolicy(httpRequest, this.primaryToken, new CopyCallback(false));
+            this.chain.processNextPolicyConcurrently(hedgeRequest,
+                this.hedgeToken,
+                new CopyCallback(true),
+                this.hedgeDelayNanos,
+                TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            // Invoked when the caller cancels the request.
+            this.primaryToken.cancel();
+            this.hedgeToken.cancel();
+        }
+
+        private PolicyCompleter.CompletionState onSuccess(boolean isHedge,
+                                                          HttpResponse response,
+                                                          PolicyCompleter completer) {
+            if (!this.completed.compareAndSet(false, true)) {
+                // The other copy already answered the request.
+                response.close();
+                if (isHedge) {
+                    this.accountHedge(true);
+                }
+                return completer.defer();
+            }
+            if (isHedge) {
+                this.accountHedge(true);
+            }
+            this.complete(isHedge ? this.primaryToken : this.hedgeToken);
+            final long nowNanos = System.nanoTime();
+            if (isHedge) {
+                hedgeWinCount.incrementAndGet();
+                recordLatency(nowNanos - this.startNanos - this.hedgeDelayNanos);
+            } else {
+                recordLatency(nowNanos - this.startNanos);
+            }
+            return completer.completed(response);
+        }
+
+        private PolicyCompleter.CompletionState onError(boolean isHedge,
+                                                        Throwable error,
+                                                        PolicyCompleter completer) {
+            if (isHedge) {
+                // The dispatcher fails a hedge cancelled before its delay elapsed without running it.
+                this.accountHedge(!(error instanceof CallNotDispatchedException));
+            }
+            if (this.pendingCount.decrementAndGet() > 0 || !this.completed.compareAndSet(false, true)) {
+                // The other copy may still answer the request, or already did.
+                return completer.defer();
+            }
+            this.complete(null);
+            return completer.completedError(error);
+        }
+
+        /**
+         * Cancel the copy that did not answer the request.
+         *
+         * @param losingToken The token of the copy that did not answer the request, null if both failed.
+         */
+        private void complete(CancellationToken losingToken) {
+            if (this.onCancelId != null) {
+                this.chain.getCancellationToken().unregisterOnCancel(this.onCancelId);
+            }
+            if (losingToken != null) {
+                // If the losing copy is the hedge waiting for its delay, it is not sent.
+                losingToken.cancel();
+            }
+        }
+
+        /**
+         * Account for the hedge once its result is received: count it if it was dispatched, or else give back the
+         * budget it was withdrawn.
+         *
+         * @param dispatched Whether the hedge was dispatched.
+         */
+        private void accountHedge(boolean dispatched) {
+            if (!this.hedgeAccounted.compareAndSet(false, true)) {
+                return;
+            }
+            if (dispatched) {
+                hedgeCount.incrementAndGet();
+            } else {
+                refundBudget();
+            }
+        }
+
+        private final class CopyCallback implements NextPolicyCallback {
+            private final boolean isHedge;
+
+            CopyCallback(boolean isHedge) {
+                this.isHedge = isHedge;
+            }
+
+            @Override
+            public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                return HedgedCall.this.onSuccess(this.isHedge, response, completer);
+            }
+
+            @Override
+            public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                return HedgedCall.this.onError(this.isHedge, error, completer);
+            }
+        }
+    }
+}
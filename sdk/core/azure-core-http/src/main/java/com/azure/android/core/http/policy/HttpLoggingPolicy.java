@@ -8,6 +8,7 @@ import com.azure.android.core.http.HttpHeaders;
 import com.azure.android.core.http.HttpPipelinePolicy;
 import com.azure.android.core.http.HttpPipelinePolicyChain;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
 import com.azure.android.core.http.HttpResponse;
 import com.azure.android.core.http.NextPolicyCallback;
 import com.azure.android.core.http.PolicyCompleter;
@@ -18,6 +19,7 @@ import com.azure.android.core.logging.LogLevel;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -113,7 +115,8 @@ public class HttpLoggingPolicy implements HttpPipelinePolicy {
         this.appendHeaders(logger, httpRequest.getHeaders(), requestLogMessage);
 
         if (httpLogDetailLevel.shouldLogBody()) {
-            if (httpRequest.getBody() == null) {
+            final HttpRequestBody requestBody = httpRequest.getRequestBody();
+            if (requestBody == null) {
                 requestLogMessage.append("(empty body)")
                     .append(LINE_SEPARATOR)
                     .append("--> END ")
@@ -122,8 +125,9 @@ public class HttpLoggingPolicy implements HttpPipelinePolicy {
             } else {
                 final String requestContentType = httpRequest.getHeaders().getValue("Content-Type");
                 final long requestContentLength = this.getContentLength(logger, httpRequest.getHeaders());
-                if (this.isContentLoggable(requestContentType, requestContentLength)) {
-                    final String content = this.convertBytesToString(httpRequest.getBody(), logger);
+                // A streamed content is not read for logging, it would be read a second time to be sent.
+                if (requestBody.isInMemory() && this.isContentLoggable(requestContentType, requestContentLength)) {
+                    final String content = this.convertBufferToString(requestBody.asByteBuffer(), logger);
                     requestLogMessage.append(requestContentLength)
                         .append("-byte body:")
                         .append(LINE_SEPARATOR)
@@ -324,6 +328,20 @@ public class HttpLoggingPolicy implements HttpPipelinePolicy {
      * @return The byte array as string.
      *
      */
+    private String convertBufferToString(ByteBuffer buffer, ClientLogger logger) {
+        if (buffer.hasArray()) {
+            try {
+                return new String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(),
+                    "UTF-8");
+            } catch (UnsupportedEncodingException ex) {
+                throw logger.logExceptionAsError(new RuntimeException(ex));
+            }
+        }
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return this.convertBytesToString(bytes, logger);
+    }
+
     private String convertBytesToString(byte[] bytes, ClientLogger logger) {
         try {
             return new String(bytes, "UTF-8");
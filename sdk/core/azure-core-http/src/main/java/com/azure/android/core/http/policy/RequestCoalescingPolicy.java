@@ -0,0 +1,352 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpHeader;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.NextPolicyCallback;
+import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.implementation.BufferedHttpResponse;
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.util.CancellationToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The pipeline policy that coalesces identical idempotent requests in flight: a GET or HEAD request identical
+ * to one already sent through the policy and not yet completed is not sent, instead it is answered with
+ * the response of the request in flight.
+ *
+ * <p>
+ * Requests are identical if they have the same method, URL and headers, except the headers that vary per request
+ * without affecting the response, such as {@code x-ms-client-request-id} and {@code Date}. The response shared with
+ * the coalesced requests is buffered in memory, each request receives its own response with a copy of the headers.
+ * </p>
+ *
+ * <p>
+ * The {@link CancellationToken}s of the coalesced requests are independent: cancelling a request that waits on
+ * the request in flight fails only that request. Cancelling the request in flight fails only that request as well,
+ * one of the waiting requests is then sent in its place.
+ * </p>
+ *
+ * <p>
+ * The policy is opt-in and should be placed after the policies that set the headers identifying the caller, such as
+ * the authentication policy, and before the {@link RetryPolicy} so that the retries are shared as well.
+ * </p>
+ */
+public class RequestCoalescingPolicy implements HttpPipelinePolicy {
+    private static final Set<String> DEFAULT_IGNORED_HEADER_NAMES = Collections.unmodifiableSet(new HashSet<>(
+        Arrays.asList("x-ms-client-request-id", "x-ms-date", "date", "traceparent", "tracestate")));
+
+    private final Set<String> ignoredHeaderNames;
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a RequestCoalescingPolicy that ignores the {@code x-ms-client-request-id}, {@code x-ms-date},
+     * {@code Date}, {@code traceparent} and {@code tracestate} headers when comparing requests.
+     */
+    public RequestCoalescingPolicy() {
+        this.ignoredHeaderNames = DEFAULT_IGNORED_HEADER_NAMES;
+    }
+
+    /**
+     * Creates a RequestCoalescingPolicy.
+     *
+     * @param ignoredHeaderNames The names of the headers to ignore when comparing requests, case-insensitive.
+     */
+    public RequestCoalescingPolicy(Collection<String> ignoredHeaderNames) {
+        Util.requireNonNull(ignoredHeaderNames, "'ignoredHeaderNames' is required.");
+        final Set<String> names = new HashSet<>();
+        for (String name : ignoredHeaderNames) {
+            names.add(name.toLowerCase(Locale.ROOT));
+        }
+        this.ignoredHeaderNames = Collections.unmodifiableSet(names);
+    }
+
+    @Override
+    public void process(HttpPipelinePolicyChain chain) {
+        final HttpRequest httpRequest = chain.getRequest();
+        final HttpMethod httpMethod = httpRequest.getHttpMethod();
+        if (httpMethod != HttpMethod.GET && httpMethod != HttpMethod.HEAD) {
+            chain.processNextPolicy(httpRequest);
+            return;
+        }
+        if (chain.getCancellationToken().isCancellationRequested()) {
+            chain.completedError(new IOException("Canceled."));
+            return;
+        }
+
+        final String key = this.getFlightKey(httpRequest);
+        while (true) {
+            Flight flight = this.flights.get(key);
+            if (flight == null) {
+                final Flight newFlight = new Flight(key);
+                flight = this.flights.putIfAbsent(key, newFlight);
+                if (flight == null) {
+                    newFlight.send(chain);
+                    return;
+                }
+            }
+            if (flight.join(chain)) {
+                return;
+            }
+            // The flight completed while joining, make sure it no longer shadows the key and retry.
+            this.flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Gets the key identifying the requests identical to the given request.
+     *
+     * @param httpRequest The request.
+     * @return The key.
+     */
+    private String getFlightKey(HttpRequest httpRequest) {
+        final List<String> headers = new ArrayList<>();
+        if (httpRequest.getHeaders() != null) {
+            for (HttpHeader header : httpRequest.getHeaders()) {
+                final String name = header.getName().toLowerCase(Locale.ROOT);
+                if (!this.ignoredHeaderNames.contains(name)) {
+                    headers.add(name + ":" + header.getValue());
+                }
+            }
+        }
+        Collections.sort(headers);
+        final StringBuilder key = new StringBuilder()
+            .append(httpRequest.getHttpMethod())
+            .append(' ')
+            .append(httpRequest.getUrlString());
+        for (String header : headers) {
+            key.append('\n').append(header);
+        }
+        return key.toString();
+    }
+
+    /**
+     * A request in flight and the identical requests waiting on it.
+     */
+    private final class Flight {
+        private final String key;
+        // The requests waiting on the flight, guarded by 'this'.
+        private final List<Waiter> waiters = new ArrayList<>();
+        // Guarded by 'this', once true no request can join the flight.
+        private boolean completed;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Send the request of the flight using the chain of one of the coalesced requests.
+         *
+         * @param chain The chain of the request to send.
+         */
+        void send(HttpPipelinePolicyChain chain) {
+            chain.processNextPolicy(chain.getRequest(), new NextPolicyCallback() {
+                @Override
+                public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                    return onFlightSuccess(response, completer);
+                }
+
+                @Override
+                public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                    return onFlightError(chain, error, completer);
+                }
+            });
+        }
+
+        /**
+         * Make the request of the given chain wait on the flight.
+         *
+         * @param chain The chain of the request.
+         * @return true if the request waits on the flight, false if the flight has already completed.
+         */
+        boolean join(HttpPipelinePolicyChain chain) {
+            final Waiter waiter = new Waiter(this, chain);
+            synchronized (this) {
+                if (this.completed) {
+                    return false;
+                }
+                this.waiters.add(waiter);
+            }
+            waiter.registerOnCancel();
+            return true;
+        }
+
+        /**
+         * Remove a cancelled waiter.
+         *
+         * @param waiter The waiter.
+         */
+        synchronized void remove(Waiter waiter) {
+            this.waiters.remove(waiter);
+        }
+
+        private PolicyCompleter.CompletionState onFlightSuccess(HttpResponse response, PolicyCompleter completer) {
+            final List<Waiter> waiters = this.complete();
+            if (waiters.isEmpty()) {
+                return completer.completed(response);
+            }
+            final BufferedHttpResponse bufferedResponse = response instanceof BufferedHttpResponse
+                ? (BufferedHttpResponse) response
+                : new BufferedHttpResponse(response);
+            try {
+                bufferedResponse.getBodyAsByteArray();
+            } catch (RuntimeException e) {
+                bufferedResponse.close();
+                for (Waiter waiter : waiters) {
+                    waiter.completedError(e);
+                }
+                return completer.completedError(e);
+            }
+            for (Waiter waiter : waiters) {
+                waiter.completed(bufferedResponse);
+            }
+            return completer.completed(bufferedResponse);
+        }
+
+        private PolicyCompleter.CompletionState onFlightError(HttpPipelinePolicyChain chain,
+                                                              Throwable error,
+                                                              PolicyCompleter completer) {
+            if (chain.getCancellationToken().isCancellationRequested()) {
+                // The request in flight failed because its caller cancelled it, the waiting requests
+                // must not fail with it; one of them is sent in its place.
+                final Waiter nextSender = this.pollNextSender();
+                final PolicyCompleter.CompletionState state = completer.completedError(error);
+                if (nextSender != null) {
+                    this.send(nextSender.chain);
+                }
+                return state;
+            }
+            for (Waiter waiter : this.complete()) {
+                waiter.completedError(error);
+            }
+            return completer.completedError(error);
+        }
+
+        /**
+         * Mark the flight as completed so that no more request can join it.
+         *
+         * @return The waiters that are not cancelled.
+         */
+        private List<Waiter> complete() {
+            final List<Waiter> waiters;
+            synchronized (this) {
+                this.completed = true;
+                if (this.waiters.isEmpty()) {
+                    waiters = Collections.emptyList();
+                } else {
+                    waiters = new ArrayList<>(this.waiters);
+                    this.waiters.clear();
+                }
+            }
+            RequestCoalescingPolicy.this.flights.remove(this.key, this);
+            final List<Waiter> claimedWaiters = new ArrayList<>(waiters.size());
+            for (Waiter waiter : waiters) {
+                if (waiter.claim()) {
+                    claimedWaiters.add(waiter);
+                }
+            }
+            return claimedWaiters;
+        }
+
+        /**
+         * Take the next waiter that is not cancelled to send the request of the flight, or complete the flight
+         * if there is no such waiter.
+         *
+         * @return The waiter, null if the flight completed.
+         */
+        private Waiter pollNextSender() {
+            while (true) {
+                final Waiter waiter;
+                synchronized (this) {
+                    if (this.waiters.isEmpty()) {
+                        this.completed = true;
+                        waiter = null;
+                    } else {
+                        waiter = this.waiters.remove(0);
+                    }
+                }
+                if (waiter == null) {
+                    RequestCoalescingPolicy.this.flights.remove(this.key, this);
+                    return null;
+                }
+                if (waiter.claim()) {
+                    return waiter;
+                }
+            }
+        }
+    }
+
+    /**
+     * A request waiting on a flight, it is completed exactly once: with the result of the flight, or with
+     * an error when its caller cancels it; unless it is claimed to send the request of the flight.
+     */
+    private static final class Waiter extends AtomicBoolean implements Runnable {
+        private final Flight flight;
+        private final HttpPipelinePolicyChain chain;
+        private final String onCancelId;
+
+        Waiter(Flight flight, HttpPipelinePolicyChain chain) {
+            this.flight = flight;
+            this.chain = chain;
+            this.onCancelId = chain.getCancellationToken() == CancellationToken.NONE
+                ? null
+                : UUID.randomUUID().toString();
+        }
+
+        void registerOnCancel() {
+            if (this.onCancelId != null) {
+                this.chain.getCancellationToken().registerOnCancel(this.onCancelId, this);
+            }
+        }
+
+        /**
+         * Claim the waiter so that it is no longer completed on cancellation.
+         *
+         * @return true if claimed, false if the waiter is already completed as cancelled.
+         */
+        boolean claim() {
+            if (this.compareAndSet(false, true)) {
+                if (this.onCancelId != null) {
+                    this.chain.getCancellationToken().unregisterOnCancel(this.onCancelId);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        void completed(BufferedHttpResponse response) {
+            this.chain.completed(new BufferedHttpResponse(this.chain.getRequest(), response));
+        }
+
+        void completedError(Throwable error) {
+            this.chain.completedError(error);
+        }
+
+        @Override
+        public void run() {
+            // Invoked when the caller cancels the request.
+            if (this.compareAndSet(false, true)) {
+                this.flight.remove(this);
+                this.chain.completedError(new IOException("Canceled."));
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@
 
 package com.azure.android.core.http.policy;
 
+import com.azure.android.core.http.HttpHeaders;
 import com.azure.android.core.http.HttpPipelinePolicy;
 import com.azure.android.core.http.HttpPipelinePolicyChain;
 import com.azure.android.core.http.HttpRequest;
@@ -16,7 +17,7 @@ import java.util.UUID;
  */
 public class RequestIdPolicy implements HttpPipelinePolicy {
 
-    private static final String REQUEST_ID_HEADER = "x-ms-client-request-id";
+    private static final String REQUEST_ID_HEADER = HttpHeaders.CLIENT_REQUEST_ID;
     private final String requestIdHeaderName;
 
     /**
@@ -0,0 +1,123 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.logging.ClientLogger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The budget of the retries of one or more {@link RetryPolicy}, bounding the retries to a ratio of the
+ * successful requests so that an outage does not multiply the traffic by the maximum number of retries.
+ *
+ * <p>
+ * The budget is a token bucket: each successful request, i.e. a request whose response the
+ * {@link RetryStrategy} does not retry, deposits {@code retryRatio} of a retry, and each retry withdraws
+ * a whole retry. The bucket starts full and holds at most {@code maxRetryBurst} retries. A retry that finds
+ * the budget exhausted is not attempted, the request completes with its last response or error.
+ * </p>
+ */
+public final class RetryBudget {
+    // The balance is kept in thousandths of a retry, so that deposits of a ratio are exact enough.
+    private static final long RETRY_COST = 1000;
+
+    private final ClientLogger logger = new ClientLogger(RetryBudget.class);
+    private final long deposit;
+    private final long maxBalance;
+    private final AtomicLong balance;
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong rejectedRetryCount = new AtomicLong();
+
+    /**
+     * Creates a RetryBudget that allows retries up to 20% of the successful requests, and a burst of 10 retries.
+     */
+    public RetryBudget() {
+        this(0.2, 10);
+    }
+
+    /**
+     * Creates a RetryBudget.
+     *
+     * @param retryRatio The number of retries each successful request adds to the budget, e.g. 0.1 to allow
+     *     retries up to 10% of the successful requests.
+     * @param maxRetryBurst The number of retries the budget holds at most, and starts with.
+     * @throws IllegalArgumentException if {@code retryRatio} is not between 0 and 1, or if {@code maxRetryBurst}
+     *     is negative.
+     */
+    public RetryBudget(double retryRatio, int maxRetryBurst) {
+        if (!(retryRatio >= 0 && retryRatio <= 1)) {
+            throw logger.logExceptionAsError(new IllegalArgumentException(
+                "'retryRatio' must be between 0 and 1, provided:" + retryRatio));
+        }
+        if (maxRetryBurst < 0) {
+            throw logger.logExceptionAsError(new IllegalArgumentException(
+                "'maxRetryBurst' must not be negative, provided:" + maxRetryBurst));
+        }
+        this.deposit = Math.round(retryRatio * RETRY_COST);
+        this.maxBalance = Math.max(maxRetryBurst * RETRY_COST, RETRY_COST);
+        this.balance = new AtomicLong(maxRetryBurst * RETRY_COST);
+    }
+
+    /**
+     * Gets the number of retries the budget currently allows.
+     *
+     * @return The number of retries, with the fraction deposited towards the next retry.
+     */
+    public double getBalance() {
+        return (double) this.balance.get() / RETRY_COST;
+    }
+
+    /**
+     * Gets the number of retries the budget allowed.
+     *
+     * @return The number of allowed retries.
+     */
+    public long getRetryCount() {
+        return this.retryCount.get();
+    }
+
+    /**
+     * Gets the number of retries that were not attempted since the budget was exhausted.
+     *
+     * @return The number of rejected retries.
+     */
+    public long getRejectedRetryCount() {
+        return this.rejectedRetryCount.get();
+    }
+
+    /**
+     * package-private.
+     *
+     * Deposit the share of a successful request in the budget.
+     */
+    void onSuccess() {
+        long current;
+        do {
+            current = this.balance.get();
+            if (current >= this.maxBalance) {
+                return;
+            }
+        } while (!this.balance.compareAndSet(current, Math.min(this.maxBalance, current + this.deposit)));
+    }
+
+    /**
+     * package-private.
+     *
+     * Try to withdraw a retry from the budget.
+     *
+     * @return true if the retry is allowed, false if the budget is exhausted.
+     */
+    boolean tryAcquireRetry() {
+        long current;
+        do {
+            current = this.balance.get();
+            if (current < RETRY_COST) {
+                this.rejectedRetryCount.incrementAndGet();
+                return false;
+            }
+        } while (!this.balance.compareAndSet(current, current - RETRY_COST));
+        this.retryCount.incrementAndGet();
+        return true;
+    }
+}
@@ -3,6 +3,7 @@
 
 package com.azure.android.core.http.policy;
 
+import com.azure.android.core.http.HttpCallDeadline;
 import com.azure.android.core.http.HttpPipelinePolicy;
 import com.azure.android.core.http.HttpPipelinePolicyChain;
 import com.azure.android.core.http.HttpResponse;
@@ -19,9 +20,21 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Pipeline interceptor that retries when a recoverable exception or HTTP error occurs.
+ *
+ * <p>
+ * If the request context carries an {@link HttpCallDeadline}, a retry is not attempted when the time remaining
+ * until the deadline cannot cover the retry delay; the last response or error is returned instead.
+ * </p>
+ *
+ * <p>
+ * If the policy is created with a {@link RetryBudget}, a retry is attempted only while the budget allows it,
+ * so that the retries stay a fraction of the successful requests when a service fails persistently; the last
+ * response or error is returned immediately once the budget is exhausted.
+ * </p>
  */
 public class RetryPolicy implements HttpPipelinePolicy {
     private final RetryStrategy retryStrategy;
+    private final RetryBudget retryBudget;
 
     /**
      * Creates {@link RetryPolicy} with the provided {@link RetryStrategy}.
@@ -29,7 +42,20 @@ public class RetryPolicy implements HttpPipelinePolicy {
      * @param retryStrategy The {@link RetryStrategy} used for retries.
      */
     public RetryPolicy(RetryStrategy retryStrategy) {
+        this(retryStrategy, null);
+    }
+
+    /**
+     * Creates {@link RetryPolicy} with the provided {@link RetryStrategy} that attempts the retries only while
+     * the given {@link RetryBudget} allows them. The budget can be shared by the policies of several pipelines
+     * calling the same service.
+     *
+     * @param retryStrategy The {@link RetryStrategy} used for retries.
+     * @param retryBudget The budget of the retries, null for none.
+     */
+    public RetryPolicy(RetryStrategy retryStrategy, RetryBudget retryBudget) {
         this.retryStrategy = retryStrategy;
+        this.retryBudget = retryBudget;
     }
 
     /**
@@ -108,6 +134,10 @@ public class RetryPolicy implements HttpPipelinePolicy {
 
         if (!shouldRetry(response, error, retryAttempts)) {
             if (response != null) {
+                if (this.retryBudget != null && !this.retryStrategy.shouldRetry(response, null, retryAttempts)) {
+                    // A response the strategy does not retry is a success for the budget.
+                    this.retryBudget.onSuccess();
+                }
                 return completer.completed(response);
             } else {
                 if (retryAttempts >= this.retryStrategy.getMaxRetries()) {
@@ -126,15 +156,26 @@ public class RetryPolicy implements HttpPipelinePolicy {
             Duration delay = null;
             Throwable userError = null;
             try {
-                delay = calculateRetryDelay(response, null, retryAttempts);
+                delay = calculateRetryDelay(response, error, retryAttempts);
             } catch (Throwable e) {
                 userError = e;
-            } finally {
+            }
+
+            if (userError == null
+                && (!isWithinDeadline(chain, delay)
+                    || (this.retryBudget != null && !this.retryBudget.tryAcquireRetry()))) {
+                // The retry would run past the deadline of the call or exceed the budget, skip it.
                 if (response != null) {
-                    response.close();
+                    return completer.completed(response);
+                } else {
+                    return completer.completedError(error);
                 }
             }
 
+            if (response != null) {
+                response.close();
+            }
+
             if (userError != null) {
                 return completer.completedError(userError);
             } else {
@@ -166,31 +207,58 @@ public class RetryPolicy implements HttpPipelinePolicy {
         if (exception != null) {
             return this.retryStrategy.calculateRetryDelay(null, exception, retryAttempts);
         } else {
-            final int code = response.getStatusCode();
-            if (code == 429) {
-                // Too Many Requests.
-                // https://docs.microsoft.com/en-us/rest/api/cosmos-db/common-cosmosdb-rest-response-headers
-                final String retryAfterHeader = response.getHeaderValue("x-ms-retry-after-ms");
-                if (retryAfterHeader != null) {
-                    return Duration.of(Integer.parseInt(retryAfterHeader), ChronoUnit.MILLIS);
-                }
+            final Duration retryAfter = getRetryAfter(response);
+            if (retryAfter != null) {
+                return retryAfter;
             }
+            return this.retryStrategy.calculateRetryDelay(response, null, retryAttempts);
+        }
+    }
 
-            if (code == 429 || code == 503) {
-                // Too Many Requests OR Service Unavailable
-                // https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Retry-After
-                final String retryAfterHeader = response.getHeaderValue("Retry-After");
-                if (retryAfterHeader != null) {
-                    try {
-                        return Duration.between(OffsetDateTime.now(),
-                            OffsetDateTime.parse(retryAfterHeader, DateTimeFormatter.RFC_1123_DATE_TIME));
-                    } catch (Exception ignored) {
-                        return Duration.of(Integer.parseInt(retryAfterHeader), ChronoUnit.SECONDS);
-                    }
+    /**
+     * Gets the delay a throttled response asks to wait before sending another request.
+     *
+     * @param response The HTTP response.
+     * @return The delay in the 'x-ms-retry-after-ms' or 'Retry-After' header of a 429 (Too Many Requests) or
+     *     503 (Service Unavailable) response, null if the response has no such delay.
+     */
+    static Duration getRetryAfter(HttpResponse response) {
+        final int code = response.getStatusCode();
+        if (code == 429) {
+            // Too Many Requests.
+            // https://docs.microsoft.com/en-us/rest/api/cosmos-db/common-cosmosdb-rest-response-headers
+            final String retryAfterHeader = response.getHeaderValue("x-ms-retry-after-ms");
+            if (retryAfterHeader != null) {
+                return Duration.of(Integer.parseInt(retryAfterHeader), ChronoUnit.MILLIS);
+            }
+        }
+
+        if (code == 429 || code == 503) {
+            // Too Many Requests OR Service Unavailable
+            // https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Retry-After
+            final String retryAfterHeader = response.getHeaderValue("Retry-After");
+            if (retryAfterHeader != null) {
+                try {
+                    return Duration.between(OffsetDateTime.now(),
+                        OffsetDateTime.parse(retryAfterHeader, DateTimeFormatter.RFC_1123_DATE_TIME));
+                } catch (Exception ignored) {
+                    return Duration.of(Integer.parseInt(retryAfterHeader), ChronoUnit.SECONDS);
                 }
             }
-            return this.retryStrategy.calculateRetryDelay(response, null, retryAttempts);
         }
+        return null;
+    }
+
+    /**
+     * Determines whether a retry after the given delay can run before the deadline of the call, if any.
+     *
+     * @param chain The chain carrying the request context.
+     * @param delay The delay before the retry.
+     * @return True if the call has no deadline or the remaining time covers the delay, false otherwise.
+     */
+    private static boolean isWithinDeadline(HttpPipelinePolicyChain chain, Duration delay) {
+        final HttpCallDeadline deadline = HttpCallDeadline.fromContext(chain.getContext());
+        return deadline == null || deadline.getRemaining(TimeUnit.MILLISECONDS) > delay.toMillis();
     }
 
     /**
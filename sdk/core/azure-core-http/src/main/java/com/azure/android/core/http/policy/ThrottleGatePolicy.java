@@ -0,0 +1,377 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallDeadline;
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.NextPolicyCallback;
+import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.exception.DeadlineExceededException;
+import com.azure.android.core.logging.ClientLogger;
+import com.azure.android.core.util.CancellationToken;
+
+import org.threeten.bp.Duration;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The pipeline policy that holds back all the requests to a host while the host is throttling, and optionally
+ * limits the rate of the requests to each host.
+ *
+ * <p>
+ * When a host answers a request with a 429 (Too Many Requests) or 503 (Service Unavailable) response carrying
+ * an 'x-ms-retry-after-ms' or 'Retry-After' header, the policy pauses every request to that host, not only the
+ * throttled one, until the advertised time, so that the concurrent requests do not collect more throttled
+ * responses. The requests reaching the policy during the pause wait for its end without holding a dispatcher
+ * thread, and check the pause again when they wake, in case the host extended it; the requests already sent are
+ * not recalled.
+ * </p>
+ *
+ * <p>
+ * A policy created with a rate also spaces the requests to each host with a token bucket: up to {@code burst}
+ * requests are sent at once, the following requests are sent at {@code requestsPerSecond}. A request cancelled
+ * while waiting gives back its token.
+ * </p>
+ *
+ * <p>
+ * The policy should be placed after the {@link RetryPolicy}, so that the retries also wait for the end of
+ * the pause. A request whose {@link HttpCallDeadline} expires before the end of its wait fails immediately
+ * with {@link DeadlineExceededException}.
+ * </p>
+ */
+public class ThrottleGatePolicy implements HttpPipelinePolicy {
+    // The longest pause honoured, so that a bogus 'Retry-After' header does not block a host indefinitely.
+    private static final long MAX_PAUSE_NANOS = TimeUnit.MINUTES.toNanos(5);
+    // The time with no request after which the gate of a host that is not paused and whose bucket is full is
+    // discarded, also the period of the sweeps.
+    private static final long IDLE_GATE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final ClientLogger logger = new ClientLogger(ThrottleGatePolicy.class);
+    // The rate of the token bucket, 0 if the requests are paused only while the host is throttling.
+    private final double permitsPerNano;
+    private final int burst;
+    private final ConcurrentHashMap<String, HostGate> hostGates = new ConcurrentHashMap<>();
+    private final AtomicLong delayedRequestCount = new AtomicLong();
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime() + IDLE_GATE_NANOS);
+
+    /**
+     * Creates a ThrottleGatePolicy that pauses the requests to a host only while the host is throttling.
+     */
+    public ThrottleGatePolicy() {
+        this.permitsPerNano = 0;
+        this.burst = 0;
+    }
+
+    /**
+     * Creates a ThrottleGatePolicy that pauses the requests to a host while the host is throttling and limits
+     * the rate of the requests to each host.
+     *
+     * @param requestsPerSecond The steady rate of the requests to a host.
+     * @param burst The number of requests to a host that can be sent at once after an idle period.
+     * @throws IllegalArgumentException if {@code requestsPerSecond} or {@code burst} is not positive.
+     */
+    public ThrottleGatePolicy(double requestsPerSecond, int burst) {
+        if (!(requestsPerSecond > 0)) {
+            throw logger.logExceptionAsError(new IllegalArgumentException(
+                "'requestsPerSecond' must be greater than 0, provided:" + requestsPerSecond));
+        }
+        if (burst < 1) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'burst' must be greater than 0, provided:" + burst));
+        }
+        this.permitsPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+    }
+
+    /**
+     * Gets the remaining time the requests to the given host are paused for, since the host is throttling.
+     *
+     * @param host The host.
+     * @return The remaining time of the pause, {@link Duration#ZERO} if the host is not paused.
+     */
+    public Duration getPauseRemaining(String host) {
+        final HostGate hostGate = this.hostGates.get(host);
+        return hostGate == null ? Duration.ZERO : Duration.ofNanos(hostGate.getPauseRemainingNanos());
+    }
+
+    /**
+     * Gets the number of requests the policy held back, by a pause or by the rate limit.
+     *
+     * @return The number of delayed requests.
+     */
+    public long getDelayedRequestCount() {
+        return this.delayedRequestCount.get();
+    }
+
+    @Override
+    public void process(HttpPipelinePolicyChain chain) {
+        if (chain.getCancellationToken().isCancellationRequested()) {
+            chain.completedError(new IOException("Canceled."));
+            return;
+        }
+        final HttpRequest httpRequest = chain.getRequest();
+        final String host = httpRequest.getHost();
+        if (host == null) {
+            chain.processNextPolicy(httpRequest);
+            return;
+        }
+        this.sweepIdleGates();
+        HostGate hostGate = this.hostGates.get(host);
+        if (hostGate == null) {
+            final HostGate newHostGate = new HostGate(host);
+            hostGate = this.hostGates.putIfAbsent(host, newHostGate);
+            if (hostGate == null) {
+                hostGate = newHostGate;
+            }
+        }
+
+        final HostGate gate = hostGate;
+        final NextPolicyCallback callback = new NextPolicyCallback() {
+            @Override
+            public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                gate.onResponse(response);
+                return completer.completed(response);
+            }
+
+            @Override
+            public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                return completer.completedError(error);
+            }
+        };
+
+        final long waitNanos = gate.reserve(System.nanoTime());
+        if (waitNanos <= 0) {
+            chain.processNextPolicy(httpRequest, callback);
+            return;
+        }
+        this.delayedRequestCount.incrementAndGet();
+        new Waiter(chain, gate, callback).await(waitNanos);
+    }
+
+    /**
+     * Discard the gates of the hosts that received no request for a while, at most once per period.
+     */
+    private void sweepIdleGates() {
+        final long nowNanos = System.nanoTime();
+        final long sweepNanos = this.nextSweepNanos.get();
+        if (nowNanos - sweepNanos < 0
+            || !this.nextSweepNanos.compareAndSet(sweepNanos, nowNanos + IDLE_GATE_NANOS)) {
+            return;
+        }
+        final Iterator<HostGate> iterator = this.hostGates.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isIdle(nowNanos)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * A request held back by the gate of its host, holding the token it reserved until it is sent or cancelled.
+     */
+    private final class Waiter implements Runnable {
+        private final HttpPipelinePolicyChain chain;
+        private final HostGate gate;
+        private final NextPolicyCallback callback;
+        private final String onCancelId;
+        // Set by the first of the request leaving the gate and its cancellation, so that only one of them acts.
+        private final AtomicBoolean settled = new AtomicBoolean(false);
+
+        Waiter(HttpPipelinePolicyChain chain, HostGate gate, NextPolicyCallback callback) {
+            this.chain = chain;
+            this.gate = gate;
+            this.callback = callback;
+            this.onCancelId = chain.getCancellationToken() == CancellationToken.NONE
+                ? null
+                : UUID.randomUUID().toString();
+            if (this.onCancelId != null) {
+                chain.getCancellationToken().registerOnCancel(this.onCancelId, () -> {
+                    synchronized (this.gate) {
+                        if (this.settled.compareAndSet(false, true)) {
+                            this.gate.release();
+                        }
+                    }
+                });
+            }
+        }
+
+        /**
+         * Wait before checking the gate again, or fail the request if its deadline expires first.
+         *
+         * @param waitNanos The time to wait.
+         */
+        void await(long waitNanos) {
+            final HttpCallDeadline deadline = HttpCallDeadline.fromContext(this.chain.getContext());
+            if (deadline != null && deadline.getRemaining(TimeUnit.NANOSECONDS) <= waitNanos) {
+                if (this.leave()) {
+                    this.gate.release();
+                    this.chain.completedError(new DeadlineExceededException("The request cannot be sent before its "
+                        + "deadline, the requests to the host '" + this.gate.host + "' are held back.",
+                        this.chain.getRequest()));
+                }
+                return;
+            }
+            // Round up so that the gate is not checked before the end of the wait.
+            this.chain.continueAfter(this,
+                TimeUnit.NANOSECONDS.toMillis(waitNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1),
+                TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            // Invoked once the wait elapsed.
+            final long waitNanos;
+            synchronized (this.gate) {
+                // Checked under the lock of the gate, so that the token of a cancelled request is given back once.
+                waitNanos = this.settled.get() ? 0 : this.gate.extendReservation(System.nanoTime());
+            }
+            if (waitNanos > 0) {
+                // The host extended its pause while the request was waiting.
+                this.await(waitNanos);
+            } else if (this.leave()) {
+                this.chain.processNextPolicy(this.chain.getRequest(), this.callback);
+            }
+        }
+
+        /**
+         * Settle the request as it leaves the gate, sent or failed; if it was cancelled in the meantime, its
+         * token is already given back and it fails.
+         *
+         * @return true if the request left the gate, false if it was cancelled and failed.
+         */
+        private boolean leave() {
+            if (this.onCancelId != null) {
+                this.chain.getCancellationToken().unregisterOnCancel(this.onCancelId);
+            }
+            if (this.settled.compareAndSet(false, true)) {
+                return true;
+            }
+            this.chain.completedError(new IOException("Canceled."));
+            return false;
+        }
+    }
+
+    /**
+     * The pause and the token bucket of a host.
+     */
+    private final class HostGate {
+        private final String host;
+        // The fields are guarded by 'this'; the times are System.nanoTime() values, compared by difference.
+        private long pausedUntilNanos;
+        private double tokens;
+        private long lastRefillNanos;
+        private long lastRequestNanos;
+
+        HostGate(String host) {
+            this.host = host;
+            this.pausedUntilNanos = System.nanoTime();
+            this.lastRefillNanos = this.pausedUntilNanos;
+            this.lastRequestNanos = this.pausedUntilNanos;
+            this.tokens = burst;
+        }
+
+        synchronized long getPauseRemainingNanos() {
+            return Math.max(0, this.pausedUntilNanos - System.nanoTime());
+        }
+
+        synchronized boolean isIdle(long nowNanos) {
+            return nowNanos - this.lastRequestNanos >= IDLE_GATE_NANOS
+                && this.pausedUntilNanos - nowNanos <= 0
+                && (permitsPerNano == 0 || this.tokens + (nowNanos - this.lastRefillNanos) * permitsPerNano >= burst);
+        }
+
+        /**
+         * Give back the token reserved by a request that is not sent.
+         */
+        synchronized void release() {
+            if (permitsPerNano != 0) {
+                this.tokens = Math.min(burst, this.tokens + 1);
+            }
+        }
+
+        /**
+         * Check the gate again for a request that waited for its reserved time; if the host extended its pause
+         * in the meantime, reserve a new time past the end of the pause in place of the reserved one.
+         *
+         * @param nowNanos The current time.
+         * @return The time to wait before sending the request, 0 or less to send it now.
+         */
+        synchronized long extendReservation(long nowNanos) {
+            if (this.pausedUntilNanos - nowNanos <= 0) {
+                return 0;
+            }
+            this.release();
+            return this.reserve(nowNanos);
+        }
+
+        /**
+         * Reserve the time to send a request, past the end of the pause and, with a token bucket, once a token
+         * is available.
+         *
+         * @param nowNanos The current time.
+         * @return The time to wait before sending the request, 0 or less to send it now.
+         */
+        synchronized long reserve(long nowNanos) {
+            this.lastRequestNanos = nowNanos;
+            final long startNanos = this.pausedUntilNanos - nowNanos > 0 ? this.pausedUntilNanos : nowNanos;
+            if (permitsPerNano == 0) {
+                return startNanos - nowNanos;
+            }
+            if (startNanos - this.lastRefillNanos > 0) {
+                this.tokens = Math.min(burst, this.tokens + (startNanos - this.lastRefillNanos) * permitsPerNano);
+                this.lastRefillNanos = startNanos;
+            }
+            // The tokens go negative when requests wait for the bucket to refill, each waiting request
+            // holding the token it will be sent with.
+            this.tokens -= 1;
+            final long sendNanos = this.tokens >= 0
+                ? startNanos
+                : this.lastRefillNanos + (long) (-this.tokens / permitsPerNano);
+            return sendNanos - nowNanos;
+        }
+
+        /**
+         * Pause the requests to the host if the response asks to wait before sending another request.
+         *
+         * @param response The response.
+         */
+        void onResponse(HttpResponse response) {
+            final int statusCode = response.getStatusCode();
+            if (statusCode != 429 && statusCode != 503) {
+                return;
+            }
+            final Duration retryAfter;
+            try {
+                retryAfter = RetryPolicy.getRetryAfter(response);
+            } catch (RuntimeException e) {
+                logger.warning("Ignoring the invalid retry-after header of the host '" + this.host + "'.", e);
+                return;
+            }
+            if (retryAfter == null || retryAfter.isNegative() || retryAfter.isZero()) {
+                return;
+            }
+            final long pauseNanos = retryAfter.compareTo(Duration.ofNanos(MAX_PAUSE_NANOS)) > 0
+                ? MAX_PAUSE_NANOS
+                : retryAfter.toNanos();
+            synchronized (this) {
+                final long untilNanos = System.nanoTime() + pauseNanos;
+                if (untilNanos - this.pausedUntilNanos <= 0) {
+                    return;
+                }
+                this.pausedUntilNanos = untilNanos;
+            }
+            logger.info("Pausing the requests to the host '" + this.host + "' for "
+                + TimeUnit.NANOSECONDS.toMillis(pauseNanos) + "ms since it is throttling.");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.NextPolicyCallback;
+import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.implementation.HashedWheelTimer;
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.logging.ClientLogger;
+import com.azure.android.core.util.CancellationToken;
+
+import org.threeten.bp.Duration;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The pipeline policy that bounds the time of each attempt to send a request, until its response headers
+ * are received.
+ *
+ * <p>
+ * Each attempt is sent with a child of the request's {@link CancellationToken}, see
+ * {@link CancellationToken#createChild()}. When the attempt does not complete within the timeout, the policy
+ * cancels the child token, which makes the {@link com.azure.android.core.http.HttpClient} abort the call and
+ * release its dispatcher slot, and fails the attempt with a {@link TimeoutException}; the request's own token
+ * is not cancelled. The policy should be placed after the {@link RetryPolicy}, which then retries the request
+ * with a new attempt, the default {@link RetryStrategy} retrying a {@link TimeoutException}.
+ * </p>
+ */
+public class TimeoutPolicy implements HttpPipelinePolicy {
+    private final ClientLogger logger = new ClientLogger(TimeoutPolicy.class);
+    private final long timeoutNanos;
+    private final AtomicLong timedOutCount = new AtomicLong();
+
+    /**
+     * Creates a TimeoutPolicy.
+     *
+     * @param timeout The time each attempt has to receive its response.
+     * @throws IllegalArgumentException if {@code timeout} is not positive.
+     */
+    public TimeoutPolicy(Duration timeout) {
+        Util.requireNonNull(timeout, "'timeout' is required.");
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'timeout' must be greater than 0, provided:" + timeout));
+        }
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Gets the number of attempts that did not complete within the timeout.
+     *
+     * @return The number of timed out attempts.
+     */
+    public long getTimedOutCount() {
+        return this.timedOutCount.get();
+    }
+
+    @Override
+    public void process(HttpPipelinePolicyChain chain) {
+        if (chain.getCancellationToken().isCancellationRequested()) {
+            chain.completedError(new IOException("Canceled."));
+            return;
+        }
+        final Attempt attempt = new Attempt(chain.getCancellationToken().createChild());
+        // The timer the HttpCallDispatcher uses for the delayed calls, so that the policy starts no thread.
+        attempt.timeout = HashedWheelTimer.getSharedTimer().schedule(attempt, this.timeoutNanos, TimeUnit.NANOSECONDS);
+        chain.processNextPolicy(chain.getRequest(), attempt.cancellationToken, new NextPolicyCallback() {
+            @Override
+            public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                // A response received as the timer fires is kept, it is as good as a retry's.
+                attempt.complete();
+                return completer.completed(response);
+            }
+
+            @Override
+            public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                if (!attempt.complete() || chain.getCancellationToken().isCancellationRequested()) {
+                    return completer.completedError(error);
+                }
+                final TimeoutException timeoutError = new TimeoutException("The attempt did not receive a response "
+                    + "within " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms.");
+                timeoutError.initCause(error);
+                return completer.completedError(timeoutError);
+            }
+        });
+    }
+
+    /**
+     * An attempt to send the request, cancelled through its token when the timer fires before it completes.
+     */
+    private final class Attempt implements Runnable {
+        private static final int PENDING = 0;
+        private static final int COMPLETED = 1;
+        private static final int TIMED_OUT = 2;
+
+        final CancellationToken cancellationToken;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // The handle to cancel the timer task once the attempt completes, set before the attempt is sent.
+        HashedWheelTimer.Timeout timeout;
+
+        Attempt(CancellationToken cancellationToken) {
+            this.cancellationToken = cancellationToken;
+        }
+
+        @Override
+        public void run() {
+            // Invoked by the timer, unless the attempt completed first.
+            if (this.state.compareAndSet(PENDING, TIMED_OUT)) {
+                timedOutCount.incrementAndGet();
+                this.cancellationToken.cancel();
+            }
+        }
+
+        /**
+         * Mark the attempt completed.
+         *
+         * @return true if the attempt timed out, false otherwise.
+         */
+        boolean complete() {
+            if (this.state.compareAndSet(PENDING, COMPLETED)) {
+                // Remove the timer task rather than keep it until the timeout elapses.
+                this.timeout.cancel();
+                this.cancellationToken.detachFromParent();
+                return false;
+            }
+            return this.state.get() == TIMED_OUT;
+        }
+    }
+}
@@ -61,17 +61,27 @@ public class UserAgentPolicy implements HttpPipelinePolicy {
             .append("/")
             .append(sdkVersion);
 
-        // Note: there is no good way to get the Java language version on Android
-        // (System.getProperty("java.version") returns "0", for example).
-
         userAgentBuilder.append(" ")
             .append("(")
-            .append(String.format("%s; %s", Build.MANUFACTURER, Build.MODEL))
+            .append(getPlatformInfo())
             .append(")");
 
         this.userAgent = userAgentBuilder.toString();
     }
 
+    private static String getPlatformInfo() {
+        try {
+            Class.forName("android.os.Build", false, UserAgentPolicy.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            // Running on a JVM.
+            return String.format("%s; %s; %s", System.getProperty("java.version"), System.getProperty("os.name"),
+                System.getProperty("os.version"));
+        }
+        // Note: there is no good way to get the Java language version on Android
+        // (System.getProperty("java.version") returns "0", for example).
+        return String.format("%s; %s", Build.MANUFACTURER, Build.MODEL);
+    }
+
 
     /**
      * Updates the "User-Agent" header with the value supplied at the time of creating policy.
@@ -0,0 +1,49 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures the bytes an operation allocates on the calling thread.
+ *
+ * <p>
+ * A JUnit stand-in for a JMH benchmark run with the GC profiler ({@code -prof gc}), since the repo has no JMH
+ * setup: the operation is run to warm up, then run again between two reads of the thread's allocated bytes
+ * as reported by {@link com.sun.management.ThreadMXBean}. The test calling it is skipped on a runtime that does
+ * not report allocated bytes.
+ * </p>
+ */
+public final class AllocationMeter {
+    private AllocationMeter() {
+    }
+
+    /**
+     * Gets the bytes allocated on the calling thread per run of an operation.
+     *
+     * @param operation The operation, it must run on the calling thread only.
+     * @param operationCount The number of runs to warm up with, then to measure.
+     * @return The bytes allocated per run, averaged over the measured runs.
+     */
+    public static long bytesPerOp(Runnable operation, int operationCount) {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+            "The runtime does not report allocated bytes.");
+        final com.sun.management.ThreadMXBean threadMXBean
+            = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(), "The runtime does not report allocated bytes.");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        final long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < operationCount; i++) {
+            operation.run();
+        }
+        final long allocatedBytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < operationCount; i++) {
+            operation.run();
+        }
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytesBefore) / operationCount;
+    }
+}
@@ -0,0 +1,216 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.policy.FixedDelay;
+import com.azure.android.core.http.policy.MockHttpResponse;
+import com.azure.android.core.http.policy.RetryPolicy;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpCallConcurrencyLimiterTests {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void afterEach() {
+        this.serverThreads.shutdownNow();
+    }
+
+    @Test
+    public void limitGrowsWhileRoundTripsStayLow() {
+        final HttpCallConcurrencyLimiter limiter = new HttpCallConcurrencyLimiter(4, 1, 6);
+        for (int i = 0; i < 100; i++) {
+            limiter.onRoundTrip("a.com", 10 * MILLIS, limiter.getLimit("a.com"));
+        }
+        assertEquals(6, limiter.getLimit("a.com"));
+        // A host whose limit is not in use keeps its limit.
+        for (int i = 0; i < 100; i++) {
+            limiter.onRoundTrip("b.com", 10 * MILLIS, 1);
+        }
+        assertEquals(4, limiter.getLimit("b.com"));
+    }
+
+    @Test
+    public void limitShrinksOnThrottleAndQueuing() throws InterruptedException {
+        final HttpCallConcurrencyLimiter limiter = new HttpCallConcurrencyLimiter(40, 1, 100);
+        limiter.onRoundTrip("a.com", 50 * MILLIS, 1);
+
+        limiter.onThrottled("a.com");
+        assertEquals(20, limiter.getLimit("a.com"));
+        // The throttled calls in flight at the same time do not shrink the limit further.
+        limiter.onThrottled("a.com");
+        assertEquals(20, limiter.getLimit("a.com"));
+
+        Thread.sleep(60);
+        limiter.onRoundTrip("a.com", 200 * MILLIS, 20);
+        assertEquals(18, limiter.getLimit("a.com"));
+        assertEquals(40, limiter.getLimit("b.com"));
+    }
+
+    @Test
+    public void idleHostsAreDiscarded() {
+        final HttpCallConcurrencyLimiter limiter = new HttpCallConcurrencyLimiter(4, 1, 10);
+        limiter.onRoundTrip("a.com", 10 * MILLIS, 1);
+        limiter.onThrottled("b.com");
+        assertEquals(4, limiter.getLimit("a.com"));
+        assertEquals(2, limiter.getLimit("b.com"));
+        assertEquals(2, limiter.getHostsCount());
+
+        // Not idle yet.
+        limiter.removeIdleHosts(System.nanoTime());
+        assertEquals(2, limiter.getHostsCount());
+
+        // The idle host at the initial limit is discarded, the limit of the other returns to the initial limit.
+        final long idleNanos = System.nanoTime() + HttpCallConcurrencyLimiter.IDLE_HOST_NANOS;
+        limiter.removeIdleHosts(idleNanos);
+        assertEquals(1, limiter.getHostsCount());
+        assertEquals(4, limiter.getLimit("a.com"));
+        assertEquals(4, limiter.getLimit("b.com"));
+
+        // Then discarded if it stays idle.
+        limiter.removeIdleHosts(idleNanos);
+        assertEquals(0, limiter.getHostsCount());
+        assertEquals(4, limiter.getLimit("b.com"));
+
+        // A host that received a response since is kept.
+        limiter.onThrottled("c.com");
+        limiter.removeIdleHosts(idleNanos);
+        assertEquals(1, limiter.getHostsCount());
+        assertEquals(2, limiter.getLimit("c.com"));
+    }
+
+    @Test
+    public void invalidLimitsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new HttpCallConcurrencyLimiter(1, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new HttpCallConcurrencyLimiter(1, 2, 10));
+        assertThrows(IllegalArgumentException.class, () -> new HttpCallConcurrencyLimiter(5, 5, 4));
+    }
+
+    @Test
+    public void limitConvergesToCapacityOfThrottlingServer() throws InterruptedException {
+        // The server serves up to 10 concurrent requests in 10ms each and rejects the excess with 503.
+        final int capacity = 10;
+        final SimulatedServer withoutLimiter = new SimulatedServer(capacity, 10, false);
+        simulate(withoutLimiter, null, 300);
+
+        final HttpCallConcurrencyLimiter limiter = new HttpCallConcurrencyLimiter(40, 1, 200);
+        final SimulatedServer withLimiter = new SimulatedServer(capacity, 10, false);
+        simulate(withLimiter, limiter, 300);
+
+        assertEquals(300, withLimiter.servedCount.get());
+        assertTrue(limiter.getLimit("a.com") <= 2 * capacity, "limit:" + limiter.getLimit("a.com"));
+        assertTrue(withLimiter.maxConcurrency.get() <= 40, "concurrency:" + withLimiter.maxConcurrency.get());
+        assertTrue(withLimiter.rejectedCount.get() * 2 < withoutLimiter.rejectedCount.get(),
+            "rejected:" + withLimiter.rejectedCount.get() + " without limiter:" + withoutLimiter.rejectedCount.get());
+    }
+
+    @Test
+    public void limitConvergesToCapacityOfQueuingServer() throws InterruptedException {
+        // The server serves up to 4 concurrent requests in 20ms each and queues the excess.
+        final int capacity = 4;
+        final HttpCallConcurrencyLimiter limiter = new HttpCallConcurrencyLimiter(32, 1, 200);
+        final SimulatedServer server = new SimulatedServer(capacity, 20, true);
+        simulate(server, limiter, 400);
+
+        assertEquals(400, server.servedCount.get());
+        // The limit shrinks from 32 to keep the queue of the server short.
+        assertTrue(limiter.getLimit("a.com") <= 4 * capacity, "limit:" + limiter.getLimit("a.com"));
+    }
+
+    private void simulate(SimulatedServer server, HttpCallConcurrencyLimiter limiter, int requestCount)
+        throws InterruptedException {
+        final HttpCallDispatcher dispatcher = server.getHttpCallDispatcher();
+        dispatcher.setConcurrencyLimiter(limiter);
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(server)
+            .policies(new RetryPolicy(new FixedDelay(50, Duration.ofMillis(20))))
+            .build();
+
+        final CountDownLatch latch = new CountDownLatch(requestCount);
+        for (int i = 0; i < requestCount; i++) {
+            pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/threads"), RequestContext.NONE,
+                CancellationToken.NONE, new HttpCallback() {
+                    @Override
+                    public void onSuccess(HttpResponse response) {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        latch.countDown();
+                    }
+                });
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        if (server.workers != this.serverThreads) {
+            server.workers.shutdownNow();
+        }
+    }
+
+    /**
+     * An HttpClient simulating a server that serves {@code capacity} concurrent requests, each in
+     * {@code serviceMillis}, and either queues or rejects with 503 the requests beyond its capacity.
+     */
+    private final class SimulatedServer implements HttpClient {
+        private final HttpCallDispatcher httpCallDispatcher = new HttpCallDispatcher();
+        private final int capacity;
+        private final long serviceMillis;
+        private final boolean queueExcess;
+        private final ExecutorService workers;
+        private final AtomicInteger concurrency = new AtomicInteger();
+        final AtomicInteger maxConcurrency = new AtomicInteger();
+        final AtomicInteger servedCount = new AtomicInteger();
+        final AtomicInteger rejectedCount = new AtomicInteger();
+
+        SimulatedServer(int capacity, long serviceMillis, boolean queueExcess) {
+            this.capacity = capacity;
+            this.serviceMillis = serviceMillis;
+            this.queueExcess = queueExcess;
+            this.workers = queueExcess ? Executors.newFixedThreadPool(capacity) : serverThreads;
+        }
+
+        @Override
+        public HttpCallDispatcher getHttpCallDispatcher() {
+            return this.httpCallDispatcher;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            final int current = this.concurrency.incrementAndGet();
+            this.maxConcurrency.accumulateAndGet(current, Math::max);
+            if (!this.queueExcess && current > this.capacity) {
+                this.concurrency.decrementAndGet();
+                this.rejectedCount.incrementAndGet();
+                httpCallback.onSuccess(new MockHttpResponse(httpRequest, 503));
+                return;
+            }
+            this.workers.execute(() -> {
+                try {
+                    Thread.sleep(this.serviceMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                this.concurrency.decrementAndGet();
+                this.servedCount.incrementAndGet();
+                httpCallback.onSuccess(new MockHttpResponse(httpRequest, 200));
+            });
+        }
+    }
+}
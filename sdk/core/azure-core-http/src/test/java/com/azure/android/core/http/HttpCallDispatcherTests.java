@@ -0,0 +1,855 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.exception.DeadlineExceededException;
+import com.azure.android.core.http.exception.LoadSheddingException;
+import com.azure.android.core.http.metrics.InMemoryHttpCallMetrics;
+import com.azure.android.core.http.policy.MockHttpResponse;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HttpCallDispatcherTests {
+
+    @Test
+    public void nestedCallsRunBeforeWaitingRootCalls() {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final ExecutorService executorService = manualExecutorService(executorTasks);
+
+        final List<Runnable> scheduledTasks = new ArrayList<>();
+        final ScheduledExecutorService scheduledExecutorService = mock(ScheduledExecutorService.class);
+        when(scheduledExecutorService.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
+            .thenAnswer(invocation -> {
+                scheduledTasks.add(invocation.getArgument(0));
+                return null;
+            });
+
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(executorService, scheduledExecutorService);
+        dispatcher.setMaxRunningCalls(1);
+
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new StaticResponseHttpClient(dispatcher))
+            .policies(chain -> {
+                final HttpRequest request = chain.getRequest();
+                if (request.getUrl().getPath().equals("/a") && !request.getTags().containsKey("delayed")) {
+                    request.getTags().put("delayed", true);
+                    chain.processNextPolicy(request, new NextPolicyCallback() {
+                        @Override
+                        public PolicyCompleter.CompletionState onSuccess(HttpResponse response,
+                                                                         PolicyCompleter completer) {
+                            return completer.completed(response);
+                        }
+
+                        @Override
+                        public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                            return completer.completedError(error);
+                        }
+                    }, 10, TimeUnit.MILLISECONDS);
+                } else {
+                    chain.processNextPolicy(request);
+                }
+            })
+            .build();
+
+        final List<String> completed = Collections.synchronizedList(new ArrayList<>());
+        for (String path : new String[] { "/a", "/b", "/c" }) {
+            pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost" + path),
+                RequestContext.NONE,
+                CancellationToken.NONE,
+                new HttpCallback() {
+                    @Override
+                    public void onSuccess(HttpResponse response) {
+                        completed.add(path);
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        fail(error);
+                    }
+                });
+        }
+
+        // Only "/a" is admitted; running it schedules a nested call and yields the permit to "/b".
+        assertEquals(1, executorTasks.size());
+        executorTasks.poll().run();
+        assertEquals(1, scheduledTasks.size());
+        assertEquals(1, executorTasks.size());
+
+        // The nested call of "/a" becomes due while "/b" holds the only permit.
+        scheduledTasks.get(0).run();
+        assertEquals(1, executorTasks.size());
+
+        // Once "/b" completes, the nested call of "/a" must be admitted ahead of the waiting root call "/c".
+        while (!executorTasks.isEmpty()) {
+            executorTasks.poll().run();
+        }
+        assertEquals(3, completed.size());
+        assertEquals("/b", completed.get(0));
+        assertEquals("/a", completed.get(1));
+        assertEquals("/c", completed.get(2));
+        assertEquals(0, dispatcher.getRunningCallsCount());
+    }
+
+    @Test
+    public void perHostLimitDoesNotBlockOtherHosts() {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        dispatcher.setMaxRunningCallsPerHost(1);
+
+        final List<String> started = new ArrayList<>();
+        final List<HttpCallback> startedCallbacks = new ArrayList<>();
+        final HttpCallDispatcher.HttpCallFunction httpCallFunction = (request, callback) -> {
+            started.add(request.getUrl().getHost() + request.getUrl().getPath());
+            startedCallbacks.add(callback);
+        };
+
+        enqueue(dispatcher, httpCallFunction, "http://a.com/1", "http://a.com/2", "http://a.com/3",
+            "http://b.com/1");
+
+        while (!executorTasks.isEmpty()) {
+            executorTasks.poll().run();
+        }
+        assertEquals(2, started.size());
+        assertEquals("a.com/1", started.get(0));
+        assertEquals("b.com/1", started.get(1));
+        assertEquals(1, dispatcher.getRunningCallsCount("a.com"));
+        assertEquals(2, dispatcher.getWaitingCallsCount("a.com"));
+        assertEquals(1, dispatcher.getRunningCallsCount("b.com"));
+        assertEquals(0, dispatcher.getWaitingCallsCount("b.com"));
+
+        // Completing the call to "a.com" admits the next call to the same host.
+        startedCallbacks.get(0).onSuccess(null);
+        executorTasks.poll().run();
+        assertEquals("a.com/2", started.get(2));
+        assertEquals(1, dispatcher.getRunningCallsCount("a.com"));
+        assertEquals(1, dispatcher.getWaitingCallsCount("a.com"));
+        assertEquals(2, dispatcher.getRunningCallsCount());
+    }
+
+    @Test
+    public void waitingCallsAreAdmittedRoundRobinAcrossHosts() {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        dispatcher.setMaxRunningCalls(2);
+
+        final List<String> started = new ArrayList<>();
+        final List<HttpCallback> startedCallbacks = new ArrayList<>();
+        final HttpCallDispatcher.HttpCallFunction httpCallFunction = (request, callback) -> {
+            started.add(request.getUrl().getHost() + request.getUrl().getPath());
+            startedCallbacks.add(callback);
+        };
+
+        enqueue(dispatcher, httpCallFunction, "http://a.com/1", "http://a.com/2", "http://a.com/3",
+            "http://a.com/4", "http://b.com/1");
+
+        assertEquals(2, executorTasks.size());
+        executorTasks.poll().run();
+        executorTasks.poll().run();
+        for (int i = 0; i < 3; i++) {
+            // Complete the oldest running call to free a slot for the next waiting call.
+            startedCallbacks.get(i).onSuccess(null);
+            assertEquals(1, executorTasks.size());
+            executorTasks.poll().run();
+        }
+        for (int i = 3; i < 5; i++) {
+            startedCallbacks.get(i).onSuccess(null);
+        }
+        assertEquals(5, started.size());
+        assertEquals("a.com/1", started.get(0));
+        assertEquals("a.com/2", started.get(1));
+        // The backlog of "a.com" does not hold back the call to "b.com" that was enqueued after it.
+        assertEquals("a.com/3", started.get(2));
+        assertEquals("b.com/1", started.get(3));
+        assertEquals("a.com/4", started.get(4));
+        assertEquals(0, dispatcher.getRunningCallsCount());
+    }
+
+    @Test
+    public void waitingCallsAreAdmittedByPriority() {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        dispatcher.setMaxRunningCalls(1);
+
+        final List<String> started = new ArrayList<>();
+        final List<HttpCallback> startedCallbacks = new ArrayList<>();
+        final HttpCallDispatcher.HttpCallFunction httpCallFunction = (request, callback) -> {
+            started.add(request.getUrl().getPath());
+            startedCallbacks.add(callback);
+        };
+
+        enqueue(dispatcher, httpCallFunction, HttpCallPriority.NORMAL, "http://localhost/running");
+        enqueue(dispatcher, httpCallFunction, HttpCallPriority.BACKGROUND, "http://localhost/background");
+        enqueue(dispatcher, httpCallFunction, HttpCallPriority.NORMAL, "http://localhost/normal");
+        enqueue(dispatcher, httpCallFunction, HttpCallPriority.HIGH, "http://localhost/high");
+
+        for (int i = 0; i < 4; i++) {
+            executorTasks.poll().run();
+            startedCallbacks.get(i).onSuccess(null);
+        }
+        assertEquals(4, started.size());
+        assertEquals("/running", started.get(0));
+        assertEquals("/high", started.get(1));
+        assertEquals("/normal", started.get(2));
+        assertEquals("/background", started.get(3));
+    }
+
+    @Test
+    public void agedBackgroundCallIsAdmittedAheadOfNewerCalls() throws InterruptedException {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        dispatcher.setMaxRunningCalls(1);
+        dispatcher.setPriorityAgingTime(5, TimeUnit.MILLISECONDS);
+
+        final List<String> started = new ArrayList<>();
+        final List<HttpCallback> startedCallbacks = new ArrayList<>();
+        final HttpCallDispatcher.HttpCallFunction httpCallFunction = (request, callback) -> {
+            started.add(request.getUrl().getPath());
+            startedCallbacks.add(callback);
+        };
+
+        enqueue(dispatcher, httpCallFunction, HttpCallPriority.NORMAL, "http://localhost/running");
+        enqueue(dispatcher, httpCallFunction, HttpCallPriority.BACKGROUND, "http://localhost/background");
+        // Waiting for more than two aging periods promotes the background call above the high priority.
+        Thread.sleep(50);
+        enqueue(dispatcher, httpCallFunction, HttpCallPriority.HIGH, "http://localhost/high");
+
+        for (int i = 0; i < 3; i++) {
+            executorTasks.poll().run();
+            startedCallbacks.get(i).onSuccess(null);
+        }
+        assertEquals("/background", started.get(1));
+        assertEquals("/high", started.get(2));
+    }
+
+    @Test
+    public void highPriorityLatencyUnderBackgroundFlood() throws InterruptedException {
+        final int backgroundCalls = 1000;
+        final int highPriorityCalls = 50;
+        final long callDurationMillis = 2;
+        final ExecutorService dispatcherThreads = Executors.newFixedThreadPool(4);
+        try {
+            final HttpCallDispatcher dispatcher = new HttpCallDispatcher(dispatcherThreads);
+            dispatcher.setMaxRunningCalls(4);
+
+            final CountDownLatch latch = new CountDownLatch(backgroundCalls + highPriorityCalls);
+            final List<Long> highPriorityWaitNanos = Collections.synchronizedList(new ArrayList<>());
+            final HttpCallback httpCallback = new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    latch.countDown();
+                }
+            };
+
+            // The paging flood: draining it takes about (1000 * 2ms / 4) = 500ms.
+            for (int i = 0; i < backgroundCalls; i++) {
+                dispatcher.enqueue((request, callback) -> {
+                    sleep(callDurationMillis);
+                    callback.onSuccess(null);
+                }, new HttpRequest(HttpMethod.GET, "http://localhost/messages?page=" + i),
+                    RequestContext.NONE.addData(HttpCallPriority.class, HttpCallPriority.BACKGROUND),
+                    CancellationToken.NONE,
+                    httpCallback);
+            }
+
+            for (int i = 0; i < highPriorityCalls; i++) {
+                final long enqueuedAtNanos = System.nanoTime();
+                dispatcher.enqueue((request, callback) -> {
+                    highPriorityWaitNanos.add(System.nanoTime() - enqueuedAtNanos);
+                    sleep(callDurationMillis);
+                    callback.onSuccess(null);
+                }, new HttpRequest(HttpMethod.POST, "http://localhost/messages"),
+                    RequestContext.NONE.addData(HttpCallPriority.class, HttpCallPriority.HIGH),
+                    CancellationToken.NONE,
+                    httpCallback);
+                sleep(callDurationMillis);
+            }
+
+            assertTrue(latch.await(60, TimeUnit.SECONDS));
+            final List<Long> sorted = new ArrayList<>(highPriorityWaitNanos);
+            Collections.sort(sorted);
+            final long p99WaitMillis = TimeUnit.NANOSECONDS.toMillis(sorted.get((int) (sorted.size() * 0.99) - 1));
+            // A high priority call waits at most for one running call to complete, not for the flood to drain.
+            assertTrue(p99WaitMillis < 100, "p99 wait of high priority calls was " + p99WaitMillis + "ms");
+        } finally {
+            dispatcherThreads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void callWithExpiredDeadlineIsNotRun() throws InterruptedException {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        dispatcher.setMaxRunningCalls(1);
+
+        final List<HttpCallback> startedCallbacks = new ArrayList<>();
+        final HttpCallDispatcher.HttpCallFunction httpCallFunction = (request, callback) -> {
+            startedCallbacks.add(callback);
+        };
+        enqueue(dispatcher, httpCallFunction, "http://localhost/running");
+
+        final Throwable[] error = new Throwable[1];
+        dispatcher.enqueue(httpCallFunction,
+            new HttpRequest(HttpMethod.GET, "http://localhost/stale"),
+            RequestContext.NONE.addData(HttpCallDeadline.class, HttpCallDeadline.after(5, TimeUnit.MILLISECONDS)),
+            CancellationToken.NONE,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    fail("The call with an expired deadline must not run.");
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    error[0] = e;
+                }
+            });
+
+        executorTasks.poll().run();
+        Thread.sleep(20);
+        startedCallbacks.get(0).onSuccess(null);
+
+        // The expired call is failed when polled, without a dispatcher thread.
+        assertNull(executorTasks.poll());
+        assertEquals(1, startedCallbacks.size());
+        assertTrue(error[0] instanceof DeadlineExceededException);
+        assertEquals(0, dispatcher.getRunningCallsCount());
+    }
+
+    @Test
+    public void callWithExpiredDeadlineIsFailedAtEnqueue() throws InterruptedException {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        final InMemoryHttpCallMetrics metrics = new InMemoryHttpCallMetrics();
+        dispatcher.setMetrics(metrics);
+
+        final HttpCallDeadline deadline = HttpCallDeadline.after(1, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+        final Throwable[] error = new Throwable[1];
+        dispatcher.enqueue((request, callback) -> fail("The call with an expired deadline must not run."),
+            new HttpRequest(HttpMethod.GET, "http://localhost/stale"),
+            RequestContext.NONE.addData(HttpCallDeadline.class, deadline),
+            CancellationToken.NONE,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    fail("The call with an expired deadline must not run.");
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    error[0] = e;
+                }
+            });
+
+        assertTrue(error[0] instanceof DeadlineExceededException);
+        assertNull(executorTasks.poll());
+        assertEquals(0, dispatcher.getRunningCallsCount());
+        assertEquals(0, dispatcher.getWaitingCallsCount());
+        assertEquals(1, metrics.getRejectionsCount(HttpCallMetrics.Rejection.DEADLINE_EXCEEDED));
+    }
+
+    @Test
+    public void callOnCallingThreadIsEnqueuedWhenNoPermitIsFree() {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        dispatcher.setMaxRunningCalls(1);
+
+        final List<Thread> runThreads = new ArrayList<>();
+        final List<HttpCallback> startedCallbacks = new ArrayList<>();
+        final HttpCallDispatcher.HttpCallFunction httpCallFunction = (request, callback) -> {
+            runThreads.add(Thread.currentThread());
+            startedCallbacks.add(callback);
+        };
+        final HttpCallback noOpCallback = new HttpCallback() {
+            @Override
+            public void onSuccess(HttpResponse response) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+        };
+
+        // With a permit free, the call runs on the calling thread.
+        dispatcher.runOnCallingThread(httpCallFunction, new HttpRequest(HttpMethod.GET, "http://localhost/a"),
+            RequestContext.NONE, CancellationToken.NONE, noOpCallback);
+        assertEquals(1, startedCallbacks.size());
+        assertEquals(Thread.currentThread(), runThreads.get(0));
+        assertEquals(1, dispatcher.getRunningCallsCount());
+
+        // With no permit free, the call waits as an enqueued call.
+        dispatcher.runOnCallingThread(httpCallFunction, new HttpRequest(HttpMethod.GET, "http://localhost/b"),
+            RequestContext.NONE, CancellationToken.NONE, noOpCallback);
+        assertEquals(1, startedCallbacks.size());
+        assertEquals(1, dispatcher.getRunningCallsCount());
+        assertEquals(1, dispatcher.getWaitingCallsCount());
+        assertTrue(executorTasks.isEmpty());
+
+        startedCallbacks.get(0).onSuccess(null);
+        executorTasks.poll().run();
+        assertEquals(2, startedCallbacks.size());
+        assertEquals(1, dispatcher.getRunningCallsCount());
+        assertEquals(0, dispatcher.getWaitingCallsCount());
+
+        startedCallbacks.get(1).onSuccess(null);
+        assertEquals(0, dispatcher.getRunningCallsCount());
+    }
+
+    @Test
+    public void newCallIsShedWhenWaitingQueueIsFull() {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        dispatcher.setMaxRunningCalls(1);
+        dispatcher.setMaxWaitingCalls(2, WaitingCallsOverflowPolicy.rejectNew());
+
+        final List<String> errors = new ArrayList<>();
+        for (String path : new String[] { "/1", "/2", "/3", "/4" }) {
+            enqueue(dispatcher, HttpCallPriority.NORMAL, "http://localhost" + path, errors);
+        }
+
+        // "/1" is running, "/2" and "/3" fill the waiting queue.
+        assertEquals(1, errors.size());
+        assertEquals("/4", errors.get(0));
+        assertEquals(2, dispatcher.getWaitingCallsCount());
+    }
+
+    @Test
+    public void oldestBackgroundCallIsShedWhenWaitingQueueIsFull() {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        dispatcher.setMaxRunningCalls(1);
+        dispatcher.setMaxWaitingCalls(3, WaitingCallsOverflowPolicy.dropOldestBackground());
+
+        final List<String> errors = new ArrayList<>();
+        enqueue(dispatcher, HttpCallPriority.NORMAL, "http://localhost/running", errors);
+        enqueue(dispatcher, HttpCallPriority.NORMAL, "http://localhost/normal", errors);
+        enqueue(dispatcher, HttpCallPriority.BACKGROUND, "http://a.com/background-1", errors);
+        enqueue(dispatcher, HttpCallPriority.BACKGROUND, "http://b.com/background-2", errors);
+        enqueue(dispatcher, HttpCallPriority.HIGH, "http://localhost/high-1", errors);
+        enqueue(dispatcher, HttpCallPriority.HIGH, "http://localhost/high-2", errors);
+        enqueue(dispatcher, HttpCallPriority.HIGH, "http://localhost/high-3", errors);
+
+        assertEquals(3, errors.size());
+        assertEquals("/background-1", errors.get(0));
+        assertEquals("/background-2", errors.get(1));
+        // With no background call left to shed, the new call is shed.
+        assertEquals("/high-3", errors.get(2));
+        assertEquals(3, dispatcher.getWaitingCallsCount());
+    }
+
+    @Test
+    public void callerIsBlockedUntilWaitingQueueHasRoom() throws InterruptedException {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        dispatcher.setMaxRunningCalls(1);
+        dispatcher.setMaxWaitingCalls(1, WaitingCallsOverflowPolicy.blockCaller(10, TimeUnit.SECONDS));
+
+        final List<HttpCallback> startedCallbacks = Collections.synchronizedList(new ArrayList<>());
+        final HttpCallDispatcher.HttpCallFunction httpCallFunction = (request, callback) -> {
+            startedCallbacks.add(callback);
+        };
+        enqueue(dispatcher, httpCallFunction, "http://localhost/running", "http://localhost/waiting");
+
+        final CountDownLatch enqueued = new CountDownLatch(1);
+        final Thread blockedCaller = new Thread(() -> {
+            enqueue(dispatcher, httpCallFunction, "http://localhost/blocked");
+            enqueued.countDown();
+        });
+        blockedCaller.start();
+        assertFalse(enqueued.await(100, TimeUnit.MILLISECONDS));
+
+        // Completing the running call admits the waiting call and makes room for the blocked one.
+        executorTasks.poll().run();
+        startedCallbacks.get(0).onSuccess(null);
+        assertTrue(enqueued.await(10, TimeUnit.SECONDS));
+        assertEquals(1, dispatcher.getWaitingCallsCount());
+    }
+
+    @Test
+    public void blockedCallerTimesOut() {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        dispatcher.setMaxRunningCalls(1);
+        dispatcher.setMaxWaitingCalls(1, WaitingCallsOverflowPolicy.blockCaller(50, TimeUnit.MILLISECONDS));
+
+        final List<String> errors = new ArrayList<>();
+        enqueue(dispatcher, HttpCallPriority.NORMAL, "http://localhost/running", errors);
+        enqueue(dispatcher, HttpCallPriority.NORMAL, "http://localhost/waiting", errors);
+        enqueue(dispatcher, HttpCallPriority.NORMAL, "http://localhost/blocked", errors);
+
+        assertEquals(1, errors.size());
+        assertEquals("/blocked", errors.get(0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 8, 64 })
+    public void enqueueUnderContention(int submittingThreads, TestReporter testReporter)
+        throws InterruptedException {
+        final int callsPerThread = 2000;
+        final int maxRunningCalls = 16;
+        final ExecutorService dispatcherThreads = Executors.newFixedThreadPool(32);
+        final ExecutorService submitters = Executors.newFixedThreadPool(submittingThreads);
+        try {
+            final HttpCallDispatcher dispatcher = new HttpCallDispatcher(dispatcherThreads);
+            dispatcher.setMaxRunningCalls(maxRunningCalls);
+
+            final AtomicInteger concurrentCalls = new AtomicInteger();
+            final AtomicInteger maxObservedConcurrentCalls = new AtomicInteger();
+            final CountDownLatch latch = new CountDownLatch(submittingThreads * callsPerThread);
+            final HttpRequest httpRequest = new HttpRequest(HttpMethod.GET, "http://localhost/");
+            final HttpCallback httpCallback = new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    latch.countDown();
+                }
+            };
+            final HttpCallDispatcher.HttpCallFunction httpCallFunction = (request, callback) -> {
+                final int running = concurrentCalls.incrementAndGet();
+                maxObservedConcurrentCalls.accumulateAndGet(running, Math::max);
+                concurrentCalls.decrementAndGet();
+                callback.onSuccess(new MockHttpResponse(request, 200));
+            };
+
+            // An unmeasured round on the calling thread, so that the first thread count is not measured cold.
+            final CountDownLatch warmUp = new CountDownLatch(callsPerThread);
+            for (int j = 0; j < callsPerThread; j++) {
+                dispatcher.enqueue(httpCallFunction, httpRequest, CancellationToken.NONE, new HttpCallback() {
+                    @Override
+                    public void onSuccess(HttpResponse response) {
+                        warmUp.countDown();
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        warmUp.countDown();
+                    }
+                });
+            }
+            assertTrue(warmUp.await(60, TimeUnit.SECONDS));
+
+            final CountDownLatch start = new CountDownLatch(1);
+            for (int i = 0; i < submittingThreads; i++) {
+                submitters.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < callsPerThread; j++) {
+                        dispatcher.enqueue(httpCallFunction, httpRequest, CancellationToken.NONE, httpCallback);
+                    }
+                });
+            }
+
+            final long startNanos = System.nanoTime();
+            start.countDown();
+            assertTrue(latch.await(60, TimeUnit.SECONDS), "Calls did not complete with "
+                + submittingThreads + " submitting threads.");
+            final long elapsedNanos = System.nanoTime() - startNanos;
+            // The throughput of the enqueue-run-complete cycle, reported to compare the thread counts.
+            testReporter.publishEntry("submittingThreads=" + submittingThreads + " opsPerSecond",
+                String.valueOf((long) (submittingThreads * callsPerThread * 1e9 / elapsedNanos)));
+            assertTrue(maxObservedConcurrentCalls.get() <= maxRunningCalls);
+            // The permit of a call is released right after its callback returns.
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (dispatcher.getRunningCallsCount() != 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(0, dispatcher.getRunningCallsCount());
+        } finally {
+            submitters.shutdownNow();
+            dispatcherThreads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void withVirtualThreadsRunsCalls() throws InterruptedException {
+        // Falls back to the default executor when the runtime has no virtual threads.
+        final HttpCallDispatcher dispatcher = HttpCallDispatcher.withVirtualThreads();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final boolean[] isVirtual = new boolean[1];
+        enqueue(dispatcher, (request, callback) -> {
+            isVirtual[0] = Thread.currentThread().getClass().getName().contains("Virtual");
+            latch.countDown();
+        }, "https://a.com/1");
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(HttpCallDispatcher.isVirtualThreadsSupported(), isVirtual[0]);
+    }
+
+    @Test
+    public void virtualThreadsRunManyBlockingCallsOnFewOsThreads() throws InterruptedException {
+        assumeTrue(HttpCallDispatcher.isVirtualThreadsSupported(), "The runtime has no virtual threads.");
+
+        final int callCount = 10_000;
+        final HttpCallDispatcher dispatcher = HttpCallDispatcher.withVirtualThreads();
+        dispatcher.setMaxRunningCalls(callCount);
+        final CountDownLatch allBlocked = new CountDownLatch(callCount);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        final CountDownLatch allCompleted = new CountDownLatch(callCount);
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        final int osThreadsBefore = threadMXBean.getThreadCount();
+
+        for (int i = 0; i < callCount; i++) {
+            // Each call blocks its thread, like a blocking HttpUrlConnection read, until all the calls are blocked.
+            enqueue(dispatcher, (request, callback) -> {
+                allBlocked.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                allCompleted.countDown();
+            }, "https://a.com/" + i);
+        }
+
+        try {
+            assertTrue(allBlocked.await(30, TimeUnit.SECONDS),
+                "Calls not running concurrently: " + allBlocked.getCount());
+            assertEquals(callCount, dispatcher.getRunningCallsCount());
+            // ThreadMXBean counts only the platform (OS) threads, the carriers of the virtual threads.
+            final int osThreadsAdded = threadMXBean.getThreadCount() - osThreadsBefore;
+            assertTrue(osThreadsAdded < callCount / 10,
+                callCount + " blocked calls used " + osThreadsAdded + " OS threads.");
+        } finally {
+            unblock.countDown();
+        }
+        assertTrue(allCompleted.await(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void metricsRecordQueueTimePipelineAndPolicyDurations() throws InterruptedException {
+        final int callCount = 20;
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher();
+        dispatcher.setMaxRunningCalls(1);
+        final InMemoryHttpCallMetrics metrics = new InMemoryHttpCallMetrics();
+        dispatcher.setMetrics(metrics);
+        final HttpPipelinePolicy slowPolicy = chain -> {
+            sleep(20);
+            chain.processNextPolicy(chain.getRequest());
+        };
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new StaticResponseHttpClient(dispatcher))
+            .policies(slowPolicy)
+            .build();
+
+        final CountDownLatch latch = new CountDownLatch(callCount);
+        for (int i = 0; i < callCount; i++) {
+            pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/" + i),
+                RequestContext.NONE,
+                CancellationToken.NONE,
+                new HttpCallback() {
+                    @Override
+                    public void onSuccess(HttpResponse response) {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        fail(error);
+                    }
+                });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        assertEquals(callCount, metrics.getQueueTime().getCount());
+        assertEquals(callCount, metrics.getPipelineDuration().getCount());
+        assertEquals(callCount, metrics.getPolicyDuration(slowPolicy.getClass()).getCount());
+        assertEquals(callCount, metrics.getHttpClientDuration().getCount());
+        assertEquals(0, metrics.getFailedPipelinesCount());
+        // Every pipeline run spends at least 20ms in the slow policy.
+        assertTrue(metrics.getPipelineDuration().getValueAtPercentile(50, TimeUnit.MILLISECONDS) >= 20);
+        assertTrue(metrics.getPolicyDuration(slowPolicy.getClass())
+            .getValueAtPercentile(50, TimeUnit.MILLISECONDS) >= 20);
+        // One call runs at a time, so the last calls wait for the ones enqueued before them.
+        assertTrue(metrics.getQueueTime().getValueAtPercentile(90, TimeUnit.MILLISECONDS) >= 20 * callCount / 2);
+        assertTrue(metrics.getQueueTime().getValueAtPercentile(0, TimeUnit.MILLISECONDS) < 20);
+        assertEquals(1, metrics.getMaxRunningCalls());
+        assertTrue(metrics.getMaxWaitingCalls() > 1);
+    }
+
+    @Test
+    public void metricsCountNestedCallsAndRejections() throws InterruptedException {
+        final LinkedBlockingQueue<Runnable> executorTasks = new LinkedBlockingQueue<>();
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(manualExecutorService(executorTasks));
+        dispatcher.setMaxRunningCalls(1);
+        dispatcher.setMaxWaitingCalls(1, WaitingCallsOverflowPolicy.rejectNew());
+        final InMemoryHttpCallMetrics metrics = new InMemoryHttpCallMetrics();
+        dispatcher.setMetrics(metrics);
+        final List<String> shedCalls = Collections.synchronizedList(new ArrayList<>());
+
+        // The first call runs, the second waits, the third is shed.
+        enqueue(dispatcher, HttpCallPriority.NORMAL, "https://a.com/1", shedCalls);
+        enqueue(dispatcher, HttpCallPriority.NORMAL, "https://a.com/2", shedCalls);
+        enqueue(dispatcher, HttpCallPriority.NORMAL, "https://a.com/3", shedCalls);
+
+        assertEquals(1, metrics.getRejectionsCount(HttpCallMetrics.Rejection.LOAD_SHED));
+        assertEquals(0, metrics.getRejectionsCount(HttpCallMetrics.Rejection.EXECUTOR_REJECTED));
+        assertEquals(1, metrics.getRunningCalls());
+        assertEquals(1, metrics.getWaitingCalls());
+
+        final HttpCallDispatcher pipelineDispatcher = new HttpCallDispatcher();
+        pipelineDispatcher.setMetrics(metrics);
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new StaticResponseHttpClient(pipelineDispatcher))
+            .policies(chain -> chain.processNextPolicy(chain.getRequest(), new NextPolicyCallback() {
+                @Override
+                public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                    return completer.completed(response);
+                }
+
+                @Override
+                public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                    return completer.completedError(error);
+                }
+            }, 10, TimeUnit.MILLISECONDS))
+            .build();
+        final CountDownLatch latch = new CountDownLatch(1);
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/nested"),
+            RequestContext.NONE,
+            CancellationToken.NONE,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    fail(error);
+                }
+            });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, metrics.getNestedCallsCount());
+    }
+
+    private static ExecutorService manualExecutorService(LinkedBlockingQueue<Runnable> executorTasks) {
+        final ExecutorService executorService = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            executorTasks.add(invocation.getArgument(0));
+            return null;
+        }).when(executorService).execute(any(Runnable.class));
+        return executorService;
+    }
+
+    private static void enqueue(HttpCallDispatcher dispatcher,
+                                HttpCallDispatcher.HttpCallFunction httpCallFunction,
+                                String... urls) {
+        enqueue(dispatcher, httpCallFunction, HttpCallPriority.NORMAL, urls);
+    }
+
+    private static void enqueue(HttpCallDispatcher dispatcher,
+                                HttpCallDispatcher.HttpCallFunction httpCallFunction,
+                                HttpCallPriority priority,
+                                String... urls) {
+        for (String url : urls) {
+            dispatcher.enqueue(httpCallFunction,
+                new HttpRequest(HttpMethod.GET, url),
+                RequestContext.NONE.addData(HttpCallPriority.class, priority),
+                CancellationToken.NONE,
+                new HttpCallback() {
+                    @Override
+                    public void onSuccess(HttpResponse response) {
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        fail(error);
+                    }
+                });
+        }
+    }
+
+    private static void enqueue(HttpCallDispatcher dispatcher,
+                                HttpCallPriority priority,
+                                String url,
+                                List<String> shedCalls) {
+        final HttpRequest httpRequest = new HttpRequest(HttpMethod.GET, url);
+        dispatcher.enqueue((request, callback) -> { },
+            httpRequest,
+            RequestContext.NONE.addData(HttpCallPriority.class, priority),
+            CancellationToken.NONE,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    assertTrue(error instanceof LoadSheddingException);
+                    assertEquals(httpRequest, ((LoadSheddingException) error).getRequest());
+                    shedCalls.add(httpRequest.getUrl().getPath());
+                }
+            });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class StaticResponseHttpClient implements HttpClient {
+        private final HttpCallDispatcher httpCallDispatcher;
+
+        StaticResponseHttpClient(HttpCallDispatcher httpCallDispatcher) {
+            this.httpCallDispatcher = httpCallDispatcher;
+        }
+
+        @Override
+        public HttpCallDispatcher getHttpCallDispatcher() {
+            return this.httpCallDispatcher;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            assertNotNull(httpRequest);
+            httpCallback.onSuccess(new MockHttpResponse(httpRequest, 200));
+        }
+    }
+}
@@ -4,9 +4,18 @@
 package com.azure.android.core.http;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpHeadersTests {
     @Test
@@ -41,4 +50,148 @@ public class HttpHeadersTests {
 
         assertEquals("key1=value1, key2=value2, key3=value3", headers.toString());
     }
+
+    @Test
+    public void namesAreCaseInsensitive() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put("Content-Type", "application/json");
+        assertEquals("application/json", headers.getValue("content-type"));
+        assertEquals("application/json", headers.getValue(HttpHeaders.CONTENT_TYPE));
+
+        headers.put("CONTENT-TYPE", "text/xml");
+        assertEquals(1, headers.getSize());
+        assertEquals("CONTENT-TYPE", headers.get("Content-Type").getName());
+        assertEquals("text/xml", headers.remove("content-TYPE").getValue());
+        assertEquals(0, headers.getSize());
+        assertNull(headers.get("Content-Type"));
+    }
+
+    @Test
+    public void headersKeepInsertionOrderAcrossGrowthAndRemoval() {
+        final HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < 100; i++) {
+            headers.put("Header-" + i, String.valueOf(i));
+        }
+        assertEquals(100, headers.getSize());
+        for (int i = 0; i < 100; i += 2) {
+            assertEquals(String.valueOf(i), headers.remove("header-" + i).getValue());
+        }
+        // Replacing a header keeps its position.
+        headers.put("HEADER-1", "one");
+
+        final Iterator<HttpHeader> iterator = headers.iterator();
+        for (int i = 1; i < 100; i += 2) {
+            final HttpHeader header = iterator.next();
+            assertEquals(i == 1 ? "HEADER-1" : "Header-" + i, header.getName());
+            if (i % 3 == 0) {
+                iterator.remove();
+            }
+        }
+        assertFalse(iterator.hasNext());
+        for (int i = 1; i < 100; i += 2) {
+            assertEquals(i % 3 != 0, headers.get("header-" + i) != null);
+        }
+        assertEquals(headers.getSize(), headers.toMap().size());
+        assertEquals("one", headers.toMap().get("HEADER-1"));
+    }
+
+    @Test
+    public void headerMutationIsVisible() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put("Accept", "application/json");
+        headers.get("accept").addValue("text/xml");
+        assertEquals("application/json,text/xml", headers.getValue("ACCEPT"));
+
+        final HttpHeaders copy = new HttpHeaders(headers);
+        copy.get("Accept").addValue("text/plain");
+        assertEquals("application/json,text/xml", headers.getValue("Accept"));
+        assertTrue(copy.getValue("Accept").endsWith("text/plain"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 20, 30})
+    public void allocatedBytesPerHeaderOperation(int headerCount) {
+        final String[] names = new String[headerCount];
+        final String[] lookupNames = new String[headerCount];
+        for (int i = 0; i < headerCount; i++) {
+            names[i] = "X-Ms-Header-" + i;
+            // Other instances, in another case, as the names of the headers of a response read from the wire.
+            lookupNames[i] = "x-MS-header-" + i;
+        }
+        final int iterationCount = 20_000;
+        final Object[] sink = new Object[1];
+        final long[] counts = new long[1];
+
+        // Before: a HashMap keyed by lower case copies of the names.
+        final long hashMapPutBytes = AllocationMeter.bytesPerOp(() -> runPutsWithHashMap(names, sink),
+            iterationCount) / headerCount;
+        @SuppressWarnings("unchecked")
+        final Map<String, HttpHeader> hashMap = (Map<String, HttpHeader>) sink[0];
+        final long hashMapGetBytes = AllocationMeter.bytesPerOp(
+            () -> counts[0] += runGetsWithHashMap(hashMap, lookupNames), iterationCount) / headerCount;
+        final long hashMapChecksum = counts[0];
+
+        // After: the array-backed HttpHeaders.
+        final long putBytes = AllocationMeter.bytesPerOp(() -> runPuts(names, sink), iterationCount) / headerCount;
+        final HttpHeaders headers = (HttpHeaders) sink[0];
+        counts[0] = 0;
+        final long getBytes = AllocationMeter.bytesPerOp(() -> counts[0] += runGets(headers, lookupNames),
+            iterationCount) / headerCount;
+        assertEquals(hashMapChecksum, counts[0]);
+        counts[0] = 0;
+        final long iterateBytes = AllocationMeter.bytesPerOp(() -> counts[0] += runIteration(headers),
+            iterationCount);
+
+        assertEquals(2L * iterationCount * headerCount, counts[0]);
+        final String message = headerCount + " headers, bytes per put " + putBytes + " (HashMap " + hashMapPutBytes
+            + "), per get " + getBytes + " (HashMap " + hashMapGetBytes + "), per iteration " + iterateBytes;
+        // Only the HttpHeader and the amortized arrays are allocated by a put, nothing by a get, and only
+        // the iterator by an iteration.
+        assertTrue(putBytes < hashMapPutBytes, message);
+        assertEquals(0, getBytes, message);
+        assertTrue(getBytes < hashMapGetBytes, message);
+        assertTrue(iterateBytes <= 32, message);
+    }
+
+    private static void runPutsWithHashMap(String[] names, Object[] sink) {
+        final Map<String, HttpHeader> headers = new HashMap<>();
+        for (final String name : names) {
+            headers.put(name.toLowerCase(Locale.ROOT), new HttpHeader(name, "value"));
+        }
+        sink[0] = headers;
+    }
+
+    private static long runGetsWithHashMap(Map<String, HttpHeader> headers, String[] names) {
+        long checksum = 0;
+        for (final String name : names) {
+            checksum += headers.get(name.toLowerCase(Locale.ROOT)).getValue().length();
+        }
+        return checksum;
+    }
+
+    private static void runPuts(String[] names, Object[] sink) {
+        final HttpHeaders headers = new HttpHeaders();
+        for (final String name : names) {
+            headers.put(name, "value");
+        }
+        sink[0] = headers;
+    }
+
+    private static long runGets(HttpHeaders headers, String[] names) {
+        long checksum = 0;
+        for (final String name : names) {
+            checksum += headers.getValue(name).length();
+        }
+        return checksum;
+    }
+
+    private static long runIteration(HttpHeaders headers) {
+        long count = 0;
+        for (final HttpHeader header : headers) {
+            if (header.getValue() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
 }
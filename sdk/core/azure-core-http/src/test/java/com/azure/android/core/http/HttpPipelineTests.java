@@ -0,0 +1,332 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.exception.DeadlineExceededException;
+import com.azure.android.core.http.exception.HttpRequestException;
+import com.azure.android.core.http.policy.MockHttpResponse;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class HttpPipelineTests {
+    @Test
+    public void delayedCallFailureIsNotifiedToPolicyCallback() throws InterruptedException {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher();
+        final List<Throwable> policyErrors = new ArrayList<>();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new StaticResponseHttpClient(dispatcher))
+            .policies(chain -> chain.processNextPolicy(chain.getRequest(), new NextPolicyCallback() {
+                @Override
+                public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                    return completer.completed(response);
+                }
+
+                @Override
+                public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                    policyErrors.add(error);
+                    return completer.completedError(error);
+                }
+            }, 200, TimeUnit.MILLISECONDS))
+            .build();
+
+        // The deadline expires while the pipeline run waits for the delayed call.
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Throwable[] pipelineError = new Throwable[1];
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/"),
+            RequestContext.NONE.addData(HttpCallDeadline.class, HttpCallDeadline.after(50, TimeUnit.MILLISECONDS)),
+            CancellationToken.NONE,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    pipelineError[0] = error;
+                    latch.countDown();
+                }
+            });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(pipelineError[0] instanceof DeadlineExceededException, String.valueOf(pipelineError[0]));
+        assertEquals(1, policyErrors.size());
+        assertSame(pipelineError[0], policyErrors.get(0));
+    }
+
+    @Test
+    public void sendSyncRunsPipelineOnCallingThread() {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher();
+        final List<Thread> threads = new ArrayList<>();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new StaticResponseHttpClient(dispatcher) {
+                @Override
+                public void send(HttpRequest httpRequest,
+                                 CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    threads.add(Thread.currentThread());
+                    super.send(httpRequest, cancellationToken, httpCallback);
+                }
+            })
+            .policies(chain -> {
+                threads.add(Thread.currentThread());
+                chain.processNextPolicy(chain.getRequest());
+            })
+            .build();
+
+        final HttpResponse response = pipeline.sendSync(new HttpRequest(HttpMethod.GET, "https://a.com/"),
+            RequestContext.NONE,
+            CancellationToken.NONE);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(2, threads.size());
+        assertSame(Thread.currentThread(), threads.get(0));
+        assertSame(Thread.currentThread(), threads.get(1));
+        assertEquals(0, dispatcher.getRunningCallsCount());
+        assertEquals(0, dispatcher.getRunningCallsCount("a.com"));
+    }
+
+    @Test
+    public void sendSyncRunsDelayedContinuationOnDispatcher() {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher();
+        final Thread[] httpClientThread = new Thread[1];
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new StaticResponseHttpClient(dispatcher) {
+                @Override
+                public void send(HttpRequest httpRequest,
+                                 CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    httpClientThread[0] = Thread.currentThread();
+                    super.send(httpRequest, cancellationToken, httpCallback);
+                }
+            })
+            .policies(chain -> chain.processNextPolicy(chain.getRequest(), new NextPolicyCallback() {
+                @Override
+                public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                    return completer.completed(response);
+                }
+
+                @Override
+                public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                    return completer.completedError(error);
+                }
+            }, 50, TimeUnit.MILLISECONDS))
+            .build();
+
+        final HttpResponse response = pipeline.sendSync(new HttpRequest(HttpMethod.GET, "https://a.com/"),
+            RequestContext.NONE,
+            CancellationToken.NONE);
+
+        assertEquals(200, response.getStatusCode());
+        assertNotSame(Thread.currentThread(), httpClientThread[0]);
+    }
+
+    @Test
+    public void sendSyncThrowsErrorOfFailedCall() {
+        final IOException ioError = new IOException("connection reset");
+        final IllegalStateException stateError = new IllegalStateException("bad state");
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher();
+        final HttpRequest httpRequest = new HttpRequest(HttpMethod.GET, "https://a.com/");
+
+        final HttpPipeline ioErrorPipeline = new HttpPipelineBuilder()
+            .httpClient(new StaticResponseHttpClient(dispatcher))
+            .policies(chain -> chain.completedError(ioError))
+            .build();
+        final HttpRequestException requestException = assertThrows(HttpRequestException.class,
+            () -> ioErrorPipeline.sendSync(httpRequest, RequestContext.NONE, CancellationToken.NONE));
+        assertSame(ioError, requestException.getCause());
+        assertSame(httpRequest, requestException.getRequest());
+
+        final HttpPipeline stateErrorPipeline = new HttpPipelineBuilder()
+            .httpClient(new StaticResponseHttpClient(dispatcher))
+            .policies(chain -> chain.completedError(stateError))
+            .build();
+        assertSame(stateError, assertThrows(IllegalStateException.class,
+            () -> stateErrorPipeline.sendSync(httpRequest, RequestContext.NONE, CancellationToken.NONE)));
+
+        final CancellationToken cancellationToken = new CancellationToken();
+        cancellationToken.cancel();
+        final HttpRequestException canceledException = assertThrows(HttpRequestException.class,
+            () -> ioErrorPipeline.sendSync(httpRequest, RequestContext.NONE, cancellationToken));
+        assertTrue(canceledException.getCause() instanceof IOException);
+        assertEquals(0, dispatcher.getRunningCallsCount());
+    }
+
+    @Test
+    public void malformedUrlFailsCall() {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new StaticResponseHttpClient(dispatcher) {
+                @Override
+                public void send(HttpRequest httpRequest,
+                                 CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    httpRequest.getUrl();
+                    super.send(httpRequest, cancellationToken, httpCallback);
+                }
+            })
+            .build();
+
+        // The url is parsed when the request is sent, rather than when it is created.
+        final HttpRequest httpRequest = new HttpRequest(HttpMethod.GET, "https://a.com:port/");
+        assertThrows(IllegalArgumentException.class,
+            () -> pipeline.sendSync(httpRequest, RequestContext.NONE, CancellationToken.NONE));
+        assertEquals(0, dispatcher.getRunningCallsCount());
+    }
+
+    @Test
+    public void allocatedBytesPerRequestThroughNoOpPipeline() {
+        // The calls run on the calling thread, so that all the allocations of a pipeline run are on this thread.
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(new CallingThreadExecutorService());
+        final HttpPipelinePolicy noOpPolicy = chain -> chain.processNextPolicy(chain.getRequest());
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new StaticResponseHttpClient(dispatcher))
+            .policies(noOpPolicy, noOpPolicy, noOpPolicy, noOpPolicy, noOpPolicy, noOpPolicy)
+            .build();
+        final HttpRequest httpRequest = new HttpRequest(HttpMethod.GET, "https://a.com/");
+        final int[] completedCount = new int[1];
+        final HttpCallback httpCallback = new HttpCallback() {
+            @Override
+            public void onSuccess(HttpResponse response) {
+                completedCount[0]++;
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                fail(error);
+            }
+        };
+
+        final int requestCount = 20_000;
+        final long bytesPerRequest = AllocationMeter.bytesPerOp(
+            () -> pipeline.send(httpRequest, RequestContext.NONE, CancellationToken.NONE, httpCallback),
+            requestCount);
+
+        assertEquals(2 * requestCount, completedCount[0]);
+        // About 500 bytes with compressed oops: a chain per policy invocation, the pipeline run and the dispatcher's
+        // call; the budget leaves room for other JVM settings.
+        assertTrue(bytesPerRequest < 1024, "Allocated " + bytesPerRequest + " bytes per request.");
+    }
+
+    @Test
+    public void allocatedBytesPerNewRequestThroughPipeline() {
+        // The calls run on the calling thread, so that all the allocations of a pipeline run are on this thread.
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(new CallingThreadExecutorService());
+        final boolean[] callingThreadPreferred = new boolean[1];
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new StaticResponseHttpClient(dispatcher) {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    callingThreadPreferred[0] = httpRequest.isCallingThreadPreferred();
+                    super.send(httpRequest, cancellationToken, httpCallback);
+                }
+            })
+            .policies(chain -> chain.processNextPolicy(chain.getRequest()))
+            .build();
+        final HttpCallback httpCallback = new HttpCallback() {
+            @Override
+            public void onSuccess(HttpResponse response) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                fail(error);
+            }
+        };
+        final HttpRequest httpRequest = new HttpRequest(HttpMethod.GET, "https://a.com/");
+        final Object[] sink = new Object[1];
+
+        final int requestCount = 20_000;
+        // The host is read before the request is sent, as it is the same for each request.
+        final long requestBytes = AllocationMeter.bytesPerOp(() -> {
+            final HttpRequest newRequest = new HttpRequest(HttpMethod.GET, "https://a.com/");
+            newRequest.getHost();
+            sink[0] = newRequest;
+        }, requestCount);
+        final long newRequestSendBytes = AllocationMeter.bytesPerOp(() -> {
+            final HttpRequest newRequest = new HttpRequest(HttpMethod.GET, "https://a.com/");
+            newRequest.getHost();
+            pipeline.send(newRequest, RequestContext.NONE, CancellationToken.NONE, httpCallback);
+        }, requestCount);
+        final long sendBytes = AllocationMeter.bytesPerOp(
+            () -> pipeline.send(httpRequest, RequestContext.NONE, CancellationToken.NONE, httpCallback),
+            requestCount);
+
+        assertTrue(callingThreadPreferred[0]);
+        // Sending a new request costs no more than sending the same one again, the pipeline does not create
+        // the tags map of the request to give the HttpClient the calling thread hint.
+        final long newRequestBytes = newRequestSendBytes - requestBytes;
+        assertTrue(newRequestBytes <= sendBytes + 16, "Allocated " + newRequestBytes + " bytes to send a new request, "
+            + sendBytes + " to send the same request again.");
+    }
+
+    private static final class CallingThreadExecutorService extends AbstractExecutorService {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+
+    private static class StaticResponseHttpClient implements HttpClient {
+        private final HttpCallDispatcher httpCallDispatcher;
+        private final HttpResponse httpResponse;
+
+        StaticResponseHttpClient(HttpCallDispatcher httpCallDispatcher) {
+            this.httpCallDispatcher = httpCallDispatcher;
+            this.httpResponse = new MockHttpResponse(new HttpRequest(HttpMethod.GET, "https://a.com/"), 200);
+        }
+
+        @Override
+        public HttpCallDispatcher getHttpCallDispatcher() {
+            return this.httpCallDispatcher;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            httpCallback.onSuccess(this.httpResponse);
+        }
+    }
+}
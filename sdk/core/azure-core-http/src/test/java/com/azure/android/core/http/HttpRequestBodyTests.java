@@ -0,0 +1,126 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpRequestBodyTests {
+    private static final byte[] CONTENT = "hello, world".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void bytesBodyIsNotCopied() throws IOException {
+        final HttpRequestBody body = HttpRequestBody.fromBytes(CONTENT);
+        assertTrue(body.isInMemory());
+        assertEquals(CONTENT.length, body.getContentLength());
+        assertSame(CONTENT, body.toBytes());
+        assertArrayEquals(CONTENT, write(body));
+    }
+
+    @Test
+    public void byteBufferBodyIsReplayable() throws IOException {
+        final ByteBuffer heapBuffer = ByteBuffer.wrap(CONTENT, 7, 5);
+        final HttpRequestBody heapBody = HttpRequestBody.fromByteBuffer(heapBuffer);
+        assertEquals(5, heapBody.getContentLength());
+        assertArrayEquals("world".getBytes(StandardCharsets.UTF_8), write(heapBody));
+        assertArrayEquals("world".getBytes(StandardCharsets.UTF_8), write(heapBody));
+        assertEquals(7, heapBuffer.position());
+
+        final ByteBuffer directBuffer = ByteBuffer.allocateDirect(CONTENT.length);
+        directBuffer.put(CONTENT).flip();
+        final HttpRequestBody directBody = HttpRequestBody.fromByteBuffer(directBuffer);
+        assertArrayEquals(CONTENT, write(directBody));
+        assertArrayEquals(CONTENT, write(directBody));
+    }
+
+    @Test
+    public void inMemoryBodyExposesItsStorage() throws IOException {
+        final ByteBuffer view = HttpRequestBody.fromByteBuffer(ByteBuffer.wrap(CONTENT, 7, 5)).asByteBuffer();
+        assertSame(CONTENT, view.array());
+        assertEquals(7, view.arrayOffset() + view.position());
+        assertEquals(5, view.remaining());
+        assertSame(CONTENT, HttpRequestBody.fromBytes(CONTENT).asByteBuffer().array());
+
+        final HttpRequestBody sliceBody = HttpRequestBody.fromByteBuffer(ByteBuffer.wrap(CONTENT, 7, 5));
+        final byte[] bytes = sliceBody.toBytes();
+        assertArrayEquals("world".getBytes(StandardCharsets.UTF_8), bytes);
+        assertSame(bytes, sliceBody.toBytes());
+        assertSame(CONTENT, HttpRequestBody.fromByteBuffer(ByteBuffer.wrap(CONTENT)).toBytes());
+
+        assertNull(HttpRequestBody.fromContentWriter(stream -> stream.write(CONTENT), -1).asByteBuffer());
+    }
+
+    @Test
+    public void fileBodyIsStreamed(@TempDir File directory) throws IOException {
+        final File file = new File(directory, "content.txt");
+        try (FileOutputStream stream = new FileOutputStream(file)) {
+            stream.write(CONTENT);
+        }
+        final HttpRequestBody body = HttpRequestBody.fromFile(file);
+        assertFalse(body.isInMemory());
+        assertEquals(CONTENT.length, body.getContentLength());
+        assertArrayEquals(CONTENT, write(body));
+        assertArrayEquals(CONTENT, body.toBytes());
+    }
+
+    @Test
+    public void inputStreamBodyRequestsNewStreamPerWrite() throws IOException {
+        final AtomicInteger streamCount = new AtomicInteger();
+        final HttpRequestBody body = HttpRequestBody.fromInputStream(() -> {
+            streamCount.incrementAndGet();
+            return new ByteArrayInputStream(CONTENT);
+        }, -1);
+        assertEquals(-1, body.getContentLength());
+        assertArrayEquals(CONTENT, write(body));
+        assertArrayEquals(CONTENT, write(body));
+        assertEquals(2, streamCount.get());
+    }
+
+    @Test
+    public void contentWriterBodyWritesDirectly() throws IOException {
+        final HttpRequestBody body = HttpRequestBody.fromContentWriter(stream -> stream.write(CONTENT),
+            CONTENT.length);
+        assertEquals(CONTENT.length, body.getContentLength());
+        assertArrayEquals(CONTENT, write(body));
+    }
+
+    @Test
+    public void requestSetsContentLengthFromBody() {
+        final HttpRequest request = new HttpRequest(HttpMethod.POST, "https://a.com/");
+        request.setBody(HttpRequestBody.fromContentWriter(stream -> stream.write(CONTENT), CONTENT.length));
+        assertEquals(String.valueOf(CONTENT.length), request.getHeaders().getValue("Content-Length"));
+        assertArrayEquals(CONTENT, request.getBody());
+
+        // A content of unknown length is sent chunked, without Content-Length.
+        request.setBody(HttpRequestBody.fromInputStream(() -> new ByteArrayInputStream(CONTENT), -1));
+        assertNull(request.getHeaders().getValue("Content-Length"));
+        assertSame(request.getRequestBody(), request.copy().getRequestBody());
+
+        request.setBody(CONTENT);
+        assertSame(CONTENT, request.getBody());
+        assertTrue(request.getRequestBody().isInMemory());
+    }
+
+    private static byte[] write(HttpRequestBody body) throws IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        body.writeTo(stream);
+        return stream.toByteArray();
+    }
+}
@@ -0,0 +1,103 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpRequestTests {
+    private static final String URL_STRING = "https://account.blob.core.windows.net/container/blob?comp=list&x=1";
+
+    @Test
+    public void urlIsParsedOnFirstUse() {
+        final HttpRequest request = new HttpRequest(HttpMethod.GET, URL_STRING);
+        assertSame(URL_STRING, request.getUrlString());
+        final URL url = request.getUrl();
+        assertEquals("account.blob.core.windows.net", url.getHost());
+        assertSame(url, request.getUrl());
+        assertSame(url, request.copy().getUrl());
+
+        request.setUrl("http://a.com:8080/");
+        assertEquals(8080, request.getUrl().getPort());
+    }
+
+    @Test
+    public void malformedUrlIsRejected() {
+        // Without or with an unknown protocol, rejected when set.
+        assertThrows(IllegalArgumentException.class, () -> new HttpRequest(HttpMethod.GET, "a.com/path"));
+        assertThrows(IllegalArgumentException.class, () -> new HttpRequest(HttpMethod.GET, "unknown://a.com/"));
+        final HttpRequest request = new HttpRequest(HttpMethod.GET, URL_STRING);
+        assertThrows(IllegalArgumentException.class, () -> request.setUrl(null));
+
+        // With an http(s) protocol, rejected when parsed.
+        final HttpRequest invalidPortRequest = new HttpRequest(HttpMethod.GET, "https://a.com:port/");
+        assertThrows(IllegalArgumentException.class, invalidPortRequest::getUrl);
+    }
+
+    @Test
+    public void hostIsReadWithoutParsingUrl() throws MalformedURLException {
+        final String[] urls = {URL_STRING, "http://a.com", "https://A.com:8443?q=1", "http://user:pw@a.com:80/p@q",
+            "https://a.com#frag", "http://[::1]:8080/", "https://[2001:db8::7]/path", "http://a.com/x:y"};
+        for (String url : urls) {
+            final HttpRequest request = new HttpRequest(HttpMethod.GET, url);
+            assertEquals(new URL(url).getHost(), request.getHost(), url);
+            assertEquals(request.getHost(), request.getUrl().getHost(), url);
+        }
+
+        // Read without validating the url, which is rejected when parsed.
+        final HttpRequest invalidPortRequest = new HttpRequest(HttpMethod.GET, "https://a.com:port/");
+        assertEquals("a.com", invalidPortRequest.getHost());
+        invalidPortRequest.setUrl("https://b.com/");
+        assertEquals("b.com", invalidPortRequest.getHost());
+    }
+
+    @Test
+    public void tagsAreCreatedOnFirstUse() {
+        final HttpRequest request = new HttpRequest(HttpMethod.GET, URL_STRING);
+        assertTrue(request.copy().getTags().isEmpty());
+
+        request.getTags().put("key", "value");
+        final HttpRequest copy = request.copy();
+        copy.getTags().put("key", "other");
+        assertEquals("value", request.getTags().get("key"));
+        assertNull(new HttpRequest(HttpMethod.GET, URL_STRING).getTags().get("key"));
+    }
+
+    @Test
+    public void allocatedBytesPerRequestConstruction() {
+        final int requestCount = 20_000;
+        final Object[] sink = new Object[2];
+
+        // Before: the url is parsed and a tags map allocated by the constructor, as the request of a pipeline
+        // run that does not read them.
+        final long eagerBytesPerRequest = AllocationMeter.bytesPerOp(() -> runEagerConstruction(sink),
+            requestCount);
+
+        // After: the url is parsed and the tags map allocated only when used.
+        final long bytesPerRequest = AllocationMeter.bytesPerOp(
+            () -> sink[0] = new HttpRequest(HttpMethod.GET, URL_STRING), requestCount);
+
+        assertTrue(bytesPerRequest * 4 < eagerBytesPerRequest, "Allocated " + bytesPerRequest
+            + " bytes per request construction, " + eagerBytesPerRequest + " when parsing eagerly.");
+    }
+
+    private static void runEagerConstruction(Object[] sink) {
+        final HttpRequest request = new HttpRequest(HttpMethod.GET, URL_STRING);
+        sink[0] = request;
+        try {
+            sink[1] = new URL(URL_STRING);
+        } catch (MalformedURLException e) {
+            throw new AssertionError(e);
+        }
+        request.getTags();
+    }
+}
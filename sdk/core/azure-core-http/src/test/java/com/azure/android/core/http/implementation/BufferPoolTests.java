@@ -0,0 +1,187 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.implementation;
+
+import com.azure.android.core.http.AllocationMeter;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.policy.MockHttpResponse;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BufferPoolTests {
+    private static final HttpRequest REQUEST = new HttpRequest(HttpMethod.GET, "https://a.com/");
+
+    @Test
+    public void arraysAreSizeClassed() {
+        final BufferPool bufferPool = BufferPool.getSharedPool();
+        assertEquals(1024, bufferPool.acquire(1).length);
+        assertEquals(1024, bufferPool.acquire(1024).length);
+        assertEquals(2048, bufferPool.acquire(1025).length);
+        assertEquals(64 * 1024, bufferPool.acquire(40_000).length);
+        // Arrays larger than the largest class are allocated at the requested length.
+        assertEquals(3 * 1024 * 1024, bufferPool.acquire(3 * 1024 * 1024).length);
+    }
+
+    @Test
+    public void releasedArrayIsReused() throws InterruptedException {
+        final BufferPool bufferPool = BufferPool.getSharedPool();
+        final byte[] array = bufferPool.acquire(4096);
+        bufferPool.release(array);
+        assertSame(array, bufferPool.acquire(4000));
+
+        // An array released beyond the thread cache goes to the shared pool, for any thread.
+        final byte[] first = bufferPool.acquire(256 * 1024);
+        final byte[] second = bufferPool.acquire(256 * 1024);
+        bufferPool.release(first);
+        bufferPool.release(second);
+        final AtomicBoolean reused = new AtomicBoolean();
+        final Thread thread = new Thread(() -> {
+            // The shared pool holds at most 16 arrays of 256 KB, some may have been released by other tests.
+            for (int i = 0; i < 17 && !reused.get(); i++) {
+                final byte[] acquired = bufferPool.acquire(256 * 1024);
+                reused.set(acquired == first || acquired == second);
+            }
+        });
+        thread.start();
+        thread.join();
+        assertTrue(reused.get());
+
+        // An array whose length is not a size class is not pooled.
+        final byte[] odd = new byte[3000];
+        bufferPool.release(odd);
+        assertNotSame(odd, bufferPool.acquire(3000));
+    }
+
+    @Test
+    public void streamGrowsAcrossSizeClasses() throws IOException {
+        final byte[] content = randomContent(100_000);
+        final PooledByteArrayOutputStream stream = new PooledByteArrayOutputStream(BufferPool.getSharedPool());
+        stream.write(content, 0, 10);
+        stream.readFrom(new ByteArrayInputStream(content, 10, content.length - 10));
+        stream.write(7);
+        assertEquals(content.length + 1, stream.size());
+        assertEquals(128 * 1024, stream.getBuffer().length);
+        final byte[] bytes = stream.toByteArray();
+        assertArrayEquals(content, Arrays.copyOf(bytes, content.length));
+        assertEquals(7, bytes[content.length]);
+        stream.close();
+    }
+
+    @Test
+    public void bufferedResponseContentIsReadableAfterClose() throws IOException {
+        final byte[] content = "hello, world".getBytes(StandardCharsets.UTF_8);
+        final BufferedHttpResponse response = new BufferedHttpResponse(new MockHttpResponse(REQUEST, 200, content));
+        assertEquals("hello, world", response.getBodyAsString());
+        final InputStream body = response.getBody();
+        assertEquals('h', body.read());
+        assertArrayEquals(content, response.getBodyAsByteArray());
+
+        response.close();
+        // The stream handed out before the close keeps its array, which is not released to the pool.
+        assertEquals('e', body.read());
+        assertArrayEquals(content, response.getBodyAsByteArray());
+
+        // Without a stream handed out, the pooled array is released, and the content requested as an array
+        // is kept.
+        final BufferedHttpResponse arrayResponse
+            = new BufferedHttpResponse(new MockHttpResponse(REQUEST, 200, content));
+        assertArrayEquals(content, arrayResponse.getBodyAsByteArray());
+        arrayResponse.close();
+        assertEquals("hello, world", arrayResponse.getBodyAsString());
+        assertArrayEquals(content, readWithByteArrayOutputStream(arrayResponse.getBody()));
+
+        // The content read only as a string is not copied out of the pooled array before it is released.
+        final BufferedHttpResponse stringResponse
+            = new BufferedHttpResponse(new MockHttpResponse(REQUEST, 200, content));
+        assertEquals("hello, world", stringResponse.getBodyAsString());
+        stringResponse.close();
+        assertThrows(IllegalStateException.class, stringResponse::getBodyAsString);
+
+        // The content not read before the close cannot be read from the closed inner response.
+        final BufferedHttpResponse unreadResponse
+            = new BufferedHttpResponse(new MockHttpResponse(REQUEST, 200, content));
+        unreadResponse.close();
+        assertThrows(IllegalStateException.class, unreadResponse::getBodyAsByteArray);
+    }
+
+    @Test
+    public void allocatedBytesPerBufferedResponse() {
+        final byte[] content = randomContent(64 * 1024);
+        final MockHttpResponse innerResponse = new MockHttpResponse(REQUEST, 200, content);
+        final int responseCount = 10_000;
+        final long[] checksum = new long[1];
+
+        // Before: the body is read into a growing ByteArrayOutputStream with a 1 KB scratch array, then copied.
+        final long unpooledBytesPerResponse = AllocationMeter.bytesPerOp(
+            () -> checksum[0] += readWithByteArrayOutputStream(innerResponse.getBody()).length, responseCount);
+
+        // After: the body is read into an array of the pool, released when the response is closed.
+        final long pooledBytesPerResponse = AllocationMeter.bytesPerOp(() -> {
+            final BufferedHttpResponse response = new BufferedHttpResponse(innerResponse);
+            checksum[0] += response.getBodyAsByteArray().length;
+            response.close();
+        }, responseCount);
+
+        assertEquals(4L * responseCount * content.length, checksum[0]);
+        // About 192 KB before (the growing arrays sum to twice the content, plus the copy), and only the 64 KB
+        // array returned after.
+        assertTrue(pooledBytesPerResponse < 80 * 1024, "Allocated " + pooledBytesPerResponse + " bytes per "
+            + "response with the pool, " + unpooledBytesPerResponse + " without.");
+        assertTrue(pooledBytesPerResponse * 2 < unpooledBytesPerResponse, "Allocated " + pooledBytesPerResponse
+            + " bytes per response with the pool, " + unpooledBytesPerResponse + " without.");
+
+        // Read as a string, then closed: only the string is allocated, the content is not copied on close.
+        final byte[] textContent = new byte[64 * 1024];
+        Arrays.fill(textContent, (byte) 'a');
+        final MockHttpResponse textResponse = new MockHttpResponse(REQUEST, 200, textContent);
+        final long stringBytes = AllocationMeter.bytesPerOp(
+            () -> checksum[0] += new String(textContent, StandardCharsets.UTF_8).length(), responseCount);
+        final long stringBytesPerResponse = AllocationMeter.bytesPerOp(() -> {
+            final BufferedHttpResponse response = new BufferedHttpResponse(textResponse);
+            checksum[0] += response.getBodyAsString().length();
+            response.close();
+        }, responseCount);
+
+        assertTrue(stringBytesPerResponse < stringBytes + 16 * 1024, "Allocated " + stringBytesPerResponse
+            + " bytes per response read as a string, " + stringBytes + " per string.");
+    }
+
+    private static byte[] readWithByteArrayOutputStream(InputStream inputStream) {
+        final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int len;
+        try {
+            while ((len = inputStream.read(buffer)) != -1) {
+                outStream.write(buffer, 0, len);
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+        return outStream.toByteArray();
+    }
+
+    private static byte[] randomContent(int length) {
+        final byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31 + 7);
+        }
+        return content;
+    }
+}
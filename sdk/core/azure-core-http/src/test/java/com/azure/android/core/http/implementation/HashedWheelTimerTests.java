@@ -0,0 +1,180 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.implementation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class HashedWheelTimerTests {
+    @Test
+    public void taskRunsNoEarlierThanDelay() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 8, 1000, TimeUnit.MILLISECONDS);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long[] elapsedNanos = new long[1];
+        final long startNanos = System.nanoTime();
+        // 250ms spans more than three rotations of an 8 bucket wheel with 10ms ticks.
+        timer.schedule(() -> {
+            elapsedNanos[0] = System.nanoTime() - startNanos;
+            latch.countDown();
+        }, 250, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(elapsedNanos[0] >= TimeUnit.MILLISECONDS.toNanos(250),
+            "Task ran early, after " + elapsedNanos[0] + "ns");
+        assertEquals(0, timer.getPendingTasksCount());
+    }
+
+    @Test
+    public void tasksRunInDeadlineOrder() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 5, 16, 1000, TimeUnit.MILLISECONDS);
+        final List<Integer> order = new ArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        timer.schedule(() -> {
+            order.add(3);
+            latch.countDown();
+        }, 300, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> {
+            order.add(1);
+            latch.countDown();
+        }, 20, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> {
+            order.add(2);
+            latch.countDown();
+        }, 150, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, order.size());
+        assertEquals(1, order.get(0));
+        assertEquals(2, order.get(1));
+        assertEquals(3, order.get(2));
+    }
+
+    @Test
+    public void taskErrorDoesNotStopTimer() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 8, 1000, TimeUnit.MILLISECONDS);
+        final CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(() -> {
+            throw new IllegalStateException("failed task");
+        }, 0, TimeUnit.MILLISECONDS);
+        timer.schedule(latch::countDown, 30, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void timerThreadExitsWhenIdleAndRestartsOnSchedule() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 8, 100, TimeUnit.MILLISECONDS);
+        assertFalse(timer.isWorkerRunning());
+
+        final CountDownLatch firstLatch = new CountDownLatch(1);
+        timer.schedule(firstLatch::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(timer.isWorkerRunning());
+        assertTrue(firstLatch.await(5, TimeUnit.SECONDS));
+
+        awaitWorkerExit(timer);
+
+        final CountDownLatch secondLatch = new CountDownLatch(1);
+        timer.schedule(secondLatch::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(secondLatch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelledTaskDoesNotRunAndIsNotRetained() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 8, 100, TimeUnit.MILLISECONDS);
+        final AtomicInteger runCount = new AtomicInteger();
+        final HashedWheelTimer.Timeout longTimeout = timer.schedule(runCount::incrementAndGet, 1, TimeUnit.HOURS);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final HashedWheelTimer.Timeout shortTimeout = timer.schedule(latch::countDown, 30, TimeUnit.MILLISECONDS);
+        assertEquals(2, timer.getPendingTasksCount());
+
+        assertTrue(longTimeout.cancel());
+        assertFalse(longTimeout.cancel());
+        assertEquals(1, timer.getPendingTasksCount());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertFalse(shortTimeout.cancel());
+
+        // The timer thread exits when idle, rather than keep the cancelled task until its deadline.
+        awaitWorkerExit(timer);
+        assertEquals(0, timer.getPendingTasksCount());
+        assertEquals(0, runCount.get());
+    }
+
+    @Test
+    public void manyPendingTasksFromConcurrentThreads() throws InterruptedException {
+        // Keeps 100k continuations pending at once, scheduled from multiple threads, e.g., a burst of
+        // throttled calls waiting on retry; every task must run exactly once and never before its deadline.
+        final int threadCount = 8;
+        final int tasksPerThread = 12_500;
+        final int taskCount = threadCount * tasksPerThread;
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 512, 1000, TimeUnit.MILLISECONDS);
+        final CountDownLatch latch = new CountDownLatch(taskCount);
+        final AtomicInteger earlyCount = new AtomicInteger(0);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int threadIndex = t;
+            final Thread thread = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < tasksPerThread; i++) {
+                    // Delays of 500ms to 8.5s, spanning multiple rotations of the wheel.
+                    final long delayMillis = 500 + ((threadIndex * tasksPerThread + i) * 7919L) % 8000;
+                    final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+                    timer.schedule(() -> {
+                        if (System.nanoTime() - deadlineNanos < 0) {
+                            earlyCount.incrementAndGet();
+                        }
+                        latch.countDown();
+                    }, delayMillis, TimeUnit.MILLISECONDS);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS), "Tasks not run: " + latch.getCount());
+        assertEquals(0, earlyCount.get());
+        assertEquals(0, timer.getPendingTasksCount());
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new HashedWheelTimer("test-timer", 0, 8, 1000, TimeUnit.MILLISECONDS));
+        assertThrows(IllegalArgumentException.class,
+            () -> new HashedWheelTimer("test-timer", 10, 0, 1000, TimeUnit.MILLISECONDS));
+        assertThrows(NullPointerException.class,
+            () -> new HashedWheelTimer(null, 10, 8, 1000, TimeUnit.MILLISECONDS));
+    }
+
+    private static void awaitWorkerExit(HashedWheelTimer timer) throws InterruptedException {
+        final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (timer.isWorkerRunning()) {
+            if (System.nanoTime() - deadlineNanos > 0) {
+                fail("Timer thread did not exit when idle.");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
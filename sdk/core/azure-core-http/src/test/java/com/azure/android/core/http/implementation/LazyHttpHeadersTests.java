@@ -0,0 +1,134 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.implementation;
+
+import com.azure.android.core.http.HttpHeader;
+import com.azure.android.core.http.HttpHeaders;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class LazyHttpHeadersTests {
+    @Test
+    public void valuesAreReadThrough() {
+        final PairHttpHeaders headers = new PairHttpHeaders("Content-Type", "application/json",
+            "Set-Cookie", "a=1", "x-ms-request-id", "42", "set-cookie", "b=2");
+
+        assertEquals("application/json", headers.getValue(HttpHeaders.CONTENT_TYPE));
+        assertEquals("a=1,b=2", headers.getValue("SET-COOKIE"));
+        assertArrayEquals(new String[] {"a=1", "b=2"}, headers.getValues("Set-Cookie"));
+        assertNull(headers.getValue("Content-Length"));
+        assertEquals(0, headers.readHeadersCount);
+    }
+
+    @Test
+    public void headersAreCopiedOnceWhenMutated() {
+        final PairHttpHeaders headers = new PairHttpHeaders("Content-Type", "application/json",
+            "Set-Cookie", "a=1", "set-cookie", "b=2");
+
+        headers.put("Content-Type", "text/xml");
+        headers.remove("x-ms-request-id");
+        assertEquals("text/xml", headers.getValue("content-type"));
+        assertEquals("a=1,b=2", headers.getValue("Set-Cookie"));
+        assertEquals(2, headers.getSize());
+        assertEquals(1, headers.readHeadersCount);
+    }
+
+    @Test
+    public void headersAreCopiedWhenIterated() {
+        final PairHttpHeaders headers = new PairHttpHeaders("Content-Type", "application/json",
+            "Set-Cookie", "a=1", "Date", "today", "set-cookie", "b=2");
+
+        final Iterator<HttpHeader> iterator = headers.iterator();
+        assertEquals("Content-Type", iterator.next().getName());
+        final HttpHeader cookies = iterator.next();
+        assertEquals("Set-Cookie", cookies.getName());
+        assertEquals("a=1,b=2", cookies.getValue());
+        assertEquals("Date", iterator.next().getName());
+        assertFalse(iterator.hasNext());
+
+        // The headers returned by get are the copied ones, a mutation is visible to the readers.
+        headers.get("date").addValue("tomorrow");
+        assertEquals("today,tomorrow", headers.getValue("Date"));
+        assertEquals("today,tomorrow", headers.toMap().get("Date"));
+        assertEquals(1, headers.readHeadersCount);
+    }
+
+    @Test
+    public void repeatedValuesAreKeptApart() throws InterruptedException {
+        final String first = "a=1; Expires=Wed, 21 Oct 2026 07:28:00 GMT";
+        final String second = "b=2; Expires=Thu, 22 Oct 2026 07:28:00 GMT";
+        final PairHttpHeaders headers = new PairHttpHeaders("Set-Cookie", first, "Date", "today",
+            "set-cookie", second);
+
+        assertArrayEquals(new String[] {first, second}, headers.getValues("Set-Cookie"));
+        assertEquals(first + "," + second, headers.getValue("set-cookie"));
+        assertEquals(0, headers.readHeadersCount);
+
+        // Copied once by concurrent readers, the values stay apart once the headers are copied.
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> assertEquals(2, headers.getSize()));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, headers.readHeadersCount);
+        assertArrayEquals(new String[] {first, second}, headers.getValues("SET-COOKIE"));
+
+        // A mutated header is split from its joined value.
+        headers.get("Set-Cookie").addValue("c=3");
+        assertEquals("c=3", headers.getValues("Set-Cookie")[4]);
+        headers.put("Set-Cookie", "d=4");
+        assertArrayEquals(new String[] {"d=4"}, headers.getValues("Set-Cookie"));
+    }
+
+    private static final class PairHttpHeaders extends LazyHttpHeaders {
+        private final String[] namesAndValues;
+        private int readHeadersCount;
+
+        PairHttpHeaders(String... namesAndValues) {
+            this.namesAndValues = namesAndValues;
+        }
+
+        @Override
+        protected String readValue(String name) {
+            String values = null;
+            for (int i = 0; i < namesAndValues.length; i += 2) {
+                if (namesAndValues[i].equalsIgnoreCase(name)) {
+                    values = joinValue(values, namesAndValues[i + 1]);
+                }
+            }
+            return values;
+        }
+
+        @Override
+        protected String[] readValues(String name) {
+            final List<String> values = new ArrayList<>();
+            for (int i = 0; i < namesAndValues.length; i += 2) {
+                if (namesAndValues[i].equalsIgnoreCase(name)) {
+                    values.add(namesAndValues[i + 1]);
+                }
+            }
+            return values.isEmpty() ? null : values.toArray(new String[0]);
+        }
+
+        @Override
+        protected void readHeaders() {
+            readHeadersCount++;
+            for (int i = 0; i < namesAndValues.length; i += 2) {
+                addHeader(namesAndValues[i], namesAndValues[i + 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTests {
+    @Test
+    public void emptyHistogram() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getValueAtPercentile(99, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void percentilesWithinPrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        // 1ms, 2ms, ..., 1000ms.
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax(TimeUnit.MILLISECONDS));
+        assertWithinPrecision(500, histogram.getValueAtPercentile(50, TimeUnit.MILLISECONDS));
+        assertWithinPrecision(900, histogram.getValueAtPercentile(90, TimeUnit.MILLISECONDS));
+        assertWithinPrecision(990, histogram.getValueAtPercentile(99, TimeUnit.MILLISECONDS));
+        assertEquals(1000, histogram.getValueAtPercentile(100, TimeUnit.MILLISECONDS));
+        assertWithinPrecision(1, histogram.getValueAtPercentile(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void smallAndLargeValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(3);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(0, TimeUnit.NANOSECONDS));
+        assertEquals(3, histogram.getValueAtPercentile(50, TimeUnit.NANOSECONDS));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void invalidPercentile() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(-1, TimeUnit.SECONDS));
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.125 + 1,
+            "Expected " + expected + " within 12.5%, was " + actual);
+    }
+}
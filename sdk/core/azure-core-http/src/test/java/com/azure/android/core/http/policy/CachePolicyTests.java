@@ -0,0 +1,256 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallDispatcher;
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CachePolicyTests {
+    @Test
+    public void freshResponseIsServedFromCache() {
+        final ScriptedHttpClient httpClient = new ScriptedHttpClient();
+        httpClient.respond(200, "v1", "Cache-Control", "max-age=60");
+        final CachePolicy cachePolicy = new CachePolicy(1024 * 1024);
+        final HttpPipeline pipeline = createPipeline(httpClient, cachePolicy);
+
+        assertEquals("v1", send(pipeline, "https://a.com/threads").getBodyAsString());
+        final HttpRequest request = new HttpRequest(HttpMethod.GET, "https://a.com/threads");
+        final HttpResponse response = send(pipeline, request);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("v1", response.getBodyAsString());
+        assertEquals("max-age=60", response.getHeaderValue("Cache-Control"));
+        assertSame(request, response.getRequest());
+        assertEquals(1, httpClient.requests.size());
+        assertEquals(1, cachePolicy.getHitCount());
+        assertEquals(1, cachePolicy.getMissCount());
+        assertEquals(0, cachePolicy.getRevalidationCount());
+    }
+
+    @Test
+    public void staleResponseIsRevalidatedWithETag() {
+        final ScriptedHttpClient httpClient = new ScriptedHttpClient();
+        httpClient.respond(200, "v1", "ETag", "\"1\"", "Cache-Control", "max-age=0");
+        httpClient.respond(304, "", "ETag", "\"1\"", "Cache-Control", "max-age=0");
+        httpClient.respond(200, "v2", "ETag", "\"2\"", "Cache-Control", "max-age=0");
+        httpClient.respond(304, "", "ETag", "\"2\"");
+        final CachePolicy cachePolicy = new CachePolicy(1024 * 1024);
+        final HttpPipeline pipeline = createPipeline(httpClient, cachePolicy);
+
+        assertEquals("v1", send(pipeline, "https://a.com/threads").getBodyAsString());
+        assertNull(httpClient.requests.get(0).getHeaders().getValue("If-None-Match"));
+
+        final HttpRequest request = new HttpRequest(HttpMethod.GET, "https://a.com/threads");
+        final HttpResponse response = send(pipeline, request);
+        assertEquals(200, response.getStatusCode());
+        assertEquals("v1", response.getBodyAsString());
+        assertEquals("\"1\"", httpClient.sentHeaders.get(1).getValue("If-None-Match"));
+        // The conditional header added by the policy is removed once the request completes.
+        assertNull(request.getHeaders().getValue("If-None-Match"));
+
+        assertEquals("v2", send(pipeline, "https://a.com/threads").getBodyAsString());
+        assertEquals("\"1\"", httpClient.sentHeaders.get(2).getValue("If-None-Match"));
+        assertEquals("v2", send(pipeline, "https://a.com/threads").getBodyAsString());
+        assertEquals("\"2\"", httpClient.sentHeaders.get(3).getValue("If-None-Match"));
+
+        assertEquals(0, cachePolicy.getHitCount());
+        assertEquals(2, cachePolicy.getMissCount());
+        assertEquals(2, cachePolicy.getRevalidationCount());
+    }
+
+    @Test
+    public void noStoreResponseIsNotCached() {
+        final ScriptedHttpClient httpClient = new ScriptedHttpClient();
+        httpClient.respond(200, "v1", "Cache-Control", "no-store, max-age=60", "ETag", "\"1\"");
+        httpClient.respond(200, "v2", "Cache-Control", "no-store, max-age=60", "ETag", "\"2\"");
+        final CachePolicy cachePolicy = new CachePolicy(1024 * 1024);
+        final HttpPipeline pipeline = createPipeline(httpClient, cachePolicy);
+
+        assertEquals("v1", send(pipeline, "https://a.com/threads").getBodyAsString());
+        assertEquals("v2", send(pipeline, "https://a.com/threads").getBodyAsString());
+        assertNull(httpClient.sentHeaders.get(1).getValue("If-None-Match"));
+        assertEquals(0, cachePolicy.getHitCount());
+        assertEquals(2, cachePolicy.getMissCount());
+    }
+
+    @Test
+    public void writeInvalidatesCachedResponse() {
+        final ScriptedHttpClient httpClient = new ScriptedHttpClient();
+        httpClient.respond(200, "v1", "Cache-Control", "max-age=60");
+        httpClient.respond(204, "");
+        httpClient.respond(200, "v2", "Cache-Control", "max-age=60");
+        final CachePolicy cachePolicy = new CachePolicy(1024 * 1024);
+        final HttpPipeline pipeline = createPipeline(httpClient, cachePolicy);
+
+        send(pipeline, "https://a.com/threads");
+        send(pipeline, new HttpRequest(HttpMethod.PUT, "https://a.com/threads"));
+        assertEquals("v2", send(pipeline, "https://a.com/threads").getBodyAsString());
+        assertEquals(3, httpClient.requests.size());
+    }
+
+    @Test
+    public void varyingRequestHeaderIsNotServedFromCache() {
+        final ScriptedHttpClient httpClient = new ScriptedHttpClient();
+        httpClient.respond(200, "en", "Cache-Control", "max-age=60", "Vary", "Accept-Language");
+        httpClient.respond(200, "fr", "Cache-Control", "max-age=60", "Vary", "Accept-Language");
+        final CachePolicy cachePolicy = new CachePolicy(1024 * 1024);
+        final HttpPipeline pipeline = createPipeline(httpClient, cachePolicy);
+
+        final HttpRequest enRequest = new HttpRequest(HttpMethod.GET, "https://a.com/threads");
+        enRequest.getHeaders().put("Accept-Language", "en");
+        assertEquals("en", send(pipeline, enRequest).getBodyAsString());
+        final HttpRequest frRequest = new HttpRequest(HttpMethod.GET, "https://a.com/threads");
+        frRequest.getHeaders().put("Accept-Language", "fr");
+        assertEquals("fr", send(pipeline, frRequest).getBodyAsString());
+        assertEquals(2, httpClient.requests.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedResponseIsEvicted() {
+        final ScriptedHttpClient httpClient = new ScriptedHttpClient();
+        final String body = new String(new char[400]).replace('\0', 'x');
+        for (int i = 0; i < 4; i++) {
+            httpClient.respond(200, body, "Cache-Control", "max-age=60");
+        }
+        // Room for two responses.
+        final CachePolicy cachePolicy = new CachePolicy(1500);
+        final HttpPipeline pipeline = createPipeline(httpClient, cachePolicy);
+
+        send(pipeline, "https://a.com/1");
+        send(pipeline, "https://a.com/2");
+        // Use 1 so that 2 is the least recently used.
+        send(pipeline, "https://a.com/1");
+        send(pipeline, "https://a.com/3");
+        assertEquals(3, httpClient.requests.size());
+
+        send(pipeline, "https://a.com/1");
+        assertEquals(3, httpClient.requests.size());
+        send(pipeline, "https://a.com/2");
+        assertEquals(4, httpClient.requests.size());
+    }
+
+    @Test
+    public void diskCacheSurvivesPolicy(@TempDir File directory) {
+        final ScriptedHttpClient httpClient = new ScriptedHttpClient();
+        httpClient.respond(200, "v1", "Cache-Control", "max-age=60", "Content-Type", "text/plain");
+        final HttpPipeline pipeline = createPipeline(httpClient, new CachePolicy(1024, directory, 1024 * 1024));
+        send(pipeline, "https://a.com/threads");
+
+        final CachePolicy cachePolicy = new CachePolicy(1024, directory, 1024 * 1024);
+        final HttpResponse response = send(createPipeline(httpClient, cachePolicy), "https://a.com/threads");
+        assertEquals("v1", response.getBodyAsString());
+        assertEquals("text/plain", response.getHeaderValue("Content-Type"));
+        assertEquals(1, httpClient.requests.size());
+        assertEquals(1, cachePolicy.getHitCount());
+    }
+
+    @Test
+    public void responseLargerThanMaxEntryIsNotCached() {
+        final ScriptedHttpClient httpClient = new ScriptedHttpClient();
+        httpClient.respond(200, "too large", "Cache-Control", "max-age=60");
+        httpClient.respond(200, "too large", "Cache-Control", "max-age=60");
+        final CachePolicy cachePolicy = new CachePolicy(1024 * 1024, 4);
+        final HttpPipeline pipeline = createPipeline(httpClient, cachePolicy);
+
+        final HttpResponse response = send(pipeline, "https://a.com/threads");
+        assertEquals(200, response.getStatusCode());
+        assertEquals("too large", response.getBodyAsString());
+        assertEquals("max-age=60", response.getHeaderValue("Cache-Control"));
+
+        assertEquals("too large", send(pipeline, "https://a.com/threads").getBodyAsString());
+        assertEquals(2, httpClient.requests.size());
+        assertEquals(0, cachePolicy.getHitCount());
+    }
+
+    @Test
+    public void modifyingServedBodyDoesNotModifyCachedBody() {
+        final ScriptedHttpClient httpClient = new ScriptedHttpClient();
+        httpClient.respond(200, "v1", "Cache-Control", "max-age=60");
+        final HttpPipeline pipeline = createPipeline(httpClient, new CachePolicy(1024 * 1024));
+
+        final byte[] fetchedBody = send(pipeline, "https://a.com/threads").getBodyAsByteArray();
+        fetchedBody[0] = 'x';
+        final byte[] cachedBody = send(pipeline, "https://a.com/threads").getBodyAsByteArray();
+        cachedBody[0] = 'x';
+
+        assertEquals("v1", send(pipeline, "https://a.com/threads").getBodyAsString());
+        assertEquals(1, httpClient.requests.size());
+    }
+
+    @Test
+    public void maxEntryLargerThanMaxMemoryIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CachePolicy(1024, 2048));
+    }
+
+    private static HttpResponse send(HttpPipeline pipeline, String url) {
+        return send(pipeline, new HttpRequest(HttpMethod.GET, url));
+    }
+
+    private static HttpResponse send(HttpPipeline pipeline, HttpRequest request) {
+        return pipeline.sendSync(request, RequestContext.NONE, CancellationToken.NONE);
+    }
+
+    private static HttpPipeline createPipeline(HttpClient httpClient, CachePolicy cachePolicy) {
+        return new HttpPipelineBuilder()
+            .httpClient(httpClient)
+            .policies(cachePolicy)
+            .build();
+    }
+
+    /**
+     * An HttpClient that answers the requests with the responses it is told to, in order.
+     */
+    private static final class ScriptedHttpClient implements HttpClient {
+        private final HttpCallDispatcher httpCallDispatcher = new HttpCallDispatcher();
+        final List<HttpRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        final List<HttpHeaders> sentHeaders = Collections.synchronizedList(new ArrayList<>());
+        private final List<Object[]> responses = new ArrayList<>();
+
+        void respond(int statusCode, String body, String... headers) {
+            this.responses.add(new Object[] { statusCode, body, headers });
+        }
+
+        @Override
+        public HttpCallDispatcher getHttpCallDispatcher() {
+            return this.httpCallDispatcher;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            this.requests.add(httpRequest);
+            this.sentHeaders.add(new HttpHeaders(httpRequest.getHeaders()));
+            final Object[] response = this.responses.remove(0);
+            final HttpHeaders headers = new HttpHeaders();
+            final String[] headerNamesAndValues = (String[]) response[2];
+            for (int i = 0; i < headerNamesAndValues.length; i += 2) {
+                headers.put(headerNamesAndValues[i], headerNamesAndValues[i + 1]);
+            }
+            httpCallback.onSuccess(new MockHttpResponse(httpRequest, (Integer) response[0], headers,
+                ((String) response[1]).getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
@@ -0,0 +1,261 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallDispatcher;
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.exception.CircuitBreakerOpenException;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CircuitBreakerPolicyTests {
+    @Test
+    public void circuitOpensOnFailuresAndFailsFast() {
+        final CountingHttpClient httpClient = new CountingHttpClient(503);
+        final CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setSlidingWindowSize(10)
+            .setMinimumNumberOfCalls(4)
+            .setOpenDuration(Duration.ofMinutes(1)));
+        final HttpPipeline pipeline = createPipeline(httpClient, circuitBreakerPolicy);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(503, send(pipeline, "https://a.com/threads").getStatusCode());
+        }
+        assertEquals(CircuitBreakerState.OPEN, circuitBreakerPolicy.getState("a.com"));
+
+        assertThrows(CircuitBreakerOpenException.class, () -> send(pipeline, "https://a.com/threads"));
+        assertEquals(4, httpClient.callCount.get());
+    }
+
+    @Test
+    public void circuitStaysClosedBelowFailureRate() {
+        final CountingHttpClient httpClient = new CountingHttpClient(503, 200, 200, 200);
+        final CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setSlidingWindowSize(4)
+            .setMinimumNumberOfCalls(4));
+        final HttpPipeline pipeline = createPipeline(httpClient, circuitBreakerPolicy);
+
+        for (int i = 0; i < 20; i++) {
+            send(pipeline, "https://a.com/threads");
+        }
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreakerPolicy.getState("a.com"));
+        assertEquals(20, httpClient.callCount.get());
+    }
+
+    @Test
+    public void successfulProbesCloseCircuit() throws InterruptedException {
+        final CountingHttpClient httpClient = new CountingHttpClient(500, 500, 200, 200);
+        final CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setSlidingWindowSize(2)
+            .setMinimumNumberOfCalls(2)
+            .setOpenDuration(Duration.ofMillis(50))
+            .setPermittedCallsInHalfOpenState(2));
+        final HttpPipeline pipeline = createPipeline(httpClient, circuitBreakerPolicy);
+
+        send(pipeline, "https://a.com/threads");
+        send(pipeline, "https://a.com/threads");
+        assertEquals(CircuitBreakerState.OPEN, circuitBreakerPolicy.getState("a.com"));
+
+        Thread.sleep(100);
+        assertEquals(200, send(pipeline, "https://a.com/threads").getStatusCode());
+        assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreakerPolicy.getState("a.com"));
+        assertEquals(200, send(pipeline, "https://a.com/threads").getStatusCode());
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreakerPolicy.getState("a.com"));
+    }
+
+    @Test
+    public void failedProbeReopensCircuit() throws InterruptedException {
+        final CountingHttpClient httpClient = new CountingHttpClient(-1);
+        final CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setSlidingWindowSize(2)
+            .setMinimumNumberOfCalls(2)
+            .setOpenDuration(Duration.ofMillis(50))
+            .setPermittedCallsInHalfOpenState(1));
+        final HttpPipeline pipeline = createPipeline(httpClient, circuitBreakerPolicy);
+
+        assertThrows(RuntimeException.class, () -> send(pipeline, "https://a.com/threads"));
+        assertThrows(RuntimeException.class, () -> send(pipeline, "https://a.com/threads"));
+        assertEquals(CircuitBreakerState.OPEN, circuitBreakerPolicy.getState("a.com"));
+
+        Thread.sleep(100);
+        assertThrows(RuntimeException.class, () -> send(pipeline, "https://a.com/threads"));
+        assertEquals(3, httpClient.callCount.get());
+        assertEquals(CircuitBreakerState.OPEN, circuitBreakerPolicy.getState("a.com"));
+        assertThrows(CircuitBreakerOpenException.class, () -> send(pipeline, "https://a.com/threads"));
+        assertEquals(3, httpClient.callCount.get());
+    }
+
+    @Test
+    public void probeNotCompletingLetsAnotherThrough() throws InterruptedException {
+        final CountingHttpClient httpClient = new CountingHttpClient(500, 500, -2, 200);
+        final CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setSlidingWindowSize(2)
+            .setMinimumNumberOfCalls(2)
+            .setOpenDuration(Duration.ofMillis(50))
+            .setPermittedCallsInHalfOpenState(1)
+            .setMaxProbeDuration(Duration.ofMillis(50)));
+        final HttpPipeline pipeline = createPipeline(httpClient, circuitBreakerPolicy);
+
+        send(pipeline, "https://a.com/threads");
+        send(pipeline, "https://a.com/threads");
+        Thread.sleep(100);
+        // The probe never completes.
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/threads"), RequestContext.NONE,
+            new CancellationToken(), new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                }
+            });
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (httpClient.callCount.get() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThrows(CircuitBreakerOpenException.class, () -> send(pipeline, "https://a.com/threads"));
+        assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreakerPolicy.getState("a.com"));
+
+        Thread.sleep(100);
+        assertEquals(200, send(pipeline, "https://a.com/threads").getStatusCode());
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreakerPolicy.getState("a.com"));
+        assertEquals(4, httpClient.callCount.get());
+    }
+
+    @Test
+    public void slowCallsOpenCircuit() {
+        final CountingHttpClient httpClient = new CountingHttpClient(200);
+        httpClient.delayMillis = 20;
+        final CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setSlidingWindowSize(3)
+            .setMinimumNumberOfCalls(3)
+            .setSlowCallDuration(Duration.ofMillis(10))
+            .setSlowCallRateThreshold(1.0));
+        final HttpPipeline pipeline = createPipeline(httpClient, circuitBreakerPolicy);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send(pipeline, "https://a.com/threads").getStatusCode());
+        }
+        assertEquals(CircuitBreakerState.OPEN, circuitBreakerPolicy.getState("a.com"));
+    }
+
+    @Test
+    public void listenerIsNotifiedOfStateChanges() throws InterruptedException {
+        final CountingHttpClient httpClient = new CountingHttpClient(500, 200);
+        final List<String> transitions = Collections.synchronizedList(new ArrayList<>());
+        final CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setSlidingWindowSize(1)
+            .setMinimumNumberOfCalls(1)
+            .setOpenDuration(Duration.ofMillis(50))
+            .setPermittedCallsInHalfOpenState(1)
+            .setListener((host, previousState, state) -> transitions.add(host + ":" + previousState + "->" + state)));
+        final HttpPipeline pipeline = createPipeline(httpClient, circuitBreakerPolicy);
+
+        send(pipeline, "https://a.com/threads");
+        Thread.sleep(100);
+        send(pipeline, "https://a.com/threads");
+
+        assertEquals(3, transitions.size(), transitions.toString());
+        assertEquals("a.com:CLOSED->OPEN", transitions.get(0));
+        assertEquals("a.com:OPEN->HALF_OPEN", transitions.get(1));
+        assertEquals("a.com:HALF_OPEN->CLOSED", transitions.get(2));
+    }
+
+    @Test
+    public void hostsHaveIndependentCircuits() {
+        final CountingHttpClient httpClient = new CountingHttpClient(500);
+        final CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setSlidingWindowSize(2)
+            .setMinimumNumberOfCalls(2));
+        final HttpPipeline pipeline = createPipeline(httpClient, circuitBreakerPolicy);
+
+        send(pipeline, "https://a.com/threads");
+        send(pipeline, "https://a.com/threads");
+        assertEquals(CircuitBreakerState.OPEN, circuitBreakerPolicy.getState("a.com"));
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreakerPolicy.getState("b.com"));
+        assertEquals(500, send(pipeline, "https://b.com/threads").getStatusCode());
+    }
+
+    @Test
+    public void openCircuitIsNotRetried() {
+        final CountingHttpClient httpClient = new CountingHttpClient(503);
+        final CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setSlidingWindowSize(2)
+            .setMinimumNumberOfCalls(2));
+        final HttpPipeline pipeline = createPipeline(httpClient,
+            new RetryPolicy(new FixedDelay(5, Duration.ofMillis(1))), circuitBreakerPolicy);
+
+        assertThrows(CircuitBreakerOpenException.class, () -> send(pipeline, "https://a.com/threads"));
+        assertEquals(2, httpClient.callCount.get());
+    }
+
+    private static HttpResponse send(HttpPipeline pipeline, String url) {
+        return pipeline.sendSync(new HttpRequest(HttpMethod.GET, url), RequestContext.NONE, CancellationToken.NONE);
+    }
+
+    private static HttpPipeline createPipeline(HttpClient httpClient, HttpPipelinePolicy... policies) {
+        return new HttpPipelineBuilder()
+            .httpClient(httpClient)
+            .policies(policies)
+            .build();
+    }
+
+    /**
+     * An HttpClient that answers the n-th call with the n-th given status code, cycling through them.
+     * A status code of -1 fails the call, -2 never answers it.
+     */
+    private static final class CountingHttpClient implements HttpClient {
+        private final HttpCallDispatcher httpCallDispatcher = new HttpCallDispatcher();
+        private final int[] statusCodes;
+        final AtomicInteger callCount = new AtomicInteger();
+        volatile long delayMillis;
+
+        CountingHttpClient(int... statusCodes) {
+            this.statusCodes = statusCodes;
+        }
+
+        @Override
+        public HttpCallDispatcher getHttpCallDispatcher() {
+            return this.httpCallDispatcher;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            final int index = this.callCount.getAndIncrement();
+            if (this.delayMillis > 0) {
+                try {
+                    Thread.sleep(this.delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            final int statusCode = this.statusCodes[index % this.statusCodes.length];
+            if (statusCode == -1) {
+                httpCallback.onError(new IOException("connection reset"));
+            } else if (statusCode != -2) {
+                httpCallback.onSuccess(new MockHttpResponse(httpRequest, statusCode));
+            }
+        }
+    }
+}
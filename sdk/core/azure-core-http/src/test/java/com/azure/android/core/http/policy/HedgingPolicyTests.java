@@ -0,0 +1,322 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallDispatcher;
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.exception.HttpRequestException;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HedgingPolicyTests {
+    private final ScheduledExecutorService responder = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    public void afterEach() {
+        this.responder.shutdownNow();
+    }
+
+    @Test
+    public void slowRequestIsHedgedAndLoserCancelled() throws InterruptedException {
+        // The first copy never responds, the second responds immediately.
+        final ControlledHttpClient httpClient = new ControlledHttpClient(-1, 0);
+        final HedgingPolicy hedgingPolicy = HedgingPolicy.withFixedDelay(Duration.ofMillis(50), 1.0);
+        final HttpPipeline pipeline = createPipeline(httpClient, hedgingPolicy);
+
+        final HttpRequest request = new HttpRequest(HttpMethod.GET, "https://a.com/threads");
+        final HttpResponse response = pipeline.sendSync(request, RequestContext.NONE, CancellationToken.NONE);
+
+        assertEquals("response-1", response.getBodyAsString());
+        assertEquals(2, httpClient.calls.size());
+        assertTrue(httpClient.calls.get(0).cancellationToken.isCancellationRequested());
+        assertFalse(httpClient.calls.get(1).cancellationToken.isCancellationRequested());
+        assertEquals(1, hedgingPolicy.getHedgeCount());
+        assertEquals(1, hedgingPolicy.getHedgeWinCount());
+        awaitNoRunningCalls(httpClient.getHttpCallDispatcher());
+    }
+
+    @Test
+    public void fastRequestIsNotHedged() throws InterruptedException {
+        final ControlledHttpClient httpClient = new ControlledHttpClient(0);
+        final HedgingPolicy hedgingPolicy = HedgingPolicy.withFixedDelay(Duration.ofMillis(50), 1.0);
+        final HttpPipeline pipeline = createPipeline(httpClient, hedgingPolicy);
+
+        final HttpResponse response = pipeline.sendSync(new HttpRequest(HttpMethod.GET, "https://a.com/threads"),
+            RequestContext.NONE, CancellationToken.NONE);
+        assertEquals("response-0", response.getBodyAsString());
+
+        // Once the hedge delay elapses, the cancelled hedge is not sent.
+        Thread.sleep(150);
+        assertEquals(1, httpClient.calls.size());
+        assertEquals(0, hedgingPolicy.getHedgeCount());
+        awaitNoRunningCalls(httpClient.getHttpCallDispatcher());
+    }
+
+    @Test
+    public void hedgeNotSentRefundsBudget() throws InterruptedException {
+        // Half a hedge of budget per request: the second request withdraws a hedge that is never sent, the third
+        // can only be hedged if that hedge was given back.
+        final ControlledHttpClient httpClient = new ControlledHttpClient(0, 0, -1, 0);
+        final HedgingPolicy hedgingPolicy = HedgingPolicy.withFixedDelay(Duration.ofMillis(50), 0.5);
+        final HttpPipeline pipeline = createPipeline(httpClient, hedgingPolicy);
+
+        for (int i = 0; i < 2; i++) {
+            pipeline.sendSync(new HttpRequest(HttpMethod.GET, "https://a.com/threads"),
+                RequestContext.NONE, CancellationToken.NONE);
+        }
+        // Once the hedge delay elapses, the cancelled hedge is not sent and its budget is given back.
+        Thread.sleep(150);
+        assertEquals(2, httpClient.calls.size());
+        assertEquals(0, hedgingPolicy.getHedgeCount());
+
+        final HttpResponse response = pipeline.sendSync(new HttpRequest(HttpMethod.GET, "https://a.com/threads"),
+            RequestContext.NONE, CancellationToken.NONE);
+        assertEquals("response-3", response.getBodyAsString());
+        assertEquals(1, hedgingPolicy.getHedgeCount());
+        awaitNoRunningCalls(httpClient.getHttpCallDispatcher());
+    }
+
+    @Test
+    public void losingHedgeThatSucceededIsCounted() throws InterruptedException {
+        // Neither copy answers until told to, nor fails once cancelled.
+        final ControlledHttpClient httpClient = new ControlledHttpClient(-3, -3);
+        final HedgingPolicy hedgingPolicy = HedgingPolicy.withFixedDelay(Duration.ofMillis(10), 1.0);
+        final HttpPipeline pipeline = createPipeline(httpClient, hedgingPolicy);
+
+        final AtomicReference<HttpResponse> response = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/threads"), RequestContext.NONE,
+            CancellationToken.NONE, new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse r) {
+                    response.set(r);
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    latch.countDown();
+                }
+            });
+        httpClient.awaitCalls(2);
+
+        // The first copy answers the request, then the hedge answers too and loses.
+        httpClient.calls.get(0).respond();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("response-0", response.get().getBodyAsString());
+        httpClient.calls.get(1).respond();
+
+        assertEquals(1, hedgingPolicy.getHedgeCount());
+        assertEquals(0, hedgingPolicy.getHedgeWinCount());
+        awaitNoRunningCalls(httpClient.getHttpCallDispatcher());
+    }
+
+    @Test
+    public void failedRequestIsAnsweredByHedge() {
+        final ControlledHttpClient httpClient = new ControlledHttpClient(-2, 0);
+        final HedgingPolicy hedgingPolicy = HedgingPolicy.withFixedDelay(Duration.ofMillis(10), 1.0);
+        final HttpPipeline pipeline = createPipeline(httpClient, hedgingPolicy);
+
+        final HttpResponse response = pipeline.sendSync(new HttpRequest(HttpMethod.GET, "https://a.com/threads"),
+            RequestContext.NONE, CancellationToken.NONE);
+        assertEquals("response-1", response.getBodyAsString());
+    }
+
+    @Test
+    public void cancellingRequestCancelsBothCopies() throws InterruptedException {
+        final ControlledHttpClient httpClient = new ControlledHttpClient(-1, -1);
+        final HedgingPolicy hedgingPolicy = HedgingPolicy.withFixedDelay(Duration.ofMillis(10), 1.0);
+        final HttpPipeline pipeline = createPipeline(httpClient, hedgingPolicy);
+
+        final CancellationToken cancellationToken = new CancellationToken();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/threads"), RequestContext.NONE,
+            cancellationToken, new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    error.set(e);
+                    latch.countDown();
+                }
+            });
+        httpClient.awaitCalls(2);
+        cancellationToken.cancel();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof IOException, String.valueOf(error.get()));
+        assertTrue(httpClient.calls.get(0).cancellationToken.isCancellationRequested());
+        assertTrue(httpClient.calls.get(1).cancellationToken.isCancellationRequested());
+        awaitNoRunningCalls(httpClient.getHttpCallDispatcher());
+    }
+
+    @Test
+    public void hedgesAreBoundedByBudget() {
+        // Every copy takes 20ms to respond, longer than the hedge delay.
+        final ControlledHttpClient httpClient = new ControlledHttpClient(20);
+        final HedgingPolicy hedgingPolicy = HedgingPolicy.withFixedDelay(Duration.ofMillis(1), 0.05);
+        final HttpPipeline pipeline = createPipeline(httpClient, hedgingPolicy);
+
+        for (int i = 0; i < 100; i++) {
+            pipeline.sendSync(new HttpRequest(HttpMethod.GET, "https://a.com/threads"),
+                RequestContext.NONE, CancellationToken.NONE);
+        }
+
+        assertTrue(hedgingPolicy.getHedgeCount() >= 1, "hedges:" + hedgingPolicy.getHedgeCount());
+        assertTrue(hedgingPolicy.getHedgeCount() <= 5, "hedges:" + hedgingPolicy.getHedgeCount());
+        assertTrue(httpClient.calls.size() <= 105, "calls:" + httpClient.calls.size());
+    }
+
+    @Test
+    public void hedgeDelayFollowsLatencyPercentile() {
+        final ControlledHttpClient httpClient = new ControlledHttpClient(0);
+        final HedgingPolicy hedgingPolicy = new HedgingPolicy(0.9, Duration.ofSeconds(10), 0.05);
+        final HttpPipeline pipeline = createPipeline(httpClient, hedgingPolicy);
+
+        assertEquals(Duration.ofSeconds(10), hedgingPolicy.getHedgeDelay());
+        for (int i = 0; i < 40; i++) {
+            pipeline.sendSync(new HttpRequest(HttpMethod.GET, "https://a.com/threads"),
+                RequestContext.NONE, CancellationToken.NONE);
+        }
+        assertTrue(hedgingPolicy.getHedgeDelay().compareTo(Duration.ofSeconds(1)) < 0,
+            "delay:" + hedgingPolicy.getHedgeDelay());
+    }
+
+    @Test
+    public void otherMethodsAreNotHedged() {
+        final ControlledHttpClient httpClient = new ControlledHttpClient(-2);
+        final HttpPipeline pipeline = createPipeline(httpClient,
+            HedgingPolicy.withFixedDelay(Duration.ofMillis(1), 1.0));
+
+        assertThrows(HttpRequestException.class,
+            () -> pipeline.sendSync(new HttpRequest(HttpMethod.POST, "https://a.com/threads"),
+                RequestContext.NONE, CancellationToken.NONE));
+        assertEquals(1, httpClient.calls.size());
+    }
+
+    private static HttpPipeline createPipeline(HttpClient httpClient, HedgingPolicy hedgingPolicy) {
+        return new HttpPipelineBuilder()
+            .httpClient(httpClient)
+            .policies(hedgingPolicy)
+            .build();
+    }
+
+    private static void awaitNoRunningCalls(HttpCallDispatcher httpCallDispatcher) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (httpCallDispatcher.getRunningCallsCount() != 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, httpCallDispatcher.getRunningCallsCount());
+    }
+
+    /**
+     * An HttpClient that answers the n-th call after the n-th given delay in milliseconds, or the last given
+     * delay for the calls past the given delays. A delay of -1 never answers, -2 fails the call. A call fails
+     * when its token is cancelled, except with a delay of -3, which never answers unless told to.
+     */
+    private final class ControlledHttpClient implements HttpClient {
+        private final HttpCallDispatcher httpCallDispatcher = new HttpCallDispatcher();
+        private final long[] delays;
+        final List<Call> calls = Collections.synchronizedList(new ArrayList<>());
+
+        ControlledHttpClient(long... delays) {
+            this.delays = delays;
+        }
+
+        @Override
+        public HttpCallDispatcher getHttpCallDispatcher() {
+            return this.httpCallDispatcher;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            final Call call;
+            synchronized (this.calls) {
+                call = new Call(this.calls.size(), httpRequest, cancellationToken, httpCallback);
+                this.calls.add(call);
+                this.calls.notifyAll();
+            }
+            final long delay = this.delays[Math.min(call.index, this.delays.length - 1)];
+            if (delay != -3) {
+                cancellationToken.registerOnCancel(() -> call.fail(new IOException("Canceled.")));
+            }
+            if (delay == -2) {
+                call.fail(new IOException("connection reset"));
+            } else if (delay == 0) {
+                call.respond();
+            } else if (delay > 0) {
+                responder.schedule(call::respond, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void awaitCalls(int count) throws InterruptedException {
+            synchronized (this.calls) {
+                final long deadline = System.currentTimeMillis() + 5000;
+                while (this.calls.size() < count && System.currentTimeMillis() < deadline) {
+                    this.calls.wait(100);
+                }
+            }
+            assertEquals(count, this.calls.size());
+        }
+    }
+
+    private static final class Call {
+        final int index;
+        final HttpRequest request;
+        final CancellationToken cancellationToken;
+        final HttpCallback callback;
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+
+        Call(int index, HttpRequest request, CancellationToken cancellationToken, HttpCallback callback) {
+            this.index = index;
+            this.request = request;
+            this.cancellationToken = cancellationToken;
+            this.callback = callback;
+        }
+
+        void respond() {
+            if (this.completed.compareAndSet(false, true)) {
+                this.callback.onSuccess(new MockHttpResponse(this.request, 200,
+                    ("response-" + this.index).getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        void fail(Throwable error) {
+            if (this.completed.compareAndSet(false, true)) {
+                this.callback.onError(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallDispatcher;
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestCoalescingPolicyTests {
+    @Test
+    public void identicalGetsShareOneResponse() {
+        final PendingHttpClient httpClient = new PendingHttpClient();
+        final HttpPipeline pipeline = createPipeline(httpClient);
+
+        final List<HttpRequest> requests = new ArrayList<>();
+        final List<RecordingCallback> callbacks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final HttpRequest request = new HttpRequest(HttpMethod.GET, "https://a.com/threads/1");
+            request.getHeaders().put("x-ms-client-request-id", "id-" + i);
+            request.getHeaders().put("Authorization", "Bearer token");
+            final RecordingCallback callback = new RecordingCallback();
+            pipeline.send(request, RequestContext.NONE, CancellationToken.NONE, callback);
+            requests.add(request);
+            callbacks.add(callback);
+        }
+
+        assertEquals(1, httpClient.calls.size());
+        httpClient.calls.get(0).complete(200, "{\"topic\":\"t\"}");
+
+        for (int i = 0; i < 3; i++) {
+            final HttpResponse response = callbacks.get(i).response;
+            assertEquals(200, response.getStatusCode());
+            assertEquals("{\"topic\":\"t\"}", response.getBodyAsString());
+            assertEquals("application/json", response.getHeaderValue("Content-Type"));
+            assertSame(requests.get(i), response.getRequest());
+        }
+        assertNotSame(callbacks.get(1).response.getHeaders(), callbacks.get(2).response.getHeaders());
+
+        // The flight is over, a new request is sent.
+        pipeline.send(requests.get(0), RequestContext.NONE, CancellationToken.NONE, new RecordingCallback());
+        assertEquals(2, httpClient.calls.size());
+    }
+
+    @Test
+    public void coalescedResponsesHaveTheirOwnBody() {
+        final PendingHttpClient httpClient = new PendingHttpClient();
+        final HttpPipeline pipeline = createPipeline(httpClient);
+
+        final List<RecordingCallback> callbacks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final RecordingCallback callback = new RecordingCallback();
+            pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/threads/1"), RequestContext.NONE,
+                CancellationToken.NONE, callback);
+            callbacks.add(callback);
+        }
+        httpClient.calls.get(0).complete(200, "body");
+
+        // A waiter modifying its body changes neither the response of the request sent nor of the other waiter.
+        final byte[] waiterBody = callbacks.get(1).response.getBodyAsByteArray();
+        Arrays.fill(waiterBody, (byte) 'x');
+        assertEquals("xxxx", callbacks.get(1).response.getBodyAsString());
+        assertEquals("body", callbacks.get(0).response.getBodyAsString());
+        assertEquals("body", callbacks.get(2).response.getBodyAsString());
+        assertNotSame(waiterBody, callbacks.get(0).response.getBodyAsByteArray());
+        assertNotSame(waiterBody, callbacks.get(2).response.getBodyAsByteArray());
+    }
+
+    @Test
+    public void differentRequestsAreNotCoalesced() {
+        final PendingHttpClient httpClient = new PendingHttpClient();
+        final HttpPipeline pipeline = createPipeline(httpClient);
+
+        final HttpRequest request0 = new HttpRequest(HttpMethod.GET, "https://a.com/threads/1");
+        request0.getHeaders().put("Authorization", "Bearer token0");
+        final HttpRequest request1 = new HttpRequest(HttpMethod.GET, "https://a.com/threads/1");
+        request1.getHeaders().put("Authorization", "Bearer token1");
+        final HttpRequest request2 = new HttpRequest(HttpMethod.GET, "https://a.com/threads/2");
+        request2.getHeaders().put("Authorization", "Bearer token0");
+        final HttpRequest request3 = new HttpRequest(HttpMethod.POST, "https://a.com/threads/1");
+        final HttpRequest request4 = new HttpRequest(HttpMethod.POST, "https://a.com/threads/1");
+
+        for (HttpRequest request : new HttpRequest[] { request0, request1, request2, request3, request4 }) {
+            pipeline.send(request, RequestContext.NONE, CancellationToken.NONE, new RecordingCallback());
+        }
+
+        assertEquals(5, httpClient.calls.size());
+    }
+
+    @Test
+    public void cancellingWaitingRequestFailsOnlyThatRequest() {
+        final PendingHttpClient httpClient = new PendingHttpClient();
+        final HttpPipeline pipeline = createPipeline(httpClient);
+
+        final RecordingCallback sentCallback = new RecordingCallback();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/"), RequestContext.NONE,
+            CancellationToken.NONE, sentCallback);
+        final CancellationToken waitingToken = new CancellationToken();
+        final RecordingCallback waitingCallback = new RecordingCallback();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/"), RequestContext.NONE,
+            waitingToken, waitingCallback);
+
+        waitingToken.cancel();
+        assertTrue(waitingCallback.error instanceof IOException, String.valueOf(waitingCallback.error));
+        assertNull(sentCallback.response);
+
+        httpClient.calls.get(0).complete(200, "body");
+        assertEquals("body", sentCallback.response.getBodyAsString());
+        assertNull(waitingCallback.response);
+        assertEquals(1, httpClient.calls.size());
+    }
+
+    @Test
+    public void cancellingSentRequestSendsWaitingRequest() {
+        final PendingHttpClient httpClient = new PendingHttpClient();
+        final HttpPipeline pipeline = createPipeline(httpClient);
+
+        final CancellationToken sentToken = new CancellationToken();
+        final RecordingCallback sentCallback = new RecordingCallback();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/"), RequestContext.NONE,
+            sentToken, sentCallback);
+        final RecordingCallback waitingCallback = new RecordingCallback();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/"), RequestContext.NONE,
+            CancellationToken.NONE, waitingCallback);
+        assertEquals(1, httpClient.calls.size());
+
+        // The PendingHttpClient fails the call on cancellation.
+        sentToken.cancel();
+        assertTrue(sentCallback.error instanceof IOException, String.valueOf(sentCallback.error));
+        assertNull(waitingCallback.error);
+        assertEquals(2, httpClient.calls.size());
+
+        httpClient.calls.get(1).complete(200, "body");
+        assertEquals("body", waitingCallback.response.getBodyAsString());
+    }
+
+    @Test
+    public void errorIsSharedWithWaitingRequests() {
+        final PendingHttpClient httpClient = new PendingHttpClient();
+        final HttpPipeline pipeline = createPipeline(httpClient);
+
+        final RecordingCallback callback0 = new RecordingCallback();
+        final RecordingCallback callback1 = new RecordingCallback();
+        pipeline.send(new HttpRequest(HttpMethod.HEAD, "https://a.com/"), RequestContext.NONE,
+            CancellationToken.NONE, callback0);
+        pipeline.send(new HttpRequest(HttpMethod.HEAD, "https://a.com/"), RequestContext.NONE,
+            CancellationToken.NONE, callback1);
+
+        final IOException error = new IOException("connection reset");
+        httpClient.calls.get(0).callback.onError(error);
+
+        assertSame(error, callback0.error);
+        assertSame(error, callback1.error);
+        assertEquals(1, httpClient.calls.size());
+    }
+
+    private static HttpPipeline createPipeline(HttpClient httpClient) {
+        return new HttpPipelineBuilder()
+            .httpClient(httpClient)
+            .policies(new RequestCoalescingPolicy())
+            .build();
+    }
+
+    private static final class RecordingCallback implements HttpCallback {
+        volatile HttpResponse response;
+        volatile Throwable error;
+
+        @Override
+        public void onSuccess(HttpResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+    }
+
+    /**
+     * An HttpClient that runs the pipelines on the calling thread and completes the calls when told to,
+     * or fails them on cancellation.
+     */
+    private static final class PendingHttpClient implements HttpClient {
+        private final HttpCallDispatcher httpCallDispatcher = new HttpCallDispatcher(new CallingThreadExecutorService());
+        final List<PendingCall> calls = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public HttpCallDispatcher getHttpCallDispatcher() {
+            return this.httpCallDispatcher;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            final PendingCall call = new PendingCall(httpRequest, httpCallback);
+            this.calls.add(call);
+            cancellationToken.registerOnCancel(() -> httpCallback.onError(new IOException("Canceled.")));
+        }
+    }
+
+    private static final class PendingCall {
+        final HttpRequest request;
+        final HttpCallback callback;
+
+        PendingCall(HttpRequest request, HttpCallback callback) {
+            this.request = request;
+            this.callback = callback;
+        }
+
+        void complete(int statusCode, String body) {
+            this.callback.onSuccess(new MockHttpResponse(this.request, statusCode,
+                body.getBytes(StandardCharsets.UTF_8))
+                .addHeader("Content-Type", "application/json"));
+        }
+    }
+
+    private static final class CallingThreadExecutorService extends AbstractExecutorService {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+}
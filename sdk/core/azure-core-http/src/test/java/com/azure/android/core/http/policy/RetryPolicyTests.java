@@ -3,6 +3,7 @@
 
 package com.azure.android.core.http.policy;
 
+import com.azure.android.core.http.HttpCallDeadline;
 import com.azure.android.core.http.HttpCallback;
 import com.azure.android.core.http.HttpHeaders;
 import com.azure.android.core.http.HttpMethod;
@@ -199,6 +200,111 @@ public class RetryPolicyTests {
         awaitOnLatch(latch, "exponentialDelayRetry");
     }
 
+    @Test
+    public void retrySkippedWhenDelayExceedsDeadline() {
+        final AtomicInteger sendCount = new AtomicInteger();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+                    sendCount.incrementAndGet();
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, 503));
+                }
+            })
+            .policies(new RetryPolicy(new FixedDelay(3, Duration.ofSeconds(5))))
+            .build();
+
+        final HttpResponse[] httpResponse = new HttpResponse[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"),
+            RequestContext.NONE.addData(HttpCallDeadline.class, HttpCallDeadline.after(1, TimeUnit.SECONDS)),
+            CancellationToken.NONE,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    httpResponse[0] = response;
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    latch.countDown();
+                }
+            });
+        awaitOnLatch(latch, "retrySkippedWhenDelayExceedsDeadline");
+
+        assertNotNull(httpResponse[0]);
+        assertEquals(503, httpResponse[0].getStatusCode());
+        assertEquals(1, sendCount.get());
+    }
+
+    @Test
+    public void retryBudgetBoundsRequestVolumeUnderPersistentFailure() {
+        final AtomicInteger sendCount = new AtomicInteger();
+        final RetryBudget retryBudget = new RetryBudget(0.1, 5);
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+                    sendCount.incrementAndGet();
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, 503));
+                }
+            })
+            .policies(new RetryPolicy(new FixedDelay(3, Duration.ZERO), retryBudget))
+            .build();
+
+        for (int i = 0; i < 100; i++) {
+            final HttpResponse response = pipeline.sendSync(new HttpRequest(HttpMethod.GET, "http://localhost/"),
+                RequestContext.NONE, CancellationToken.NONE);
+            assertEquals(503, response.getStatusCode());
+        }
+
+        // Without the budget each request would be sent 4 times; with it, only the initial burst is retried.
+        assertEquals(105, sendCount.get());
+        assertEquals(5, retryBudget.getRetryCount());
+        assertEquals(99, retryBudget.getRejectedRetryCount());
+        assertEquals(0, retryBudget.getBalance(), 0);
+    }
+
+    @Test
+    public void retryBudgetRefillsWithSuccessfulRequests() {
+        final AtomicInteger sendCount = new AtomicInteger();
+        final RetryBudget retryBudget = new RetryBudget(0.2, 1);
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+                    sendCount.incrementAndGet();
+                    final int statusCode = httpRequest.getUrl().getPath().equals("/ok") ? 200 : 503;
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, statusCode));
+                }
+            })
+            .policies(new RetryPolicy(new FixedDelay(3, Duration.ZERO), retryBudget))
+            .build();
+
+        // The budget of 1 retry is used by the first failing request.
+        assertEquals(503, sendSync(pipeline, "http://localhost/fail").getStatusCode());
+        assertEquals(2, sendCount.getAndSet(0));
+        assertEquals(503, sendSync(pipeline, "http://localhost/fail").getStatusCode());
+        assertEquals(1, sendCount.getAndSet(0));
+
+        // 5 successful requests earn another retry.
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, sendSync(pipeline, "http://localhost/ok").getStatusCode());
+        }
+        assertEquals(1, retryBudget.getBalance(), 0.001);
+        sendCount.set(0);
+        assertEquals(503, sendSync(pipeline, "http://localhost/fail").getStatusCode());
+        assertEquals(2, sendCount.get());
+        assertEquals(2, retryBudget.getRetryCount());
+    }
+
+    @Test
+    public void invalidRetryBudgetIsRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RetryBudget(1.5, 10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RetryBudget(0.1, -1));
+    }
+
     @Test
     public void retryConsumesBody() {
         final AtomicInteger bodyConsumptionCount = new AtomicInteger();
@@ -297,6 +403,10 @@ public class RetryPolicyTests {
         return buffer.toByteArray();
     }
 
+    private static HttpResponse sendSync(HttpPipeline pipeline, String url) {
+        return pipeline.sendSync(new HttpRequest(HttpMethod.GET, url), RequestContext.NONE, CancellationToken.NONE);
+    }
+
     private static void awaitOnLatch(CountDownLatch latch, String method) {
         try {
             latch.await(30, TimeUnit.SECONDS);
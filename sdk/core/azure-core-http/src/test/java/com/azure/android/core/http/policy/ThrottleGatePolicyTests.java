@@ -0,0 +1,290 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallDeadline;
+import com.azure.android.core.http.HttpCallDispatcher;
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.exception.DeadlineExceededException;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ThrottleGatePolicyTests {
+    @Test
+    public void throttledResponsePausesOtherRequestsToHost() {
+        final ThrottlingHttpClient httpClient = new ThrottlingHttpClient();
+        httpClient.throttle("a.com", "x-ms-retry-after-ms", "300");
+        final ThrottleGatePolicy gatePolicy = new ThrottleGatePolicy();
+        final HttpPipeline pipeline = createPipeline(httpClient, gatePolicy);
+
+        assertEquals(429, send(pipeline, "https://a.com/messages", RequestContext.NONE).getStatusCode());
+        assertTrue(gatePolicy.getPauseRemaining("a.com").toMillis() > 200);
+
+        // Other hosts are not held back.
+        long startMillis = System.currentTimeMillis();
+        assertEquals(200, send(pipeline, "https://b.com/messages", RequestContext.NONE).getStatusCode());
+        assertTrue(System.currentTimeMillis() - startMillis < 200);
+
+        startMillis = System.currentTimeMillis();
+        assertEquals(200, send(pipeline, "https://a.com/messages", RequestContext.NONE).getStatusCode());
+        assertTrue(System.currentTimeMillis() - startMillis >= 200, "elapsed:"
+            + (System.currentTimeMillis() - startMillis));
+        assertEquals(1, gatePolicy.getDelayedRequestCount());
+        assertEquals(Duration.ZERO, gatePolicy.getPauseRemaining("a.com"));
+    }
+
+    @Test
+    public void concurrentRequestsWaitForRetryAfter() throws InterruptedException {
+        final ThrottlingHttpClient httpClient = new ThrottlingHttpClient();
+        httpClient.throttle("a.com", "Retry-After", "1");
+        final ThrottleGatePolicy gatePolicy = new ThrottleGatePolicy();
+        final HttpPipeline pipeline = createPipeline(httpClient,
+            new RetryPolicy(new FixedDelay(3, Duration.ofMillis(10))),
+            gatePolicy);
+
+        // Throttle the host, then send a burst; only the first request sees a 429, the burst waits it out.
+        final CountDownLatch latch = new CountDownLatch(10);
+        final List<Integer> statusCodes = Collections.synchronizedList(new ArrayList<>());
+        final HttpCallback callback = new HttpCallback() {
+            @Override
+            public void onSuccess(HttpResponse response) {
+                statusCodes.add(response.getStatusCode());
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                latch.countDown();
+            }
+        };
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/messages"), RequestContext.NONE,
+            CancellationToken.NONE, callback);
+        httpClient.awaitRequests(1);
+        while (gatePolicy.getPauseRemaining("a.com").isZero()) {
+            Thread.sleep(5);
+        }
+        for (int i = 0; i < 9; i++) {
+            pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/messages"), RequestContext.NONE,
+                CancellationToken.NONE, callback);
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(10, statusCodes.size());
+        assertTrue(statusCodes.stream().allMatch(statusCode -> statusCode == 200), statusCodes.toString());
+        assertEquals(11, httpClient.requests.size());
+        assertEquals(1, httpClient.throttledCount);
+        // The retry and the burst are sent once the second advertised by the 429 response has elapsed.
+        for (int i = 1; i < 11; i++) {
+            final long sentAfterMillis = httpClient.sentAtMillis.get(i) - httpClient.sentAtMillis.get(0);
+            assertTrue(sentAfterMillis >= 900, "sent after:" + sentAfterMillis);
+        }
+    }
+
+    @Test
+    public void waitingRequestWaitsForExtendedPause() throws InterruptedException {
+        final ThrottlingHttpClient httpClient = new ThrottlingHttpClient();
+        // The first request is answered after 100ms with a pause of 600ms, extending the pause of 300ms the second
+        // request is answered with while the third request waits for it.
+        httpClient.throttle("a.com", "x-ms-retry-after-ms", "600", 100);
+        httpClient.throttle("a.com", "x-ms-retry-after-ms", "300", 0);
+        final ThrottleGatePolicy gatePolicy = new ThrottleGatePolicy();
+        final HttpPipeline pipeline = createPipeline(httpClient, gatePolicy);
+
+        final CountDownLatch latch = new CountDownLatch(2);
+        final HttpCallback callback = new HttpCallback() {
+            @Override
+            public void onSuccess(HttpResponse response) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                latch.countDown();
+            }
+        };
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/messages"), RequestContext.NONE,
+            CancellationToken.NONE, callback);
+        httpClient.awaitRequests(1);
+        assertEquals(429, send(pipeline, "https://a.com/messages", RequestContext.NONE).getStatusCode());
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/messages"), RequestContext.NONE,
+            CancellationToken.NONE, callback);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, httpClient.requests.size());
+        final long sentAfterMillis = httpClient.sentAtMillis.get(2) - httpClient.sentAtMillis.get(0);
+        assertTrue(sentAfterMillis >= 650, "sent after:" + sentAfterMillis);
+    }
+
+    @Test
+    public void cancelledRequestGivesBackToken() throws InterruptedException {
+        final ThrottlingHttpClient httpClient = new ThrottlingHttpClient();
+        final ThrottleGatePolicy gatePolicy = new ThrottleGatePolicy(10, 1);
+        final HttpPipeline pipeline = createPipeline(httpClient, gatePolicy);
+
+        final long startMillis = System.currentTimeMillis();
+        send(pipeline, "https://a.com/messages", RequestContext.NONE);
+        final CancellationToken cancellationToken = new CancellationToken();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/messages"), RequestContext.NONE,
+            cancellationToken, new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    error.set(e);
+                    latch.countDown();
+                }
+            });
+        while (gatePolicy.getDelayedRequestCount() == 0) {
+            Thread.sleep(1);
+        }
+        cancellationToken.cancel();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof IOException, String.valueOf(error.get()));
+
+        // Sent with the token the cancelled request gave back, 100ms after the first rather than 200ms.
+        send(pipeline, "https://a.com/messages", RequestContext.NONE);
+        final long elapsedMillis = System.currentTimeMillis() - startMillis;
+        assertTrue(elapsedMillis < 170, "elapsed:" + elapsedMillis);
+        assertEquals(2, httpClient.requests.size());
+    }
+
+    @Test
+    public void tokenBucketSpacesRequests() {
+        final ThrottlingHttpClient httpClient = new ThrottlingHttpClient();
+        final ThrottleGatePolicy gatePolicy = new ThrottleGatePolicy(20, 2);
+        final HttpPipeline pipeline = createPipeline(httpClient, gatePolicy);
+
+        final long startMillis = System.currentTimeMillis();
+        for (int i = 0; i < 6; i++) {
+            send(pipeline, "https://a.com/messages", RequestContext.NONE);
+        }
+        // The burst of 2 is sent at once, the 4 following requests are spaced by 50ms.
+        assertTrue(System.currentTimeMillis() - startMillis >= 180, "elapsed:"
+            + (System.currentTimeMillis() - startMillis));
+        assertEquals(4, gatePolicy.getDelayedRequestCount());
+    }
+
+    @Test
+    public void waitPastDeadlineFailsFast() {
+        final ThrottlingHttpClient httpClient = new ThrottlingHttpClient();
+        httpClient.throttle("a.com", "Retry-After", "30");
+        final HttpPipeline pipeline = createPipeline(httpClient, new ThrottleGatePolicy());
+        send(pipeline, "https://a.com/messages", RequestContext.NONE);
+
+        final long startMillis = System.currentTimeMillis();
+        assertThrows(DeadlineExceededException.class, () -> send(pipeline, "https://a.com/messages",
+            RequestContext.NONE.addData(HttpCallDeadline.class, HttpCallDeadline.after(1, TimeUnit.SECONDS))));
+        assertTrue(System.currentTimeMillis() - startMillis < 1000);
+        assertEquals(1, httpClient.requests.size());
+    }
+
+    @Test
+    public void invalidRateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ThrottleGatePolicy(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ThrottleGatePolicy(1, 0));
+    }
+
+    private static HttpResponse send(HttpPipeline pipeline, String url, RequestContext context) {
+        return pipeline.sendSync(new HttpRequest(HttpMethod.GET, url), context, CancellationToken.NONE);
+    }
+
+    private static HttpPipeline createPipeline(HttpClient httpClient, HttpPipelinePolicy... policies) {
+        return new HttpPipelineBuilder()
+            .httpClient(httpClient)
+            .policies(policies)
+            .build();
+    }
+
+    /**
+     * An HttpClient that answers the first request to a host it is told to throttle with a 429 response
+     * carrying the given retry-after header, optionally after a delay, and the other requests with a 200 response.
+     */
+    private static final class ThrottlingHttpClient implements HttpClient {
+        private final HttpCallDispatcher httpCallDispatcher = new HttpCallDispatcher();
+        private final List<String[]> throttles = new ArrayList<>();
+        final List<HttpRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> sentAtMillis = Collections.synchronizedList(new ArrayList<>());
+        volatile int throttledCount;
+
+        void throttle(String host, String headerName, String headerValue) {
+            this.throttle(host, headerName, headerValue, 0);
+        }
+
+        void throttle(String host, String headerName, String headerValue, long delayMillis) {
+            this.throttles.add(new String[] { host, headerName, headerValue, String.valueOf(delayMillis) });
+        }
+
+        void awaitRequests(int count) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (this.requests.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(count, this.requests.size());
+        }
+
+        @Override
+        public HttpCallDispatcher getHttpCallDispatcher() {
+            return this.httpCallDispatcher;
+        }
+
+        @Override
+        public synchronized void send(HttpRequest httpRequest, CancellationToken cancellationToken,
+                                      HttpCallback httpCallback) {
+            this.requests.add(httpRequest);
+            this.sentAtMillis.add(System.currentTimeMillis());
+            for (int i = 0; i < this.throttles.size(); i++) {
+                final String[] throttle = this.throttles.get(i);
+                if (throttle[0].equals(httpRequest.getUrl().getHost())) {
+                    this.throttles.remove(i);
+                    this.throttledCount++;
+                    final HttpHeaders headers = new HttpHeaders();
+                    headers.put(throttle[1], throttle[2]);
+                    final long delayMillis = Long.parseLong(throttle[3]);
+                    if (delayMillis == 0) {
+                        httpCallback.onSuccess(new MockHttpResponse(httpRequest, 429, headers));
+                    } else {
+                        new Thread(() -> {
+                            try {
+                                Thread.sleep(delayMillis);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            httpCallback.onSuccess(new MockHttpResponse(httpRequest, 429, headers));
+                        }).start();
+                    }
+                    return;
+                }
+            }
+            httpCallback.onSuccess(new MockHttpResponse(httpRequest, 200));
+        }
+    }
+}
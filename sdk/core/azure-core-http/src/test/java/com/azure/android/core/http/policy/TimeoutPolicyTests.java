@@ -0,0 +1,183 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallDispatcher;
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.implementation.HashedWheelTimer;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimeoutPolicyTests {
+    @Test
+    public void timedOutAttemptIsCancelledAndRetried() throws InterruptedException {
+        final HangingHttpClient httpClient = new HangingHttpClient(1);
+        final TimeoutPolicy timeoutPolicy = new TimeoutPolicy(Duration.ofMillis(100));
+        final HttpPipeline pipeline = createPipeline(httpClient,
+            new RetryPolicy(new FixedDelay(3, Duration.ZERO)),
+            timeoutPolicy);
+        final CancellationToken cancellationToken = new CancellationToken();
+
+        final Result result = send(pipeline, cancellationToken);
+        assertNull(result.error);
+        assertEquals(200, result.response.getStatusCode());
+        assertEquals(2, httpClient.tokens.size());
+        // Only the token of the hung attempt is cancelled.
+        assertTrue(httpClient.tokens.get(0).isCancellationRequested());
+        assertFalse(httpClient.tokens.get(1).isCancellationRequested());
+        assertFalse(cancellationToken.isCancellationRequested());
+        assertEquals(1, timeoutPolicy.getTimedOutCount());
+
+        // The token of the completed attempt is detached from the caller's token.
+        cancellationToken.cancel();
+        assertFalse(httpClient.tokens.get(1).isCancellationRequested());
+    }
+
+    @Test
+    public void timedOutAttemptFailsWithTimeoutException() throws InterruptedException {
+        final HangingHttpClient httpClient = new HangingHttpClient(Integer.MAX_VALUE);
+        final HttpPipeline pipeline = createPipeline(httpClient, new TimeoutPolicy(Duration.ofMillis(50)));
+
+        final long startMillis = System.currentTimeMillis();
+        final Result result = send(pipeline, CancellationToken.NONE);
+        assertTrue(System.currentTimeMillis() - startMillis < 5000);
+        assertTrue(result.error instanceof TimeoutException, String.valueOf(result.error));
+        assertTrue(result.error.getCause() instanceof IOException);
+    }
+
+    @Test
+    public void callerCancellationIsNotReportedAsTimeout() throws InterruptedException {
+        final HangingHttpClient httpClient = new HangingHttpClient(Integer.MAX_VALUE);
+        final TimeoutPolicy timeoutPolicy = new TimeoutPolicy(Duration.ofSeconds(30));
+        final HttpPipeline pipeline = createPipeline(httpClient,
+            new RetryPolicy(new FixedDelay(3, Duration.ZERO)),
+            timeoutPolicy);
+        final CancellationToken cancellationToken = new CancellationToken();
+
+        final Result result = new Result();
+        final CountDownLatch latch = new CountDownLatch(1);
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/"), RequestContext.NONE, cancellationToken,
+            result.callback(latch));
+        while (httpClient.tokens.isEmpty()) {
+            Thread.sleep(5);
+        }
+        cancellationToken.cancel();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(result.error instanceof IOException, String.valueOf(result.error));
+        assertEquals(1, httpClient.tokens.size());
+        assertEquals(0, timeoutPolicy.getTimedOutCount());
+    }
+
+    @Test
+    public void completedAttemptCancelsItsTimeout() throws InterruptedException {
+        final HashedWheelTimer timer = HashedWheelTimer.getSharedTimer();
+        final TimeoutPolicy timeoutPolicy = new TimeoutPolicy(Duration.ofMinutes(10));
+        final HttpPipeline pipeline = createPipeline(new HangingHttpClient(0), timeoutPolicy);
+        final int pendingTasksCount = timer.getPendingTasksCount();
+
+        final Result result = send(pipeline, CancellationToken.NONE);
+        assertEquals(200, result.response.getStatusCode());
+        // The timer task of the attempt is removed once the attempt completes, rather than held for 10 minutes.
+        assertEquals(pendingTasksCount, timer.getPendingTasksCount());
+        assertEquals(0, timeoutPolicy.getTimedOutCount());
+    }
+
+    @Test
+    public void invalidTimeoutIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeoutPolicy(Duration.ZERO));
+        assertThrows(NullPointerException.class, () -> new TimeoutPolicy(null));
+    }
+
+    private static Result send(HttpPipeline pipeline, CancellationToken cancellationToken)
+        throws InterruptedException {
+        final Result result = new Result();
+        final CountDownLatch latch = new CountDownLatch(1);
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://a.com/"), RequestContext.NONE, cancellationToken,
+            result.callback(latch));
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        return result;
+    }
+
+    private static HttpPipeline createPipeline(HttpClient httpClient, HttpPipelinePolicy... policies) {
+        return new HttpPipelineBuilder()
+            .httpClient(httpClient)
+            .policies(policies)
+            .build();
+    }
+
+    private static final class Result {
+        volatile HttpResponse response;
+        volatile Throwable error;
+
+        HttpCallback callback(CountDownLatch latch) {
+            return new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    Result.this.response = response;
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    Result.this.error = error;
+                    latch.countDown();
+                }
+            };
+        }
+    }
+
+    /**
+     * An HttpClient whose first {@code hangCount} calls never complete unless cancelled, like a call blocked
+     * on an unresponsive host; the following calls complete with a 200 response.
+     */
+    private static final class HangingHttpClient implements HttpClient {
+        private final HttpCallDispatcher httpCallDispatcher = new HttpCallDispatcher();
+        private final int hangCount;
+        final List<CancellationToken> tokens = Collections.synchronizedList(new ArrayList<>());
+
+        HangingHttpClient(int hangCount) {
+            this.hangCount = hangCount;
+        }
+
+        @Override
+        public HttpCallDispatcher getHttpCallDispatcher() {
+            return this.httpCallDispatcher;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            this.tokens.add(cancellationToken);
+            if (this.tokens.size() <= this.hangCount) {
+                cancellationToken.registerOnCancel(() -> httpCallback.onError(new IOException("Canceled.")));
+            } else {
+                httpCallback.onSuccess(new MockHttpResponse(httpRequest, 200));
+            }
+        }
+    }
+}
@@ -18,14 +18,12 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.nio.charset.Charset;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
@@ -112,10 +110,13 @@ public final class JacksonSerder {
             return null;
         }
 
-        ByteArrayOutputStream outStream = new AccessibleByteArrayOutputStream();
-        serialize(object, encoding, outStream);
-
-        return new String(outStream.toByteArray(), 0, outStream.size(), Charset.forName("UTF-8"));
+        // Jackson writes the string through its recycled, thread-local buffers, instead of growing a byte array
+        // to decode.
+        if (encoding == SerdeEncoding.XML) {
+            return this.xmlMapper.writeValueAsString(object);
+        } else {
+            return this.mapper.writeValueAsString(object);
+        }
     }
 
     /**
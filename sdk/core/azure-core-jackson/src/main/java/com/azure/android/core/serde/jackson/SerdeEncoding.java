@@ -45,7 +45,17 @@ public enum SerdeEncoding {
      * unrecognized Content-Type encoding is returned.
      */
     public static SerdeEncoding fromHeaders(Map<String, String> headers) {
-        final String mimeContentType = headers.get(CONTENT_TYPE);
+        return fromContentType(headers.get(CONTENT_TYPE));
+    }
+
+    /**
+     * Determines the serializer encoding to use based on the value of a Content-Type header.
+     *
+     * @param mimeContentType the value of the Content-Type header, may be null.
+     * @return the serializer encoding to use for the body. {@link #JSON} if there is no Content-Type or an
+     * unrecognized Content-Type encoding is returned.
+     */
+    public static SerdeEncoding fromContentType(String mimeContentType) {
         if (mimeContentType == null || mimeContentType.isEmpty()) {
             // 'CONTENT_TYPE' not found. Returning default encoding: DEFAULT_ENCODING
             return DEFAULT_ENCODING;
@@ -29,6 +29,8 @@ import static com.azure.android.core.logging.implementation.LogUtils.removeNewLi
  */
 public class ClientLogger {
     private static final String LINE_SEPARATOR;
+    // Whether the Android Log class is available, i.e. whether this runs on Android rather than on a JVM.
+    private static final boolean ANDROID_LOG_AVAILABLE = isAndroidLogAvailable();
     private final Logger logger;
 
     static {
@@ -52,12 +54,24 @@ public class ClientLogger {
     /**
      * Retrieves a logger for the passed class name using the {@link LoggerFactory}.
      *
+     * <p>Without an SLF4J binding, the messages are logged to the Android {@code Log} on Android, and are not
+     * logged on a JVM.</p>
+     *
      * @param className Class name creating the logger.
      * @throws RuntimeException it is an error.
      */
     public ClientLogger(String className) {
         Logger initLogger = LoggerFactory.getLogger(className);
-        logger = initLogger instanceof NOPLogger ? new DefaultLogger(className) : initLogger;
+        logger = initLogger instanceof NOPLogger && ANDROID_LOG_AVAILABLE ? new DefaultLogger(className) : initLogger;
+    }
+
+    private static boolean isAndroidLogAvailable() {
+        try {
+            Class.forName("android.util.Log", false, ClientLogger.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
     }
 
     /**
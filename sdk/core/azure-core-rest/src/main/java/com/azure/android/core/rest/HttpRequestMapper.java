@@ -21,6 +21,7 @@ import com.azure.android.core.rest.annotation.Post;
 import com.azure.android.core.rest.annotation.Put;
 import com.azure.android.core.rest.annotation.QueryParam;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
 import com.azure.android.core.serde.jackson.JacksonSerder;
 import com.azure.android.core.serde.jackson.SerdeEncoding;
 
@@ -28,6 +29,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -196,22 +198,20 @@ final class HttpRequestMapper {
                 }
 
                 if (isJson) {
-                    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                    final ContentOutputStream stream = new ContentOutputStream();
                     this.jacksonSerder.serialize(content, SerdeEncoding.JSON, stream);
-                    request.setHeader("Content-Length", String.valueOf(stream.size()));
-                    request.setBody(stream.toByteArray());
+                    request.setBody(stream.toRequestBody());
                 } else if (content instanceof byte[]) {
                     request.setBody((byte[]) content);
                 } else if (content instanceof String) {
                     final String contentString = (String) content;
                     request.setBody(contentString);
                 } else {
-                    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                    final ContentOutputStream stream = new ContentOutputStream();
                     this.jacksonSerder.serialize(content,
-                        SerdeEncoding.fromHeaders(request.getHeaders().toMap()),
+                        SerdeEncoding.fromContentType(request.getHeaders().getValue(HttpHeaders.CONTENT_TYPE)),
                         stream);
-                    request.setHeader("Content-Length", String.valueOf(stream.size()));
-                    request.setBody(stream.toByteArray());
+                    request.setBody(stream.toRequestBody());
                 }
             }
         }
@@ -443,4 +443,14 @@ final class HttpRequestMapper {
             this.shouldEncode = shouldEncode;
         }
     }
+
+    /**
+     * The stream the content of a request is serialized to, whose buffer backs the request body so that
+     * the serialized content is not copied.
+     */
+    private static final class ContentOutputStream extends ByteArrayOutputStream {
+        HttpRequestBody toRequestBody() {
+            return HttpRequestBody.fromByteBuffer(ByteBuffer.wrap(this.buf, 0, this.count));
+        }
+    }
 }
@@ -213,7 +213,7 @@ final class HttpResponseMapper {
     private Object deserializeHttpBody(JacksonSerder jacksonSerder, HttpResponse httpResponse, Type bodyType) {
         try {
             return jacksonSerder.deserialize(httpResponse.getBody(), bodyType,
-                SerdeEncoding.fromHeaders(httpResponse.getHeaders().toMap()));
+                SerdeEncoding.fromContentType(httpResponse.getHeaderValue(HttpHeaders.CONTENT_TYPE)));
 
         } catch (SerdeParseException e) {
             throw logger.logExceptionAsError(new HttpResponseException("HTTP response has a malformed body.",
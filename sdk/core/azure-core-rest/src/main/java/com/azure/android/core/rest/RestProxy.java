@@ -11,6 +11,7 @@ import com.azure.android.core.http.HttpResponse;
 import com.azure.android.core.http.exception.HttpResponseException;
 import com.azure.android.core.serde.jackson.JacksonSerder;
 import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.Option;
 import com.azure.android.core.util.RequestContext;
 import com.azure.android.core.logging.ClientLogger;
 
@@ -26,6 +27,18 @@ import java.util.Objects;
  * RestProxy can create proxy implementations for interfaces with methods that produces deserialized Java objects.
  */
 public final class RestProxy implements InvocationHandler {
+    /**
+     * The key of the {@link RequestContext} data that, when set to {@code true}, makes the proxy send the request
+     * through {@link HttpPipeline#sendSync(HttpRequest, RequestContext, CancellationToken, HttpCallback)}, i.e.,
+     * on the calling thread, so that the {@link Callback} is notified before the proxy method returns.
+     * Synchronous clients set it to avoid the thread switch of an asynchronous call they would block on.
+     *
+     * <p>
+     * The context is read from the {@link RequestContext} parameter of the proxy method, if any.
+     * </p>
+     */
+    public static final String SEND_ON_CALLING_THREAD_KEY = "azure-rest-proxy-send-on-calling-thread";
+
     private final ClientLogger logger = new ClientLogger(RestProxy.class);
 
     private final HttpPipeline httpPipeline;
@@ -69,6 +82,14 @@ public final class RestProxy implements InvocationHandler {
             cancellationToken = (CancellationToken) swaggerMethodArgs[methodParser.cancellationTokenArgIndex];
         }
 
+        RequestContext requestContext = null;
+        if (methodParser.requestContextArgIndex != -1) {
+            requestContext = (RequestContext) swaggerMethodArgs[methodParser.requestContextArgIndex];
+        }
+        if (requestContext == null) {
+            requestContext = RequestContext.NONE;
+        }
+
         final HttpRequest httpRequest;
         try {
             httpRequest = methodParser.mapToHttpRequest(swaggerMethodArgs);
@@ -80,9 +101,13 @@ public final class RestProxy implements InvocationHandler {
             return null;
         }
 
-        this.httpPipeline.send(httpRequest, RequestContext.NONE,
-            cancellationToken,
-            new HttpPipelineCallback(methodParser, restCallback));
+        final HttpPipelineCallback httpCallback = new HttpPipelineCallback(methodParser, restCallback);
+        final Option<Object> sendOnCallingThread = requestContext.getData(SEND_ON_CALLING_THREAD_KEY);
+        if (sendOnCallingThread.isInitialized() && Boolean.TRUE.equals(sendOnCallingThread.getValue())) {
+            this.httpPipeline.sendSync(httpRequest, requestContext, cancellationToken, httpCallback);
+        } else {
+            this.httpPipeline.send(httpRequest, requestContext, cancellationToken, httpCallback);
+        }
         return null;
     }
 
@@ -7,6 +7,7 @@ import com.azure.android.core.http.HttpRequest;
 import com.azure.android.core.http.HttpResponse;
 import com.azure.android.core.serde.jackson.JacksonSerder;
 import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
 import com.azure.android.core.rest.implementation.TypeUtil;
 import com.azure.android.core.logging.ClientLogger;
 
@@ -30,6 +31,7 @@ final class SwaggerMethodParser {
     private final Type callbackType;
     final int callbackArgIndex;
     final Integer cancellationTokenArgIndex;
+    final int requestContextArgIndex;
     private final HttpRequestMapper httpRequestMapper;
     private volatile HttpResponseMapper httpResponseMapper;
 
@@ -46,6 +48,7 @@ final class SwaggerMethodParser {
         this.callbackType = extractCallbackType(methodParamTypes);
         this.callbackArgIndex = methodParamTypes.length - 1;
         this.cancellationTokenArgIndex = extractCancellationTokenIndex(methodParamTypes);
+        this.requestContextArgIndex = extractRequestContextIndex(methodParamTypes);
 
         this.httpRequestMapper = new HttpRequestMapper(rawHost, swaggerMethod, jacksonSerder);
     }
@@ -99,4 +102,14 @@ final class SwaggerMethodParser {
             }
         }
     }
+
+    private int extractRequestContextIndex(Type[] methodParamTypes) {
+        // The last parameter is the callback.
+        for (int i = 0; i < methodParamTypes.length - 1; i++) {
+            if (TypeUtil.isTypeOrSubTypeOf(methodParamTypes[i], RequestContext.class)) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
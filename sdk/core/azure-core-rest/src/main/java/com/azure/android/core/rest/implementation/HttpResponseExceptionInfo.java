@@ -3,6 +3,7 @@
 
 package com.azure.android.core.rest.implementation;
 
+import com.azure.android.core.http.HttpHeaders;
 import com.azure.android.core.http.HttpResponse;
 import com.azure.android.core.http.exception.HttpResponseException;
 import com.azure.android.core.logging.ClientLogger;
@@ -58,7 +59,7 @@ public class HttpResponseExceptionInfo {
         try {
             responseDecodedContent = jacksonSerder.deserialize(contentStream,
                 this.exceptionBodyType,
-                SerdeEncoding.fromHeaders(httpResponse.getHeaders().toMap()));
+                SerdeEncoding.fromContentType(httpResponse.getHeaderValue(HttpHeaders.CONTENT_TYPE)));
         }  catch (IOException | SerdeParseException ex) {
             // Though we're unable to represent the wire-error as a POJO, we will communicate
             // the wire-error as exception error-message, hence logged as warning without throw.
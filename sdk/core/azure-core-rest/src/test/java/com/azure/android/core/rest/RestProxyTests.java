@@ -0,0 +1,110 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.rest;
+
+import com.azure.android.core.http.HttpCallDispatcher;
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.rest.annotation.ExpectedResponses;
+import com.azure.android.core.rest.annotation.Get;
+import com.azure.android.core.rest.annotation.Host;
+import com.azure.android.core.rest.annotation.ServiceInterface;
+import com.azure.android.core.serde.jackson.JacksonSerder;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RestProxyTests {
+    static class RecordingHttpClient implements HttpClient {
+        private final HttpCallDispatcher httpCallDispatcher = new HttpCallDispatcher();
+        volatile Thread sendThread;
+        volatile Object contextValue;
+
+        @Override
+        public HttpCallDispatcher getHttpCallDispatcher() {
+            return this.httpCallDispatcher;
+        }
+
+        @Override
+        public void send(HttpRequest request, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            this.sendThread = Thread.currentThread();
+            httpCallback.onSuccess(new MockHttpResponse(request, 200));
+        }
+    }
+
+    @Host("http://unused")
+    @ServiceInterface(name = "MyService")
+    interface MyService {
+        @Get("Get")
+        @ExpectedResponses({200})
+        void get(RequestContext requestContext, Callback<Response<Void>> callback);
+    }
+
+    @Test
+    public void sendsOnCallingThreadWhenRequested() {
+        final RecordingHttpClient httpClient = new RecordingHttpClient();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(httpClient)
+            .policies(chain -> {
+                httpClient.contextValue = chain.getContext().getData("key").getValue();
+                chain.processNextPolicy(chain.getRequest());
+            })
+            .build();
+        final MyService service = RestProxy.create(MyService.class, pipeline, new JacksonSerder());
+
+        final int[] statusCode = new int[1];
+        service.get(new RequestContext("key", "value").addData(RestProxy.SEND_ON_CALLING_THREAD_KEY, true),
+            new Callback<Response<Void>>() {
+                @Override
+                public void onSuccess(Response<Void> response) {
+                    statusCode[0] = response.getStatusCode();
+                }
+
+                @Override
+                public void onFailure(Throwable error) {
+                }
+            });
+
+        // The callback is notified before the proxy method returns.
+        assertEquals(200, statusCode[0]);
+        assertSame(Thread.currentThread(), httpClient.sendThread);
+        assertEquals("value", httpClient.contextValue);
+    }
+
+    @Test
+    public void sendsOnDispatcherThreadByDefault() throws InterruptedException {
+        final RecordingHttpClient httpClient = new RecordingHttpClient();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(httpClient)
+            .build();
+        final MyService service = RestProxy.create(MyService.class, pipeline, new JacksonSerder());
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        service.get(RequestContext.NONE, new Callback<Response<Void>>() {
+            @Override
+            public void onSuccess(Response<Void> response) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), httpClient.sendThread);
+    }
+}
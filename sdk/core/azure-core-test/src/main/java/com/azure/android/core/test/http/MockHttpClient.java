@@ -7,6 +7,7 @@ import com.azure.android.core.http.HttpCallback;
 import com.azure.android.core.http.HttpHeader;
 import com.azure.android.core.http.HttpHeaders;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
 import com.azure.android.core.http.HttpResponse;
 import com.azure.android.core.util.CancellationToken;
 import com.azure.android.core.test.implementation.entities.HttpBinFormDataJSON;
@@ -19,6 +20,7 @@ import org.threeten.bp.OffsetDateTime;
 import org.threeten.bp.ZoneOffset;
 
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -191,6 +193,11 @@ public class MockHttpClient extends NoOpHttpClient {
     }
 
     private static String bodyToString(HttpRequest request) {
+        final HttpRequestBody body = request.getRequestBody();
+        final ByteBuffer content = (body == null) ? null : body.asByteBuffer();
+        if (content != null) {
+            return StandardCharsets.UTF_8.decode(content).toString();
+        }
         final byte[] bytes = request.getBody();
         if (bytes != null) {
             return new String(bytes, StandardCharsets.UTF_8);
@@ -29,6 +29,7 @@
 package com.azure.android.core.util;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
@@ -42,12 +43,67 @@ public final class CancellationToken {
         = AtomicReferenceFieldUpdater.newUpdater(CancellationToken.class,  OnCancelNode.class, "onCancelNodes");
     // Ensures side-effect of app calling cancel() happens only once.
     private final AtomicBoolean isCancelled = new AtomicBoolean(false);
+    // Source of the ids that the child tokens are registered with on their parent.
+    private static final AtomicLong CHILD_ID_SEQUENCE = new AtomicLong(0);
+    // The token this token is a child of, if any.
+    private final CancellationToken parent;
+    // The id of the onCancel Callback cancelling this token, registered on the parent.
+    private final String parentOnCancelId;
 
     /**
      * An empty CancellationToken that cannot be cancelled.
      */
     public static final CancellationToken NONE = new CancellationToken();
 
+    /**
+     * Creates a CancellationToken.
+     */
+    public CancellationToken() {
+        this(null, null);
+    }
+
+    private CancellationToken(CancellationToken parent, String parentOnCancelId) {
+        this.parent = parent;
+        this.parentOnCancelId = parentOnCancelId;
+    }
+
+    /**
+     * Creates a child token that is cancelled when this token is cancelled, but whose own cancellation does
+     * not cancel this token; e.g. to cancel one attempt of an operation without cancelling the operation.
+     *
+     * The child stays registered on this token until the child is cancelled or
+     * {@link CancellationToken#detachFromParent()} is called. A child of a cancelled token is created cancelled,
+     * and a child of {@link CancellationToken#NONE} is cancelled only on its own.
+     *
+     * @return The child token.
+     */
+    public CancellationToken createChild() {
+        if (this == CancellationToken.NONE) {
+            return new CancellationToken();
+        }
+        final CancellationToken child
+            = new CancellationToken(this, "child-" + CHILD_ID_SEQUENCE.incrementAndGet());
+        this.registerOnCancel(child.parentOnCancelId, new Runnable() {
+            @Override
+            public void run() {
+                child.cancel();
+            }
+        });
+        return child;
+    }
+
+    /**
+     * Stops propagating the cancellation of the parent token to this token, if this token was created with
+     * {@link CancellationToken#createChild()}, so that the parent does not keep a reference to it.
+     *
+     * This should be called once the operation using this token completes, when the parent outlives it.
+     */
+    public void detachFromParent() {
+        if (this.parent != null) {
+            this.parent.unregisterOnCancel(this.parentOnCancelId);
+        }
+    }
+
     /**
      * Communicates a request for cancellation.
      */
@@ -56,6 +112,7 @@ public final class CancellationToken {
             return;
         }
         if (this.isCancelled.compareAndSet(false, true)) {
+            this.detachFromParent();
             this.invokeCallbacks();
         }
     }
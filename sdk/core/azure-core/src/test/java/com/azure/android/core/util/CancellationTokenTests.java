@@ -0,0 +1,77 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CancellationTokenTests {
+    @Test
+    public void cancelInvokesCallbacksOnce() {
+        final CancellationToken token = new CancellationToken();
+        final AtomicInteger invocations = new AtomicInteger();
+        token.registerOnCancel(invocations::incrementAndGet);
+        token.registerOnCancel("id", invocations::incrementAndGet);
+        token.cancel();
+        token.cancel();
+        assertTrue(token.isCancellationRequested());
+        assertEquals(2, invocations.get());
+
+        // Registering on a cancelled token invokes the callback immediately.
+        token.registerOnCancel(invocations::incrementAndGet);
+        assertEquals(3, invocations.get());
+    }
+
+    @Test
+    public void parentCancellationCancelsChild() {
+        final CancellationToken parent = new CancellationToken();
+        final CancellationToken child = parent.createChild();
+        final CancellationToken grandChild = child.createChild();
+        final AtomicInteger invocations = new AtomicInteger();
+        grandChild.registerOnCancel(invocations::incrementAndGet);
+
+        parent.cancel();
+        assertTrue(child.isCancellationRequested());
+        assertTrue(grandChild.isCancellationRequested());
+        assertEquals(1, invocations.get());
+        assertTrue(parent.createChild().isCancellationRequested());
+    }
+
+    @Test
+    public void childCancellationDoesNotCancelParent() {
+        final CancellationToken parent = new CancellationToken();
+        final CancellationToken child = parent.createChild();
+        final CancellationToken sibling = parent.createChild();
+
+        child.cancel();
+        assertTrue(child.isCancellationRequested());
+        assertFalse(parent.isCancellationRequested());
+        assertFalse(sibling.isCancellationRequested());
+    }
+
+    @Test
+    public void detachedChildIsNotCancelledByParent() {
+        final CancellationToken parent = new CancellationToken();
+        final CancellationToken child = parent.createChild();
+        child.detachFromParent();
+
+        parent.cancel();
+        assertFalse(child.isCancellationRequested());
+        child.cancel();
+        assertTrue(child.isCancellationRequested());
+    }
+
+    @Test
+    public void childOfNoneCanBeCancelled() {
+        final CancellationToken child = CancellationToken.NONE.createChild();
+        child.cancel();
+        assertTrue(child.isCancellationRequested());
+        assertFalse(CancellationToken.NONE.isCancellationRequested());
+    }
+}